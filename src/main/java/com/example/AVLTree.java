@@ -1,162 +1,674 @@
 package com.example;
 
-public class AVLTree<T extends Comparable<T>> extends BalancedBinaryTree<T> {
-    private static class AVLNode<T> extends Node<T> {
-        int height;
+import com.example.TreeRecorder.Operation;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * AVL tree with non-recursive insert and delete. Each node keeps its balance factor and the size of
+ * its subtree; the path from the root is recorded on the way down, and retracing walks it back up
+ * only while the height of the subtree just updated has changed. The sizes give O(1) {@link #size()}
+ * and O(log n) {@link #rank}, {@link #select} and {@link #countInRange}.
+ */
+public class AVLTree<T extends Comparable<T>> extends OrderedTree<T> {
+    /** Upper bound on the height of an AVL tree with up to 2^31 nodes (about 1.44 * 31). */
+    private static final int MAX_HEIGHT = 64;
+
+    static class AVLNode<T> extends Node<T> {
+        byte balance; // height(right) - height(left), always -1, 0 or 1 between operations
 
         AVLNode(T data) {
             super(data);
-            height = 1;
         }
     }
 
+    // Nodes from the root down to the parent of the node being inserted or removed, and the side
+    // taken at each of them.
+    @SuppressWarnings("unchecked")
+    private final AVLNode<T>[] path = (AVLNode<T>[]) new AVLNode[MAX_HEIGHT];
+    private final boolean[] wentLeft = new boolean[MAX_HEIGHT];
+
     @Override
     public void insert(T data) {
-        root = insert((AVLNode<T>) root, data);
+        insertNode(data);
     }
 
-    private AVLNode<T> insert(AVLNode<T> node, T data) {
-        if (node == null) {
-            return new AVLNode<>(data);
+    AVLNode<T> newNode(T data) {
+        return new AVLNode<>(data);
+    }
+
+    @Override
+    AVLNode<T> insertNode(T data) {
+        if (root == null) {
+            AVLNode<T> leaf = newNode(data);
+            root = leaf;
+            if (fingerSearch) {
+                path[0] = leaf;
+                fingerDepth = 1;
+            }
+            recorder.operation(Operation.INSERT, 0, 0, 0, 0);
+            return leaf;
         }
 
-        if (data.compareTo(node.data) < 0) {
-            node.left = insert((AVLNode<T>) node.left, data);
-        } else if (data.compareTo(node.data) > 0) {
-            node.right = insert((AVLNode<T>) node.right, data);
-        } else {
-            return node; // Duplicate data not allowed
+        // With a finger, path[0..start) and wentLeft[0..start) are still those of the last insert.
+        int start = fingerSearch ? fingerLevel(data) : 0;
+        AVLNode<T> node = start == 0 ? (AVLNode<T>) root : path[start];
+        AVLNode<T> leaf;
+        int depth = start;
+        while (true) {
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                if (fingerSearch) {
+                    path[depth] = node;
+                    setFingerBounds(path, start + 1, depth + 1);
+                }
+                recorder.operation(Operation.INSERT, depth - start + 1, depth + 1, 0, 0);
+                return node; // Duplicate data not allowed
+            }
+            path[depth] = node;
+            wentLeft[depth++] = cmp < 0;
+            Node<T> next = cmp < 0 ? node.left : node.right;
+            if (next == null) {
+                leaf = newNode(data);
+                if (cmp < 0) {
+                    node.left = leaf;
+                } else {
+                    node.right = leaf;
+                }
+                break;
+            }
+            node = (AVLNode<T>) next;
+        }
+        for (int i = 0; i < depth; i++) {
+            path[i].size++;
         }
 
-        node.height = 1 + Math.max(height((AVLNode<T>) node.left), height((AVLNode<T>) node.right));
-        return balance(node);
+        // The subtree on side wentLeft[i] of path[i] is one level taller than before.
+        int i = depth - 1;
+        AVLNode<T> rotated = null;
+        for (; i >= 0; i--) {
+            AVLNode<T> current = path[i];
+            int balance = current.balance + (wentLeft[i] ? -1 : 1);
+            if (balance == 0) {
+                current.balance = 0;
+                break;
+            }
+            if (balance == 1 || balance == -1) {
+                current.balance = (byte) balance;
+                continue;
+            }
+            // A rotation after an insert restores the subtree's previous height.
+            rotated = rebalance(current, balance);
+            replaceChild(i, rotated);
+            break;
+        }
+        if (fingerSearch) {
+            // Above a rotation the path is unchanged, and the rotated subtree holds the same keys.
+            if (rotated != null) {
+                path[i] = rotated;
+                setFingerBounds(path, start + 1, i + 1);
+            } else {
+                path[depth] = leaf;
+                setFingerBounds(path, start + 1, depth + 1);
+            }
+        }
+        recorder.operation(Operation.INSERT, depth - start, depth, depth - Math.max(i, 0), depth);
+        return leaf;
     }
 
-    private AVLNode<T> balance(AVLNode<T> node) {
-        int balanceFactor = getBalanceFactor(node);
+    @Override
+    public void delete(T data) {
+        deleteNode(data);
+    }
 
-        if (balanceFactor > 1) {
-            if (getBalanceFactor((AVLNode<T>) node.left) >= 0) {
-                return rotateRight(node);
-            } else {
-                node.left = rotateLeft((AVLNode<T>) node.left);
-                return rotateRight(node);
+    @Override
+    Node<T> deleteNode(T data) {
+        fingerDepth = 0; // The descent below overwrites the path
+        Node<T> node = root;
+        int depth = 0;
+        while (node != null) {
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                break;
             }
+            path[depth] = (AVLNode<T>) node;
+            wentLeft[depth++] = cmp < 0;
+            node = cmp < 0 ? node.left : node.right;
+        }
+        if (node == null) {
+            recorder.operation(Operation.DELETE, depth, depth, 0, 0);
+            return null;
         }
+        int comparisons = depth + 1;
 
-        if (balanceFactor < -1) {
-            if (getBalanceFactor((AVLNode<T>) node.right) <= 0) {
-                return rotateLeft(node);
-            } else {
-                node.right = rotateRight((AVLNode<T>) node.right);
-                return rotateLeft(node);
+        if (node.left != null && node.right != null) {
+            // Move the in-order successor's data up and remove the successor instead, which takes the
+            // deleted data with it.
+            path[depth] = (AVLNode<T>) node;
+            wentLeft[depth++] = false;
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                path[depth] = (AVLNode<T>) successor;
+                wentLeft[depth++] = true;
+                successor = successor.left;
             }
+            node.swapData(successor);
+            node = successor;
+        }
+        replaceChild(depth, node.left != null ? node.left : node.right);
+        for (int i = 0; i < depth; i++) {
+            path[i].size--;
         }
 
+        // The subtree on side wentLeft[i] of path[i] is one level shorter than before.
+        int i = depth - 1;
+        for (; i >= 0; i--) {
+            AVLNode<T> current = path[i];
+            int balance = current.balance + (wentLeft[i] ? 1 : -1);
+            if (balance == 1 || balance == -1) {
+                current.balance = (byte) balance;
+                break;
+            }
+            if (balance == 0) {
+                current.balance = 0;
+                continue;
+            }
+            AVLNode<T> subtree = rebalance(current, balance);
+            replaceChild(i, subtree);
+            if (subtree.balance != 0) {
+                break; // The rotation kept the subtree's height
+            }
+        }
+        recorder.operation(Operation.DELETE, comparisons, depth + 1, depth - Math.max(i, 0), depth);
         return node;
     }
 
-    private AVLNode<T> rotateRight(AVLNode<T> y) {
-        AVLNode<T> x = (AVLNode<T>) y.left;
-        AVLNode<T> T2 = (AVLNode<T>) x.right;
-
-        x.right = y;
-        y.left = T2;
+    /**
+     * Links {@code subtree} where {@code path[level]} used to hang, i.e. below {@code path[level - 1]}.
+     */
+    private void replaceChild(int level, Node<T> subtree) {
+        if (level == 0) {
+            root = subtree;
+        } else if (wentLeft[level - 1]) {
+            path[level - 1].left = subtree;
+        } else {
+            path[level - 1].right = subtree;
+        }
+    }
 
-        y.height = Math.max(height((AVLNode<T>) y.left), height((AVLNode<T>) y.right)) + 1;
-        x.height = Math.max(height((AVLNode<T>) x.left), height((AVLNode<T>) x.right)) + 1;
+    private AVLNode<T> rebalance(AVLNode<T> node, int balance) {
+        if (balance > 0) {
+            AVLNode<T> right = (AVLNode<T>) node.right;
+            recorder.rotation(right.balance < 0);
+            return right.balance >= 0 ? rotateLeft(node, right) : rotateRightLeft(node, right);
+        } else {
+            AVLNode<T> left = (AVLNode<T>) node.left;
+            recorder.rotation(left.balance > 0);
+            return left.balance <= 0 ? rotateRight(node, left) : rotateLeftRight(node, left);
+        }
+    }
 
-        return x;
+    private AVLNode<T> rotateLeft(AVLNode<T> x, AVLNode<T> z) {
+        x.right = z.left;
+        z.left = x;
+        z.size = x.size;
+        x.size = 1 + size(x.left) + size(x.right);
+        if (z.balance == 0) { // Only after a delete
+            x.balance = 1;
+            z.balance = -1;
+        } else {
+            x.balance = 0;
+            z.balance = 0;
+        }
+        return z;
     }
 
-    private AVLNode<T> rotateLeft(AVLNode<T> x) {
-        AVLNode<T> y = (AVLNode<T>) x.right;
-        AVLNode<T> T2 = (AVLNode<T>) y.left;
+    private AVLNode<T> rotateRight(AVLNode<T> x, AVLNode<T> z) {
+        x.left = z.right;
+        z.right = x;
+        z.size = x.size;
+        x.size = 1 + size(x.left) + size(x.right);
+        if (z.balance == 0) { // Only after a delete
+            x.balance = -1;
+            z.balance = 1;
+        } else {
+            x.balance = 0;
+            z.balance = 0;
+        }
+        return z;
+    }
 
+    private AVLNode<T> rotateRightLeft(AVLNode<T> x, AVLNode<T> z) {
+        AVLNode<T> y = (AVLNode<T>) z.left;
+        z.left = y.right;
+        y.right = z;
+        x.right = y.left;
         y.left = x;
-        x.right = T2;
-
-        x.height = Math.max(height((AVLNode<T>) x.left), height((AVLNode<T>) x.right)) + 1;
-        y.height = Math.max(height((AVLNode<T>) y.left), height((AVLNode<T>) y.right)) + 1;
+        y.size = x.size;
+        x.size = 1 + size(x.left) + size(x.right);
+        z.size = 1 + size(z.left) + size(z.right);
+        x.balance = (byte) (y.balance > 0 ? -1 : 0);
+        z.balance = (byte) (y.balance < 0 ? 1 : 0);
+        y.balance = 0;
+        return y;
+    }
 
+    private AVLNode<T> rotateLeftRight(AVLNode<T> x, AVLNode<T> z) {
+        AVLNode<T> y = (AVLNode<T>) z.right;
+        z.right = y.left;
+        y.left = z;
+        x.left = y.right;
+        y.right = x;
+        y.size = x.size;
+        x.size = 1 + size(x.left) + size(x.right);
+        z.size = 1 + size(z.left) + size(z.right);
+        x.balance = (byte) (y.balance < 0 ? 1 : 0);
+        z.balance = (byte) (y.balance > 0 ? -1 : 0);
+        y.balance = 0;
         return y;
     }
 
-    private int getBalanceFactor(AVLNode<T> node) {
-        if (node == null) {
-            return 0;
+    /**
+     * Builds a perfectly balanced tree from the sorted keys in linear time, without rotations.
+     */
+    @Override
+    public void buildFromSorted(List<? extends T> sorted) {
+        Object[] keys = toStrictlyAscendingArray(sorted);
+        root = build(keys, 0, keys.length);
+        fingerDepth = 0;
+    }
+
+    private AVLNode<T> build(Object[] keys, int from, int to) {
+        if (from >= to) {
+            return null;
         }
-        return height((AVLNode<T>) node.left) - height((AVLNode<T>) node.right);
+        int mid = (from + to) >>> 1;
+        @SuppressWarnings("unchecked")
+        AVLNode<T> node = newNode((T) keys[mid]);
+        node.left = build(keys, from, mid);
+        node.right = build(keys, mid + 1, to);
+        node.balance = (byte) (balancedHeight(to - mid - 1) - balancedHeight(mid - from));
+        node.size = to - from;
+        return node;
     }
 
-    @Override
-    public int height() {
-        return height((AVLNode<T>) root);
+    /**
+     * Moves every key of {@code right} into this tree in O(log n) time. All keys of {@code right} must
+     * be greater than all keys of this tree; {@code right} is left empty.
+     *
+     * @throws IllegalArgumentException if the key ranges overlap
+     */
+    public void join(AVLTree<T> right) {
+        if (right.root == null) {
+            return;
+        }
+        if (root != null) {
+            Node<T> max = root;
+            while (max.right != null) {
+                max = max.right;
+            }
+            Node<T> min = right.root;
+            while (min.left != null) {
+                min = min.left;
+            }
+            if (max.data.compareTo(min.data) >= 0) {
+                throw new IllegalArgumentException("Keys of the right tree must be greater than all keys");
+            }
+        }
+        root = join2(root, height(), right.root, right.height()).root;
+        fingerDepth = 0;
+        right.clear();
     }
 
-    private int height(AVLNode<T> node) {
-        if (node == null) {
-            return 0;
+    @Override
+    void append(OrderedTree<T> right) {
+        if (right instanceof AVLTree) {
+            join((AVLTree<T>) right);
+        } else {
+            super.append(right);
         }
-        return node.height;
     }
 
+    /**
+     * Splits this tree at {@code key} in O(log n) time: keys smaller than {@code key} stay in this
+     * tree, and the others are moved into the returned tree.
+     */
     @Override
-    public void delete(T data) {
-        root = delete((AVLNode<T>) root, data);
+    public AVLTree<T> split(T key) {
+        Split<T> split = split(root, height(), key);
+        AVLTree<T> right = new AVLTree<>();
+        root = split.left.root;
+        fingerDepth = 0;
+        right.root = split.found == null
+            ? split.right.root
+            : join(null, 0, split.found, split.right.root, split.right.height).root;
+        return right;
     }
 
-    private AVLNode<T> delete(AVLNode<T> node, T data) {
-        if (node == null) {
-            return null;
+    /**
+     * Adds every key of {@code other} to this tree, running on the common fork/join pool. Takes
+     * O(m log(n/m + 1)) work for trees of sizes m &lt;= n. {@code other} is left empty, as its nodes
+     * are reused.
+     */
+    public void union(AVLTree<T> other) {
+        union(other, ForkJoinPool.commonPool());
+    }
+
+    public void union(AVLTree<T> other, ForkJoinPool pool) {
+        apply(SetOperation.UNION, other, pool);
+    }
+
+    /**
+     * Keeps only the keys that are also in {@code other}. {@code other} is left empty.
+     */
+    public void intersection(AVLTree<T> other) {
+        intersection(other, ForkJoinPool.commonPool());
+    }
+
+    public void intersection(AVLTree<T> other, ForkJoinPool pool) {
+        apply(SetOperation.INTERSECTION, other, pool);
+    }
+
+    /**
+     * Removes every key of {@code other} from this tree. {@code other} is left empty.
+     */
+    public void difference(AVLTree<T> other) {
+        difference(other, ForkJoinPool.commonPool());
+    }
+
+    public void difference(AVLTree<T> other, ForkJoinPool pool) {
+        apply(SetOperation.DIFFERENCE, other, pool);
+    }
+
+    private void apply(SetOperation operation, AVLTree<T> other, ForkJoinPool pool) {
+        if (other == this) {
+            if (operation == SetOperation.DIFFERENCE) {
+                clear();
+            }
+            return;
+        }
+        root = pool.invoke(new SetOperationTask<>(operation, root, height(), other.root, other.height())).root;
+        fingerDepth = 0;
+        other.clear();
+    }
+
+    // Join-based algorithms after Blelloch, Ferizovic and Sun, "Just Join for Parallel Ordered Sets".
+    // Nodes only store balance factors, so every subtree is passed around together with its height;
+    // the heights of the children follow from it and the node's balance factor.
+
+    /** Below this height both operands are processed on the current thread. */
+    private static final int PARALLEL_HEIGHT = 12;
+
+    private enum SetOperation {
+        UNION, INTERSECTION, DIFFERENCE
+    }
+
+    private static final class Subtree<T> {
+        final Node<T> root;
+        final int height;
+
+        Subtree(Node<T> root, int height) {
+            this.root = root;
+            this.height = height;
+        }
+    }
+
+    private static final class Split<T> {
+        Subtree<T> left;
+        AVLNode<T> found;
+        Subtree<T> right;
+    }
+
+    private static final class SetOperationTask<T extends Comparable<T>> extends RecursiveTask<Subtree<T>> {
+        private final SetOperation operation;
+        private final Node<T> a;
+        private final int aHeight;
+        private final Node<T> b;
+        private final int bHeight;
+
+        SetOperationTask(SetOperation operation, Node<T> a, int aHeight, Node<T> b, int bHeight) {
+            this.operation = operation;
+            this.a = a;
+            this.aHeight = aHeight;
+            this.b = b;
+            this.bHeight = bHeight;
+        }
+
+        @Override
+        protected Subtree<T> compute() {
+            return apply(operation, a, aHeight, b, bHeight);
+        }
+    }
+
+    private static <T extends Comparable<T>> Subtree<T> apply(SetOperation operation, Node<T> a, int aHeight,
+                                                              Node<T> b, int bHeight) {
+        if (a == null) {
+            return operation == SetOperation.UNION ? new Subtree<>(b, bHeight) : new Subtree<>(null, 0);
         }
+        if (b == null) {
+            return operation == SetOperation.INTERSECTION ? new Subtree<>(null, 0) : new Subtree<>(a, aHeight);
+        }
+
+        AVLNode<T> pivot = (AVLNode<T>) b;
+        Node<T> bLeft = pivot.left;
+        Node<T> bRight = pivot.right;
+        int bLeftHeight = leftHeight(pivot, bHeight);
+        int bRightHeight = rightHeight(pivot, bHeight);
+        Split<T> split = split(a, aHeight, pivot.data);
 
-        if (data.compareTo(node.data) < 0) {
-            node.left = delete((AVLNode<T>) node.left, data);
-        } else if (data.compareTo(node.data) > 0) {
-            node.right = delete((AVLNode<T>) node.right, data);
+        Subtree<T> left;
+        Subtree<T> right;
+        if (Math.min(aHeight, bHeight) >= PARALLEL_HEIGHT) {
+            SetOperationTask<T> leftTask =
+                new SetOperationTask<>(operation, split.left.root, split.left.height, bLeft, bLeftHeight);
+            leftTask.fork();
+            right = apply(operation, split.right.root, split.right.height, bRight, bRightHeight);
+            left = leftTask.join();
         } else {
-            if (node.left == null || node.right == null) {
-                node = (node.left == null) ? (AVLNode<T>) node.right : (AVLNode<T>) node.left;
-            } else {
-                AVLNode<T> temp = minValueNode((AVLNode<T>) node.right);
-                node.data = temp.data;
-                node.right = delete((AVLNode<T>) node.right, temp.data);
-            }
+            left = apply(operation, split.left.root, split.left.height, bLeft, bLeftHeight);
+            right = apply(operation, split.right.root, split.right.height, bRight, bRightHeight);
         }
 
+        if (operation == SetOperation.UNION) {
+            return join(left.root, left.height, pivot, right.root, right.height);
+        }
+        if (operation == SetOperation.INTERSECTION && split.found != null) {
+            return join(left.root, left.height, split.found, right.root, right.height);
+        }
+        return join2(left.root, left.height, right.root, right.height);
+    }
+
+    private static <T extends Comparable<T>> Split<T> split(Node<T> node, int height, T key) {
         if (node == null) {
-            return null;
+            Split<T> split = new Split<>();
+            split.left = new Subtree<>(null, 0);
+            split.right = split.left;
+            return split;
         }
+        AVLNode<T> n = (AVLNode<T>) node;
+        Node<T> left = n.left;
+        Node<T> right = n.right;
+        int leftHeight = leftHeight(n, height);
+        int rightHeight = rightHeight(n, height);
+        int cmp = key.compareTo(n.data);
+        if (cmp == 0) {
+            Split<T> split = new Split<>();
+            split.left = new Subtree<>(left, leftHeight);
+            split.found = n;
+            split.right = new Subtree<>(right, rightHeight);
+            return split;
+        }
+        if (cmp < 0) {
+            Split<T> split = split(left, leftHeight, key);
+            split.right = join(split.right.root, split.right.height, n, right, rightHeight);
+            return split;
+        }
+        Split<T> split = split(right, rightHeight, key);
+        split.left = join(left, leftHeight, n, split.left.root, split.left.height);
+        return split;
+    }
 
-        node.height = 1 + Math.max(height((AVLNode<T>) node.left), height((AVLNode<T>) node.right));
-        return balance(node);
+    /**
+     * Removes the largest node of a non-empty subtree: {@code left} holds the rest, {@code found} the
+     * removed node.
+     */
+    private static <T> Split<T> splitLast(Node<T> node, int height) {
+        AVLNode<T> n = (AVLNode<T>) node;
+        Node<T> left = n.left;
+        int leftHeight = leftHeight(n, height);
+        if (n.right == null) {
+            Split<T> split = new Split<>();
+            split.left = new Subtree<>(left, leftHeight);
+            split.found = n;
+            return split;
+        }
+        Split<T> split = splitLast(n.right, rightHeight(n, height));
+        split.left = join(left, leftHeight, n, split.left.root, split.left.height);
+        return split;
     }
 
-    private AVLNode<T> minValueNode(AVLNode<T> node) {
-        AVLNode<T> current = node;
-        while (current.left != null) {
-            current = (AVLNode<T>) current.left;
+    /**
+     * Concatenates two subtrees where every key of {@code left} is smaller than every key of
+     * {@code right}.
+     */
+    private static <T> Subtree<T> join2(Node<T> left, int leftHeight, Node<T> right, int rightHeight) {
+        if (left == null) {
+            return new Subtree<>(right, rightHeight);
+        }
+        if (right == null) {
+            return new Subtree<>(left, leftHeight);
         }
-        return current;
+        Split<T> split = splitLast(left, leftHeight);
+        return join(split.left.root, split.left.height, split.found, right, rightHeight);
     }
 
-    @Override
-    public boolean contains(T data) {
-        return contains(root, data);
+    /**
+     * Joins {@code left}, the single node {@code middle} and {@code right}, whose keys are in that
+     * order, into one AVL tree in O(|leftHeight - rightHeight|) time.
+     */
+    private static <T> Subtree<T> join(Node<T> left, int leftHeight, AVLNode<T> middle, Node<T> right,
+                                       int rightHeight) {
+        if (leftHeight > rightHeight + 1) {
+            return joinRight(left, leftHeight, middle, right, rightHeight);
+        }
+        if (rightHeight > leftHeight + 1) {
+            return joinLeft(left, leftHeight, middle, right, rightHeight);
+        }
+        return new Subtree<>(middle, link(left, leftHeight, middle, right, rightHeight));
     }
 
-    private boolean contains(Node<T> node, T data) {
-        if (node == null) {
-            return false;
+    /**
+     * Walks down the right spine of the taller {@code left} to where {@code right} fits, rotating on the
+     * way back up where the new subtree is two levels taller than its sibling.
+     */
+    private static <T> Subtree<T> joinRight(Node<T> left, int leftHeight, AVLNode<T> middle, Node<T> right,
+                                            int rightHeight) {
+        AVLNode<T> a = (AVLNode<T>) left;
+        Node<T> aLeft = a.left;
+        Node<T> c = a.right;
+        int aLeftHeight = leftHeight(a, leftHeight);
+        int cHeight = rightHeight(a, leftHeight);
+        if (cHeight <= rightHeight + 1) {
+            int joinedHeight = link(c, cHeight, middle, right, rightHeight);
+            if (joinedHeight <= aLeftHeight + 1) {
+                return new Subtree<>(a, link(aLeft, aLeftHeight, a, middle, joinedHeight));
+            }
+            Subtree<T> rotated = rotateRight(middle, joinedHeight);
+            return rotateLeft(a, link(aLeft, aLeftHeight, a, rotated.root, rotated.height));
         }
+        Subtree<T> joined = joinRight(c, cHeight, middle, right, rightHeight);
+        int height = link(aLeft, aLeftHeight, a, joined.root, joined.height);
+        return joined.height <= aLeftHeight + 1 ? new Subtree<>(a, height) : rotateLeft(a, height);
+    }
 
-        if (data.compareTo(node.data) < 0) {
-            return contains(node.left, data);
-        } else if (data.compareTo(node.data) > 0) {
-            return contains(node.right, data);
-        } else {
-            return true;
+    private static <T> Subtree<T> joinLeft(Node<T> left, int leftHeight, AVLNode<T> middle, Node<T> right,
+                                           int rightHeight) {
+        AVLNode<T> a = (AVLNode<T>) right;
+        Node<T> aRight = a.right;
+        Node<T> c = a.left;
+        int aRightHeight = rightHeight(a, rightHeight);
+        int cHeight = leftHeight(a, rightHeight);
+        if (cHeight <= leftHeight + 1) {
+            int joinedHeight = link(left, leftHeight, middle, c, cHeight);
+            if (joinedHeight <= aRightHeight + 1) {
+                return new Subtree<>(a, link(middle, joinedHeight, a, aRight, aRightHeight));
+            }
+            Subtree<T> rotated = rotateLeft(middle, joinedHeight);
+            return rotateRight(a, link(rotated.root, rotated.height, a, aRight, aRightHeight));
+        }
+        Subtree<T> joined = joinLeft(left, leftHeight, middle, c, cHeight);
+        int height = link(joined.root, joined.height, a, aRight, aRightHeight);
+        return joined.height <= aRightHeight + 1 ? new Subtree<>(a, height) : rotateRight(a, height);
+    }
+
+    /**
+     * Rotation for the join algorithms, where {@code x} (of the given height) may be out of balance by
+     * any amount. Returns the new subtree root with its height.
+     */
+    private static <T> Subtree<T> rotateLeft(AVLNode<T> x, int height) {
+        AVLNode<T> z = (AVLNode<T>) x.right;
+        int zHeight = rightHeight(x, height);
+        int xHeight = link(x.left, leftHeight(x, height), x, z.left, leftHeight(z, zHeight));
+        return new Subtree<>(z, link(x, xHeight, z, z.right, rightHeight(z, zHeight)));
+    }
+
+    private static <T> Subtree<T> rotateRight(AVLNode<T> x, int height) {
+        AVLNode<T> z = (AVLNode<T>) x.left;
+        int zHeight = leftHeight(x, height);
+        int xHeight = link(z.right, rightHeight(z, zHeight), x, x.right, rightHeight(x, height));
+        return new Subtree<>(z, link(z.left, leftHeight(z, zHeight), z, x, xHeight));
+    }
+
+    /**
+     * Makes {@code left} and {@code right} the children of {@code node} and returns its height.
+     */
+    private static <T> int link(Node<T> left, int leftHeight, AVLNode<T> node, Node<T> right, int rightHeight) {
+        node.left = left;
+        node.right = right;
+        node.size = 1 + size(left) + size(right);
+        node.balance = (byte) (rightHeight - leftHeight);
+        return Math.max(leftHeight, rightHeight) + 1;
+    }
+
+    private static int leftHeight(AVLNode<?> node, int height) {
+        return node.balance > 0 ? height - 1 - node.balance : height - 1;
+    }
+
+    private static int rightHeight(AVLNode<?> node, int height) {
+        return node.balance < 0 ? height - 1 + node.balance : height - 1;
+    }
+
+
+    /**
+     * Follows the taller child from the root, which takes O(log n) steps.
+     */
+    @Override
+    public int height() {
+        int height = 0;
+        Node<T> node = root;
+        while (node != null) {
+            height++;
+            node = ((AVLNode<T>) node).balance < 0 ? node.left : node.right;
+        }
+        return height;
+    }
+
+    @Override
+    public boolean contains(T data) {
+        Node<T> node = fingerSearch && fingerDepth > 1 ? path[fingerLevel(data)] : root;
+        int visited = 0;
+        while (node != null) {
+            visited++;
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                recorder.operation(Operation.CONTAINS, visited, visited, 0, 0);
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
         }
+        recorder.operation(Operation.CONTAINS, visited, visited, 0, 0);
+        return false;
     }
-} 
\ No newline at end of file
+}
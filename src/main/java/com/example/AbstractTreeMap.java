@@ -0,0 +1,712 @@
+package com.example;
+
+import com.example.BalancedBinaryTree.Node;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.function.Function;
+
+/**
+ * {@link NavigableMap} on top of an {@link OrderedTree} whose nodes double as the map's entries, so
+ * {@code get}, {@code put} and {@code remove} each take one descent. Keys are ordered by their
+ * natural order and must not be null; values may be null.
+ *
+ * <p>The same class serves as the sub-map and descending views: a view shares the tree of the map it
+ * came from and limits every operation to its key range. Sizes of views are counted with the order
+ * statistics of the tree in O(log n). Iterators are fail-fast.
+ */
+public abstract class AbstractTreeMap<K extends Comparable<K>, V> extends AbstractMap<K, V>
+        implements NavigableMap<K, V> {
+    final OrderedTree<K> tree;
+    // The map the tree belongs to; holds the modification count for all views
+    private final AbstractTreeMap<K, V> base;
+    private int modCount;
+
+    // Key range of a view, in ascending order whatever the direction
+    private final boolean hasLow;
+    private final K low;
+    private final boolean lowInclusive;
+    private final boolean hasHigh;
+    private final K high;
+    private final boolean highInclusive;
+    private final boolean descending;
+
+    private NavigableSet<K> keySet;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Creates an empty map. {@code tree} must create nodes that implement {@link Map.Entry}.
+     */
+    protected AbstractTreeMap(OrderedTree<K> tree) {
+        this.tree = tree;
+        this.base = this;
+        this.hasLow = false;
+        this.low = null;
+        this.lowInclusive = false;
+        this.hasHigh = false;
+        this.high = null;
+        this.highInclusive = false;
+        this.descending = false;
+    }
+
+    private AbstractTreeMap(AbstractTreeMap<K, V> base, boolean hasLow, K low, boolean lowInclusive,
+                            boolean hasHigh, K high, boolean highInclusive, boolean descending) {
+        this.tree = base.tree;
+        this.base = base;
+        this.hasLow = hasLow;
+        this.low = low;
+        this.lowInclusive = lowInclusive;
+        this.hasHigh = hasHigh;
+        this.high = high;
+        this.highInclusive = highInclusive;
+        this.descending = descending;
+    }
+
+    private static final class View<K extends Comparable<K>, V> extends AbstractTreeMap<K, V> {
+        View(AbstractTreeMap<K, V> base, boolean hasLow, K low, boolean lowInclusive, boolean hasHigh, K high,
+             boolean highInclusive, boolean descending) {
+            super(base, hasLow, low, lowInclusive, hasHigh, high, highInclusive, descending);
+        }
+    }
+
+    // Point operations
+
+    @Override
+    public int size() {
+        if (!hasLow && !hasHigh) {
+            return tree.size();
+        }
+        int below = hasHigh ? tree.rank(high, highInclusive) : tree.size();
+        int belowLow = hasLow ? tree.rank(low, !lowInclusive) : 0;
+        return Math.max(0, below - belowLow);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return getEntry(key) != null;
+    }
+
+    @Override
+    public V get(Object key) {
+        Map.Entry<K, V> entry = getEntry(key);
+        return entry == null ? null : entry.getValue();
+    }
+
+    @Override
+    public V put(K key, V value) {
+        checkInRange(key);
+        int size = tree.size();
+        Map.Entry<K, V> entry = entry(tree.insertNode(key));
+        if (tree.size() != size) {
+            base.modCount++;
+        }
+        return entry.setValue(value);
+    }
+
+    @Override
+    public V remove(Object key) {
+        K k = toKey(key);
+        if (!inRange(k)) {
+            return null;
+        }
+        Node<K> node = tree.deleteNode(k);
+        if (node == null) {
+            return null;
+        }
+        base.modCount++;
+        return entry(node).getValue();
+    }
+
+    /**
+     * Runs {@code mappingFunction} before inserting the key, so the key is absent while it runs and
+     * stays absent if it throws. A present key costs one descent and an absent one two.
+     *
+     * @throws ConcurrentModificationException if {@code mappingFunction} modifies this map
+     */
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        Objects.requireNonNull(mappingFunction);
+        checkInRange(key);
+        Node<K> node = tree.getNode(key);
+        if (node != null && entry(node).getValue() != null) {
+            return entry(node).getValue();
+        }
+        int expectedModCount = base.modCount;
+        V value = mappingFunction.apply(key);
+        if (base.modCount != expectedModCount) {
+            throw new ConcurrentModificationException();
+        }
+        if (value == null) {
+            return null;
+        }
+        if (node == null) {
+            node = tree.insertNode(key);
+            base.modCount++;
+        }
+        entry(node).setValue(value);
+        return value;
+    }
+
+    @Override
+    public void clear() {
+        if (!hasLow && !hasHigh) {
+            tree.clear();
+            base.modCount++;
+        } else {
+            for (Iterator<K> it = keyIterator(); it.hasNext(); ) {
+                it.next();
+                it.remove();
+            }
+        }
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return descending ? Comparator.reverseOrder() : null;
+    }
+
+    // Navigation, in the order of this view
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return export(first());
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return export(last());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return poll(first());
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return poll(last());
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return export(descending ? absHigher(key) : absLower(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return export(descending ? absCeiling(key) : absFloor(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return export(descending ? absFloor(key) : absCeiling(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return export(descending ? absLower(key) : absHigher(key));
+    }
+
+    @Override
+    public K firstKey() {
+        return keyOrThrow(first());
+    }
+
+    @Override
+    public K lastKey() {
+        return keyOrThrow(last());
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOf(descending ? absHigher(key) : absLower(key));
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOf(descending ? absCeiling(key) : absFloor(key));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOf(descending ? absFloor(key) : absCeiling(key));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOf(descending ? absLower(key) : absHigher(key));
+    }
+
+    private Node<K> first() {
+        return descending ? absHighest() : absLowest();
+    }
+
+    private Node<K> last() {
+        return descending ? absLowest() : absHighest();
+    }
+
+    private Map.Entry<K, V> poll(Node<K> node) {
+        if (node == null) {
+            return null;
+        }
+        Map.Entry<K, V> exported = export(node);
+        remove(node.data);
+        return exported;
+    }
+
+    // Navigation in ascending key order, limited to the range of this view
+
+    private Node<K> absLowest() {
+        Node<K> node = hasLow ? tree.above(low, lowInclusive) : tree.firstNode();
+        return node == null || tooHigh(node.data) ? null : node;
+    }
+
+    private Node<K> absHighest() {
+        Node<K> node = hasHigh ? tree.below(high, highInclusive) : tree.lastNode();
+        return node == null || tooLow(node.data) ? null : node;
+    }
+
+    private Node<K> absCeiling(K key) {
+        return tooLow(key) ? absLowest() : belowHigh(tree.above(key, true));
+    }
+
+    private Node<K> absHigher(K key) {
+        return tooLow(key) ? absLowest() : belowHigh(tree.above(key, false));
+    }
+
+    private Node<K> absFloor(K key) {
+        return tooHigh(key) ? absHighest() : aboveLow(tree.below(key, true));
+    }
+
+    private Node<K> absLower(K key) {
+        return tooHigh(key) ? absHighest() : aboveLow(tree.below(key, false));
+    }
+
+    private Node<K> belowHigh(Node<K> node) {
+        return node == null || tooHigh(node.data) ? null : node;
+    }
+
+    private Node<K> aboveLow(Node<K> node) {
+        return node == null || tooLow(node.data) ? null : node;
+    }
+
+    private boolean tooLow(K key) {
+        if (!hasLow) {
+            return false;
+        }
+        int cmp = key.compareTo(low);
+        return cmp < 0 || (cmp == 0 && !lowInclusive);
+    }
+
+    private boolean tooHigh(K key) {
+        if (!hasHigh) {
+            return false;
+        }
+        int cmp = key.compareTo(high);
+        return cmp > 0 || (cmp == 0 && !highInclusive);
+    }
+
+    private boolean inRange(K key) {
+        return !tooLow(key) && !tooHigh(key);
+    }
+
+    /**
+     * Whether {@code key} may bound a sub-view: inside this view's range, or on one of its exclusive
+     * bounds if the new bound is exclusive too.
+     */
+    private boolean inRange(K key, boolean inclusive) {
+        if (inclusive) {
+            return inRange(key);
+        }
+        return !(hasLow && key.compareTo(low) < 0) && !(hasHigh && key.compareTo(high) > 0);
+    }
+
+    private void checkInRange(K key) {
+        Objects.requireNonNull(key);
+        if (!inRange(key)) {
+            throw new IllegalArgumentException("Key out of range: " + key);
+        }
+    }
+
+    // Views
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new View<>(base, hasLow, low, lowInclusive, hasHigh, high, highInclusive, !descending);
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        int cmp = fromKey.compareTo(toKey);
+        if (descending ? cmp < 0 : cmp > 0) {
+            throw new IllegalArgumentException("fromKey > toKey");
+        }
+        return descending
+            ? range(true, toKey, toInclusive, true, fromKey, fromInclusive)
+            : range(true, fromKey, fromInclusive, true, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return descending
+            ? range(true, toKey, inclusive, false, null, false)
+            : range(false, null, false, true, toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return descending
+            ? range(false, null, false, true, fromKey, inclusive)
+            : range(true, fromKey, inclusive, false, null, false);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    /**
+     * View of the keys of this view within the given ascending bounds; a missing bound keeps the
+     * current one.
+     */
+    private NavigableMap<K, V> range(boolean newLow, K lowKey, boolean lowKeyInclusive, boolean newHigh, K highKey,
+                                     boolean highKeyInclusive) {
+        if (newLow && !inRange(lowKey, lowKeyInclusive)) {
+            throw new IllegalArgumentException("Key out of range: " + lowKey);
+        }
+        if (newHigh && !inRange(highKey, highKeyInclusive)) {
+            throw new IllegalArgumentException("Key out of range: " + highKey);
+        }
+        return new View<>(base,
+            newLow || hasLow, newLow ? lowKey : low, newLow ? lowKeyInclusive : lowInclusive,
+            newHigh || hasHigh, newHigh ? highKey : high, newHigh ? highKeyInclusive : highInclusive,
+            descending);
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        if (keySet == null) {
+            keySet = new KeySet<>(this);
+        }
+        return keySet;
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (entrySet == null) {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>> {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator() {
+            return new NodeIterator<Map.Entry<K, V>>() {
+                @Override
+                Map.Entry<K, V> get(Node<K> node) {
+                    return entry(node);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return AbstractTreeMap.this.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry)) {
+                return false;
+            }
+            Map.Entry<?, ?> candidate = (Map.Entry<?, ?>) o;
+            Map.Entry<K, V> entry = getEntry(candidate.getKey());
+            return entry != null && Objects.equals(entry.getValue(), candidate.getValue());
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            if (!contains(o)) {
+                return false;
+            }
+            AbstractTreeMap.this.remove(((Map.Entry<?, ?>) o).getKey());
+            return true;
+        }
+
+        @Override
+        public void clear() {
+            AbstractTreeMap.this.clear();
+        }
+    }
+
+    /**
+     * Walks the nodes of this view in its order with a tree cursor. {@link #remove()} deletes through
+     * the map and then positions the cursor again after the removed key.
+     */
+    private abstract class NodeIterator<E> implements Iterator<E> {
+        private final OrderedTree.Cursor<K> cursor = new OrderedTree.Cursor<>(tree.height(), descending);
+        private K lastKey;
+        private boolean canRemove;
+        private int expectedModCount = base.modCount;
+
+        NodeIterator() {
+            Node<K> first = first();
+            if (first != null) {
+                cursor.seek(tree.root, first.data, true);
+            }
+        }
+
+        abstract E get(Node<K> node);
+
+        @Override
+        public boolean hasNext() {
+            Node<K> next = cursor.peek();
+            return next != null && (descending ? !tooLow(next.data) : !tooHigh(next.data));
+        }
+
+        @Override
+        public E next() {
+            if (base.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Node<K> node = cursor.next();
+            lastKey = node.data;
+            canRemove = true;
+            return get(node);
+        }
+
+        @Override
+        public void remove() {
+            if (!canRemove) {
+                throw new IllegalStateException();
+            }
+            if (base.modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            canRemove = false;
+            AbstractTreeMap.this.remove(lastKey);
+            expectedModCount = base.modCount;
+            cursor.seek(tree.root, lastKey, false);
+        }
+    }
+
+    private static final class KeySet<K extends Comparable<K>> extends AbstractSet<K> implements NavigableSet<K> {
+        private final AbstractTreeMap<K, ?> map;
+
+        KeySet(AbstractTreeMap<K, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return map.keyIterator();
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            int size = map.size();
+            map.remove(o);
+            return map.size() != size;
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+
+        @Override
+        public K lower(K key) {
+            return map.lowerKey(key);
+        }
+
+        @Override
+        public K floor(K key) {
+            return map.floorKey(key);
+        }
+
+        @Override
+        public K ceiling(K key) {
+            return map.ceilingKey(key);
+        }
+
+        @Override
+        public K higher(K key) {
+            return map.higherKey(key);
+        }
+
+        @Override
+        public K first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return map.lastKey();
+        }
+
+        @Override
+        public K pollFirst() {
+            return keyOf(map.pollFirstEntry());
+        }
+
+        @Override
+        public K pollLast() {
+            return keyOf(map.pollLastEntry());
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return map.descendingMap().navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return map.subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return map.headMap(toElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return map.tailMap(fromElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+        private static <K> K keyOf(Map.Entry<K, ?> entry) {
+            return entry == null ? null : entry.getKey();
+        }
+    }
+
+    Iterator<K> keyIterator() {
+        return new NodeIterator<K>() {
+            @Override
+            K get(Node<K> node) {
+                return node.data;
+            }
+        };
+    }
+
+    // Helpers
+
+    private Map.Entry<K, V> getEntry(Object key) {
+        K k = toKey(key);
+        if (!inRange(k)) {
+            return null;
+        }
+        Node<K> node = tree.getNode(k);
+        return node == null ? null : entry(node);
+    }
+
+    @SuppressWarnings("unchecked")
+    private K toKey(Object key) {
+        return (K) Objects.requireNonNull(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map.Entry<K, V> entry(Node<K> node) {
+        return (Map.Entry<K, V>) node;
+    }
+
+    /**
+     * Snapshot of an entry for the navigation methods, which, as in {@link java.util.TreeMap}, do
+     * not support {@code setValue}.
+     */
+    private Map.Entry<K, V> export(Node<K> node) {
+        return node == null ? null : new SimpleImmutableEntry<>(entry(node));
+    }
+
+    private static <K> K keyOf(Node<K> node) {
+        return node == null ? null : node.data;
+    }
+
+    private static <K> K keyOrThrow(Node<K> node) {
+        if (node == null) {
+            throw new NoSuchElementException();
+        }
+        return node.data;
+    }
+
+    static boolean entryEquals(Map.Entry<?, ?> entry, Object o) {
+        if (!(o instanceof Map.Entry)) {
+            return false;
+        }
+        Map.Entry<?, ?> other = (Map.Entry<?, ?>) o;
+        return Objects.equals(entry.getKey(), other.getKey()) && Objects.equals(entry.getValue(), other.getValue());
+    }
+
+    static int entryHashCode(Map.Entry<?, ?> entry) {
+        return Objects.hashCode(entry.getKey()) ^ Objects.hashCode(entry.getValue());
+    }
+}
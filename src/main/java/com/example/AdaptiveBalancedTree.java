@@ -0,0 +1,246 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Tree that holds its keys in an {@link AVLTree} or a {@link RedBlackTree} and moves them to the
+ * other one when the recent workload would run faster there.
+ *
+ * <p>Every {@value #SAMPLE_EVERY}th operation is timed, and samples over
+ * {@value #MAX_SAMPLE_NANOS} ns, which are pauses rather than tree work, are dropped. Every
+ * {@value #WINDOW} operations the tree divides the mean time of the sampled reads and writes by log2
+ * of the size, and folds the results into the cost of a read and a write in the current
+ * representation with weight {@value #SMOOTHING}. It then prices the window's reads and writes in
+ * both representations. For the other representation it uses the costs last measured
+ * there. A representation that has never been measured for that kind of operation is assumed to
+ * cost {@value #UNTRIED_COST_FACTOR} of the current one, so a long enough phase tries it once.
+ *
+ * <p>Migrating drains the keys in order and builds the other tree from them in linear time. A
+ * window only counts towards a migration if the other representation would have saved at least a
+ * fraction {@value #HYSTERESIS} of its cost. Migration happens once the savings of consecutive
+ * windows that count add up to the estimated time of migrating, and any window that does not count
+ * starts the sum again. A short change of phase therefore never pays for a migration, and two
+ * representations whose costs are close never trade places.
+ */
+public class AdaptiveBalancedTree<T extends Comparable<T>> extends BalancedBinaryTree<T> {
+    public enum Representation {
+        AVL, RED_BLACK
+    }
+
+    static final int WINDOW = 1 << 14;
+    static final int SAMPLE_EVERY = 16;
+    static final long MAX_SAMPLE_NANOS = 100_000;
+    static final double SMOOTHING = 0.25;
+    /** Windows after a migration, or after the tree is created, that are not measured or priced. */
+    static final int WARMUP_WINDOWS = 2;
+    static final double HYSTERESIS = 0.1;
+    static final double UNTRIED_COST_FACTOR = 1 - 2 * HYSTERESIS;
+    /** Nanoseconds a migration takes per key: reading it from the old tree and building its node. */
+    static final double MIGRATION_NANOS_PER_KEY = 100;
+
+    private static final int READ = 0;
+    private static final int WRITE = 1;
+
+    private final LongSupplier clock;
+    /** Nanoseconds per operation per log2 of the size, by representation and kind; NaN until measured. */
+    private final double[][] costs = new double[2][2];
+    private final int[] operations = new int[2]; // In the current window
+    private final int[] samples = new int[2];
+    private final long[] sampledNanos = new long[2];
+    private int untilSample = SAMPLE_EVERY;
+    private int warmupWindows = WARMUP_WINDOWS;
+    private Representation representation;
+    private OrderedTree<T> tree;
+    private double savings; // Nanoseconds, over the consecutive windows that counted towards a migration
+    private int migrations;
+
+    public AdaptiveBalancedTree() {
+        this(Representation.AVL);
+    }
+
+    public AdaptiveBalancedTree(Representation initial) {
+        this(initial, System::nanoTime);
+    }
+
+    /**
+     * @param clock nanosecond timer for the sampled operations
+     */
+    AdaptiveBalancedTree(Representation initial, LongSupplier clock) {
+        this.clock = clock;
+        for (double[] representationCosts : costs) {
+            Arrays.fill(representationCosts, Double.NaN);
+        }
+        representation = initial;
+        tree = initial == Representation.AVL ? new AVLTree<>() : new RedBlackTree<>();
+    }
+
+    @Override
+    public void insert(T data) {
+        if (--untilSample == 0) {
+            long start = clock.getAsLong();
+            tree.insert(data);
+            sample(WRITE, clock.getAsLong() - start);
+        } else {
+            tree.insert(data);
+        }
+        endOfOperation(WRITE);
+    }
+
+    @Override
+    public void delete(T data) {
+        if (--untilSample == 0) {
+            long start = clock.getAsLong();
+            tree.delete(data);
+            sample(WRITE, clock.getAsLong() - start);
+        } else {
+            tree.delete(data);
+        }
+        endOfOperation(WRITE);
+    }
+
+    @Override
+    public boolean contains(T data) {
+        boolean found;
+        if (--untilSample == 0) {
+            long start = clock.getAsLong();
+            found = tree.contains(data);
+            sample(READ, clock.getAsLong() - start);
+        } else {
+            found = tree.contains(data);
+        }
+        endOfOperation(READ);
+        return found;
+    }
+
+    private void sample(int kind, long nanos) {
+        untilSample = SAMPLE_EVERY;
+        if (nanos <= MAX_SAMPLE_NANOS) {
+            samples[kind]++;
+            sampledNanos[kind] += nanos;
+        }
+    }
+
+    private void endOfOperation(int kind) {
+        if (++operations[kind] + operations[1 - kind] >= WINDOW) {
+            endOfWindow();
+        }
+    }
+
+    private void endOfWindow() {
+        if (warmupWindows > 0) {
+            warmupWindows--;
+            clearWindow();
+            return;
+        }
+        double scale = log2(tree.size() + 2);
+        double[] current = costs[representation.ordinal()];
+        double[] other = costs[1 - representation.ordinal()];
+        double currentCost = 0;
+        double otherCost = 0;
+        boolean priced = true;
+        for (int kind = READ; kind <= WRITE; kind++) {
+            if (samples[kind] > 0) {
+                double measured = sampledNanos[kind] / (samples[kind] * scale);
+                current[kind] = Double.isNaN(current[kind]) ? measured : current[kind] + SMOOTHING * (measured - current[kind]);
+            }
+            if (operations[kind] > 0) {
+                priced &= !Double.isNaN(current[kind]);
+                currentCost += operations[kind] * current[kind];
+                double untried = UNTRIED_COST_FACTOR * current[kind];
+                otherCost += operations[kind] * (Double.isNaN(other[kind]) ? untried : other[kind]);
+            }
+        }
+        clearWindow();
+        if (priced && otherCost <= (1 - HYSTERESIS) * currentCost) {
+            savings += scale * (currentCost - otherCost);
+            if (savings >= MIGRATION_NANOS_PER_KEY * tree.size()) {
+                migrate();
+            }
+        } else {
+            savings = 0;
+        }
+    }
+
+    private void clearWindow() {
+        Arrays.fill(operations, 0);
+        Arrays.fill(samples, 0);
+        Arrays.fill(sampledNanos, 0);
+    }
+
+    private static double log2(double value) {
+        return Math.log(value) / Math.log(2);
+    }
+
+    /**
+     * Moves the keys to the other representation, in linear time.
+     */
+    private void migrate() {
+        List<T> keys = new ArrayList<>(tree.size());
+        tree.forEach(keys::add);
+        Representation next = representation == Representation.AVL ? Representation.RED_BLACK : Representation.AVL;
+        OrderedTree<T> migrated = next == Representation.AVL ? new AVLTree<>() : new RedBlackTree<>();
+        migrated.setRecorder(tree.getRecorder());
+        migrated.setFingerSearch(tree.isFingerSearch());
+        migrated.buildFromSorted(keys);
+        tree = migrated;
+        representation = next;
+        savings = 0;
+        warmupWindows = WARMUP_WINDOWS;
+        migrations++;
+    }
+
+    public Representation getRepresentation() {
+        return representation;
+    }
+
+    /** Migrations so far, in either direction. */
+    public int getMigrations() {
+        return migrations;
+    }
+
+    public int size() {
+        return tree.size();
+    }
+
+    @Override
+    public int height() {
+        return tree.height();
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        tree.forEach(action);
+    }
+
+    @Override
+    public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+        return tree.forEachFrom(from, limit, action);
+    }
+
+    @Override
+    public void clear() {
+        tree.clear();
+    }
+
+    @Override
+    public void buildFromSorted(List<? extends T> sorted) {
+        tree.buildFromSorted(sorted);
+    }
+
+    /**
+     * Passes the recorder to the current tree, and on to the next one after a migration.
+     */
+    @Override
+    public void setRecorder(TreeRecorder recorder) {
+        tree.setRecorder(recorder);
+    }
+
+    @Override
+    public TreeRecorder getRecorder() {
+        return tree.getRecorder();
+    }
+}
@@ -1,52 +1,63 @@
 package com.example;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
 
 public class App 
 {
     private static final int MEASUREMENT_ROUNDS = 10;
     private static final double TEST_SAMPLE_RATIO = 0.1;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+    private static final String[] PERCENTILE_NAMES = {"P50", "P90", "P99", "P99.9"};
 
     public static void main( String[] args )
     {
-        String inputFile = "test_data.csv";
+        // The binary dataset that test_data_generator.py writes next to the CSV loads faster
+        Path inputFile = args.length > 0 ? Paths.get(args[0])
+            : Files.exists(Paths.get("test_data.bin")) ? Paths.get("test_data.bin") : Paths.get("test_data.csv");
         String outputFile = "performance_results.csv";
+        String reportFile = "performance_results.json";
 
         List<TestData> testData = readTestData(inputFile);
         List<PerformanceResult> results = new ArrayList<>();
 
         for (TestData data : testData) {
             // Prepare test sample
-            List<Integer> testSample = getTestSample(data.data);
+            int[] testSample = getTestSample(data.data);
 
             // Test AVL Tree
-            PerformanceResult avlResult = testTreePerformance(new AVLTree<>(), data, testSample);
+            PerformanceResult avlResult = testTreePerformance(AVLTree::new, data, testSample);
             results.add(avlResult);
 
             // Test Red-Black Tree
-            PerformanceResult rbResult = testTreePerformance(new RedBlackTree<>(), data, testSample);
+            PerformanceResult rbResult = testTreePerformance(RedBlackTree::new, data, testSample);
             results.add(rbResult);
+
+            // Test B-Tree
+            PerformanceResult bResult = testTreePerformance(BTree::new, data, testSample);
+            results.add(bResult);
         }
 
         writeResults(results, outputFile);
-        System.out.println("Performance testing completed. Results saved to " + outputFile);
+        writeReport(results, reportFile);
+        System.out.println("Performance testing completed. Results saved to " + outputFile + " and " + reportFile);
     }
 
-    private static List<Integer> getTestSample(List<Integer> data) {
-        List<Integer> sample = new ArrayList<>(data);
-        Collections.shuffle(sample, new Random(42)); // Fixed seed for reproducibility
-        int sampleSize = (int) (data.size() * TEST_SAMPLE_RATIO);
-        return sample.subList(0, sampleSize);
+    private static int[] getTestSample(int[] data) {
+        return getTestSample(data, TEST_SAMPLE_RATIO);
     }
 
-    private static PerformanceResult testTreePerformance(BalancedBinaryTree<Integer> tree, TestData data, List<Integer> testSample) {
+    private static PerformanceResult testTreePerformance(Supplier<BalancedBinaryTree<Integer>> treeFactory, TestData data, int[] testSample) {
+        BalancedBinaryTree<Integer> tree = treeFactory.get();
         PerformanceResult result = new PerformanceResult();
         result.treeType = tree.getClass().getSimpleName();
         result.dataType = data.dataType;
@@ -60,32 +71,40 @@ public class App
         // Measure insertion time
         long insertTime = 0;
         for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
-            BalancedBinaryTree<Integer> tempTree = tree.getClass().equals(AVLTree.class) ? new AVLTree<>() : new RedBlackTree<>();
+            BalancedBinaryTree<Integer> tempTree = treeFactory.get();
             insertTime += measureOperationTime(() -> {
                 for (int value : data.data) {
                     tempTree.insert(value);
                 }
             });
             result.initialHeight = tempTree.height();
+            BalancedBinaryTree<Integer> latencyTree = treeFactory.get();
+            recordEach(data.data, latencyTree::insert, result.insertLatency);
         }
         result.insertTime = insertTime / MEASUREMENT_ROUNDS;
 
-        // Measure search time using larger test sample
-        List<Integer> largerTestSample = getTestSample(data.data, 0.3);
+        // Measure search time using larger test sample. The warmup deletes every key again, so search
+        // a freshly filled tree rather than the warmup one.
+        int[] largerTestSample = getTestSample(data.data, 0.3);
+        BalancedBinaryTree<Integer> searchTree = treeFactory.get();
+        for (int value : data.data) {
+            searchTree.insert(value);
+        }
         long searchTime = 0;
         for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
             searchTime += measureOperationTime(() -> {
                 for (int value : largerTestSample) {
-                    tree.contains(value);
+                    searchTree.contains(value);
                 }
             });
+            recordEach(largerTestSample, searchTree::contains, result.searchLatency);
         }
         result.searchTime = searchTime / MEASUREMENT_ROUNDS;
 
         // Measure deletion time using larger test sample
         long deleteTime = 0;
         for (int i = 0; i < MEASUREMENT_ROUNDS; i++) {
-            BalancedBinaryTree<Integer> tempTree = tree.getClass().equals(AVLTree.class) ? new AVLTree<>() : new RedBlackTree<>();
+            BalancedBinaryTree<Integer> tempTree = treeFactory.get();
             for (int value : data.data) {
                 tempTree.insert(value);
             }
@@ -95,17 +114,29 @@ public class App
                 }
             });
             result.finalHeight = tempTree.height();
+            BalancedBinaryTree<Integer> latencyTree = treeFactory.get();
+            for (int value : data.data) {
+                latencyTree.insert(value);
+            }
+            recordEach(largerTestSample, latencyTree::delete, result.deleteLatency);
         }
         result.deleteTime = deleteTime / MEASUREMENT_ROUNDS;
 
         return result;
     }
 
-    private static List<Integer> getTestSample(List<Integer> data, double ratio) {
-        List<Integer> sample = new ArrayList<>(data);
-        Collections.shuffle(sample, new Random(42)); // Fixed seed for reproducibility
-        int sampleSize = (int) (data.size() * ratio);
-        return sample.subList(0, sampleSize);
+    private static int[] getTestSample(int[] data, double ratio) {
+        int[] sample = data.clone();
+        int sampleSize = (int) (data.length * ratio);
+        Random random = new Random(42); // Fixed seed for reproducibility
+        // Fisher-Yates, stopped once the first sampleSize slots hold a uniform random sample
+        for (int i = 0; i < sampleSize; i++) {
+            int j = i + random.nextInt(sample.length - i);
+            int swap = sample[i];
+            sample[i] = sample[j];
+            sample[j] = swap;
+        }
+        return Arrays.copyOf(sample, sampleSize);
     }
 
     private static long measureOperationTime(Runnable operation) {
@@ -114,7 +145,20 @@ public class App
         return System.nanoTime() - startTime;
     }
 
-    private static void testOperations(BalancedBinaryTree<Integer> tree, List<Integer> data) {
+    /**
+     * Applies {@code operation} to every value and records how long each call took, between
+     * timestamps taken right before and after it. This runs in a pass of its own, apart from the
+     * timed phases, whose totals would otherwise include the timestamps and the recording.
+     */
+    private static void recordEach(int[] values, IntConsumer operation, LatencyHistogram latency) {
+        for (int value : values) {
+            long start = System.nanoTime();
+            operation.accept(value);
+            latency.record(System.nanoTime() - start);
+        }
+    }
+
+    private static void testOperations(BalancedBinaryTree<Integer> tree, int[] data) {
         for (int value : data) {
             tree.insert(value);
         }
@@ -126,21 +170,11 @@ public class App
         }
     }
 
-    private static List<TestData> readTestData(String filename) {
+    private static List<TestData> readTestData(Path file) {
         List<TestData> testData = new ArrayList<>();
-        try (BufferedReader br = new BufferedReader(new FileReader(filename))) {
-            String line;
-            br.readLine(); // Skip header
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",");
-                String dataType = parts[0];
-                int size = Integer.parseInt(parts[1]);
-                String[] dataValues = parts[2].split(" ");
-                List<Integer> data = new ArrayList<>();
-                for (String value : dataValues) {
-                    data.add(Integer.parseInt(value));
-                }
-                testData.add(new TestData(dataType, size, data));
+        try {
+            for (DatasetFile.Row row : DatasetFile.readAll(file)) {
+                testData.add(new TestData(row.dataType, row.size, row.values));
             }
         } catch (IOException e) {
             e.printStackTrace();
@@ -150,27 +184,79 @@ public class App
 
     private static void writeResults(List<PerformanceResult> results, String filename) {
         try (FileWriter writer = new FileWriter(filename)) {
-            writer.write("TreeType,DataType,Size,InsertTime(ns),SearchTime(ns),DeleteTime(ns)\n");
+            StringBuilder header = new StringBuilder("TreeType,DataType,Size,InsertTime(ns),SearchTime(ns),DeleteTime(ns),InitialHeight,FinalHeight");
+            for (String operation : new String[] {"Insert", "Search", "Delete"}) {
+                for (String percentile : PERCENTILE_NAMES) {
+                    header.append(',').append(operation).append(percentile).append("(ns)");
+                }
+                header.append(',').append(operation).append("Max(ns),").append(operation).append("Throughput(ops/s)");
+            }
+            writer.write(header + "\n");
             for (PerformanceResult result : results) {
-                writer.write(String.format("%s,%s,%d,%d,%d,%d\n",
+                StringBuilder row = new StringBuilder(String.format("%s,%s,%d,%d,%d,%d,%d,%d",
                     result.treeType,
                     result.dataType,
                     result.size,
                     result.insertTime,
                     result.searchTime,
-                    result.deleteTime));
+                    result.deleteTime,
+                    result.initialHeight,
+                    result.finalHeight));
+                for (LatencyHistogram latency : result.latencies()) {
+                    for (double percentile : PERCENTILES) {
+                        row.append(',').append(latency.percentile(percentile));
+                    }
+                    row.append(',').append(latency.max()).append(',').append(String.format("%.0f", throughput(latency)));
+                }
+                writer.write(row + "\n");
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the same results as JSON, one object per tree and dataset.
+     */
+    private static void writeReport(List<PerformanceResult> results, String filename) {
+        try (FileWriter writer = new FileWriter(filename)) {
+            writer.write("[\n");
+            for (int i = 0; i < results.size(); i++) {
+                PerformanceResult result = results.get(i);
+                writer.write(String.format("  {\"treeType\": \"%s\", \"dataType\": \"%s\", \"size\": %d, "
+                        + "\"initialHeight\": %d, \"finalHeight\": %d,\n",
+                    result.treeType, result.dataType, result.size, result.initialHeight, result.finalHeight));
+                writeOperation(writer, "insert", result.insertLatency, ",");
+                writeOperation(writer, "search", result.searchLatency, ",");
+                writeOperation(writer, "delete", result.deleteLatency, "");
+                writer.write(i < results.size() - 1 ? "  },\n" : "  }\n");
             }
+            writer.write("]\n");
         } catch (IOException e) {
             e.printStackTrace();
         }
     }
 
+    private static void writeOperation(FileWriter writer, String name, LatencyHistogram latency, String separator) throws IOException {
+        StringBuilder json = new StringBuilder(String.format("    \"%s\": {\"count\": %d, \"meanNs\": %.1f, ",
+            name, latency.count(), latency.mean()));
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            json.append('"').append(PERCENTILE_NAMES[i].toLowerCase().replace(".", "")).append("Ns\": ").append(latency.percentile(PERCENTILES[i])).append(", ");
+        }
+        json.append(String.format("\"maxNs\": %d, \"throughputOpsPerSecond\": %.0f}%s\n", latency.max(), throughput(latency), separator));
+        writer.write(json.toString());
+    }
+
+    private static double throughput(LatencyHistogram latency) {
+        return latency.total() == 0 ? 0 : latency.count() * 1e9 / latency.total();
+    }
+
     private static class TestData {
         String dataType;
         int size;
-        List<Integer> data;
+        int[] data;
 
-        TestData(String dataType, int size, List<Integer> data) {
+        TestData(String dataType, int size, int[] data) {
             this.dataType = dataType;
             this.size = size;
             this.data = data;
@@ -186,5 +272,12 @@ public class App
         long deleteTime;
         int initialHeight;
         int finalHeight;
+        final LatencyHistogram insertLatency = new LatencyHistogram();
+        final LatencyHistogram searchLatency = new LatencyHistogram();
+        final LatencyHistogram deleteLatency = new LatencyHistogram();
+
+        LatencyHistogram[] latencies() {
+            return new LatencyHistogram[] {insertLatency, searchLatency, deleteLatency};
+        }
     }
 }
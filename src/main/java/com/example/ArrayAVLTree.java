@@ -0,0 +1,299 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link IntAVLTree} with its nodes stored in parallel primitive arrays instead of objects. A node is
+ * an index into {@code key}, {@code left}, {@code right} and {@code height}; index 0 is the NIL node
+ * with height 0. Deleted slots are chained through {@code left} into a free list and reused by later
+ * inserts, and the arrays only grow.
+ */
+public class ArrayAVLTree extends IntBalancedTree {
+    private static final int NIL = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** key + left + right (4 bytes each) + height (1 byte). */
+    static final int BYTES_PER_SLOT = 3 * Integer.BYTES + 1;
+
+    private int[] key;
+    private int[] left;
+    private int[] right;
+    private byte[] height;
+
+    private int root = NIL;
+    private int size;
+    private int nextUnused = 1;
+    private int freeList = NIL;
+
+    public ArrayAVLTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ArrayAVLTree(int initialCapacity) {
+        int capacity = Math.max(2, initialCapacity + 1);
+        key = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        height = new byte[capacity];
+    }
+
+    private int allocate(int k) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left[node];
+        } else {
+            if (nextUnused == key.length) {
+                grow();
+            }
+            node = nextUnused++;
+        }
+        key[node] = k;
+        left[node] = NIL;
+        right[node] = NIL;
+        height[node] = 1;
+        return node;
+    }
+
+    private void release(int node) {
+        left[node] = freeList;
+        freeList = node;
+    }
+
+    private void grow() {
+        int capacity = key.length + (key.length >> 1) + 1;
+        key = Arrays.copyOf(key, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        height = Arrays.copyOf(height, capacity);
+    }
+
+    @Override
+    public void insert(int k) {
+        root = insert(root, k);
+    }
+
+    private int insert(int node, int k) {
+        if (node == NIL) {
+            size++;
+            return allocate(k);
+        }
+
+        if (k < key[node]) {
+            int child = insert(left[node], k);
+            left[node] = child;
+        } else if (k > key[node]) {
+            int child = insert(right[node], k);
+            right[node] = child;
+        } else {
+            return node; // Duplicate keys not allowed
+        }
+
+        updateHeight(node);
+        return balance(node);
+    }
+
+    private int balance(int node) {
+        int balanceFactor = height[left[node]] - height[right[node]];
+
+        if (balanceFactor > 1) {
+            int l = left[node];
+            if (height[left[l]] - height[right[l]] < 0) {
+                left[node] = rotateLeft(l);
+            }
+            return rotateRight(node);
+        }
+
+        if (balanceFactor < -1) {
+            int r = right[node];
+            if (height[left[r]] - height[right[r]] > 0) {
+                right[node] = rotateRight(r);
+            }
+            return rotateLeft(node);
+        }
+
+        return node;
+    }
+
+    private int rotateRight(int y) {
+        int x = left[y];
+        left[y] = right[x];
+        right[x] = y;
+        updateHeight(y);
+        updateHeight(x);
+        return x;
+    }
+
+    private int rotateLeft(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        left[y] = x;
+        updateHeight(x);
+        updateHeight(y);
+        return y;
+    }
+
+    private void updateHeight(int node) {
+        height[node] = (byte) (1 + Math.max(height[left[node]], height[right[node]]));
+    }
+
+    @Override
+    public int height() {
+        return height[root];
+    }
+
+    /**
+     * Checks the stored heights and balance factors, that the NIL slot is untouched and that no
+     * slot is lost or shared, for tests; key order shows in {@link #forEach}. Returns the height.
+     *
+     * @throws IllegalStateException at the first violation
+     */
+    int checkBalance() {
+        if (left[NIL] != NIL || right[NIL] != NIL || height[NIL] != 0) {
+            throw new IllegalStateException("NIL slot was written");
+        }
+        int[] nodes = {0};
+        int result = checkBalance(root, nodes);
+        checkSlots(nodes[0]);
+        return result;
+    }
+
+    private int checkBalance(int node, int[] nodes) {
+        if (node == NIL) {
+            return 0;
+        }
+        nodes[0]++;
+        int l = checkBalance(left[node], nodes);
+        int r = checkBalance(right[node], nodes);
+        if (Math.abs(l - r) > 1 || height[node] != 1 + Math.max(l, r)) {
+            throw new IllegalStateException("Unbalanced at key " + key[node]);
+        }
+        return height[node];
+    }
+
+    /**
+     * Checks that every slot below {@code nextUnused} other than NIL is either one of the
+     * {@code nodes} in the tree or on the free list, exactly once.
+     */
+    private void checkSlots(int nodes) {
+        if (nodes != size) {
+            throw new IllegalStateException("Size is " + size + " but the tree holds " + nodes + " keys");
+        }
+        int free = 0;
+        for (int node = freeList; node != NIL; node = left[node]) {
+            if (++free >= nextUnused) {
+                throw new IllegalStateException("Free list has a cycle");
+            }
+        }
+        if (nodes + free != nextUnused - 1) {
+            throw new IllegalStateException((nextUnused - 1 - nodes - free) + " slots are neither in the tree nor free");
+        }
+    }
+
+    @Override
+    public void delete(int k) {
+        root = delete(root, k);
+    }
+
+    private int delete(int node, int k) {
+        if (node == NIL) {
+            return NIL;
+        }
+
+        if (k < key[node]) {
+            int child = delete(left[node], k);
+            left[node] = child;
+        } else if (k > key[node]) {
+            int child = delete(right[node], k);
+            right[node] = child;
+        } else {
+            if (left[node] == NIL || right[node] == NIL) {
+                int child = left[node] == NIL ? right[node] : left[node];
+                release(node);
+                size--;
+                return child;
+            }
+            int successor = right[node];
+            while (left[successor] != NIL) {
+                successor = left[successor];
+            }
+            key[node] = key[successor];
+            int child = delete(right[node], key[successor]);
+            right[node] = child;
+        }
+
+        updateHeight(node);
+        return balance(node);
+    }
+
+    @Override
+    public boolean contains(int k) {
+        int node = root;
+        while (node != NIL) {
+            if (k < key[node]) {
+                node = left[node];
+            } else if (k > key[node]) {
+                node = right[node];
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Bytes of node storage per stored key, counting the unused and free-listed slots of the arrays.
+     */
+    @Override
+    public double bytesPerEntry() {
+        return size == 0 ? 0 : (double) key.length * BYTES_PER_SLOT / size;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        forEach(root, action);
+    }
+
+    private void forEach(int node, IntConsumer action) {
+        while (node != NIL) {
+            forEach(left[node], action);
+            action.accept(key[node]);
+            node = right[node];
+        }
+    }
+
+    /**
+     * Lays the nodes out in key order, so slot {@code i + 1} holds {@code sorted[from + i]}.
+     */
+    @Override
+    public void buildFromSorted(int[] sorted, int from, int to) {
+        checkStrictlyAscending(sorted, from, to);
+        int count = to - from;
+        int capacity = Math.max(2, count + 1);
+        key = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        height = new byte[capacity];
+        System.arraycopy(sorted, from, key, 1, count);
+        root = build(1, count + 1);
+        size = count;
+        nextUnused = count + 1;
+        freeList = NIL;
+    }
+
+    private int build(int from, int to) {
+        if (from >= to) {
+            return NIL;
+        }
+        int mid = (from + to) >>> 1;
+        left[mid] = build(from, mid);
+        right[mid] = build(mid + 1, to);
+        height[mid] = (byte) (32 - Integer.numberOfLeadingZeros(to - from));
+        return mid;
+    }
+}
@@ -0,0 +1,442 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link IntRedBlackTree} with its nodes stored in parallel primitive arrays instead of objects. A node
+ * is an index into {@code key}, {@code left}, {@code right}, {@code parent} and {@code color}; index 0
+ * is the black NIL sentinel, so the CLRS algorithms run without null checks. Deleted slots are chained
+ * through {@code left} into a free list and reused by later inserts, and the arrays only grow.
+ */
+public class ArrayRedBlackTree extends IntBalancedTree {
+    private static final byte RED = 1;
+    private static final byte BLACK = 0;
+    private static final int NIL = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /** key + left + right + parent (4 bytes each) + color (1 byte). */
+    static final int BYTES_PER_SLOT = 4 * Integer.BYTES + 1;
+
+    private int[] key;
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private byte[] color;
+
+    private int root = NIL;
+    private int size;
+    private int nextUnused = 1;
+    private int freeList = NIL;
+
+    public ArrayRedBlackTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ArrayRedBlackTree(int initialCapacity) {
+        int capacity = Math.max(2, initialCapacity + 1);
+        key = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        color = new byte[capacity];
+        color[NIL] = BLACK;
+    }
+
+    private int allocate(int k, int p) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left[node];
+        } else {
+            if (nextUnused == key.length) {
+                grow();
+            }
+            node = nextUnused++;
+        }
+        key[node] = k;
+        left[node] = NIL;
+        right[node] = NIL;
+        parent[node] = p;
+        color[node] = RED;
+        return node;
+    }
+
+    private void release(int node) {
+        left[node] = freeList;
+        freeList = node;
+    }
+
+    private void grow() {
+        int capacity = key.length + (key.length >> 1) + 1;
+        key = Arrays.copyOf(key, capacity);
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        parent = Arrays.copyOf(parent, capacity);
+        color = Arrays.copyOf(color, capacity);
+    }
+
+    @Override
+    public void insert(int k) {
+        int p = NIL;
+        int x = root;
+        while (x != NIL) {
+            p = x;
+            if (k < key[x]) {
+                x = left[x];
+            } else if (k > key[x]) {
+                x = right[x];
+            } else {
+                return; // Duplicate keys not allowed
+            }
+        }
+
+        int z = allocate(k, p);
+        if (p == NIL) {
+            root = z;
+        } else if (k < key[p]) {
+            left[p] = z;
+        } else {
+            right[p] = z;
+        }
+        size++;
+        fixInsert(z);
+    }
+
+    private void fixInsert(int z) {
+        while (color[parent[z]] == RED) {
+            int p = parent[z];
+            int g = parent[p];
+            if (p == left[g]) {
+                int uncle = right[g];
+                if (color[uncle] == RED) {
+                    color[p] = BLACK;
+                    color[uncle] = BLACK;
+                    color[g] = RED;
+                    z = g;
+                } else {
+                    if (z == right[p]) {
+                        z = p;
+                        rotateLeft(z);
+                        p = parent[z];
+                    }
+                    color[p] = BLACK;
+                    color[g] = RED;
+                    rotateRight(g);
+                }
+            } else {
+                int uncle = left[g];
+                if (color[uncle] == RED) {
+                    color[p] = BLACK;
+                    color[uncle] = BLACK;
+                    color[g] = RED;
+                    z = g;
+                } else {
+                    if (z == left[p]) {
+                        z = p;
+                        rotateRight(z);
+                        p = parent[z];
+                    }
+                    color[p] = BLACK;
+                    color[g] = RED;
+                    rotateLeft(g);
+                }
+            }
+        }
+        color[root] = BLACK;
+    }
+
+    private void rotateLeft(int x) {
+        int y = right[x];
+        right[x] = left[y];
+        if (left[y] != NIL) {
+            parent[left[y]] = x;
+        }
+        parent[y] = parent[x];
+        if (parent[x] == NIL) {
+            root = y;
+        } else if (x == left[parent[x]]) {
+            left[parent[x]] = y;
+        } else {
+            right[parent[x]] = y;
+        }
+        left[y] = x;
+        parent[x] = y;
+    }
+
+    private void rotateRight(int y) {
+        int x = left[y];
+        left[y] = right[x];
+        if (right[x] != NIL) {
+            parent[right[x]] = y;
+        }
+        parent[x] = parent[y];
+        if (parent[y] == NIL) {
+            root = x;
+        } else if (y == right[parent[y]]) {
+            right[parent[y]] = x;
+        } else {
+            left[parent[y]] = x;
+        }
+        right[x] = y;
+        parent[y] = x;
+    }
+
+    @Override
+    public void delete(int k) {
+        int z = search(k);
+        if (z == NIL) {
+            return;
+        }
+
+        int y = z;
+        byte yOriginalColor = color[y];
+        int x;
+        if (left[z] == NIL) {
+            x = right[z];
+            transplant(z, right[z]);
+        } else if (right[z] == NIL) {
+            x = left[z];
+            transplant(z, left[z]);
+        } else {
+            y = right[z];
+            while (left[y] != NIL) {
+                y = left[y];
+            }
+            yOriginalColor = color[y];
+            x = right[y];
+            if (parent[y] == z) {
+                parent[x] = y;
+            } else {
+                transplant(y, right[y]);
+                right[y] = right[z];
+                parent[right[y]] = y;
+            }
+            transplant(z, y);
+            left[y] = left[z];
+            parent[left[y]] = y;
+            color[y] = color[z];
+        }
+
+        if (yOriginalColor == BLACK) {
+            fixDelete(x);
+        }
+        parent[NIL] = NIL;
+        release(z);
+        size--;
+    }
+
+    private void fixDelete(int x) {
+        while (x != root && color[x] == BLACK) {
+            int p = parent[x];
+            if (x == left[p]) {
+                int w = right[p];
+                if (color[w] == RED) {
+                    color[w] = BLACK;
+                    color[p] = RED;
+                    rotateLeft(p);
+                    w = right[p];
+                }
+                if (color[left[w]] == BLACK && color[right[w]] == BLACK) {
+                    color[w] = RED;
+                    x = p;
+                } else {
+                    if (color[right[w]] == BLACK) {
+                        color[left[w]] = BLACK;
+                        color[w] = RED;
+                        rotateRight(w);
+                        w = right[p];
+                    }
+                    color[w] = color[p];
+                    color[p] = BLACK;
+                    color[right[w]] = BLACK;
+                    rotateLeft(p);
+                    x = root;
+                }
+            } else {
+                int w = left[p];
+                if (color[w] == RED) {
+                    color[w] = BLACK;
+                    color[p] = RED;
+                    rotateRight(p);
+                    w = left[p];
+                }
+                if (color[right[w]] == BLACK && color[left[w]] == BLACK) {
+                    color[w] = RED;
+                    x = p;
+                } else {
+                    if (color[left[w]] == BLACK) {
+                        color[right[w]] = BLACK;
+                        color[w] = RED;
+                        rotateLeft(w);
+                        w = left[p];
+                    }
+                    color[w] = color[p];
+                    color[p] = BLACK;
+                    color[left[w]] = BLACK;
+                    rotateRight(p);
+                    x = root;
+                }
+            }
+        }
+        color[x] = BLACK;
+    }
+
+    private void transplant(int u, int v) {
+        if (parent[u] == NIL) {
+            root = v;
+        } else if (u == left[parent[u]]) {
+            left[parent[u]] = v;
+        } else {
+            right[parent[u]] = v;
+        }
+        parent[v] = parent[u];
+    }
+
+    private int search(int k) {
+        int x = root;
+        while (x != NIL) {
+            if (k < key[x]) {
+                x = left[x];
+            } else if (k > key[x]) {
+                x = right[x];
+            } else {
+                return x;
+            }
+        }
+        return NIL;
+    }
+
+    @Override
+    public boolean contains(int k) {
+        return search(k) != NIL;
+    }
+
+    @Override
+    public int height() {
+        return height(root);
+    }
+
+    private int height(int node) {
+        if (node == NIL) {
+            return 0;
+        }
+        return 1 + Math.max(height(left[node]), height(right[node]));
+    }
+
+    /**
+     * Checks the parent links, the colors and black heights, that the NIL sentinel is black with no
+     * links and that no slot is lost or shared, for tests; key order shows in {@link #forEach}.
+     * Returns the black height.
+     *
+     * @throws IllegalStateException at the first violation
+     */
+    int checkColors() {
+        if (left[NIL] != NIL || right[NIL] != NIL || parent[NIL] != NIL || color[NIL] != BLACK) {
+            throw new IllegalStateException("NIL sentinel was left modified");
+        }
+        if (root != NIL && (parent[root] != NIL || color[root] == RED)) {
+            throw new IllegalStateException("Root is red or has a parent");
+        }
+        int[] nodes = {0};
+        int result = checkColors(root, nodes);
+        checkSlots(nodes[0]);
+        return result;
+    }
+
+    private int checkColors(int node, int[] nodes) {
+        if (node == NIL) {
+            return 0;
+        }
+        nodes[0]++;
+        if ((left[node] != NIL && parent[left[node]] != node) || (right[node] != NIL && parent[right[node]] != node)) {
+            throw new IllegalStateException("Broken parent link at key " + key[node]);
+        }
+        if (color[node] == RED && (color[left[node]] == RED || color[right[node]] == RED)) {
+            throw new IllegalStateException("Red node with a red child at key " + key[node]);
+        }
+        int l = checkColors(left[node], nodes);
+        if (l != checkColors(right[node], nodes)) {
+            throw new IllegalStateException("Unequal black heights at key " + key[node]);
+        }
+        return l + (color[node] == BLACK ? 1 : 0);
+    }
+
+    /**
+     * Checks that every slot below {@code nextUnused} other than NIL is either one of the
+     * {@code nodes} in the tree or on the free list, exactly once.
+     */
+    private void checkSlots(int nodes) {
+        if (nodes != size) {
+            throw new IllegalStateException("Size is " + size + " but the tree holds " + nodes + " keys");
+        }
+        int free = 0;
+        for (int node = freeList; node != NIL; node = left[node]) {
+            if (++free >= nextUnused) {
+                throw new IllegalStateException("Free list has a cycle");
+            }
+        }
+        if (nodes + free != nextUnused - 1) {
+            throw new IllegalStateException((nextUnused - 1 - nodes - free) + " slots are neither in the tree nor free");
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Bytes of node storage per stored key, counting the unused and free-listed slots of the arrays.
+     */
+    @Override
+    public double bytesPerEntry() {
+        return size == 0 ? 0 : (double) key.length * BYTES_PER_SLOT / size;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        forEach(root, action);
+    }
+
+    private void forEach(int node, IntConsumer action) {
+        while (node != NIL) {
+            forEach(left[node], action);
+            action.accept(key[node]);
+            node = right[node];
+        }
+    }
+
+    /**
+     * Lays the nodes out in key order, so slot {@code i + 1} holds {@code sorted[from + i]}. Every
+     * node is black except those on the deepest level, which are red.
+     */
+    @Override
+    public void buildFromSorted(int[] sorted, int from, int to) {
+        checkStrictlyAscending(sorted, from, to);
+        int count = to - from;
+        int capacity = Math.max(2, count + 1);
+        key = new int[capacity];
+        left = new int[capacity];
+        right = new int[capacity];
+        parent = new int[capacity];
+        color = new byte[capacity];
+        System.arraycopy(sorted, from, key, 1, count);
+        root = build(1, count + 1, 0, 31 - Integer.numberOfLeadingZeros(Math.max(count, 1)), NIL);
+        color[root] = BLACK;
+        size = count;
+        nextUnused = count + 1;
+        freeList = NIL;
+    }
+
+    private int build(int from, int to, int depth, int redDepth, int p) {
+        if (from >= to) {
+            return NIL;
+        }
+        int mid = (from + to) >>> 1;
+        parent[mid] = p;
+        color[mid] = depth == redDepth ? RED : BLACK;
+        left[mid] = build(from, mid, depth + 1, redDepth, mid);
+        right[mid] = build(mid + 1, to, depth + 1, redDepth, mid);
+        return mid;
+    }
+}
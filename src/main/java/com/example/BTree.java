@@ -0,0 +1,391 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * B-tree with up to {@code fanout} children per node. The keys of a node sit in one array, so a
+ * lookup loads about log_fanout(n) nodes instead of the log_2(n) of the binary trees, and searches
+ * each of them in place. {@link #height()} counts levels of nodes.
+ *
+ * <p>Insertion splits full nodes and deletion tops up minimal ones on the way down (as in Cormen et
+ * al.), so both finish in one descent. {@link IntBTree} is the same tree for {@code int} keys.
+ */
+public class BTree<T extends Comparable<T>> extends BalancedBinaryTree<T> {
+    /** 31 keys per node: two cache lines of compressed references. */
+    public static final int DEFAULT_FANOUT = 32;
+
+    private static final class BNode {
+        final Object[] keys;
+        final BNode[] children; // Null in leaves
+        int count;
+
+        BNode(int maxKeys, boolean leaf) {
+            keys = new Object[maxKeys];
+            children = leaf ? null : new BNode[maxKeys + 1];
+        }
+
+        boolean isLeaf() {
+            return children == null;
+        }
+    }
+
+    private final int minDegree; // Nodes other than the root hold minDegree - 1 to 2 * minDegree - 1 keys
+    private final int maxKeys;
+    private BNode rootNode;
+    private int height;
+
+    public BTree() {
+        this(DEFAULT_FANOUT);
+    }
+
+    /**
+     * @param fanout maximum number of children per node; rounded down to an even number
+     * @throws IllegalArgumentException if {@code fanout} is less than 4
+     */
+    public BTree(int fanout) {
+        if (fanout < 4) {
+            throw new IllegalArgumentException("Fanout must be at least 4: " + fanout);
+        }
+        minDegree = fanout / 2;
+        maxKeys = 2 * minDegree - 1;
+    }
+
+    @Override
+    public boolean contains(T data) {
+        BNode node = rootNode;
+        while (node != null) {
+            int i = search(node, data);
+            if (i < node.count && data.compareTo(key(node, i)) == 0) {
+                return true;
+            }
+            node = node.isLeaf() ? null : node.children[i];
+        }
+        return false;
+    }
+
+    @Override
+    public void insert(T data) {
+        if (rootNode == null) {
+            rootNode = new BNode(maxKeys, true);
+            height = 1;
+        }
+        if (rootNode.count == maxKeys) {
+            BNode newRoot = new BNode(maxKeys, false);
+            newRoot.children[0] = rootNode;
+            splitChild(newRoot, 0);
+            rootNode = newRoot;
+            height++;
+        }
+        BNode node = rootNode;
+        while (true) {
+            int i = search(node, data);
+            if (i < node.count && data.compareTo(key(node, i)) == 0) {
+                return; // Duplicate keys not allowed
+            }
+            if (node.isLeaf()) {
+                System.arraycopy(node.keys, i, node.keys, i + 1, node.count - i);
+                node.keys[i] = data;
+                node.count++;
+                return;
+            }
+            if (node.children[i].count == maxKeys) {
+                splitChild(node, i);
+                int cmp = data.compareTo(key(node, i));
+                if (cmp == 0) {
+                    return;
+                }
+                if (cmp > 0) {
+                    i++;
+                }
+            }
+            node = node.children[i];
+        }
+    }
+
+    @Override
+    public void delete(T data) {
+        if (rootNode == null) {
+            return;
+        }
+        BNode node = rootNode;
+        while (true) {
+            int i = search(node, data);
+            boolean found = i < node.count && data.compareTo(key(node, i)) == 0;
+            if (node.isLeaf()) {
+                if (found) {
+                    removeKey(node, i);
+                }
+                break;
+            }
+            if (found) {
+                // Replace the key by its predecessor or successor and delete that from the subtree,
+                // which can spare a key; if neither can, merge both around the key and go on there
+                BNode left = node.children[i];
+                BNode right = node.children[i + 1];
+                if (left.count >= minDegree) {
+                    data = lastKey(left);
+                    node.keys[i] = data;
+                    node = left;
+                } else if (right.count >= minDegree) {
+                    data = firstKey(right);
+                    node.keys[i] = data;
+                    node = right;
+                } else {
+                    merge(node, i);
+                    node = left;
+                }
+            } else {
+                node = topUp(node, i);
+            }
+        }
+        if (rootNode.count == 0) {
+            rootNode = rootNode.isLeaf() ? null : rootNode.children[0];
+            height--;
+        }
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        if (rootNode != null) {
+            forEach(rootNode, action);
+        }
+    }
+
+    private void forEach(BNode node, Consumer<? super T> action) {
+        for (int i = 0; i < node.count; i++) {
+            if (!node.isLeaf()) {
+                forEach(node.children[i], action);
+            }
+            action.accept(key(node, i));
+        }
+        if (!node.isLeaf()) {
+            forEach(node.children[node.count], action);
+        }
+    }
+
+    @Override
+    public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+        return rootNode == null || limit <= 0 ? 0 : forEachFrom(rootNode, from, limit, action);
+    }
+
+    /**
+     * Passes up to {@code limit} keys of the subtree of {@code node}, from {@code from} on or from
+     * the first if it is null, and returns how many it passed.
+     */
+    private int forEachFrom(BNode node, T from, int limit, Consumer<? super T> action) {
+        int i = from == null ? 0 : search(node, from);
+        int passed = node.isLeaf() ? 0 : forEachFrom(node.children[i], from, limit, action);
+        for (; i < node.count && passed < limit; i++) {
+            action.accept(key(node, i));
+            passed++;
+            if (!node.isLeaf() && passed < limit) {
+                passed += forEachFrom(node.children[i + 1], null, limit - passed, action);
+            }
+        }
+        return passed;
+    }
+
+    @Override
+    public int height() {
+        return height;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        rootNode = null;
+        height = 0;
+    }
+
+    /**
+     * Builds the tree level by level in linear time, with the keys spread evenly over the fewest
+     * nodes of each level.
+     */
+    @Override
+    public void buildFromSorted(List<? extends T> sorted) {
+        Object[] keys = toStrictlyAscendingArray(sorted);
+        clear();
+        if (keys.length == 0) {
+            return;
+        }
+        height = 1;
+        while (capacity(height) < keys.length) {
+            height++;
+        }
+        rootNode = build(keys, 0, keys.length, height);
+    }
+
+    /** Number of keys a full tree of {@code levels} levels holds. */
+    private long capacity(int levels) {
+        long capacity = 1;
+        for (int i = 0; i < levels && capacity <= Integer.MAX_VALUE; i++) {
+            capacity *= maxKeys + 1;
+        }
+        return capacity - 1;
+    }
+
+    private BNode build(Object[] keys, int from, int to, int levels) {
+        int count = to - from;
+        if (levels == 1) {
+            BNode leaf = new BNode(maxKeys, true);
+            System.arraycopy(keys, from, leaf.keys, 0, count);
+            leaf.count = count;
+            return leaf;
+        }
+        long childCapacity = capacity(levels - 1);
+        int children = (int) ((count + 1 + childCapacity) / (childCapacity + 1));
+        int perChild = (count - (children - 1)) / children;
+        int extra = (count - (children - 1)) % children;
+        BNode node = new BNode(maxKeys, false);
+        int position = from;
+        for (int i = 0; i < children; i++) {
+            int childCount = perChild + (i < extra ? 1 : 0);
+            node.children[i] = build(keys, position, position + childCount, levels - 1);
+            position += childCount;
+            if (i < children - 1) {
+                node.keys[i] = keys[position++];
+            }
+        }
+        node.count = children - 1;
+        return node;
+    }
+
+    /** Index of the first key of {@code node} that is not smaller than {@code data}. */
+    private int search(BNode node, T data) {
+        int low = 0;
+        int high = node.count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (key(node, mid).compareTo(data) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T key(BNode node, int i) {
+        return (T) node.keys[i];
+    }
+
+    private T firstKey(BNode node) {
+        while (!node.isLeaf()) {
+            node = node.children[0];
+        }
+        return key(node, 0);
+    }
+
+    private T lastKey(BNode node) {
+        while (!node.isLeaf()) {
+            node = node.children[node.count];
+        }
+        return key(node, node.count - 1);
+    }
+
+    /**
+     * Splits the full child {@code i} of {@code parent} around its median, which moves up.
+     */
+    private void splitChild(BNode parent, int i) {
+        BNode child = parent.children[i];
+        BNode right = new BNode(maxKeys, child.isLeaf());
+        System.arraycopy(child.keys, minDegree, right.keys, 0, minDegree - 1);
+        if (!child.isLeaf()) {
+            System.arraycopy(child.children, minDegree, right.children, 0, minDegree);
+            Arrays.fill(child.children, minDegree, maxKeys + 1, null);
+        }
+        right.count = minDegree - 1;
+        Object median = child.keys[minDegree - 1];
+        Arrays.fill(child.keys, minDegree - 1, maxKeys, null);
+        child.count = minDegree - 1;
+
+        System.arraycopy(parent.keys, i, parent.keys, i + 1, parent.count - i);
+        System.arraycopy(parent.children, i + 1, parent.children, i + 2, parent.count - i);
+        parent.keys[i] = median;
+        parent.children[i + 1] = right;
+        parent.count++;
+    }
+
+    /**
+     * Makes sure child {@code i} of {@code node} can lose a key, borrowing from a sibling or merging
+     * with one, and returns the node to descend into.
+     */
+    private BNode topUp(BNode node, int i) {
+        BNode child = node.children[i];
+        if (child.count >= minDegree) {
+            return child;
+        }
+        if (i > 0 && node.children[i - 1].count >= minDegree) {
+            borrowFromLeft(node, i);
+            return child;
+        }
+        if (i < node.count && node.children[i + 1].count >= minDegree) {
+            borrowFromRight(node, i);
+            return child;
+        }
+        if (i < node.count) {
+            merge(node, i);
+            return child;
+        }
+        merge(node, i - 1);
+        return node.children[i - 1];
+    }
+
+    private void borrowFromLeft(BNode node, int i) {
+        BNode child = node.children[i];
+        BNode sibling = node.children[i - 1];
+        System.arraycopy(child.keys, 0, child.keys, 1, child.count);
+        child.keys[0] = node.keys[i - 1];
+        if (!child.isLeaf()) {
+            System.arraycopy(child.children, 0, child.children, 1, child.count + 1);
+            child.children[0] = sibling.children[sibling.count];
+            sibling.children[sibling.count] = null;
+        }
+        child.count++;
+        node.keys[i - 1] = sibling.keys[sibling.count - 1];
+        sibling.keys[sibling.count - 1] = null;
+        sibling.count--;
+    }
+
+    private void borrowFromRight(BNode node, int i) {
+        BNode child = node.children[i];
+        BNode sibling = node.children[i + 1];
+        child.keys[child.count] = node.keys[i];
+        if (!child.isLeaf()) {
+            child.children[child.count + 1] = sibling.children[0];
+            System.arraycopy(sibling.children, 1, sibling.children, 0, sibling.count);
+            sibling.children[sibling.count] = null;
+        }
+        child.count++;
+        node.keys[i] = sibling.keys[0];
+        removeKey(sibling, 0);
+    }
+
+    /**
+     * Moves key {@code i} of {@code node} and all of child {@code i + 1} into child {@code i}.
+     */
+    private void merge(BNode node, int i) {
+        BNode left = node.children[i];
+        BNode right = node.children[i + 1];
+        left.keys[left.count] = node.keys[i];
+        System.arraycopy(right.keys, 0, left.keys, left.count + 1, right.count);
+        if (!left.isLeaf()) {
+            System.arraycopy(right.children, 0, left.children, left.count + 1, right.count + 1);
+        }
+        left.count += right.count + 1;
+
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.count - i - 1);
+        System.arraycopy(node.children, i + 2, node.children, i + 1, node.count - i - 1);
+        node.keys[node.count - 1] = null;
+        node.children[node.count] = null;
+        node.count--;
+    }
+
+    private static void removeKey(BNode node, int i) {
+        System.arraycopy(node.keys, i + 1, node.keys, i, node.count - i - 1);
+        node.keys[--node.count] = null;
+    }
+}
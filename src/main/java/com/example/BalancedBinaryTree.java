@@ -1,20 +1,149 @@
 package com.example;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
+
 public abstract class BalancedBinaryTree<T extends Comparable<T>> {
     protected Node<T> root;
+    protected TreeRecorder recorder = TreeRecorder.NONE;
 
     protected static class Node<T> {
         T data;
         Node<T> left;
         Node<T> right;
+        int size = 1; // Nodes in this subtree, kept by the subclasses of OrderedTree
+        boolean deleted; // Tombstone left by LazyDeleteTree; fits in the padding of every node class
 
         Node(T data) {
             this.data = data;
         }
+
+        /**
+         * Exchanges the keys of two nodes, together with anything a subclass stores alongside them.
+         */
+        void swapData(Node<T> other) {
+            T data = this.data;
+            this.data = other.data;
+            other.data = data;
+            boolean deleted = this.deleted;
+            this.deleted = other.deleted;
+            other.deleted = deleted;
+        }
     }
 
     public abstract void insert(T data);
     public abstract void delete(T data);
     public abstract boolean contains(T data);
     public abstract int height();
-} 
\ No newline at end of file
+
+    /**
+     * Passes every key to {@code action} in ascending order.
+     */
+    public abstract void forEach(Consumer<? super T> action);
+
+    /**
+     * Passes the first {@code limit} keys not less than {@code from}, or as many as there are, to
+     * {@code action} in ascending order, and returns how many it passed. This default goes through
+     * every key with {@link #forEach}; subclasses that can seek to {@code from} override it.
+     */
+    public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+        int[] passed = new int[1];
+        forEach(key -> {
+            if (passed[0] < limit && key.compareTo(from) >= 0) {
+                action.accept(key);
+                passed[0]++;
+            }
+        });
+        return passed[0];
+    }
+
+    public void clear() {
+        root = null;
+    }
+
+    /**
+     * Reports the work of the following operations to {@code recorder}, or to nobody if it is
+     * {@link TreeRecorder#NONE}. Only {@link AVLTree} and {@link RedBlackTree} report anything.
+     */
+    public void setRecorder(TreeRecorder recorder) {
+        this.recorder = Objects.requireNonNull(recorder);
+    }
+
+    public TreeRecorder getRecorder() {
+        return recorder;
+    }
+
+    /**
+     * Totals recorded so far if the recorder is a {@link StatsRecorder}, otherwise
+     * {@link TreeStats#EMPTY}.
+     */
+    public TreeStats getStats() {
+        TreeRecorder recorder = getRecorder();
+        return recorder instanceof StatsRecorder ? ((StatsRecorder) recorder).snapshot() : TreeStats.EMPTY;
+    }
+
+    /**
+     * Replaces the contents of the tree with {@code sorted}, which must be in strictly ascending
+     * order. This default inserts the keys one by one; subclasses that can build the balanced shape
+     * directly override it with a linear-time version.
+     *
+     * @throws IllegalArgumentException if the keys are not strictly ascending
+     */
+    public void buildFromSorted(List<? extends T> sorted) {
+        Object[] keys = toStrictlyAscendingArray(sorted);
+        clear();
+        for (Object key : keys) {
+            @SuppressWarnings("unchecked")
+            T value = (T) key;
+            insert(value);
+        }
+    }
+
+    /**
+     * Replaces the contents of the tree with {@code values}, which may be in any order and contain
+     * duplicates: sorts and de-duplicates a copy, then calls {@link #buildFromSorted(List)}.
+     */
+    public void bulkLoad(Collection<? extends T> values) {
+        List<T> sorted = new ArrayList<>(values);
+        Collections.sort(sorted);
+        int distinct = 0;
+        for (T value : sorted) {
+            if (distinct == 0 || sorted.get(distinct - 1).compareTo(value) != 0) {
+                sorted.set(distinct++, value);
+            }
+        }
+        buildFromSorted(sorted.subList(0, distinct));
+    }
+
+    /**
+     * Copies {@code sorted} into an array, checking that it is strictly ascending.
+     */
+    protected static <T extends Comparable<T>> Object[] toStrictlyAscendingArray(List<? extends T> sorted) {
+        Object[] keys = sorted.toArray();
+        for (int i = 1; i < keys.length; i++) {
+            @SuppressWarnings("unchecked")
+            T previous = (T) keys[i - 1];
+            @SuppressWarnings("unchecked")
+            T current = (T) keys[i];
+            if (previous.compareTo(current) >= 0) {
+                throw new IllegalArgumentException("Keys are not strictly ascending at index " + i);
+            }
+        }
+        return keys;
+    }
+
+    static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * Height of a tree built by recursively splitting {@code size} sorted keys at the midpoint.
+     */
+    static int balancedHeight(int size) {
+        return 32 - Integer.numberOfLeadingZeros(size);
+    }
+}
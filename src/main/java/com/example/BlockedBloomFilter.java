@@ -0,0 +1,64 @@
+package com.example;
+
+/**
+ * Bloom filter whose bits for a key all fall in one 512-bit block, a single cache line when the
+ * array is aligned, so a lookup reads one line instead of k. It holds 64-bit hashes, which should be
+ * well mixed; it does not support removal.
+ */
+final class BlockedBloomFilter {
+    static final int BLOCK_BITS = 512;
+    private static final int BLOCK_WORDS = BLOCK_BITS / Long.SIZE;
+    private static final int MAX_HASHES = 16;
+
+    private final long[] words;
+    private final int blocks;
+    private final int hashes;
+
+    /**
+     * Sized for {@code capacity} keys at a false positive rate of about {@code falsePositiveRate},
+     * from the optimum for a plain Bloom filter: confining the bits to one block raises the rate
+     * a little.
+     */
+    BlockedBloomFilter(int capacity, double falsePositiveRate) {
+        double bitsPerKey = -Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        long bits = (long) Math.ceil(Math.max(1, capacity) * bitsPerKey);
+        blocks = (int) Math.max(1, (bits + BLOCK_BITS - 1) / BLOCK_BITS);
+        words = new long[blocks * BLOCK_WORDS];
+        hashes = (int) Math.max(1, Math.min(MAX_HASHES, Math.round(bitsPerKey * Math.log(2))));
+    }
+
+    void add(long hash) {
+        int base = block(hash);
+        int h = (int) hash;
+        int step = h * 0x9E3779B9 | 1;
+        for (int i = 0; i < hashes; i++, h += step) {
+            int bit = h >>> 23; // Top 9 bits: 0..511
+            words[base + (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    boolean mightContain(long hash) {
+        int base = block(hash);
+        int h = (int) hash;
+        int step = h * 0x9E3779B9 | 1;
+        for (int i = 0; i < hashes; i++, h += step) {
+            int bit = h >>> 23;
+            if ((words[base + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * First word of the block for {@code hash}, picked by its top 32 bits without a division.
+     */
+    private int block(long hash) {
+        return (int) (((hash >>> 32) * blocks) >>> 32) * BLOCK_WORDS;
+    }
+
+    /** Heap bytes of the bit array. */
+    long bytes() {
+        return ObjectLayout.arraySize(long.class, words.length);
+    }
+}
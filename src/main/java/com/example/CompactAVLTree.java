@@ -0,0 +1,357 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link ArrayAVLTree} in 12 bytes per node: the key and both child indices of a node sit next to
+ * each other in one {@code int[]}, so a lookup touches one cache line per level, and the balance
+ * factor lives in the sign bits of the child indices (left-heavy and right-heavy) instead of a height
+ * byte. Insert and delete retrace a recorded path like {@link AVLTree} rather than recursing.
+ */
+public class CompactAVLTree extends IntBalancedTree {
+    private static final int NIL = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_HEIGHT = 64;
+
+    // Offsets within a node, which starts at index 3 * node
+    private static final int KEY = 0;
+    private static final int LEFT = 1;
+    private static final int RIGHT = 2;
+    private static final int HEAVY = Integer.MIN_VALUE; // Set in LEFT if left-heavy, in RIGHT if right-heavy
+
+    /** key + left + right, 4 bytes each. */
+    static final int BYTES_PER_SLOT = 3 * Integer.BYTES;
+
+    private int[] nodes;
+    private int root = NIL;
+    private int size;
+    private int nextUnused = 1;
+    private int freeList = NIL;
+
+    private final int[] path = new int[MAX_HEIGHT];
+    private final boolean[] wentLeft = new boolean[MAX_HEIGHT];
+
+    public CompactAVLTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CompactAVLTree(int initialCapacity) {
+        nodes = new int[3 * Math.max(2, initialCapacity + 1)];
+    }
+
+    private int key(int node) {
+        return nodes[3 * node + KEY];
+    }
+
+    private int left(int node) {
+        return nodes[3 * node + LEFT] & ~HEAVY;
+    }
+
+    private int right(int node) {
+        return nodes[3 * node + RIGHT] & ~HEAVY;
+    }
+
+    private void setLeft(int node, int child) {
+        int i = 3 * node + LEFT;
+        nodes[i] = (nodes[i] & HEAVY) | child;
+    }
+
+    private void setRight(int node, int child) {
+        int i = 3 * node + RIGHT;
+        nodes[i] = (nodes[i] & HEAVY) | child;
+    }
+
+    /** height(right) - height(left): -1, 0 or 1. */
+    private int balance(int node) {
+        return (nodes[3 * node + RIGHT] >>> 31) - (nodes[3 * node + LEFT] >>> 31);
+    }
+
+    private void setBalance(int node, int balance) {
+        int l = 3 * node + LEFT;
+        int r = 3 * node + RIGHT;
+        nodes[l] = (nodes[l] & ~HEAVY) | (balance < 0 ? HEAVY : 0);
+        nodes[r] = (nodes[r] & ~HEAVY) | (balance > 0 ? HEAVY : 0);
+    }
+
+    private int allocate(int k) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left(node);
+        } else {
+            if (3 * nextUnused == nodes.length) {
+                grow();
+            }
+            node = nextUnused++;
+        }
+        nodes[3 * node + KEY] = k;
+        nodes[3 * node + LEFT] = NIL;
+        nodes[3 * node + RIGHT] = NIL;
+        return node;
+    }
+
+    private void release(int node) {
+        nodes[3 * node + LEFT] = freeList;
+        freeList = node;
+    }
+
+    private void grow() {
+        int slots = nodes.length / 3;
+        nodes = Arrays.copyOf(nodes, 3 * (slots + (slots >> 1) + 1));
+    }
+
+    @Override
+    public void insert(int k) {
+        if (root == NIL) {
+            root = allocate(k);
+            size++;
+            return;
+        }
+        int node = root;
+        int depth = 0;
+        while (true) {
+            int nodeKey = key(node);
+            if (k == nodeKey) {
+                return; // Duplicate keys not allowed
+            }
+            path[depth] = node;
+            wentLeft[depth++] = k < nodeKey;
+            int next = k < nodeKey ? left(node) : right(node);
+            if (next == NIL) {
+                int leaf = allocate(k);
+                if (k < nodeKey) {
+                    setLeft(node, leaf);
+                } else {
+                    setRight(node, leaf);
+                }
+                break;
+            }
+            node = next;
+        }
+        size++;
+
+        // The subtree on side wentLeft[i] of path[i] is one level taller than before.
+        for (int i = depth - 1; i >= 0; i--) {
+            int current = path[i];
+            int balance = balance(current) + (wentLeft[i] ? -1 : 1);
+            if (balance == 0) {
+                setBalance(current, 0);
+                return;
+            }
+            if (balance == 1 || balance == -1) {
+                setBalance(current, balance);
+                continue;
+            }
+            replaceChild(i, rebalance(current, balance));
+            return;
+        }
+    }
+
+    @Override
+    public void delete(int k) {
+        int node = root;
+        int depth = 0;
+        while (node != NIL) {
+            int nodeKey = key(node);
+            if (k == nodeKey) {
+                break;
+            }
+            path[depth] = node;
+            wentLeft[depth++] = k < nodeKey;
+            node = k < nodeKey ? left(node) : right(node);
+        }
+        if (node == NIL) {
+            return;
+        }
+
+        if (left(node) != NIL && right(node) != NIL) {
+            // Move the in-order successor's key up and remove the successor instead
+            path[depth] = node;
+            wentLeft[depth++] = false;
+            int successor = right(node);
+            while (left(successor) != NIL) {
+                path[depth] = successor;
+                wentLeft[depth++] = true;
+                successor = left(successor);
+            }
+            nodes[3 * node + KEY] = key(successor);
+            node = successor;
+        }
+        replaceChild(depth, left(node) != NIL ? left(node) : right(node));
+        release(node);
+        size--;
+
+        // The subtree on side wentLeft[i] of path[i] is one level shorter than before.
+        for (int i = depth - 1; i >= 0; i--) {
+            int current = path[i];
+            int balance = balance(current) + (wentLeft[i] ? 1 : -1);
+            if (balance == 1 || balance == -1) {
+                setBalance(current, balance);
+                return;
+            }
+            if (balance == 0) {
+                setBalance(current, 0);
+                continue;
+            }
+            int subtree = rebalance(current, balance);
+            replaceChild(i, subtree);
+            if (balance(subtree) != 0) {
+                return; // The rotation kept the subtree's height
+            }
+        }
+    }
+
+    /**
+     * Links {@code subtree} where {@code path[level]} used to hang, i.e. below {@code path[level - 1]}.
+     */
+    private void replaceChild(int level, int subtree) {
+        if (level == 0) {
+            root = subtree;
+        } else if (wentLeft[level - 1]) {
+            setLeft(path[level - 1], subtree);
+        } else {
+            setRight(path[level - 1], subtree);
+        }
+    }
+
+    private int rebalance(int node, int balance) {
+        if (balance > 0) {
+            int right = right(node);
+            return balance(right) >= 0 ? rotateLeft(node, right) : rotateRightLeft(node, right);
+        } else {
+            int left = left(node);
+            return balance(left) <= 0 ? rotateRight(node, left) : rotateLeftRight(node, left);
+        }
+    }
+
+    private int rotateLeft(int x, int z) {
+        setRight(x, left(z));
+        setLeft(z, x);
+        if (balance(z) == 0) { // Only after a delete
+            setBalance(x, 1);
+            setBalance(z, -1);
+        } else {
+            setBalance(x, 0);
+            setBalance(z, 0);
+        }
+        return z;
+    }
+
+    private int rotateRight(int x, int z) {
+        setLeft(x, right(z));
+        setRight(z, x);
+        if (balance(z) == 0) { // Only after a delete
+            setBalance(x, -1);
+            setBalance(z, 1);
+        } else {
+            setBalance(x, 0);
+            setBalance(z, 0);
+        }
+        return z;
+    }
+
+    private int rotateRightLeft(int x, int z) {
+        int y = left(z);
+        int yBalance = balance(y);
+        setLeft(z, right(y));
+        setRight(y, z);
+        setRight(x, left(y));
+        setLeft(y, x);
+        setBalance(x, yBalance > 0 ? -1 : 0);
+        setBalance(z, yBalance < 0 ? 1 : 0);
+        setBalance(y, 0);
+        return y;
+    }
+
+    private int rotateLeftRight(int x, int z) {
+        int y = right(z);
+        int yBalance = balance(y);
+        setRight(z, left(y));
+        setLeft(y, z);
+        setLeft(x, right(y));
+        setRight(y, x);
+        setBalance(x, yBalance < 0 ? 1 : 0);
+        setBalance(z, yBalance > 0 ? -1 : 0);
+        setBalance(y, 0);
+        return y;
+    }
+
+    @Override
+    public boolean contains(int k) {
+        int node = root;
+        while (node != NIL) {
+            int nodeKey = nodes[3 * node + KEY];
+            if (k == nodeKey) {
+                return true;
+            }
+            node = nodes[3 * node + (k < nodeKey ? LEFT : RIGHT)] & ~HEAVY;
+        }
+        return false;
+    }
+
+    /**
+     * Follows the taller child from the root, so O(log n).
+     */
+    @Override
+    public int height() {
+        int height = 0;
+        for (int node = root; node != NIL; node = balance(node) < 0 ? left(node) : right(node)) {
+            height++;
+        }
+        return height;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Bytes of node storage per stored key, counting the unused and free-listed slots of the array.
+     */
+    @Override
+    public double bytesPerEntry() {
+        return size == 0 ? 0 : (double) (nodes.length / 3) * BYTES_PER_SLOT / size;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        forEach(root, action);
+    }
+
+    private void forEach(int node, IntConsumer action) {
+        while (node != NIL) {
+            forEach(left(node), action);
+            action.accept(key(node));
+            node = right(node);
+        }
+    }
+
+    /**
+     * Lays the nodes out in key order, so slot {@code i + 1} holds {@code sorted[from + i]}.
+     */
+    @Override
+    public void buildFromSorted(int[] sorted, int from, int to) {
+        checkStrictlyAscending(sorted, from, to);
+        int count = to - from;
+        nodes = new int[3 * Math.max(2, count + 1)];
+        for (int i = 0; i < count; i++) {
+            nodes[3 * (i + 1) + KEY] = sorted[from + i];
+        }
+        root = build(1, count + 1);
+        size = count;
+        nextUnused = count + 1;
+        freeList = NIL;
+    }
+
+    private int build(int from, int to) {
+        if (from >= to) {
+            return NIL;
+        }
+        int mid = (from + to) >>> 1;
+        setLeft(mid, build(from, mid));
+        setRight(mid, build(mid + 1, to));
+        setBalance(mid, BalancedBinaryTree.balancedHeight(to - mid - 1) - BalancedBinaryTree.balancedHeight(mid - from));
+        return mid;
+    }
+}
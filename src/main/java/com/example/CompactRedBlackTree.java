@@ -0,0 +1,393 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * {@link ArrayRedBlackTree} in 12 bytes per node: the key and both child indices of a node sit next
+ * to each other in one {@code int[]}, the color is the sign bit of the left child index, and there
+ * are no parent indices. Insert and delete record the path from the root instead, and the fixups
+ * walk back up it; a rotation during a delete fixup pushes the node that moved above the parent.
+ */
+public class CompactRedBlackTree extends IntBalancedTree {
+    private static final int NIL = 0;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int MAX_HEIGHT = 64;
+
+    // Offsets within a node, which starts at index 3 * node
+    private static final int KEY = 0;
+    private static final int LEFT = 1;
+    private static final int RIGHT = 2;
+    private static final int RED = Integer.MIN_VALUE; // Set in LEFT for red nodes; NIL stays black
+
+    /** key + left + right, 4 bytes each. */
+    static final int BYTES_PER_SLOT = 3 * Integer.BYTES;
+
+    private int[] nodes;
+    private int root = NIL;
+    private int size;
+    private int nextUnused = 1;
+    private int freeList = NIL;
+
+    // Ancestors of the node being inserted or removed, from the root down
+    private final int[] path = new int[MAX_HEIGHT];
+
+    public CompactRedBlackTree() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public CompactRedBlackTree(int initialCapacity) {
+        nodes = new int[3 * Math.max(2, initialCapacity + 1)];
+    }
+
+    private int key(int node) {
+        return nodes[3 * node + KEY];
+    }
+
+    private int left(int node) {
+        return nodes[3 * node + LEFT] & ~RED;
+    }
+
+    private int right(int node) {
+        return nodes[3 * node + RIGHT];
+    }
+
+    private void setLeft(int node, int child) {
+        int i = 3 * node + LEFT;
+        nodes[i] = (nodes[i] & RED) | child;
+    }
+
+    private void setRight(int node, int child) {
+        nodes[3 * node + RIGHT] = child;
+    }
+
+    private boolean isRed(int node) {
+        return nodes[3 * node + LEFT] < 0;
+    }
+
+    private void setRed(int node, boolean red) {
+        int i = 3 * node + LEFT;
+        nodes[i] = red ? nodes[i] | RED : nodes[i] & ~RED;
+    }
+
+    private int allocate(int k) {
+        int node;
+        if (freeList != NIL) {
+            node = freeList;
+            freeList = left(node);
+        } else {
+            if (3 * nextUnused == nodes.length) {
+                grow();
+            }
+            node = nextUnused++;
+        }
+        nodes[3 * node + KEY] = k;
+        nodes[3 * node + LEFT] = RED | NIL;
+        nodes[3 * node + RIGHT] = NIL;
+        return node;
+    }
+
+    private void release(int node) {
+        nodes[3 * node + LEFT] = freeList;
+        freeList = node;
+    }
+
+    private void grow() {
+        int slots = nodes.length / 3;
+        nodes = Arrays.copyOf(nodes, 3 * (slots + (slots >> 1) + 1));
+    }
+
+    /**
+     * Makes {@code replacement} the child of {@code parent} that {@code child} was, or the root if
+     * {@code parent} is NIL.
+     */
+    private void replace(int parent, int child, int replacement) {
+        if (parent == NIL) {
+            root = replacement;
+        } else if (left(parent) == child) {
+            setLeft(parent, replacement);
+        } else {
+            setRight(parent, replacement);
+        }
+    }
+
+    private int rotateLeft(int x) {
+        int y = right(x);
+        setRight(x, left(y));
+        setLeft(y, x);
+        return y;
+    }
+
+    private int rotateRight(int y) {
+        int x = left(y);
+        setLeft(y, right(x));
+        setRight(x, y);
+        return x;
+    }
+
+    @Override
+    public void insert(int k) {
+        int node = root;
+        int depth = 0;
+        while (node != NIL) {
+            int nodeKey = key(node);
+            if (k == nodeKey) {
+                return; // Duplicate keys not allowed
+            }
+            path[depth++] = node;
+            node = k < nodeKey ? left(node) : right(node);
+        }
+        node = allocate(k);
+        if (depth == 0) {
+            root = node;
+        } else if (k < key(path[depth - 1])) {
+            setLeft(path[depth - 1], node);
+        } else {
+            setRight(path[depth - 1], node);
+        }
+        size++;
+        fixInsert(node, depth);
+    }
+
+    /**
+     * Restores the red-black properties after the red {@code node} was linked below
+     * {@code path[depth - 1]}.
+     */
+    private void fixInsert(int node, int depth) {
+        while (depth > 0 && isRed(path[depth - 1])) {
+            int parent = path[depth - 1];
+            int grandparent = path[depth - 2]; // A red parent is not the root
+            if (parent == left(grandparent)) {
+                int uncle = right(grandparent);
+                if (isRed(uncle)) {
+                    setRed(parent, false);
+                    setRed(uncle, false);
+                    setRed(grandparent, true);
+                    node = grandparent;
+                    depth -= 2;
+                    continue;
+                }
+                if (node == right(parent)) {
+                    parent = rotateLeft(parent);
+                    setLeft(grandparent, parent);
+                }
+                setRed(parent, false);
+                setRed(grandparent, true);
+                replace(depth > 2 ? path[depth - 3] : NIL, grandparent, rotateRight(grandparent));
+            } else {
+                int uncle = left(grandparent);
+                if (isRed(uncle)) {
+                    setRed(parent, false);
+                    setRed(uncle, false);
+                    setRed(grandparent, true);
+                    node = grandparent;
+                    depth -= 2;
+                    continue;
+                }
+                if (node == left(parent)) {
+                    parent = rotateRight(parent);
+                    setRight(grandparent, parent);
+                }
+                setRed(parent, false);
+                setRed(grandparent, true);
+                replace(depth > 2 ? path[depth - 3] : NIL, grandparent, rotateLeft(grandparent));
+            }
+            break;
+        }
+        setRed(root, false);
+    }
+
+    @Override
+    public void delete(int k) {
+        int node = root;
+        int depth = 0;
+        while (node != NIL) {
+            int nodeKey = key(node);
+            if (k == nodeKey) {
+                break;
+            }
+            path[depth++] = node;
+            node = k < nodeKey ? left(node) : right(node);
+        }
+        if (node == NIL) {
+            return;
+        }
+
+        if (left(node) != NIL && right(node) != NIL) {
+            // Move the in-order successor's key up and remove the successor instead
+            path[depth++] = node;
+            int successor = right(node);
+            while (left(successor) != NIL) {
+                path[depth++] = successor;
+                successor = left(successor);
+            }
+            nodes[3 * node + KEY] = key(successor);
+            node = successor;
+        }
+        int child = left(node) != NIL ? left(node) : right(node);
+        int parent = depth > 0 ? path[depth - 1] : NIL;
+        boolean removedRed = isRed(node);
+        replace(parent, node, child);
+        release(node);
+        size--;
+        if (!removedRed) {
+            fixDelete(child, parent, depth - 1);
+        }
+    }
+
+    /**
+     * Restores the black height after a black node was removed from between {@code parent} (which is
+     * {@code path[level]}) and {@code x}. {@code x} may be NIL, so its parent is passed along.
+     */
+    private void fixDelete(int x, int parent, int level) {
+        while (x != root && !isRed(x)) {
+            int grandparent = level > 0 ? path[level - 1] : NIL;
+            if (x == left(parent)) {
+                int w = right(parent);
+                if (isRed(w)) {
+                    setRed(w, false);
+                    setRed(parent, true);
+                    replace(grandparent, parent, rotateLeft(parent));
+                    path[level++] = w; // w now sits between the grandparent and the parent
+                    path[level] = parent;
+                    grandparent = w;
+                    w = right(parent);
+                }
+                if (!isRed(left(w)) && !isRed(right(w))) {
+                    setRed(w, true);
+                    x = parent;
+                    parent = grandparent;
+                    level--;
+                } else {
+                    if (!isRed(right(w))) {
+                        setRed(left(w), false);
+                        setRed(w, true);
+                        w = rotateRight(w);
+                        setRight(parent, w);
+                    }
+                    setRed(w, isRed(parent));
+                    setRed(parent, false);
+                    setRed(right(w), false);
+                    replace(grandparent, parent, rotateLeft(parent));
+                    x = root;
+                }
+            } else {
+                int w = left(parent);
+                if (isRed(w)) {
+                    setRed(w, false);
+                    setRed(parent, true);
+                    replace(grandparent, parent, rotateRight(parent));
+                    path[level++] = w;
+                    path[level] = parent;
+                    grandparent = w;
+                    w = left(parent);
+                }
+                if (!isRed(right(w)) && !isRed(left(w))) {
+                    setRed(w, true);
+                    x = parent;
+                    parent = grandparent;
+                    level--;
+                } else {
+                    if (!isRed(left(w))) {
+                        setRed(right(w), false);
+                        setRed(w, true);
+                        w = rotateLeft(w);
+                        setLeft(parent, w);
+                    }
+                    setRed(w, isRed(parent));
+                    setRed(parent, false);
+                    setRed(left(w), false);
+                    replace(grandparent, parent, rotateRight(parent));
+                    x = root;
+                }
+            }
+        }
+        if (x != NIL) {
+            setRed(x, false);
+        }
+    }
+
+    @Override
+    public boolean contains(int k) {
+        int node = root;
+        while (node != NIL) {
+            int nodeKey = nodes[3 * node + KEY];
+            if (k == nodeKey) {
+                return true;
+            }
+            node = k < nodeKey ? nodes[3 * node + LEFT] & ~RED : nodes[3 * node + RIGHT];
+        }
+        return false;
+    }
+
+    /**
+     * Nodes keep no height, so this visits every node.
+     */
+    @Override
+    public int height() {
+        return height(root);
+    }
+
+    private int height(int node) {
+        if (node == NIL) {
+            return 0;
+        }
+        return 1 + Math.max(height(left(node)), height(right(node)));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Bytes of node storage per stored key, counting the unused and free-listed slots of the array.
+     */
+    @Override
+    public double bytesPerEntry() {
+        return size == 0 ? 0 : (double) (nodes.length / 3) * BYTES_PER_SLOT / size;
+    }
+
+    @Override
+    public void forEach(IntConsumer action) {
+        forEach(root, action);
+    }
+
+    private void forEach(int node, IntConsumer action) {
+        while (node != NIL) {
+            forEach(left(node), action);
+            action.accept(key(node));
+            node = right(node);
+        }
+    }
+
+    /**
+     * Lays the nodes out in key order, so slot {@code i + 1} holds {@code sorted[from + i]}. Every
+     * node is black except those on the deepest level of an incomplete tree, which are red.
+     */
+    @Override
+    public void buildFromSorted(int[] sorted, int from, int to) {
+        checkStrictlyAscending(sorted, from, to);
+        int count = to - from;
+        nodes = new int[3 * Math.max(2, count + 1)];
+        for (int i = 0; i < count; i++) {
+            nodes[3 * (i + 1) + KEY] = sorted[from + i];
+        }
+        int height = BalancedBinaryTree.balancedHeight(count);
+        boolean complete = count == (1 << height) - 1;
+        root = build(1, count + 1, 1, complete ? 0 : height);
+        size = count;
+        nextUnused = count + 1;
+        freeList = NIL;
+    }
+
+    private int build(int from, int to, int level, int redLevel) {
+        if (from >= to) {
+            return NIL;
+        }
+        int mid = (from + to) >>> 1;
+        setLeft(mid, build(from, mid, level + 1, redLevel));
+        setRight(mid, build(mid + 1, to, level + 1, redLevel));
+        setRed(mid, level == redLevel);
+        return mid;
+    }
+}
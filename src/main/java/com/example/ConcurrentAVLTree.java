@@ -0,0 +1,769 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Thread-safe AVL tree after Bronson, Casper, Chafi and Olukotun, "A Practical Concurrent Binary
+ * Search Tree" (PPoPP 2010).
+ *
+ * <p>Every node carries a version number that changes whenever a rotation moves it down (shrinking
+ * the key range its subtree covers) or it is unlinked. Searches read a child, then check that the
+ * parent's version is unchanged before moving on, and retry from the last node that is still valid
+ * otherwise, so {@link #contains} takes no locks. Writers lock only the nodes they link, unlink or
+ * rotate. Removing a key whose node has two children just marks the node as a routing node; routing
+ * nodes with fewer than two children are unlinked during rebalancing. Balance is relaxed while
+ * updates are in flight and restored once they finish.
+ *
+ * <p>{@link #height()} and {@link #clear()} are not atomic with respect to concurrent updates.
+ */
+public class ConcurrentAVLTree<T extends Comparable<T>> extends BalancedBinaryTree<T> {
+    private static final long UNLINKED = 1L;
+    private static final long SHRINKING = 2L;
+    private static final long SHRINK_COUNT_INCREMENT = 4L;
+
+    private static final int SPIN_COUNT = 100;
+
+    // Results of the attempt* methods
+    private static final int RETRY = -1;
+    private static final int NOT_FOUND = 0;
+    private static final int FOUND = 1;
+
+    // nodeCondition results other than a new height
+    private static final int UNLINK_REQUIRED = -1;
+    private static final int REBALANCE_REQUIRED = -2;
+    private static final int NOTHING_REQUIRED = -3;
+
+    private static final class VersionedNode<T> {
+        final T key;
+        volatile int height;
+        volatile boolean present; // false for routing nodes
+        volatile long version;
+        volatile VersionedNode<T> parent;
+        volatile VersionedNode<T> left;
+        volatile VersionedNode<T> right;
+
+        VersionedNode(T key, VersionedNode<T> parent) {
+            this.key = key;
+            this.parent = parent;
+            this.height = 1;
+            this.present = true;
+        }
+
+        VersionedNode<T> child(int cmp) {
+            return cmp < 0 ? left : right;
+        }
+
+        void setChild(int cmp, VersionedNode<T> child) {
+            if (cmp < 0) {
+                left = child;
+            } else {
+                right = child;
+            }
+        }
+    }
+
+    /** Sentinel above the root; the root is its right child. */
+    private final VersionedNode<T> rootHolder = new VersionedNode<>(null, null);
+
+    @Override
+    public boolean contains(T key) {
+        while (true) {
+            VersionedNode<T> right = rootHolder.right;
+            if (right == null) {
+                return false;
+            }
+            int cmp = key.compareTo(right.key);
+            if (cmp == 0) {
+                return right.present;
+            }
+            long version = right.version;
+            if (isShrinkingOrUnlinked(version)) {
+                waitUntilNotChanging(right);
+            } else if (right == rootHolder.right) {
+                int result = attemptGet(key, right, cmp, version);
+                if (result != RETRY) {
+                    return result == FOUND;
+                }
+            }
+        }
+    }
+
+    private int attemptGet(T key, VersionedNode<T> node, int cmp, long nodeVersion) {
+        while (true) {
+            VersionedNode<T> child = node.child(cmp);
+            if (node.version != nodeVersion) {
+                return RETRY;
+            }
+            if (child == null) {
+                return NOT_FOUND;
+            }
+            int childCmp = key.compareTo(child.key);
+            if (childCmp == 0) {
+                return child.present ? FOUND : NOT_FOUND;
+            }
+            long childVersion = child.version;
+            if (isShrinkingOrUnlinked(childVersion)) {
+                waitUntilNotChanging(child);
+            } else if (child == node.child(cmp)) {
+                if (node.version != nodeVersion) {
+                    return RETRY;
+                }
+                int result = attemptGet(key, child, childCmp, childVersion);
+                if (result != RETRY) {
+                    return result;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void insert(T key) {
+        update(key, true);
+    }
+
+    @Override
+    public void delete(T key) {
+        update(key, false);
+    }
+
+    private void update(T key, boolean present) {
+        while (true) {
+            VersionedNode<T> right = rootHolder.right;
+            if (right == null) {
+                if (!present) {
+                    return;
+                }
+                synchronized (rootHolder) {
+                    if (rootHolder.right == null) {
+                        rootHolder.right = new VersionedNode<>(key, rootHolder);
+                        return;
+                    }
+                }
+            } else {
+                long version = right.version;
+                if (isShrinkingOrUnlinked(version)) {
+                    waitUntilNotChanging(right);
+                } else if (right == rootHolder.right) {
+                    if (attemptUpdate(key, present, rootHolder, right, version) != RETRY) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    private int attemptUpdate(T key, boolean present, VersionedNode<T> parent, VersionedNode<T> node,
+                              long nodeVersion) {
+        int cmp = key.compareTo(node.key);
+        if (cmp == 0) {
+            return attemptNodeUpdate(present, parent, node);
+        }
+        while (true) {
+            VersionedNode<T> child = node.child(cmp);
+            if (node.version != nodeVersion) {
+                return RETRY;
+            }
+            if (child == null) {
+                if (!present) {
+                    return NOT_FOUND;
+                }
+                boolean inserted = false;
+                synchronized (node) {
+                    if (node.version != nodeVersion) {
+                        return RETRY;
+                    }
+                    if (node.child(cmp) == null) {
+                        node.setChild(cmp, new VersionedNode<>(key, node));
+                        inserted = true;
+                    }
+                }
+                if (inserted) {
+                    fixHeightAndRebalance(node);
+                    return FOUND;
+                }
+                // Another insert got there first; look at the new child
+            } else {
+                long childVersion = child.version;
+                if (isShrinkingOrUnlinked(childVersion)) {
+                    waitUntilNotChanging(child);
+                } else if (child == node.child(cmp)) {
+                    if (node.version != nodeVersion) {
+                        return RETRY;
+                    }
+                    int result = attemptUpdate(key, present, node, child, childVersion);
+                    if (result != RETRY) {
+                        return result;
+                    }
+                }
+            }
+        }
+    }
+
+    private int attemptNodeUpdate(boolean present, VersionedNode<T> parent, VersionedNode<T> node) {
+        if (present) {
+            synchronized (node) {
+                if (isUnlinked(node.version)) {
+                    return RETRY;
+                }
+                node.present = true;
+                return FOUND;
+            }
+        }
+        if (!node.present) {
+            return NOT_FOUND;
+        }
+        if (node.left != null && node.right != null) {
+            synchronized (node) {
+                // A child may have been unlinked since; then the node must be spliced out instead
+                if (isUnlinked(node.version) || node.left == null || node.right == null) {
+                    return RETRY;
+                }
+                if (!node.present) {
+                    return NOT_FOUND;
+                }
+                node.present = false;
+                return FOUND;
+            }
+        }
+        synchronized (parent) {
+            if (isUnlinked(parent.version) || node.parent != parent) {
+                return RETRY;
+            }
+            synchronized (node) {
+                if (isUnlinked(node.version)) {
+                    return RETRY;
+                }
+                if (!node.present) {
+                    return NOT_FOUND;
+                }
+                node.present = false;
+                // Keeps the node as a routing node if it gained a second child in the meantime
+                attemptUnlink(parent, node);
+            }
+        }
+        fixHeightAndRebalance(parent);
+        return FOUND;
+    }
+
+    /**
+     * Splices out {@code node}, which must have at most one child. Both nodes must be locked.
+     */
+    private boolean attemptUnlink(VersionedNode<T> parent, VersionedNode<T> node) {
+        VersionedNode<T> parentLeft = parent.left;
+        VersionedNode<T> parentRight = parent.right;
+        if (parentLeft != node && parentRight != node) {
+            return false;
+        }
+        VersionedNode<T> left = node.left;
+        VersionedNode<T> right = node.right;
+        if (left != null && right != null) {
+            return false;
+        }
+        VersionedNode<T> splice = left != null ? left : right;
+        if (parentLeft == node) {
+            parent.left = splice;
+        } else {
+            parent.right = splice;
+        }
+        if (splice != null) {
+            splice.parent = parent;
+        }
+        node.version = UNLINKED;
+        node.present = false;
+        return true;
+    }
+
+    /**
+     * Walks up from {@code node}, fixing heights and rotating or unlinking where needed, until a node
+     * needs no repair. A rotation can hand back a node below it that needs more work before the height
+     * above the rotated subtree is final, so the new subtree root and its parent are revisited afterwards.
+     */
+    private void fixHeightAndRebalance(VersionedNode<T> node) {
+        ArrayDeque<VersionedNode<T>> pending = null;
+        while (true) {
+            if (node == null || node == rootHolder) {
+                if (pending == null || pending.isEmpty()) {
+                    return;
+                }
+                node = pending.pop();
+                continue;
+            }
+            int condition = nodeCondition(node);
+            if (condition == NOTHING_REQUIRED || isUnlinked(node.version)) {
+                node = null;
+            } else if (condition != UNLINK_REQUIRED && condition != REBALANCE_REQUIRED) {
+                synchronized (node) {
+                    node = fixHeight(node);
+                }
+            } else {
+                VersionedNode<T> parent = node.parent;
+                synchronized (parent) {
+                    if (!isUnlinked(parent.version) && node.parent == parent) {
+                        boolean wasLeft = parent.left == node;
+                        synchronized (node) {
+                            node = rebalance(parent, node);
+                        }
+                        if (pending == null) {
+                            pending = new ArrayDeque<>();
+                        }
+                        pending.push(parent);
+                        VersionedNode<T> subtree = wasLeft ? parent.left : parent.right;
+                        if (subtree != null && subtree != node) {
+                            pending.push(subtree);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the repair {@code node} needs: one of the constants, or the height it should have.
+     */
+    private int nodeCondition(VersionedNode<T> node) {
+        VersionedNode<T> left = node.left;
+        VersionedNode<T> right = node.right;
+        if ((left == null || right == null) && !node.present) {
+            return UNLINK_REQUIRED;
+        }
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        int balance = leftHeight - rightHeight;
+        if (balance < -1 || balance > 1) {
+            return REBALANCE_REQUIRED;
+        }
+        int height = 1 + Math.max(leftHeight, rightHeight);
+        return node.height != height ? height : NOTHING_REQUIRED;
+    }
+
+    /**
+     * Updates the height of the locked {@code node}. Returns the next node to repair, or null.
+     */
+    private VersionedNode<T> fixHeight(VersionedNode<T> node) {
+        int condition = nodeCondition(node);
+        switch (condition) {
+            case REBALANCE_REQUIRED:
+            case UNLINK_REQUIRED:
+                return node;
+            case NOTHING_REQUIRED:
+                return null;
+            default:
+                node.height = condition;
+                return node.parent;
+        }
+    }
+
+    /**
+     * Repairs the locked {@code node} below the locked {@code parent}. Returns the next node to
+     * repair, or null.
+     */
+    private VersionedNode<T> rebalance(VersionedNode<T> parent, VersionedNode<T> node) {
+        VersionedNode<T> left = node.left;
+        VersionedNode<T> right = node.right;
+        if ((left == null || right == null) && !node.present) {
+            return attemptUnlink(parent, node) ? fixHeight(parent) : node;
+        }
+        int leftHeight = height(left);
+        int rightHeight = height(right);
+        int balance = leftHeight - rightHeight;
+        if (balance > 1) {
+            return rebalanceToRight(parent, node, left, rightHeight);
+        }
+        if (balance < -1) {
+            return rebalanceToLeft(parent, node, right, leftHeight);
+        }
+        int height = 1 + Math.max(leftHeight, rightHeight);
+        if (height != node.height) {
+            node.height = height;
+            return fixHeight(parent);
+        }
+        return null;
+    }
+
+    private VersionedNode<T> rebalanceToRight(VersionedNode<T> parent, VersionedNode<T> node,
+                                              VersionedNode<T> left, int rightHeight) {
+        synchronized (left) {
+            int leftHeight = left.height;
+            if (leftHeight - rightHeight <= 1) {
+                return node; // Changed since we looked; start over at node
+            }
+            VersionedNode<T> leftRight = left.right;
+            int leftLeftHeight = height(left.left);
+            int leftRightHeight = height(leftRight);
+            if (leftLeftHeight >= leftRightHeight) {
+                return rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+            }
+            synchronized (leftRight) {
+                leftRightHeight = leftRight.height;
+                if (leftLeftHeight >= leftRightHeight) {
+                    return rotateRight(parent, node, left, rightHeight, leftLeftHeight, leftRight, leftRightHeight);
+                }
+                int leftRightLeftHeight = height(leftRight.left);
+                int balance = leftLeftHeight - leftRightLeftHeight;
+                if (balance >= -1 && balance <= 1) {
+                    return rotateRightOverLeft(parent, node, left, rightHeight, leftLeftHeight, leftRight,
+                        leftRightLeftHeight);
+                }
+            }
+            // A double rotation would leave left out of balance; rotate left first and come back
+            return rebalanceToLeft(node, left, leftRight, leftLeftHeight);
+        }
+    }
+
+    private VersionedNode<T> rebalanceToLeft(VersionedNode<T> parent, VersionedNode<T> node,
+                                             VersionedNode<T> right, int leftHeight) {
+        synchronized (right) {
+            int rightHeight = right.height;
+            if (leftHeight - rightHeight >= -1) {
+                return node;
+            }
+            VersionedNode<T> rightLeft = right.left;
+            int rightLeftHeight = height(rightLeft);
+            int rightRightHeight = height(right.right);
+            if (rightRightHeight >= rightLeftHeight) {
+                return rotateLeft(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+            }
+            synchronized (rightLeft) {
+                rightLeftHeight = rightLeft.height;
+                if (rightRightHeight >= rightLeftHeight) {
+                    return rotateLeft(parent, node, leftHeight, right, rightLeft, rightLeftHeight, rightRightHeight);
+                }
+                int rightLeftRightHeight = height(rightLeft.right);
+                int balance = rightRightHeight - rightLeftRightHeight;
+                if (balance >= -1 && balance <= 1) {
+                    return rotateLeftOverRight(parent, node, leftHeight, right, rightLeft, rightRightHeight,
+                        rightLeftRightHeight);
+                }
+            }
+            return rebalanceToRight(node, right, rightLeft, rightRightHeight);
+        }
+    }
+
+    private VersionedNode<T> rotateRight(VersionedNode<T> parent, VersionedNode<T> node, VersionedNode<T> left,
+                                         int rightHeight, int leftLeftHeight, VersionedNode<T> leftRight,
+                                         int leftRightHeight) {
+        long nodeVersion = node.version;
+        VersionedNode<T> parentLeft = parent.left;
+
+        node.version = beginChange(nodeVersion);
+        node.left = leftRight;
+        if (leftRight != null) {
+            leftRight.parent = node;
+        }
+        left.right = node;
+        node.parent = left;
+        if (parentLeft == node) {
+            parent.left = left;
+        } else {
+            parent.right = left;
+        }
+        left.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftRightHeight, rightHeight);
+        node.height = nodeHeight;
+        left.height = 1 + Math.max(leftLeftHeight, nodeHeight);
+        node.version = endChange(nodeVersion);
+
+        int nodeBalance = leftRightHeight - rightHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+        if ((leftRight == null || rightHeight == 0) && !node.present) {
+            return node;
+        }
+        int leftBalance = leftLeftHeight - nodeHeight;
+        if (leftBalance < -1 || leftBalance > 1) {
+            return left;
+        }
+        if (leftLeftHeight == 0 && !left.present) {
+            return left;
+        }
+        return fixHeight(parent);
+    }
+
+    private VersionedNode<T> rotateLeft(VersionedNode<T> parent, VersionedNode<T> node, int leftHeight,
+                                        VersionedNode<T> right, VersionedNode<T> rightLeft, int rightLeftHeight,
+                                        int rightRightHeight) {
+        long nodeVersion = node.version;
+        VersionedNode<T> parentLeft = parent.left;
+
+        node.version = beginChange(nodeVersion);
+        node.right = rightLeft;
+        if (rightLeft != null) {
+            rightLeft.parent = node;
+        }
+        right.left = node;
+        node.parent = right;
+        if (parentLeft == node) {
+            parent.left = right;
+        } else {
+            parent.right = right;
+        }
+        right.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftHeight);
+        node.height = nodeHeight;
+        right.height = 1 + Math.max(nodeHeight, rightRightHeight);
+        node.version = endChange(nodeVersion);
+
+        int nodeBalance = rightLeftHeight - leftHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+        if ((rightLeft == null || leftHeight == 0) && !node.present) {
+            return node;
+        }
+        int rightBalance = rightRightHeight - nodeHeight;
+        if (rightBalance < -1 || rightBalance > 1) {
+            return right;
+        }
+        if (rightRightHeight == 0 && !right.present) {
+            return right;
+        }
+        return fixHeight(parent);
+    }
+
+    private VersionedNode<T> rotateRightOverLeft(VersionedNode<T> parent, VersionedNode<T> node,
+                                                 VersionedNode<T> left, int rightHeight, int leftLeftHeight,
+                                                 VersionedNode<T> leftRight, int leftRightLeftHeight) {
+        long nodeVersion = node.version;
+        long leftVersion = left.version;
+        VersionedNode<T> parentLeft = parent.left;
+        VersionedNode<T> leftRightLeft = leftRight.left;
+        VersionedNode<T> leftRightRight = leftRight.right;
+        int leftRightRightHeight = height(leftRightRight);
+
+        node.version = beginChange(nodeVersion);
+        left.version = beginChange(leftVersion);
+        node.left = leftRightRight;
+        if (leftRightRight != null) {
+            leftRightRight.parent = node;
+        }
+        left.right = leftRightLeft;
+        if (leftRightLeft != null) {
+            leftRightLeft.parent = left;
+        }
+        leftRight.left = left;
+        left.parent = leftRight;
+        leftRight.right = node;
+        node.parent = leftRight;
+        if (parentLeft == node) {
+            parent.left = leftRight;
+        } else {
+            parent.right = leftRight;
+        }
+        leftRight.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftRightRightHeight, rightHeight);
+        node.height = nodeHeight;
+        int leftNewHeight = 1 + Math.max(leftLeftHeight, leftRightLeftHeight);
+        left.height = leftNewHeight;
+        leftRight.height = 1 + Math.max(leftNewHeight, nodeHeight);
+        node.version = endChange(nodeVersion);
+        left.version = endChange(leftVersion);
+
+        int nodeBalance = leftRightRightHeight - rightHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+        if ((leftRightRight == null || rightHeight == 0) && !node.present) {
+            return node;
+        }
+        if ((leftLeftHeight == 0 || leftRightLeftHeight == 0) && !left.present) {
+            return left;
+        }
+        int leftRightBalance = leftNewHeight - nodeHeight;
+        if (leftRightBalance < -1 || leftRightBalance > 1) {
+            return leftRight;
+        }
+        return fixHeight(parent);
+    }
+
+    private VersionedNode<T> rotateLeftOverRight(VersionedNode<T> parent, VersionedNode<T> node, int leftHeight,
+                                                 VersionedNode<T> right, VersionedNode<T> rightLeft,
+                                                 int rightRightHeight, int rightLeftRightHeight) {
+        long nodeVersion = node.version;
+        long rightVersion = right.version;
+        VersionedNode<T> parentLeft = parent.left;
+        VersionedNode<T> rightLeftLeft = rightLeft.left;
+        VersionedNode<T> rightLeftRight = rightLeft.right;
+        int rightLeftLeftHeight = height(rightLeftLeft);
+
+        node.version = beginChange(nodeVersion);
+        right.version = beginChange(rightVersion);
+        node.right = rightLeftLeft;
+        if (rightLeftLeft != null) {
+            rightLeftLeft.parent = node;
+        }
+        right.left = rightLeftRight;
+        if (rightLeftRight != null) {
+            rightLeftRight.parent = right;
+        }
+        rightLeft.right = right;
+        right.parent = rightLeft;
+        rightLeft.left = node;
+        node.parent = rightLeft;
+        if (parentLeft == node) {
+            parent.left = rightLeft;
+        } else {
+            parent.right = rightLeft;
+        }
+        rightLeft.parent = parent;
+
+        int nodeHeight = 1 + Math.max(leftHeight, rightLeftLeftHeight);
+        node.height = nodeHeight;
+        int rightNewHeight = 1 + Math.max(rightLeftRightHeight, rightRightHeight);
+        right.height = rightNewHeight;
+        rightLeft.height = 1 + Math.max(nodeHeight, rightNewHeight);
+        node.version = endChange(nodeVersion);
+        right.version = endChange(rightVersion);
+
+        int nodeBalance = rightLeftLeftHeight - leftHeight;
+        if (nodeBalance < -1 || nodeBalance > 1) {
+            return node;
+        }
+        if ((rightLeftLeft == null || leftHeight == 0) && !node.present) {
+            return node;
+        }
+        if ((rightRightHeight == 0 || rightLeftRightHeight == 0) && !right.present) {
+            return right;
+        }
+        int rightLeftBalance = rightNewHeight - nodeHeight;
+        if (rightLeftBalance < -1 || rightLeftBalance > 1) {
+            return rightLeft;
+        }
+        return fixHeight(parent);
+    }
+
+    private static int height(VersionedNode<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static boolean isShrinkingOrUnlinked(long version) {
+        return (version & (SHRINKING | UNLINKED)) != 0;
+    }
+
+    private static boolean isUnlinked(long version) {
+        return (version & UNLINKED) != 0;
+    }
+
+    // Rotations only start on locked nodes, whose version is never shrinking or unlinked
+    private static long beginChange(long version) {
+        return version | SHRINKING;
+    }
+
+    private static long endChange(long version) {
+        return version + SHRINK_COUNT_INCREMENT;
+    }
+
+    /**
+     * Spins while a rotation is moving {@code node} down. Readers never lock, so after a short spin
+     * this yields rather than blocking on the node.
+     */
+    private static void waitUntilNotChanging(VersionedNode<?> node) {
+        long version = node.version;
+        if ((version & SHRINKING) == 0) {
+            return;
+        }
+        int spins = 0;
+        while (node.version == version) {
+            if (++spins < SPIN_COUNT) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Passes the present keys to {@code action} in ascending order. Only exact while no update runs
+     * concurrently: a rotation during the walk can make it skip or repeat keys.
+     */
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        ArrayDeque<VersionedNode<T>> stack = new ArrayDeque<>();
+        VersionedNode<T> node = rootHolder.right;
+        while (node != null || !stack.isEmpty()) {
+            while (node != null) {
+                stack.push(node);
+                node = node.left;
+            }
+            node = stack.pop();
+            if (node.present) {
+                action.accept(node.key);
+            }
+            node = node.right;
+        }
+    }
+
+    /**
+     * Seeks to {@code from} and goes on in order from there, skipping routing nodes. Like
+     * {@link #forEach}, it takes no locks, so keys updated concurrently may or may not be passed.
+     */
+    @Override
+    public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+        ArrayDeque<VersionedNode<T>> stack = new ArrayDeque<>();
+        VersionedNode<T> node = rootHolder.right;
+        while (node != null) {
+            if (from.compareTo(node.key) <= 0) {
+                stack.push(node);
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        int passed = 0;
+        while (passed < limit && !stack.isEmpty()) {
+            node = stack.pop();
+            if (node.present) {
+                action.accept(node.key);
+                passed++;
+            }
+            for (node = node.right; node != null; node = node.left) {
+                stack.push(node);
+            }
+        }
+        return passed;
+    }
+
+    /**
+     * Routing nodes with fewer than two children, which should have been spliced out. Only exact
+     * while no update runs concurrently.
+     */
+    int strandedRoutingNodes() {
+        int stranded = 0;
+        ArrayDeque<VersionedNode<T>> stack = new ArrayDeque<>();
+        if (rootHolder.right != null) {
+            stack.push(rootHolder.right);
+        }
+        while (!stack.isEmpty()) {
+            VersionedNode<T> node = stack.pop();
+            if (!node.present && (node.left == null || node.right == null)) {
+                stranded++;
+            }
+            if (node.left != null) {
+                stack.push(node.left);
+            }
+            if (node.right != null) {
+                stack.push(node.right);
+            }
+        }
+        return stranded;
+    }
+
+    /**
+     * Height of the tree including routing nodes.
+     */
+    @Override
+    public int height() {
+        return height(rootHolder.right);
+    }
+
+    @Override
+    public void clear() {
+        synchronized (rootHolder) {
+            rootHolder.right = null;
+        }
+    }
+}
@@ -0,0 +1,358 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+/**
+ * Reads and writes the datasets that test_data_generator.py produces, without holding a row as text.
+ *
+ * <p>Two formats are understood. The CSV format has a header line and then one row per line:
+ * {@code data_type,size,v1 v2 v3 ...}. It is parsed byte by byte out of a reusable buffer, so the
+ * values go straight from the file into an {@code int[]} or a tree. The binary format, used for files
+ * whose name ends in {@code .bin}, is the magic {@code "TDB1"} and then per row the data type
+ * (16-bit length and UTF-8 bytes), the size, the number of values and the values, all little-endian.
+ */
+public final class DatasetFile {
+    static final int MAGIC = 0x31424454; // "TDB1" in little-endian byte order
+
+    private static final int BUFFER_BYTES = 1 << 16;
+
+    private DatasetFile() {
+    }
+
+    /**
+     * One row of a dataset file.
+     */
+    public static final class Row {
+        public final String dataType;
+        public final int size;
+        public final int[] values;
+
+        public Row(String dataType, int size, int[] values) {
+            this.dataType = dataType;
+            this.size = size;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Receives the rows of a file as they are read.
+     */
+    public interface RowConsumer {
+        /**
+         * Called at the start of each row; returns the consumer for its values, or null to skip them.
+         */
+        IntConsumer row(String dataType, int size);
+    }
+
+    public static boolean isBinary(Path path) {
+        return path.getFileName().toString().endsWith(".bin");
+    }
+
+    /**
+     * Reads every row into memory, with one {@code int[]} per row.
+     */
+    public static List<Row> readAll(Path path) throws IOException {
+        List<IntArrayBuilder> builders = new ArrayList<>();
+        stream(path, (dataType, size) -> {
+            IntArrayBuilder builder = new IntArrayBuilder(dataType, size);
+            builders.add(builder);
+            return builder;
+        });
+        List<Row> rows = new ArrayList<>(builders.size());
+        for (IntArrayBuilder builder : builders) {
+            rows.add(builder.toRow());
+        }
+        return rows;
+    }
+
+    /**
+     * Returns the values of the first row with the given data type and size, or null if there is none.
+     */
+    public static int[] read(Path path, String dataType, int size) throws IOException {
+        IntArrayBuilder[] match = {null};
+        stream(path, (rowType, rowSize) -> {
+            if (match[0] == null && rowType.equals(dataType) && rowSize == size) {
+                match[0] = new IntArrayBuilder(rowType, rowSize);
+                return match[0];
+            }
+            return null;
+        });
+        return match[0] == null ? null : match[0].toRow().values;
+    }
+
+    /**
+     * Passes the rows of the file at {@code path} to {@code consumer}, in file order.
+     *
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static void stream(Path path, RowConsumer consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            if (isBinary(path)) {
+                new BinaryParser(channel, buffer, consumer, path).parse();
+            } else {
+                CsvParser parser = new CsvParser(consumer, path);
+                while (channel.read(buffer) != -1) {
+                    buffer.flip();
+                    parser.parse(buffer);
+                    buffer.clear();
+                }
+                parser.finish();
+            }
+        }
+    }
+
+    /**
+     * Writes {@code rows} in the binary format.
+     */
+    public static void writeBinary(Path path, List<Row> rows) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC);
+            for (Row row : rows) {
+                byte[] dataType = row.dataType.getBytes(StandardCharsets.UTF_8);
+                if (buffer.remaining() < Short.BYTES + dataType.length + 2 * Integer.BYTES) {
+                    drain(channel, buffer);
+                }
+                buffer.putShort((short) dataType.length).put(dataType).putInt(row.size).putInt(row.values.length);
+                for (int value : row.values) {
+                    if (!buffer.hasRemaining()) {
+                        drain(channel, buffer);
+                    }
+                    buffer.putInt(value);
+                }
+            }
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * State machine over the bytes of a CSV file, carried across buffer refills.
+     */
+    private static final class CsvParser {
+        private final RowConsumer consumer;
+        private final Path path;
+        private final StringBuilder dataType = new StringBuilder();
+        private boolean header = true;
+        private int field; // 0: data type, 1: size, 2: values
+        private int size;
+        private IntConsumer values; // Null while skipping a row
+        private long number;
+        private boolean negative;
+        private boolean inNumber;
+        private long line = 1;
+
+        CsvParser(RowConsumer consumer, Path path) {
+            this.consumer = consumer;
+            this.path = path;
+        }
+
+        void parse(ByteBuffer buffer) throws IOException {
+            while (buffer.hasRemaining()) {
+                byte b = buffer.get();
+                if (b == '\n') {
+                    endLine();
+                } else if (header || b == '\r' || b == '"') {
+                    continue;
+                } else if (b == ',') {
+                    endField();
+                } else if (field == 0) {
+                    dataType.append((char) b);
+                } else if (b >= '0' && b <= '9') {
+                    number = number * 10 + (b - '0');
+                    inNumber = true;
+                    if (number > Integer.MAX_VALUE + 1L) {
+                        throw error("Value out of range");
+                    }
+                } else if (b == '-' && !inNumber && !negative) {
+                    negative = true;
+                } else if (b == ' ' && field == 2) {
+                    endValue();
+                } else {
+                    throw error("Unexpected character '" + (char) b + "'");
+                }
+            }
+        }
+
+        void finish() throws IOException {
+            if (!header && (field > 0 || dataType.length() > 0)) {
+                endLine();
+            }
+        }
+
+        private void endField() throws IOException {
+            if (field == 1) {
+                size = takeNumber();
+                values = consumer.row(dataType.toString(), size);
+            } else if (field != 0) {
+                throw error("Too many fields");
+            }
+            field++;
+        }
+
+        private void endValue() throws IOException {
+            if (inNumber) {
+                int value = takeNumber();
+                if (values != null) {
+                    values.accept(value);
+                }
+            } else if (negative) {
+                throw error("Missing digits");
+            }
+        }
+
+        private void endLine() throws IOException {
+            if (header) {
+                header = false;
+            } else if (field == 2) {
+                endValue();
+            } else if (field > 0 || dataType.length() > 0) {
+                throw error("Expected 3 fields");
+            }
+            field = 0;
+            dataType.setLength(0);
+            values = null;
+            line++;
+        }
+
+        private int takeNumber() throws IOException {
+            if (!inNumber) {
+                throw error("Missing number");
+            }
+            long value = negative ? -number : number;
+            if (value > Integer.MAX_VALUE) {
+                throw error("Value out of range");
+            }
+            number = 0;
+            negative = false;
+            inNumber = false;
+            return (int) value;
+        }
+
+        private IOException error(String message) {
+            return new IOException(message + " at line " + line + " of " + path);
+        }
+    }
+
+    private static final class BinaryParser {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final RowConsumer consumer;
+        private final Path path;
+
+        BinaryParser(FileChannel channel, ByteBuffer buffer, RowConsumer consumer, Path path) {
+            this.channel = channel;
+            this.buffer = buffer;
+            this.consumer = consumer;
+            this.path = path;
+            buffer.limit(0);
+        }
+
+        void parse() throws IOException {
+            if (!fill(Integer.BYTES) || buffer.getInt() != MAGIC) {
+                throw new IOException("Not a binary dataset: " + path);
+            }
+            while (fill(Short.BYTES)) {
+                int length = buffer.getShort() & 0xFFFF;
+                if (!fill(length + 2 * Integer.BYTES)) {
+                    throw truncated();
+                }
+                byte[] dataType = new byte[length];
+                buffer.get(dataType);
+                int size = buffer.getInt();
+                int count = buffer.getInt();
+                IntConsumer values = consumer.row(new String(dataType, StandardCharsets.UTF_8), size);
+                while (count > 0) {
+                    if (!fill(Integer.BYTES)) {
+                        throw truncated();
+                    }
+                    int available = Math.min(count, buffer.remaining() / Integer.BYTES);
+                    if (values == null) {
+                        buffer.position(buffer.position() + available * Integer.BYTES);
+                    } else {
+                        for (int i = 0; i < available; i++) {
+                            values.accept(buffer.getInt());
+                        }
+                    }
+                    count -= available;
+                }
+            }
+        }
+
+        /**
+         * Makes at least {@code bytes} bytes available unless the file ends first; false if it does
+         * so before the first of them.
+         */
+        private boolean fill(int bytes) throws IOException {
+            if (buffer.remaining() >= bytes) {
+                return true;
+            }
+            if (bytes > buffer.capacity()) {
+                throw new IOException("Row header too long in " + path);
+            }
+            buffer.compact();
+            while (buffer.position() < bytes && channel.read(buffer) != -1) {
+                // Keep reading
+            }
+            buffer.flip();
+            if (buffer.remaining() == 0) {
+                return false;
+            }
+            if (buffer.remaining() < bytes) {
+                throw truncated();
+            }
+            return true;
+        }
+
+        private IOException truncated() {
+            return new IOException("Truncated binary dataset: " + path);
+        }
+    }
+
+    /**
+     * Collects the values of one row, sized by the row's declared size.
+     */
+    private static final class IntArrayBuilder implements IntConsumer {
+        private final String dataType;
+        private final int size;
+        private int[] values;
+        private int count;
+
+        IntArrayBuilder(String dataType, int size) {
+            this.dataType = dataType;
+            this.size = size;
+            this.values = new int[Math.max(size, 16)];
+        }
+
+        @Override
+        public void accept(int value) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+            values[count++] = value;
+        }
+
+        Row toRow() {
+            return new Row(dataType, size, count == values.length ? values : Arrays.copyOf(values, count));
+        }
+    }
+}
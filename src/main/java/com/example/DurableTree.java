@@ -0,0 +1,423 @@
+package com.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+/**
+ * Makes the contents of a tree survive a crash. Every insert and delete is appended to a write-ahead
+ * log in {@code directory} before it is applied; the log is written and forced to disk in batches
+ * (group commit), and every so often replaced by a checkpoint of the whole tree so that recovery only
+ * replays a bounded tail.
+ *
+ * <p>A mutation is durable once the batch holding it is committed: when the batch is full, when
+ * {@code fsyncIntervalMillis} have passed, or on {@link #sync()} and {@link #close()}. A crash loses at
+ * most the mutations of the open batch. With a batch size of 1 every mutation is committed before it
+ * returns. Like the wrapped tree, a durable tree is not safe for concurrent updates.
+ *
+ * <p>The log is a sequence of frames: record count and CRC32C of the records, then the records, each
+ * an operation byte and the encoded key. Recovery stops at the first frame that is incomplete or fails
+ * its checksum, which is where a crash during a write leaves the log, and truncates it there.
+ * Replaying a prefix of the log onto a checkpoint that already contains it is harmless, since the last
+ * operation on a key decides whether it is present.
+ */
+public class DurableTree<T extends Comparable<T>> extends ForwardingTree<T> implements Closeable {
+    /**
+     * Fixed-width binary form of the keys.
+     */
+    public interface KeyCodec<T> {
+        int bytes();
+
+        void write(T key, ByteBuffer buffer);
+
+        T read(ByteBuffer buffer);
+    }
+
+    public static final KeyCodec<Integer> INTEGER_KEYS = new KeyCodec<Integer>() {
+        @Override
+        public int bytes() {
+            return Integer.BYTES;
+        }
+
+        @Override
+        public void write(Integer key, ByteBuffer buffer) {
+            buffer.putInt(key);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buffer) {
+            return buffer.getInt();
+        }
+    };
+
+    public static final int DEFAULT_BATCH_SIZE = 64;
+    public static final long DEFAULT_FSYNC_INTERVAL_MILLIS = 10;
+    public static final long DEFAULT_CHECKPOINT_EVERY = 1_000_000;
+
+    static final String LOG_FILE = "tree.log";
+    static final String CHECKPOINT_FILE = "tree.checkpoint";
+
+    private static final int CHECKPOINT_MAGIC = 0x31435442; // "BTC1" in little-endian byte order
+    private static final int CHECKPOINT_HEADER_BYTES = 8; // Magic, key count
+    private static final int FRAME_HEADER_BYTES = 8; // Record count, CRC32C of the records
+    private static final byte INSERT = 1;
+    private static final byte DELETE = 2;
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final Path directory;
+    private final KeyCodec<T> codec;
+    private final int recordBytes;
+    private final int batchSize;
+    private final long checkpointEvery;
+    private final FileChannel log;
+    private final ByteBuffer frame;
+    private final CRC32C checksum = new CRC32C();
+    private final ScheduledExecutorService flusher; // Null without an fsync interval
+
+    private int pendingRecords;
+    private long loggedRecords; // Committed since the last checkpoint
+    // From a commit that failed partway, on any thread; every later operation reports it, since the
+    // open batch may be half written
+    private IOException commitFailure;
+    private boolean closed;
+
+    /**
+     * Opens the log in {@code directory} with the default batch size, fsync interval and checkpoint
+     * frequency.
+     */
+    public DurableTree(BalancedBinaryTree<T> tree, Path directory, KeyCodec<T> codec) throws IOException {
+        this(tree, directory, codec, DEFAULT_BATCH_SIZE, DEFAULT_FSYNC_INTERVAL_MILLIS, DEFAULT_CHECKPOINT_EVERY);
+    }
+
+    /**
+     * Opens or creates the log in {@code directory} and recovers its contents into {@code tree}, which
+     * is cleared first.
+     *
+     * @param batchSize mutations per commit
+     * @param fsyncIntervalMillis longest time a mutation waits for its commit, or 0 to commit only
+     *                            full batches (and on {@link #sync()} and {@link #close()})
+     * @param checkpointEvery committed mutations after which the log is replaced by a checkpoint, or 0
+     *                        for no automatic checkpoints
+     * @throws IOException if the directory cannot be read or written, or holds a damaged checkpoint
+     */
+    public DurableTree(BalancedBinaryTree<T> tree, Path directory, KeyCodec<T> codec, int batchSize,
+                       long fsyncIntervalMillis, long checkpointEvery) throws IOException {
+        super(tree);
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.directory = directory;
+        this.codec = codec;
+        this.recordBytes = 1 + codec.bytes();
+        this.batchSize = batchSize;
+        this.checkpointEvery = checkpointEvery;
+        this.frame = ByteBuffer.allocateDirect(FRAME_HEADER_BYTES + batchSize * recordBytes)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        frame.position(FRAME_HEADER_BYTES);
+
+        Files.createDirectories(directory);
+        readCheckpoint();
+        log = FileChannel.open(directory.resolve(LOG_FILE), StandardOpenOption.CREATE, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        try {
+            long end = replay();
+            log.truncate(end);
+            log.position(end);
+        } catch (IOException | RuntimeException e) {
+            try {
+                log.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+
+        if (fsyncIntervalMillis > 0) {
+            flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "durable-tree-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, fsyncIntervalMillis, fsyncIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        } else {
+            flusher = null;
+        }
+    }
+
+    @Override
+    public synchronized void insert(T data) {
+        record(INSERT, data);
+        delegate.insert(data);
+        checkpointIfDue();
+    }
+
+    @Override
+    public synchronized void delete(T data) {
+        record(DELETE, data);
+        delegate.delete(data);
+        checkpointIfDue();
+    }
+
+    /**
+     * Clears the tree and records that with an empty checkpoint.
+     */
+    @Override
+    public synchronized void clear() {
+        checkOpen();
+        delegate.clear();
+        uncheckedCheckpoint();
+    }
+
+    /**
+     * Replaces the contents and records them with a checkpoint rather than one log record per key.
+     */
+    @Override
+    public synchronized void buildFromSorted(List<? extends T> sorted) {
+        checkOpen();
+        delegate.buildFromSorted(sorted);
+        uncheckedCheckpoint();
+    }
+
+    /**
+     * Commits the open batch, so every mutation made so far is durable.
+     */
+    public synchronized void sync() throws IOException {
+        checkOpen();
+        commit();
+    }
+
+    /**
+     * Writes the whole tree to a new checkpoint and empties the log. The checkpoint is written to a
+     * temporary file and renamed into place, so a crash leaves either the old or the new one. The
+     * directory is forced before the log is emptied, so a crash cannot keep the empty log but lose
+     * the rename.
+     */
+    public synchronized void checkpoint() throws IOException {
+        checkOpen();
+        commit();
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(CHECKPOINT_MAGIC).putInt(0);
+            int[] count = {0};
+            try {
+                delegate.forEach(key -> {
+                    if (buffer.remaining() < codec.bytes()) {
+                        try {
+                            drain(channel, buffer);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    codec.write(key, buffer);
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            drain(channel, buffer);
+            buffer.putInt(count[0]).flip();
+            channel.write(buffer, 4); // Key count, now that it is known
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE,
+            StandardCopyOption.REPLACE_EXISTING);
+        // The rename must be durable before the log it replaces is emptied
+        try (FileChannel directoryChannel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            directoryChannel.force(true);
+        }
+        log.truncate(0);
+        log.position(0);
+        log.force(true);
+        loggedRecords = 0;
+    }
+
+    /**
+     * Commits the open batch and closes the log. The wrapped tree keeps its contents.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        try {
+            if (commitFailure == null) {
+                commit();
+            }
+        } finally {
+            closed = true;
+            log.close();
+        }
+    }
+
+    private void record(byte operation, T key) {
+        checkOpen();
+        int start = frame.position();
+        try {
+            frame.put(operation);
+            codec.write(key, frame);
+        } catch (RuntimeException e) {
+            frame.position(start); // Drop the partial record
+            throw e;
+        }
+        pendingRecords++;
+        if (pendingRecords == batchSize) {
+            try {
+                commit();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Writes and forces the open batch. If that fails, the tree is poisoned: the batch may be partly
+     * written, so every later operation throws instead of logging after it.
+     */
+    private void commit() throws IOException {
+        if (pendingRecords == 0) {
+            return;
+        }
+        checksum.reset();
+        checksum.update(frame.duplicate().flip().position(FRAME_HEADER_BYTES));
+        frame.putInt(0, pendingRecords);
+        frame.putInt(4, (int) checksum.getValue());
+        frame.flip();
+        try {
+            while (frame.hasRemaining()) {
+                log.write(frame);
+            }
+            log.force(false);
+        } catch (IOException e) {
+            commitFailure = e;
+            throw e;
+        }
+        frame.clear().position(FRAME_HEADER_BYTES);
+        loggedRecords += pendingRecords;
+        pendingRecords = 0;
+    }
+
+    private synchronized void flush() {
+        if (closed || commitFailure != null) {
+            return;
+        }
+        try {
+            commit();
+        } catch (IOException e) {
+            // Recorded by commit; the next operation reports it
+        }
+    }
+
+    private void checkpointIfDue() {
+        if (checkpointEvery > 0 && loggedRecords >= checkpointEvery) {
+            uncheckedCheckpoint();
+        }
+    }
+
+    private void uncheckedCheckpoint() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("Durable tree is closed");
+        }
+        if (commitFailure != null) {
+            throw new UncheckedIOException("An earlier commit failed", commitFailure);
+        }
+    }
+
+    private void readCheckpoint() throws IOException {
+        delegate.clear();
+        Path path = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(path)) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path)).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.remaining() < CHECKPOINT_HEADER_BYTES || buffer.getInt() != CHECKPOINT_MAGIC) {
+            throw new IOException("Not a tree checkpoint: " + path);
+        }
+        int count = buffer.getInt();
+        if (count < 0 || buffer.remaining() != (long) count * codec.bytes()) {
+            throw new IOException("Truncated tree checkpoint: " + path);
+        }
+        List<T> keys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            keys.add(codec.read(buffer));
+        }
+        delegate.buildFromSorted(keys);
+    }
+
+    /**
+     * Applies the complete frames of the log to the tree and returns where they end.
+     */
+    private long replay() throws IOException {
+        long size = log.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("Log too large to replay: " + directory.resolve(LOG_FILE));
+        }
+        ByteBuffer buffer = ByteBuffer.allocate((int) size).order(ByteOrder.LITTLE_ENDIAN);
+        while (buffer.hasRemaining() && log.read(buffer, buffer.position()) >= 0) {
+            // Read the whole log
+        }
+        buffer.flip();
+        int end = 0;
+        while (buffer.remaining() >= FRAME_HEADER_BYTES) {
+            int count = buffer.getInt();
+            int expected = buffer.getInt();
+            if (count <= 0 || count > (buffer.remaining() / recordBytes)) {
+                break;
+            }
+            int length = count * recordBytes;
+            checksum.reset();
+            checksum.update(buffer.slice(buffer.position(), length));
+            if ((int) checksum.getValue() != expected) {
+                break;
+            }
+            for (int i = 0; i < count; i++) {
+                byte operation = buffer.get();
+                T key = codec.read(buffer);
+                if (operation == INSERT) {
+                    delegate.insert(key);
+                } else if (operation == DELETE) {
+                    delegate.delete(key);
+                } else {
+                    throw new IOException("Unknown log operation " + operation + " in " + directory.resolve(LOG_FILE));
+                }
+            }
+            loggedRecords += count;
+            end = buffer.position();
+        }
+        return end;
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,142 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * Puts a {@link BlockedBloomFilter} in front of another tree, so that most lookups of keys the tree
+ * does not hold return after reading one cache line, without descending the tree. Keys that
+ * {@code compareTo} reports as equal must have equal hash codes.
+ *
+ * <p>Inserts add to the filter. A Bloom filter cannot forget a key, so deletes only count towards
+ * a rebuild from the keys of the tree, which also happens when inserts exceed the capacity the
+ * filter was sized for. Once more than {@code 1 /} {@value #REBUILD_AFTER_DELETES_DIVISOR} of the
+ * keys have been deleted since the last rebuild, or the filter is full, the next write rebuilds it
+ * in linear time, sized for a quarter more keys than there are then.
+ */
+public class FilteredTree<T extends Comparable<T>> extends ForwardingTree<T> {
+    public static final double DEFAULT_FALSE_POSITIVE_RATE = 0.01;
+
+    static final int REBUILD_AFTER_DELETES_DIVISOR = 4;
+    private static final int MIN_CAPACITY = 1024;
+
+    private final double falsePositiveRate;
+    private BlockedBloomFilter filter;
+    private int capacity;
+    private int keysAtRebuild;
+    private int inserts; // Since the last rebuild, including keys that were already present
+    private int deletes; // Since the last rebuild, including keys that were absent
+    private long rejected;
+    private long falsePositives;
+
+    public FilteredTree(BalancedBinaryTree<T> delegate) {
+        this(delegate, DEFAULT_FALSE_POSITIVE_RATE);
+    }
+
+    /**
+     * Filters lookups into {@code delegate}, which may already hold keys.
+     *
+     * @param falsePositiveRate the rate of lookups of absent keys the filter should let through to
+     *     the tree; the rate measured so far is {@link #getMeasuredFalsePositiveRate()}
+     * @throws IllegalArgumentException if the rate is not between 0 and 1, exclusive
+     */
+    public FilteredTree(BalancedBinaryTree<T> delegate, double falsePositiveRate) {
+        super(delegate);
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("False positive rate must be between 0 and 1: " + falsePositiveRate);
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        rebuild();
+    }
+
+    /**
+     * Spreads the hash code over 64 bits (the SplitMix64 finalizer), since the filter takes its
+     * block from the top bits and {@code Integer} hash codes are the values themselves.
+     */
+    private static long hash(Object key) {
+        long h = key.hashCode() * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    /**
+     * Sizes a new filter for a quarter more keys than the tree holds and adds them all.
+     */
+    private void rebuild() {
+        int[] keys = {0};
+        delegate.forEach(key -> keys[0]++);
+        capacity = Math.max(MIN_CAPACITY, keys[0] + keys[0] / 4);
+        BlockedBloomFilter rebuilt = new BlockedBloomFilter(capacity, falsePositiveRate);
+        delegate.forEach(key -> rebuilt.add(hash(key)));
+        filter = rebuilt;
+        keysAtRebuild = keys[0];
+        inserts = 0;
+        deletes = 0;
+    }
+
+    @Override
+    public void insert(T data) {
+        delegate.insert(data);
+        filter.add(hash(data));
+        if (keysAtRebuild + ++inserts > capacity) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public void delete(T data) {
+        delegate.delete(data);
+        if (++deletes > (keysAtRebuild + inserts) / REBUILD_AFTER_DELETES_DIVISOR) {
+            rebuild();
+        }
+    }
+
+    @Override
+    public boolean contains(T data) {
+        if (!filter.mightContain(hash(data))) {
+            rejected++;
+            return false;
+        }
+        boolean found = delegate.contains(data);
+        if (!found) {
+            falsePositives++;
+        }
+        return found;
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+        rebuild();
+    }
+
+    @Override
+    public void buildFromSorted(List<? extends T> sorted) {
+        delegate.buildFromSorted(sorted);
+        rebuild();
+    }
+
+    public double getFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * Of the lookups of absent keys so far, the fraction the filter let through to the tree; NaN if
+     * there were none. Keys deleted since the last rebuild still pass the filter, so this can exceed
+     * the configured rate between rebuilds.
+     */
+    public double getMeasuredFalsePositiveRate() {
+        long absent = rejected + falsePositives;
+        return absent == 0 ? Double.NaN : (double) falsePositives / absent;
+    }
+
+    public void resetFalsePositiveCounts() {
+        rejected = 0;
+        falsePositives = 0;
+    }
+
+    /** Heap bytes of the filter. */
+    public long filterBytes() {
+        return filter.bytes();
+    }
+}
@@ -0,0 +1,66 @@
+package com.example;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Tree that passes every operation on to another tree. Subclasses override the operations they add
+ * behaviour to.
+ */
+public abstract class ForwardingTree<T extends Comparable<T>> extends BalancedBinaryTree<T> {
+    protected final BalancedBinaryTree<T> delegate;
+
+    protected ForwardingTree(BalancedBinaryTree<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void insert(T data) {
+        delegate.insert(data);
+    }
+
+    @Override
+    public void delete(T data) {
+        delegate.delete(data);
+    }
+
+    @Override
+    public boolean contains(T data) {
+        return delegate.contains(data);
+    }
+
+    @Override
+    public int height() {
+        return delegate.height();
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        delegate.forEach(action);
+    }
+
+    @Override
+    public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+        return delegate.forEachFrom(from, limit, action);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    @Override
+    public void setRecorder(TreeRecorder recorder) {
+        delegate.setRecorder(recorder);
+    }
+
+    @Override
+    public TreeRecorder getRecorder() {
+        return delegate.getRecorder();
+    }
+
+    @Override
+    public void buildFromSorted(List<? extends T> sorted) {
+        delegate.buildFromSorted(sorted);
+    }
+}
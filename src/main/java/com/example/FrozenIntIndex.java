@@ -0,0 +1,129 @@
+package com.example;
+
+import java.util.Arrays;
+
+/**
+ * Immutable set of {@code int} keys for lookups against data that no longer changes, frozen from a
+ * tree with {@link #freeze(OrderedTree)} or {@link IntBalancedTree#freeze()}.
+ *
+ * <p>The keys sit in one array in Eytzinger order: the root at index 1 and the children of index
+ * {@code k} at {@code 2k} and {@code 2k + 1}, the order a breadth-first walk of a complete binary
+ * search tree visits them. The top levels of every search share the first few cache lines, and each
+ * step only computes the next index from a comparison, with no branch on its outcome and no node
+ * pointer to follow. {@link #containsAll(int[], boolean[])} runs {@value #LANES} searches in step
+ * so their cache misses overlap instead of queueing one after the other.
+ */
+public final class FrozenIntIndex {
+    /** Searches {@link #containsAll(int[], boolean[])} advances together. */
+    static final int LANES = 8;
+
+    private final int[] keys; // Eytzinger order from index 1; index 0 is unused
+    private final int size;
+    private final int fullLevels; // Levels in which every slot is taken
+
+    private FrozenIntIndex(int[] sorted, int count) {
+        size = count;
+        keys = new int[count + 1];
+        fill(sorted, 0, 1);
+        fullLevels = 31 - Integer.numberOfLeadingZeros(count + 1);
+    }
+
+    /**
+     * Copies the keys of {@code sorted[from..to)}, which must be strictly ascending.
+     *
+     * @throws IllegalArgumentException if the keys are not strictly ascending
+     */
+    public static FrozenIntIndex of(int[] sorted, int from, int to) {
+        IntBalancedTree.checkStrictlyAscending(sorted, from, to);
+        return new FrozenIntIndex(Arrays.copyOfRange(sorted, from, to), to - from);
+    }
+
+    public static FrozenIntIndex freeze(OrderedTree<Integer> tree) {
+        int[] sorted = new int[tree.size()];
+        int[] count = {0};
+        tree.forEach(key -> sorted[count[0]++] = key);
+        return new FrozenIntIndex(sorted, sorted.length);
+    }
+
+    /**
+     * Stores {@code sorted} from index {@code next} at slot {@code k} and its subtree, in order;
+     * returns the index of the first key not stored.
+     */
+    private int fill(int[] sorted, int next, int k) {
+        if (k <= size) {
+            next = fill(sorted, next, 2 * k);
+            keys[k] = sorted[next++];
+            next = fill(sorted, next, 2 * k + 1);
+        }
+        return next;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int key) {
+        int[] keys = this.keys;
+        int n = size;
+        int k = 1;
+        while (k <= n) {
+            k = 2 * k + (keys[k] < key ? 1 : 0);
+        }
+        return found(k, key);
+    }
+
+    /**
+     * Whether the search for {@code key} that ended at slot {@code k}, past the last level, passed
+     * it: the last slot where it went left holds the smallest key not less than {@code key}.
+     */
+    private boolean found(int k, int key) {
+        k >>>= Integer.numberOfTrailingZeros(~k) + 1;
+        return k != 0 && keys[k] == key;
+    }
+
+    /**
+     * Sets {@code found[i]} to whether the index contains {@code probes[i]}, for every probe.
+     *
+     * @throws IllegalArgumentException if {@code found} is shorter than {@code probes}
+     */
+    public void containsAll(int[] probes, boolean[] found) {
+        if (found.length < probes.length) {
+            throw new IllegalArgumentException("No room for " + probes.length + " results: " + found.length);
+        }
+        int[] keys = this.keys;
+        int n = size;
+        int[] k = new int[LANES];
+        int batched = probes.length - probes.length % LANES;
+        for (int base = 0; base < batched; base += LANES) {
+            Arrays.fill(k, 1);
+            // Every slot of the full levels exists, so no lane needs a bounds check until the last
+            for (int level = 0; level < fullLevels; level++) {
+                for (int lane = 0; lane < LANES; lane++) {
+                    k[lane] = 2 * k[lane] + (keys[k[lane]] < probes[base + lane] ? 1 : 0);
+                }
+            }
+            for (int lane = 0; lane < LANES; lane++) {
+                if (k[lane] <= n) {
+                    k[lane] = 2 * k[lane] + (keys[k[lane]] < probes[base + lane] ? 1 : 0);
+                }
+                found[base + lane] = found(k[lane], probes[base + lane]);
+            }
+        }
+        for (int i = batched; i < probes.length; i++) {
+            found[i] = contains(probes[i]);
+        }
+    }
+
+    public boolean[] containsAll(int[] probes) {
+        boolean[] found = new boolean[probes.length];
+        containsAll(probes, found);
+        return found;
+    }
+
+    /**
+     * Heap bytes retained per key: one array slot plus the unused slot 0; 0 if the index is empty.
+     */
+    public double bytesPerEntry() {
+        return size == 0 ? 0 : (double) ObjectLayout.arraySize(int.class, size + 1) / size;
+    }
+}
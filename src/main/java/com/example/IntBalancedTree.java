@@ -0,0 +1,98 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Counterpart of {@link BalancedBinaryTree} for primitive {@code int} keys: no boxing and no
+ * {@code compareTo} calls on the search path.
+ */
+public abstract class IntBalancedTree {
+    public abstract void insert(int key);
+    public abstract void delete(int key);
+    public abstract boolean contains(int key);
+    public abstract int height();
+
+    /**
+     * Estimated heap bytes retained per key, counting spare capacity; 0 if the tree is empty.
+     */
+    public abstract double bytesPerEntry();
+
+    /**
+     * Passes every key to {@code action} in ascending order.
+     */
+    public abstract void forEach(IntConsumer action);
+
+    /**
+     * Replaces the contents of the tree with {@code sorted[from..to)}, which must be strictly
+     * ascending, in linear time.
+     *
+     * @throws IllegalArgumentException if the keys are not strictly ascending
+     */
+    public abstract void buildFromSorted(int[] sorted, int from, int to);
+
+    public void buildFromSorted(int[] sorted) {
+        buildFromSorted(sorted, 0, sorted.length);
+    }
+
+    /**
+     * Replaces the contents of the tree with {@code values}, which may be in any order and contain
+     * duplicates: sorts and de-duplicates a copy, then calls {@link #buildFromSorted(int[], int, int)}.
+     */
+    public void bulkLoad(int[] values) {
+        int[] sorted = values.clone();
+        Arrays.parallelSort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        buildFromSorted(sorted, 0, distinct);
+    }
+
+    /**
+     * Writes the keys to an {@link IntSnapshot} file at {@code path}.
+     */
+    public void save(Path path) throws IOException {
+        IntSnapshot.write(this, path);
+    }
+
+    /**
+     * Replaces the contents of the tree with the keys of the snapshot at {@code path}: maps the file
+     * and builds from its sorted keys in linear time. To answer lookups without building a tree, use
+     * {@link IntSnapshot#open(Path)} instead.
+     *
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public void load(Path path) throws IOException {
+        int[] keys = IntSnapshot.open(path).toArray();
+        buildFromSorted(keys, 0, keys.length);
+    }
+
+    /**
+     * Copies the keys into a {@link FrozenIntIndex}, which answers lookups faster than the tree but
+     * does not see later updates.
+     */
+    public FrozenIntIndex freeze() {
+        int[][] sorted = {new int[16]};
+        int[] count = {0};
+        forEach(key -> {
+            if (count[0] == sorted[0].length) {
+                sorted[0] = Arrays.copyOf(sorted[0], 2 * count[0]);
+            }
+            sorted[0][count[0]++] = key;
+        });
+        return FrozenIntIndex.of(sorted[0], 0, count[0]);
+    }
+
+    protected static void checkStrictlyAscending(int[] sorted, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (sorted[i - 1] >= sorted[i]) {
+                throw new IllegalArgumentException("Keys are not strictly ascending at index " + i);
+            }
+        }
+    }
+}
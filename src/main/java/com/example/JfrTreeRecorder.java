@@ -0,0 +1,153 @@
+package com.example;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Period;
+import jdk.jfr.StackTrace;
+
+import java.io.Closeable;
+
+/**
+ * Counts like {@link StatsRecorder} and publishes the counts to Java Flight Recorder: a
+ * {@code com.example.TreeStats} event with the running totals every second, and, if enabled in the
+ * recording settings, a {@code com.example.TreeOperation} event per operation. Start a recording with
+ * e.g. {@code -XX:StartFlightRecording:filename=trees.jfr} and {@link #close()} the recorder when the
+ * tree is done with.
+ */
+public class JfrTreeRecorder extends StatsRecorder implements Closeable {
+    private static final EventType OPERATION_EVENT = EventType.getEventType(TreeOperationEvent.class);
+
+    private final String treeName;
+    private final Runnable periodicHook;
+    private int pendingRotations; // Since the last operation
+    private int pendingRecolors;
+
+    @Name("com.example.TreeOperation")
+    @Label("Tree Operation")
+    @Category("Trees")
+    @Description("Structural work of one tree operation")
+    @StackTrace(false)
+    static final class TreeOperationEvent extends Event {
+        @Label("Tree")
+        String tree;
+        @Label("Operation")
+        String operation;
+        @Label("Comparisons")
+        int comparisons;
+        @Label("Nodes Visited")
+        int nodesVisited;
+        @Label("Retrace Depth")
+        int retraceDepth;
+        @Label("Update Depth")
+        int updateDepth;
+        @Label("Rotations")
+        int rotations;
+        @Label("Recolors")
+        int recolors;
+    }
+
+    @Name("com.example.TreeStats")
+    @Label("Tree Statistics")
+    @Category("Trees")
+    @Description("Totals recorded for a tree so far")
+    @Period("1 s")
+    @StackTrace(false)
+    static final class TreeStatsEvent extends Event {
+        @Label("Tree")
+        String tree;
+        @Label("Lookups")
+        long lookups;
+        @Label("Inserts")
+        long inserts;
+        @Label("Deletes")
+        long deletes;
+        @Label("Comparisons")
+        long comparisons;
+        @Label("Nodes Visited")
+        long nodesVisited;
+        @Label("Retrace Levels")
+        long retraceLevels;
+        @Label("Update Levels")
+        long updateLevels;
+        @Label("Single Rotations")
+        long singleRotations;
+        @Label("Double Rotations")
+        long doubleRotations;
+        @Label("Recolors")
+        long recolors;
+    }
+
+    /**
+     * @param treeName name that tells this tree's events apart from other trees'
+     */
+    public JfrTreeRecorder(String treeName) {
+        this.treeName = treeName;
+        this.periodicHook = this::emitStats;
+        FlightRecorder.addPeriodicEvent(TreeStatsEvent.class, periodicHook);
+    }
+
+    @Override
+    public void operation(Operation operation, int comparisons, int nodesVisited, int retraceDepth,
+                          int updateDepth) {
+        super.operation(operation, comparisons, nodesVisited, retraceDepth, updateDepth);
+        if (OPERATION_EVENT.isEnabled()) {
+            TreeOperationEvent event = new TreeOperationEvent();
+            event.tree = treeName;
+            event.operation = operation.name();
+            event.comparisons = comparisons;
+            event.nodesVisited = nodesVisited;
+            event.retraceDepth = retraceDepth;
+            event.updateDepth = updateDepth;
+            event.rotations = pendingRotations;
+            event.recolors = pendingRecolors;
+            event.commit();
+        }
+        pendingRotations = 0;
+        pendingRecolors = 0;
+    }
+
+    @Override
+    public void rotation(boolean doubleRotation) {
+        super.rotation(doubleRotation);
+        pendingRotations++;
+    }
+
+    @Override
+    public void recolor(int nodes) {
+        super.recolor(nodes);
+        pendingRecolors += nodes;
+    }
+
+    /**
+     * Runs on the recorder's thread, so the totals may be slightly behind those of the tree's thread.
+     */
+    private void emitStats() {
+        TreeStats stats = snapshot();
+        TreeStatsEvent event = new TreeStatsEvent();
+        event.tree = treeName;
+        event.lookups = stats.lookups;
+        event.inserts = stats.inserts;
+        event.deletes = stats.deletes;
+        event.comparisons = stats.comparisons;
+        event.nodesVisited = stats.nodesVisited;
+        event.retraceLevels = stats.retraceLevels;
+        event.updateLevels = stats.updateLevels;
+        event.singleRotations = stats.singleRotations;
+        event.doubleRotations = stats.doubleRotations;
+        event.recolors = stats.recolors;
+        event.commit();
+    }
+
+    /**
+     * Stops the periodic statistics events.
+     */
+    @Override
+    public void close() {
+        FlightRecorder.removePeriodicEvent(periodicHook);
+    }
+}
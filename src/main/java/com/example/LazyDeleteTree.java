@@ -0,0 +1,253 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Deletes lazily from an {@link AVLTree} or {@link RedBlackTree}: a delete finds the key's node and
+ * marks it as a tombstone, with no rotations, recolors or successor copies, and lookups and
+ * iteration skip tombstones. Inserting a key whose node is a tombstone revives the node.
+ *
+ * <p>Once tombstones make up more than {@code maxTombstoneFraction} of the nodes, the tree is
+ * compacted: rebuilt from its live keys in linear time. With background compaction, the calling
+ * thread only copies the live keys into an array (the snapshot) and a worker builds the new tree
+ * from it. Writes in the meantime go to the old tree and are also logged, and the first operation
+ * after the worker finishes swaps in the new tree and replays the log onto it. Like the trees, a
+ * lazy tree is not safe for concurrent use; the worker only touches the snapshot and the new tree.
+ */
+public class LazyDeleteTree<T extends Comparable<T>> extends BalancedBinaryTree<T> implements AutoCloseable {
+    public static final double DEFAULT_MAX_TOMBSTONE_FRACTION = 0.25;
+
+    private final Supplier<? extends OrderedTree<T>> treeFactory;
+    private final double maxTombstoneFraction;
+    private final ExecutorService compactor; // Null without background compaction
+    private OrderedTree<T> tree;
+    private int tombstones;
+
+    // While a background compaction runs: the writes since its snapshot, in order
+    private Future<OrderedTree<T>> compaction;
+    private final List<T> pendingKeys = new ArrayList<>();
+    private final BitSet pendingInserts = new BitSet();
+
+    public LazyDeleteTree(Supplier<? extends OrderedTree<T>> treeFactory) {
+        this(treeFactory, DEFAULT_MAX_TOMBSTONE_FRACTION, false);
+    }
+
+    /**
+     * @param maxTombstoneFraction fraction of the nodes that may be tombstones before compaction
+     * @param backgroundCompaction whether to build the compacted tree on a worker thread, which
+     *     {@link #close()} stops
+     * @throws IllegalArgumentException if the fraction is not between 0 and 1, exclusive
+     */
+    public LazyDeleteTree(Supplier<? extends OrderedTree<T>> treeFactory, double maxTombstoneFraction,
+                          boolean backgroundCompaction) {
+        if (!(maxTombstoneFraction > 0 && maxTombstoneFraction < 1)) {
+            throw new IllegalArgumentException("Tombstone fraction must be between 0 and 1: " + maxTombstoneFraction);
+        }
+        this.treeFactory = treeFactory;
+        this.maxTombstoneFraction = maxTombstoneFraction;
+        tree = treeFactory.get();
+        compactor = !backgroundCompaction ? null : Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "lazy-delete-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void insert(T data) {
+        swapIfCompacted();
+        insertLive(data);
+        if (compaction != null) {
+            pendingInserts.set(pendingKeys.size());
+            pendingKeys.add(data);
+        }
+    }
+
+    private void insertLive(T data) {
+        Node<T> node = tree.insertNode(data);
+        if (node.deleted) {
+            node.deleted = false;
+            tombstones--;
+        }
+    }
+
+    @Override
+    public void delete(T data) {
+        swapIfCompacted();
+        deleteLive(data);
+        if (compaction != null) {
+            pendingKeys.add(data);
+        } else if (tombstones > maxTombstoneFraction * tree.size()) {
+            if (compactor == null || compactor.isShutdown()) {
+                compact();
+            } else {
+                startCompaction();
+            }
+        }
+    }
+
+    private void deleteLive(T data) {
+        Node<T> node = tree.getNode(data);
+        if (node != null && !node.deleted) {
+            node.deleted = true;
+            tombstones++;
+        }
+    }
+
+    @Override
+    public boolean contains(T data) {
+        swapIfCompacted();
+        Node<T> node = tree.getNode(data);
+        return node != null && !node.deleted;
+    }
+
+    /**
+     * Rebuilds the tree from its live keys now, on the calling thread, after any background
+     * compaction in progress has finished.
+     */
+    public void compact() {
+        if (compaction != null) {
+            swap(await(compaction));
+        }
+        tree.buildFromSorted(liveKeys());
+        tombstones = 0;
+    }
+
+    private List<T> liveKeys() {
+        List<T> keys = new ArrayList<>(size());
+        forEach(keys::add);
+        return keys;
+    }
+
+    private void startCompaction() {
+        List<T> snapshot = liveKeys();
+        compaction = compactor.submit(() -> {
+            OrderedTree<T> compacted = treeFactory.get();
+            compacted.buildFromSorted(snapshot);
+            return compacted;
+        });
+    }
+
+    private void swapIfCompacted() {
+        if (compaction != null && compaction.isDone()) {
+            swap(await(compaction));
+        }
+    }
+
+    private static <V> V await(Future<V> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for compaction", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Background compaction failed", e.getCause());
+        }
+    }
+
+    /**
+     * Replaces the tree with {@code compacted} and replays the writes logged since its snapshot.
+     */
+    private void swap(OrderedTree<T> compacted) {
+        compacted.setRecorder(tree.getRecorder());
+        compacted.setFingerSearch(tree.isFingerSearch());
+        tree = compacted;
+        tombstones = 0;
+        compaction = null;
+        for (int i = 0; i < pendingKeys.size(); i++) {
+            if (pendingInserts.get(i)) {
+                insertLive(pendingKeys.get(i));
+            } else {
+                deleteLive(pendingKeys.get(i));
+            }
+        }
+        pendingKeys.clear();
+        pendingInserts.clear();
+    }
+
+    /**
+     * Drops any background compaction in progress, with the writes logged for it.
+     */
+    private void cancelCompaction() {
+        if (compaction != null) {
+            compaction.cancel(false);
+            compaction = null;
+            pendingKeys.clear();
+            pendingInserts.clear();
+        }
+    }
+
+    public int size() {
+        return tree.size() - tombstones;
+    }
+
+    /** Tombstones in the tree, which compaction removes. */
+    public int tombstoneCount() {
+        return tombstones;
+    }
+
+    /**
+     * Height of the tree, counting tombstones.
+     */
+    @Override
+    public int height() {
+        return tree.height();
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        OrderedTree.Cursor<T> cursor = new OrderedTree.Cursor<>(tree.height(), false);
+        cursor.seekFirst(tree.root);
+        for (Node<T> node = cursor.next(); node != null; node = cursor.next()) {
+            if (!node.deleted) {
+                action.accept(node.data);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        cancelCompaction();
+        tree.clear();
+        tombstones = 0;
+    }
+
+    @Override
+    public void buildFromSorted(List<? extends T> sorted) {
+        cancelCompaction();
+        tree.buildFromSorted(sorted);
+        tombstones = 0;
+    }
+
+    @Override
+    public void setRecorder(TreeRecorder recorder) {
+        tree.setRecorder(recorder);
+    }
+
+    @Override
+    public TreeRecorder getRecorder() {
+        return tree.getRecorder();
+    }
+
+    /**
+     * Stops the compaction worker, if there is one, after it finishes any compaction in progress.
+     * The tree stays usable and compacts on the calling thread from then on.
+     */
+    @Override
+    public void close() {
+        if (compactor != null) {
+            if (compaction != null) {
+                swap(await(compaction));
+            }
+            compactor.shutdown();
+        }
+    }
+}
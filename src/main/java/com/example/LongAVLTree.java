@@ -0,0 +1,217 @@
+package com.example;
+
+import java.util.function.LongConsumer;
+
+/**
+ * {@link AVLTree} specialised for {@code long} keys.
+ */
+public class LongAVLTree extends LongBalancedTree {
+    private static final class Node {
+        long key;
+        int height;
+        Node left;
+        Node right;
+
+        Node(long key) {
+            this.key = key;
+            height = 1;
+        }
+    }
+
+    private Node root;
+
+    @Override
+    public void insert(long key) {
+        root = insert(root, key);
+    }
+
+    private Node insert(Node node, long key) {
+        if (node == null) {
+            return new Node(key);
+        }
+
+        if (key < node.key) {
+            node.left = insert(node.left, key);
+        } else if (key > node.key) {
+            node.right = insert(node.right, key);
+        } else {
+            return node; // Duplicate keys not allowed
+        }
+
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        return balance(node);
+    }
+
+    private Node balance(Node node) {
+        int balanceFactor = getBalanceFactor(node);
+
+        if (balanceFactor > 1) {
+            if (getBalanceFactor(node.left) >= 0) {
+                return rotateRight(node);
+            } else {
+                node.left = rotateLeft(node.left);
+                return rotateRight(node);
+            }
+        }
+
+        if (balanceFactor < -1) {
+            if (getBalanceFactor(node.right) <= 0) {
+                return rotateLeft(node);
+            } else {
+                node.right = rotateRight(node.right);
+                return rotateLeft(node);
+            }
+        }
+
+        return node;
+    }
+
+    private Node rotateRight(Node y) {
+        Node x = y.left;
+        y.left = x.right;
+        x.right = y;
+
+        y.height = Math.max(height(y.left), height(y.right)) + 1;
+        x.height = Math.max(height(x.left), height(x.right)) + 1;
+
+        return x;
+    }
+
+    private Node rotateLeft(Node x) {
+        Node y = x.right;
+        x.right = y.left;
+        y.left = x;
+
+        x.height = Math.max(height(x.left), height(x.right)) + 1;
+        y.height = Math.max(height(y.left), height(y.right)) + 1;
+
+        return y;
+    }
+
+    private int getBalanceFactor(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        return height(node.left) - height(node.right);
+    }
+
+    @Override
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * One node per key, so the shallow size of a node.
+     */
+    @Override
+    public double bytesPerEntry() {
+        return root == null ? 0 : ObjectLayout.shallowSize(Node.class);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * Checks that every stored height is right and every balance factor is -1, 0 or 1, for tests;
+     * key order shows in {@link #forEach}. Returns the height.
+     *
+     * @throws IllegalStateException at the first node that breaks them
+     */
+    int checkBalance() {
+        return checkBalance(root);
+    }
+
+    private static int checkBalance(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        int left = checkBalance(node.left);
+        int right = checkBalance(node.right);
+        if (Math.abs(left - right) > 1 || node.height != 1 + Math.max(left, right)) {
+            throw new IllegalStateException("Unbalanced at key " + node.key);
+        }
+        return node.height;
+    }
+
+    @Override
+    public void delete(long key) {
+        root = delete(root, key);
+    }
+
+    private Node delete(Node node, long key) {
+        if (node == null) {
+            return null;
+        }
+
+        if (key < node.key) {
+            node.left = delete(node.left, key);
+        } else if (key > node.key) {
+            node.right = delete(node.right, key);
+        } else {
+            if (node.left == null || node.right == null) {
+                node = (node.left == null) ? node.right : node.left;
+            } else {
+                Node successor = node.right;
+                while (successor.left != null) {
+                    successor = successor.left;
+                }
+                node.key = successor.key;
+                node.right = delete(node.right, successor.key);
+            }
+        }
+
+        if (node == null) {
+            return null;
+        }
+
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        return balance(node);
+    }
+
+    @Override
+    public boolean contains(long key) {
+        Node node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        forEach(root, action);
+    }
+
+    private static void forEach(Node node, LongConsumer action) {
+        while (node != null) {
+            forEach(node.left, action);
+            action.accept(node.key);
+            node = node.right;
+        }
+    }
+
+    @Override
+    public void buildFromSorted(long[] sorted, int from, int to) {
+        checkStrictlyAscending(sorted, from, to);
+        root = build(sorted, from, to);
+    }
+
+    private static Node build(long[] sorted, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node node = new Node(sorted[mid]);
+        node.left = build(sorted, from, mid);
+        node.right = build(sorted, mid + 1, to);
+        node.height = 32 - Integer.numberOfLeadingZeros(to - from);
+        return node;
+    }
+}
@@ -0,0 +1,80 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Counterpart of {@link BalancedBinaryTree} for primitive {@code long} keys.
+ */
+public abstract class LongBalancedTree {
+    public abstract void insert(long key);
+    public abstract void delete(long key);
+    public abstract boolean contains(long key);
+    public abstract int height();
+
+    /**
+     * Estimated heap bytes retained per key, counting spare capacity; 0 if the tree is empty.
+     */
+    public abstract double bytesPerEntry();
+
+    /**
+     * Passes every key to {@code action} in ascending order.
+     */
+    public abstract void forEach(LongConsumer action);
+
+    /**
+     * Replaces the contents of the tree with {@code sorted[from..to)}, which must be strictly
+     * ascending, in linear time.
+     *
+     * @throws IllegalArgumentException if the keys are not strictly ascending
+     */
+    public abstract void buildFromSorted(long[] sorted, int from, int to);
+
+    public void buildFromSorted(long[] sorted) {
+        buildFromSorted(sorted, 0, sorted.length);
+    }
+
+    /**
+     * Replaces the contents of the tree with {@code values}, which may be in any order and contain
+     * duplicates: sorts and de-duplicates a copy, then calls {@link #buildFromSorted(long[], int, int)}.
+     */
+    public void bulkLoad(long[] values) {
+        long[] sorted = values.clone();
+        Arrays.parallelSort(sorted);
+        int distinct = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (distinct == 0 || sorted[distinct - 1] != sorted[i]) {
+                sorted[distinct++] = sorted[i];
+            }
+        }
+        buildFromSorted(sorted, 0, distinct);
+    }
+
+    /**
+     * Writes the keys to a {@link LongSnapshot} file at {@code path}.
+     */
+    public void save(Path path) throws IOException {
+        LongSnapshot.write(this, path);
+    }
+
+    /**
+     * Replaces the contents of the tree with the keys of the snapshot at {@code path}, in linear
+     * time. To answer lookups without building a tree, use {@link LongSnapshot#open(Path)} instead.
+     *
+     * @throws IOException if the file cannot be read or is not a snapshot
+     */
+    public void load(Path path) throws IOException {
+        long[] keys = LongSnapshot.open(path).toArray();
+        buildFromSorted(keys, 0, keys.length);
+    }
+
+    protected static void checkStrictlyAscending(long[] sorted, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            if (sorted[i - 1] >= sorted[i]) {
+                throw new IllegalArgumentException("Keys are not strictly ascending at index " + i);
+            }
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.example;
+
+import java.util.function.LongConsumer;
+
+/**
+ * {@link RedBlackTree} specialised for {@code long} keys. Insert only allocates once it knows the key
+ * is new, and delete tracks the parent of the spliced-out position so {@code fixDelete} also runs
+ * when that position is empty.
+ */
+public class LongRedBlackTree extends LongBalancedTree {
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    private static final class Node {
+        long key;
+        boolean color;
+        Node left;
+        Node right;
+        Node parent;
+
+        Node(long key, Node parent) {
+            this.key = key;
+            this.parent = parent;
+            this.color = RED;
+        }
+    }
+
+    private Node root;
+
+    @Override
+    public void insert(long key) {
+        Node parent = null;
+        Node current = root;
+        while (current != null) {
+            parent = current;
+            if (key < current.key) {
+                current = current.left;
+            } else if (key > current.key) {
+                current = current.right;
+            } else {
+                return; // Duplicate keys not allowed
+            }
+        }
+
+        Node node = new Node(key, parent);
+        if (parent == null) {
+            root = node;
+        } else if (key < parent.key) {
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        fixInsert(node);
+    }
+
+    private void fixInsert(Node node) {
+        while (node.parent != null && node.parent.color == RED) {
+            Node parent = node.parent;
+            Node grandparent = parent.parent;
+            if (parent == grandparent.left) {
+                Node uncle = grandparent.right;
+                if (uncle != null && uncle.color == RED) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grandparent.color = RED;
+                    node = grandparent;
+                } else {
+                    if (node == parent.right) {
+                        node = parent;
+                        rotateLeft(node);
+                    }
+                    node.parent.color = BLACK;
+                    grandparent.color = RED;
+                    rotateRight(grandparent);
+                }
+            } else {
+                Node uncle = grandparent.left;
+                if (uncle != null && uncle.color == RED) {
+                    parent.color = BLACK;
+                    uncle.color = BLACK;
+                    grandparent.color = RED;
+                    node = grandparent;
+                } else {
+                    if (node == parent.left) {
+                        node = parent;
+                        rotateRight(node);
+                    }
+                    node.parent.color = BLACK;
+                    grandparent.color = RED;
+                    rotateLeft(grandparent);
+                }
+            }
+        }
+        root.color = BLACK;
+    }
+
+    private void rotateLeft(Node x) {
+        Node y = x.right;
+        x.right = y.left;
+        if (y.left != null) {
+            y.left.parent = x;
+        }
+        y.parent = x.parent;
+        if (x.parent == null) {
+            root = y;
+        } else if (x == x.parent.left) {
+            x.parent.left = y;
+        } else {
+            x.parent.right = y;
+        }
+        y.left = x;
+        x.parent = y;
+    }
+
+    private void rotateRight(Node y) {
+        Node x = y.left;
+        y.left = x.right;
+        if (x.right != null) {
+            x.right.parent = y;
+        }
+        x.parent = y.parent;
+        if (y.parent == null) {
+            root = x;
+        } else if (y == y.parent.right) {
+            y.parent.right = x;
+        } else {
+            y.parent.left = x;
+        }
+        x.right = y;
+        y.parent = x;
+    }
+
+    @Override
+    public void delete(long key) {
+        Node node = search(key);
+        if (node == null) {
+            return;
+        }
+
+        Node y = node;
+        boolean yOriginalColor = y.color;
+        Node x;
+        Node xParent;
+
+        if (node.left == null) {
+            x = node.right;
+            xParent = node.parent;
+            transplant(node, node.right);
+        } else if (node.right == null) {
+            x = node.left;
+            xParent = node.parent;
+            transplant(node, node.left);
+        } else {
+            y = node.right;
+            while (y.left != null) {
+                y = y.left;
+            }
+            yOriginalColor = y.color;
+            x = y.right;
+            if (y.parent == node) {
+                xParent = y;
+            } else {
+                xParent = y.parent;
+                transplant(y, y.right);
+                y.right = node.right;
+                y.right.parent = y;
+            }
+            transplant(node, y);
+            y.left = node.left;
+            y.left.parent = y;
+            y.color = node.color;
+        }
+
+        if (yOriginalColor == BLACK) {
+            fixDelete(x, xParent);
+        }
+    }
+
+    private void fixDelete(Node x, Node parent) {
+        while (x != root && colorOf(x) == BLACK) {
+            if (x == parent.left) {
+                Node w = parent.right;
+                if (w.color == RED) {
+                    w.color = BLACK;
+                    parent.color = RED;
+                    rotateLeft(parent);
+                    w = parent.right;
+                }
+                if (colorOf(w.left) == BLACK && colorOf(w.right) == BLACK) {
+                    w.color = RED;
+                    x = parent;
+                    parent = x.parent;
+                } else {
+                    if (colorOf(w.right) == BLACK) {
+                        w.left.color = BLACK;
+                        w.color = RED;
+                        rotateRight(w);
+                        w = parent.right;
+                    }
+                    w.color = parent.color;
+                    parent.color = BLACK;
+                    w.right.color = BLACK;
+                    rotateLeft(parent);
+                    x = root;
+                }
+            } else {
+                Node w = parent.left;
+                if (w.color == RED) {
+                    w.color = BLACK;
+                    parent.color = RED;
+                    rotateRight(parent);
+                    w = parent.left;
+                }
+                if (colorOf(w.right) == BLACK && colorOf(w.left) == BLACK) {
+                    w.color = RED;
+                    x = parent;
+                    parent = x.parent;
+                } else {
+                    if (colorOf(w.left) == BLACK) {
+                        w.right.color = BLACK;
+                        w.color = RED;
+                        rotateLeft(w);
+                        w = parent.left;
+                    }
+                    w.color = parent.color;
+                    parent.color = BLACK;
+                    w.left.color = BLACK;
+                    rotateRight(parent);
+                    x = root;
+                }
+            }
+        }
+        if (x != null) {
+            x.color = BLACK;
+        }
+    }
+
+    private static boolean colorOf(Node node) {
+        return node == null ? BLACK : node.color;
+    }
+
+    private void transplant(Node u, Node v) {
+        if (u.parent == null) {
+            root = v;
+        } else if (u == u.parent.left) {
+            u.parent.left = v;
+        } else {
+            u.parent.right = v;
+        }
+        if (v != null) {
+            v.parent = u.parent;
+        }
+    }
+
+    private Node search(long key) {
+        Node node = root;
+        while (node != null) {
+            if (key < node.key) {
+                node = node.left;
+            } else if (key > node.key) {
+                node = node.right;
+            } else {
+                return node;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean contains(long key) {
+        return search(key) != null;
+    }
+
+    @Override
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * One node per key, so the shallow size of a node.
+     */
+    @Override
+    public double bytesPerEntry() {
+        return root == null ? 0 : ObjectLayout.shallowSize(Node.class);
+    }
+
+    private static int height(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        return 1 + Math.max(height(node.left), height(node.right));
+    }
+
+    /**
+     * Checks the parent links, that the root is black, that no red node has a red child and that
+     * every path has the same number of black nodes, for tests; key order shows in
+     * {@link #forEach}. Returns the black height.
+     *
+     * @throws IllegalStateException at the first node that breaks them
+     */
+    int checkColors() {
+        if (root != null && (root.parent != null || root.color == RED)) {
+            throw new IllegalStateException("Root is red or has a parent");
+        }
+        return checkColors(root);
+    }
+
+    private static int checkColors(Node node) {
+        if (node == null) {
+            return 0;
+        }
+        if ((node.left != null && node.left.parent != node) || (node.right != null && node.right.parent != node)) {
+            throw new IllegalStateException("Broken parent link at key " + node.key);
+        }
+        if (node.color == RED && (colorOf(node.left) == RED || colorOf(node.right) == RED)) {
+            throw new IllegalStateException("Red node with a red child at key " + node.key);
+        }
+        int left = checkColors(node.left);
+        if (left != checkColors(node.right)) {
+            throw new IllegalStateException("Unequal black heights at key " + node.key);
+        }
+        return left + (node.color == BLACK ? 1 : 0);
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        forEach(root, action);
+    }
+
+    private static void forEach(Node node, LongConsumer action) {
+        while (node != null) {
+            forEach(node.left, action);
+            action.accept(node.key);
+            node = node.right;
+        }
+    }
+
+    /**
+     * Every node is black except those on the deepest level, which are red.
+     */
+    @Override
+    public void buildFromSorted(long[] sorted, int from, int to) {
+        checkStrictlyAscending(sorted, from, to);
+        int redDepth = 31 - Integer.numberOfLeadingZeros(to - from);
+        root = build(sorted, from, to, 0, redDepth, null);
+        if (root != null) {
+            root.color = BLACK;
+        }
+    }
+
+    private static Node build(long[] sorted, int from, int to, int depth, int redDepth, Node parent) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        Node node = new Node(sorted[mid], parent);
+        node.color = depth == redDepth ? RED : BLACK;
+        node.left = build(sorted, from, mid, depth + 1, redDepth, node);
+        node.right = build(sorted, mid + 1, to, depth + 1, redDepth, node);
+        return node;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot of the keys of a {@link LongBalancedTree}: the {@link IntSnapshot} format with
+ * magic {@code "BTL1"} and the keys, after the same 16-byte header, as little-endian 64-bit integers.
+ *
+ * <p>{@link #contains(long)} binary-searches the mapped keys, so a snapshot answers lookups as soon as
+ * it is opened, without building a tree. It is read-only and pages in from the file on demand.
+ */
+public final class LongSnapshot {
+    static final int MAGIC = 0x314C5442; // "BTL1" in little-endian byte order
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 16;
+
+    private static final int WRITE_BUFFER_BYTES = 1 << 16;
+
+    private final LongBuffer keys;
+
+    private LongSnapshot(LongBuffer keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Writes the keys of {@code tree} to {@code path}, replacing the file if it exists.
+     */
+    public static void write(LongBalancedTree tree, Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(0).putInt(0);
+            int[] count = {0};
+            try {
+                tree.forEach(key -> {
+                    if (!buffer.hasRemaining()) {
+                        try {
+                            drain(channel, buffer);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+                    buffer.putLong(key);
+                    count[0]++;
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            drain(channel, buffer);
+            buffer.putInt(count[0]).flip();
+            channel.write(buffer, 8); // Key count, now that it is known
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Maps the snapshot at {@code path}.
+     *
+     * @throws IOException if the file cannot be read or is not a snapshot of this format
+     */
+    public static LongSnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long length = channel.size();
+            if (length < HEADER_BYTES) {
+                throw new IOException("Not a tree snapshot: " + path);
+            }
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+            mapped.order(ByteOrder.LITTLE_ENDIAN);
+            if (mapped.getInt(0) != MAGIC) {
+                throw new IOException("Not a tree snapshot: " + path);
+            }
+            if (mapped.getInt(4) != VERSION) {
+                throw new IOException("Unsupported snapshot version " + mapped.getInt(4) + ": " + path);
+            }
+            int count = mapped.getInt(8);
+            if (count < 0 || HEADER_BYTES + 8L * count != length) {
+                throw new IOException("Truncated tree snapshot: " + path);
+            }
+            // The mapping stays valid after the channel is closed
+            return new LongSnapshot(mapped.position(HEADER_BYTES).slice().order(ByteOrder.LITTLE_ENDIAN).asLongBuffer());
+        }
+    }
+
+    public int size() {
+        return keys.limit();
+    }
+
+    public boolean contains(long key) {
+        int low = 0;
+        int high = keys.limit() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long midKey = keys.get(mid);
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Copies the keys onto the heap, in ascending order.
+     */
+    public long[] toArray() {
+        long[] result = new long[keys.limit()];
+        keys.get(0, result);
+        return result;
+    }
+}
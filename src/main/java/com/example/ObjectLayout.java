@@ -0,0 +1,80 @@
+package com.example;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+
+/**
+ * Estimates of how much heap HotSpot gives an object, from its declared fields and the running JVM's
+ * compressed-pointer and alignment settings. Fields are assumed to be packed without gaps, as the
+ * field layout of JDK 15 and later does, so an estimate may undercount by a few bytes of padding.
+ */
+public final class ObjectLayout {
+    private static final int REFERENCE_SIZE;
+    private static final int HEADER_SIZE;
+    private static final int ARRAY_HEADER_SIZE;
+    private static final int ALIGNMENT;
+
+    static {
+        boolean compressedOops = true;
+        boolean compressedClassPointers = true;
+        int alignment = 8;
+        try {
+            HotSpotDiagnosticMXBean hotSpot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+            compressedOops = Boolean.parseBoolean(hotSpot.getVMOption("UseCompressedOops").getValue());
+            compressedClassPointers = Boolean.parseBoolean(hotSpot.getVMOption("UseCompressedClassPointers").getValue());
+            alignment = Integer.parseInt(hotSpot.getVMOption("ObjectAlignmentInBytes").getValue());
+        } catch (RuntimeException e) {
+            // Not HotSpot: keep the defaults of a 64-bit HotSpot with a heap below 32 GB
+        }
+        REFERENCE_SIZE = compressedOops ? 4 : 8;
+        HEADER_SIZE = compressedClassPointers ? 12 : 16; // Mark word + class pointer
+        ARRAY_HEADER_SIZE = HEADER_SIZE + 4; // + length
+        ALIGNMENT = alignment;
+    }
+
+    private ObjectLayout() {
+    }
+
+    /**
+     * Bytes taken by one instance of {@code type} on its own, without the objects it references.
+     */
+    public static long shallowSize(Class<?> type) {
+        long size = HEADER_SIZE;
+        for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    size += fieldSize(field.getType());
+                }
+            }
+        }
+        return align(size);
+    }
+
+    /**
+     * Bytes taken by an array of {@code length} elements of {@code componentType}, without the
+     * objects it references.
+     */
+    public static long arraySize(Class<?> componentType, int length) {
+        return align(ARRAY_HEADER_SIZE + (long) length * fieldSize(componentType));
+    }
+
+    private static int fieldSize(Class<?> type) {
+        if (type == long.class || type == double.class) {
+            return 8;
+        } else if (type == int.class || type == float.class) {
+            return 4;
+        } else if (type == short.class || type == char.class) {
+            return 2;
+        } else if (type == byte.class || type == boolean.class) {
+            return 1;
+        }
+        return REFERENCE_SIZE;
+    }
+
+    private static long align(long size) {
+        return (size + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+}
@@ -0,0 +1,546 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Base of the trees that hang their keys from {@link #root} and keep {@link Node#size} up to date.
+ * Adds order statistics, navigation and in-order traversal on top of the point operations.
+ *
+ * <p>Iterators, range cursors and spliterators walk the tree with a stack of ancestors sized to the
+ * tree's height, so they allocate once rather than per element. They are not fail-fast: the tree
+ * must not be modified while one is in use.
+ */
+public abstract class OrderedTree<T extends Comparable<T>> extends BalancedBinaryTree<T> implements Iterable<T> {
+    /** Upper bound on the height of an AVL or red-black tree with up to 2^31 nodes. */
+    static final int MAX_FINGER_DEPTH = 64;
+
+    // The subclasses keep the nodes of the finger; these are the nearest ancestors bounding the
+    // subtree at each of its levels from below and above, or null where it is unbounded.
+    boolean fingerSearch;
+    int fingerDepth; // 0 if there is no finger
+    Node<T>[] fingerLow;
+    Node<T>[] fingerHigh;
+
+    /**
+     * Inserts {@code data} unless it is present and returns the node that holds it, in one descent.
+     */
+    abstract Node<T> insertNode(T data);
+
+    /**
+     * Removes {@code data} and returns the unlinked node that held it, or null if it was absent.
+     */
+    abstract Node<T> deleteNode(T data);
+
+    /**
+     * Splits this tree at {@code key} in O(log n) time: keys smaller than {@code key} stay in this
+     * tree, and the others are moved into the returned tree.
+     */
+    public abstract OrderedTree<T> split(T key);
+
+    /**
+     * Moves every key of {@code right}, all of which must be greater than the keys of this tree, into
+     * this tree and leaves {@code right} empty. AVL and red-black trees join a tree of their own kind
+     * in O(log n) time; this default rebuilds this tree from both in linear time.
+     *
+     * @throws IllegalArgumentException if the key ranges overlap
+     */
+    void append(OrderedTree<T> right) {
+        List<T> keys = new ArrayList<>(size() + right.size());
+        forEach(keys::add);
+        right.forEach(keys::add);
+        buildFromSorted(keys);
+        right.clear();
+    }
+
+    Node<T> getNode(T data) {
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                return node;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Estimated heap bytes retained per key: the shallow size of a node plus that of the key object
+     * it points to, both sized from the root on the assumption that every key has the same class.
+     * Keys shared with other structures are counted anyway.
+     */
+    public double bytesPerEntry() {
+        if (root == null) {
+            return 0;
+        }
+        return ObjectLayout.shallowSize(root.getClass()) + ObjectLayout.shallowSize(root.data.getClass());
+    }
+
+    /**
+     * Makes inserts and lookups start from the path to the last inserted key (the finger) rather
+     * than from the root. A key d positions away from the previous one then takes about O(log d)
+     * comparisons, and an ascending key is appended after a comparison or two instead of one per
+     * level. Random keys cost up to twice the comparisons of a plain descent, so this is off by
+     * default. Only inserts move the finger and deletes drop it, so lookups still leave the tree
+     * unmodified.
+     */
+    public void setFingerSearch(boolean enabled) {
+        if (enabled && fingerLow == null) {
+            fingerLow = newNodeArray();
+            fingerHigh = newNodeArray();
+        }
+        fingerSearch = enabled;
+        fingerDepth = 0;
+    }
+
+    public boolean isFingerSearch() {
+        return fingerSearch;
+    }
+
+    @Override
+    public void clear() {
+        super.clear();
+        fingerDepth = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] newNodeArray() {
+        return (Node<T>[]) new Node[MAX_FINGER_DEPTH];
+    }
+
+    /**
+     * Computes the bounds of levels [from, to) of the finger {@code path}, whose levels before
+     * {@code from} already have theirs, and makes it {@code to} levels deep.
+     */
+    void setFingerBounds(Node<T>[] path, int from, int to) {
+        for (int i = Math.max(from, 1); i < to; i++) {
+            Node<T> parent = path[i - 1];
+            if (path[i] == parent.left) {
+                fingerLow[i] = fingerLow[i - 1];
+                fingerHigh[i] = parent;
+            } else {
+                fingerLow[i] = parent;
+                fingerHigh[i] = fingerHigh[i - 1];
+            }
+        }
+        fingerDepth = to;
+    }
+
+    /**
+     * Deepest level of the finger whose subtree would hold {@code key}, or 0 if there is no finger.
+     * Subtrees only widen towards the root, so each side needs checking until it first holds, and
+     * then only against bounds not already seen.
+     */
+    int fingerLevel(T key) {
+        int level = fingerDepth - 1;
+        boolean aboveLow = false;
+        boolean belowHigh = false;
+        while (level > 0) {
+            if (!aboveLow) {
+                Node<T> low = fingerLow[level];
+                if (low != null && key.compareTo(low.data) <= 0) {
+                    while (level > 0 && fingerLow[level] == low) {
+                        level--;
+                    }
+                    continue;
+                }
+                aboveLow = true;
+            }
+            if (!belowHigh) {
+                Node<T> high = fingerHigh[level];
+                if (high != null && key.compareTo(high.data) >= 0) {
+                    while (level > 0 && fingerHigh[level] == high) {
+                        level--;
+                    }
+                    continue;
+                }
+                belowHigh = true;
+            }
+            return level;
+        }
+        return 0;
+    }
+
+    /**
+     * Number of keys smaller than {@code key}.
+     */
+    public int rank(T key) {
+        return rank(key, false);
+    }
+
+    /**
+     * The key with {@code index} smaller keys, so {@code select(0)} is the smallest.
+     *
+     * @throws IndexOutOfBoundsException unless 0 &lt;= index &lt; size()
+     */
+    public T select(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size());
+        }
+        Node<T> node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (index < leftSize) {
+                node = node.left;
+            } else if (index > leftSize) {
+                index -= leftSize + 1;
+                node = node.right;
+            } else {
+                return node.data;
+            }
+        }
+    }
+
+    /**
+     * Number of keys from {@code from} to {@code to}, both inclusive.
+     */
+    public int countInRange(T from, T to) {
+        return from.compareTo(to) > 0 ? 0 : rank(to, true) - rank(from, false);
+    }
+
+    /**
+     * Number of keys smaller than {@code key}, or smaller than or equal to it if {@code inclusive}.
+     */
+    int rank(T key, boolean inclusive) {
+        int rank = 0;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.data);
+            if (cmp == 0) {
+                return rank + size(node.left) + (inclusive ? 1 : 0);
+            }
+            if (cmp < 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    /** Greatest key smaller than or equal to {@code key}, or null if there is none. */
+    public T floor(T key) {
+        return data(below(key, true));
+    }
+
+    /** Greatest key strictly smaller than {@code key}, or null if there is none. */
+    public T lower(T key) {
+        return data(below(key, false));
+    }
+
+    /** Smallest key greater than or equal to {@code key}, or null if there is none. */
+    public T ceiling(T key) {
+        return data(above(key, true));
+    }
+
+    /** Smallest key strictly greater than {@code key}, or null if there is none. */
+    public T higher(T key) {
+        return data(above(key, false));
+    }
+
+    private static <T> T data(Node<T> node) {
+        return node == null ? null : node.data;
+    }
+
+    /**
+     * Node with the greatest key smaller than {@code key} (or equal to it if {@code inclusive}).
+     */
+    Node<T> below(T key, boolean inclusive) {
+        Node<T> best = null;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.data);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (cmp > 0) {
+                best = node;
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Node with the smallest key greater than {@code key} (or equal to it if {@code inclusive}).
+     */
+    Node<T> above(T key, boolean inclusive) {
+        Node<T> best = null;
+        Node<T> node = root;
+        while (node != null) {
+            int cmp = key.compareTo(node.data);
+            if (cmp == 0 && inclusive) {
+                return node;
+            }
+            if (cmp < 0) {
+                best = node;
+                node = node.left;
+            } else {
+                node = node.right;
+            }
+        }
+        return best;
+    }
+
+    Node<T> firstNode() {
+        Node<T> node = root;
+        while (node != null && node.left != null) {
+            node = node.left;
+        }
+        return node;
+    }
+
+    Node<T> lastNode() {
+        Node<T> node = root;
+        while (node != null && node.right != null) {
+            node = node.right;
+        }
+        return node;
+    }
+
+    /**
+     * The keys in ascending order.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        Cursor<T> cursor = new Cursor<>(height(), false);
+        cursor.seekFirst(root);
+        return new RangeIterator<>(cursor, null);
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        Cursor<T> cursor = new Cursor<>(height(), false);
+        cursor.seekFirst(root);
+        for (Node<T> node = cursor.next(); node != null; node = cursor.next()) {
+            action.accept(node.data);
+        }
+    }
+
+    @Override
+    public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+        Cursor<T> cursor = new Cursor<>(height(), false);
+        cursor.seek(root, from, true);
+        int passed = 0;
+        for (Node<T> node; passed < limit && (node = cursor.next()) != null; passed++) {
+            action.accept(node.data);
+        }
+        return passed;
+    }
+
+    /**
+     * The keys from {@code from} to {@code to}, both inclusive, in ascending order.
+     */
+    public Iterator<T> range(T from, T to) {
+        Cursor<T> cursor = new Cursor<>(height(), false);
+        cursor.seek(root, from, true);
+        return new RangeIterator<>(cursor, to);
+    }
+
+    /**
+     * Splits by rank, using the subtree sizes, so every part knows its exact size and a parallel
+     * stream gets halves of equal size down to single keys.
+     */
+    @Override
+    public Spliterator<T> spliterator() {
+        return new TreeSpliterator<>(this, 0, size());
+    }
+
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    /**
+     * In-order (or, if {@code descending}, reverse-order) position in a tree: the next node to return
+     * sits on top of a stack of the ancestors whose key comes later.
+     */
+    static final class Cursor<T extends Comparable<T>> {
+        private final Node<T>[] stack;
+        private final boolean descending;
+        private int depth;
+
+        @SuppressWarnings("unchecked")
+        Cursor(int height, boolean descending) {
+            stack = (Node<T>[]) new Node[height];
+            this.descending = descending;
+        }
+
+        void seekFirst(Node<T> node) {
+            pushSpine(node);
+        }
+
+        /**
+         * Positions the cursor on the first key that is not before {@code key} in iteration order, or
+         * the first one after it unless {@code inclusive}.
+         */
+        void seek(Node<T> node, T key, boolean inclusive) {
+            depth = 0;
+            while (node != null) {
+                int cmp = key.compareTo(node.data);
+                if (descending) {
+                    cmp = -cmp;
+                }
+                if (cmp == 0 && inclusive) {
+                    stack[depth++] = node;
+                    return;
+                }
+                if (cmp < 0) {
+                    stack[depth++] = node;
+                    node = descending ? node.right : node.left;
+                } else {
+                    node = descending ? node.left : node.right;
+                }
+            }
+        }
+
+        /** Positions the cursor on the key with {@code index} smaller keys. */
+        void seekIndex(Node<T> node, int index) {
+            while (node != null) {
+                int leftSize = size(node.left);
+                if (index <= leftSize) {
+                    stack[depth++] = node;
+                    if (index == leftSize) {
+                        return;
+                    }
+                    node = node.left;
+                } else {
+                    index -= leftSize + 1;
+                    node = node.right;
+                }
+            }
+        }
+
+        /** The next node, or null at the end. */
+        Node<T> next() {
+            if (depth == 0) {
+                return null;
+            }
+            Node<T> node = stack[--depth];
+            pushSpine(descending ? node.left : node.right);
+            return node;
+        }
+
+        Node<T> peek() {
+            return depth == 0 ? null : stack[depth - 1];
+        }
+
+        private void pushSpine(Node<T> node) {
+            while (node != null) {
+                stack[depth++] = node;
+                node = descending ? node.right : node.left;
+            }
+        }
+    }
+
+    private static final class RangeIterator<T extends Comparable<T>> implements Iterator<T> {
+        private final Cursor<T> cursor;
+        private final T to; // Inclusive upper bound, or null for none
+
+        RangeIterator(Cursor<T> cursor, T to) {
+            this.cursor = cursor;
+            this.to = to;
+        }
+
+        @Override
+        public boolean hasNext() {
+            Node<T> next = cursor.peek();
+            return next != null && (to == null || next.data.compareTo(to) <= 0);
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return cursor.next().data;
+        }
+    }
+
+    /**
+     * The keys with ranks {@code from} (inclusive) to {@code to} (exclusive). The cursor is only
+     * positioned once traversal starts, so splitting costs nothing but the arithmetic.
+     */
+    private static final class TreeSpliterator<T extends Comparable<T>> implements Spliterator<T> {
+        private final OrderedTree<T> tree;
+        private int from;
+        private final int to;
+        private Cursor<T> cursor;
+
+        TreeSpliterator(OrderedTree<T> tree, int from, int to) {
+            this.tree = tree;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            if (from >= to) {
+                return false;
+            }
+            action.accept(position().next().data);
+            from++;
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super T> action) {
+            if (from >= to) {
+                return;
+            }
+            Cursor<T> cursor = position();
+            while (from < to) {
+                action.accept(cursor.next().data);
+                from++;
+            }
+        }
+
+        private Cursor<T> position() {
+            if (cursor == null) {
+                cursor = new Cursor<>(tree.height(), false);
+                cursor.seekIndex(tree.root, from);
+            }
+            return cursor;
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            if (cursor != null || to - from < 2) {
+                return null;
+            }
+            int mid = (from + to) >>> 1;
+            TreeSpliterator<T> prefix = new TreeSpliterator<>(tree, from, mid);
+            from = mid;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return to - from;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED;
+        }
+
+        @Override
+        public Comparator<? super T> getComparator() {
+            return null; // Natural order
+        }
+    }
+}
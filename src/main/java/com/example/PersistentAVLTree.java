@@ -0,0 +1,312 @@
+package com.example;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * AVL tree whose nodes are never modified once published. An insert or delete copies the nodes on
+ * the path it changes and then swaps in the new root, so {@link #snapshot()} is O(1) and a snapshot
+ * can be read from any number of threads, without locks, while writers carry on.
+ *
+ * <p>Writers are serialized on the tree; {@link #contains} and snapshots never lock. Each node
+ * records the edit that created it, and an edit may change its own nodes in place. A plain
+ * insert or delete therefore copies each node on its path at most once, and a {@link #batch} of
+ * updates copies each node at most once for the whole batch.
+ */
+public class PersistentAVLTree<T extends Comparable<T>> extends BalancedBinaryTree<T> {
+    private static final class PNode<T> {
+        final T key;
+        // Only changed by the edit that owns the node, before the node is published
+        PNode<T> left;
+        PNode<T> right;
+        int height;
+        final Object owner;
+
+        PNode(T key, PNode<T> left, PNode<T> right, Object owner) {
+            this.key = key;
+            this.left = left;
+            this.right = right;
+            this.height = 1 + Math.max(height(left), height(right));
+            this.owner = owner;
+        }
+    }
+
+    private volatile PNode<T> head;
+
+    @Override
+    public synchronized void insert(T data) {
+        head = insert(head, data, new Object());
+    }
+
+    @Override
+    public synchronized void delete(T data) {
+        head = delete(head, data, new Object());
+    }
+
+    @Override
+    public boolean contains(T data) {
+        return contains(head, data);
+    }
+
+    @Override
+    public int height() {
+        return height(head);
+    }
+
+    @Override
+    public synchronized void clear() {
+        head = null;
+    }
+
+    @Override
+    public synchronized void buildFromSorted(List<? extends T> sorted) {
+        Object[] keys = toStrictlyAscendingArray(sorted);
+        head = build(keys, 0, keys.length);
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        snapshot().forEach(action);
+    }
+
+    @Override
+    public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+        return snapshot().forEachFrom(from, limit, action);
+    }
+
+    /**
+     * Returns the current contents. Later updates to this tree do not show in the snapshot.
+     */
+    public Snapshot<T> snapshot() {
+        return new Snapshot<>(head);
+    }
+
+    /**
+     * Runs {@code updates} against a private copy of the tree and publishes the result in one step
+     * once they return. Readers see either none or all of the batch; if {@code updates} throws,
+     * nothing is published. The {@link Transient} must not be used after this returns.
+     */
+    public synchronized void batch(Consumer<? super Transient<T>> updates) {
+        Transient<T> edit = new Transient<>(head);
+        try {
+            updates.accept(edit);
+            head = edit.root;
+        } finally {
+            edit.owner = null;
+        }
+    }
+
+    /**
+     * Read-only view of one version of a {@link PersistentAVLTree}.
+     */
+    public static final class Snapshot<T extends Comparable<T>> {
+        private final PNode<T> root;
+
+        private Snapshot(PNode<T> root) {
+            this.root = root;
+        }
+
+        public boolean contains(T key) {
+            return PersistentAVLTree.contains(root, key);
+        }
+
+        public int height() {
+            return PersistentAVLTree.height(root);
+        }
+
+        /**
+         * Passes the keys to {@code action} in ascending order.
+         */
+        public void forEach(Consumer<? super T> action) {
+            ArrayDeque<PNode<T>> stack = new ArrayDeque<>();
+            PNode<T> node = root;
+            while (node != null || !stack.isEmpty()) {
+                while (node != null) {
+                    stack.push(node);
+                    node = node.left;
+                }
+                node = stack.pop();
+                action.accept(node.key);
+                node = node.right;
+            }
+        }
+
+        /**
+         * Passes the first {@code limit} keys not less than {@code from}, or as many as there are, to
+         * {@code action} in ascending order, and returns how many it passed.
+         */
+        public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+            ArrayDeque<PNode<T>> stack = new ArrayDeque<>();
+            for (PNode<T> node = root; node != null; ) {
+                if (from.compareTo(node.key) <= 0) {
+                    stack.push(node);
+                    node = node.left;
+                } else {
+                    node = node.right;
+                }
+            }
+            int passed = 0;
+            for (; passed < limit && !stack.isEmpty(); passed++) {
+                PNode<T> node = stack.pop();
+                action.accept(node.key);
+                for (node = node.right; node != null; node = node.left) {
+                    stack.push(node);
+                }
+            }
+            return passed;
+        }
+    }
+
+    /**
+     * Updates made inside {@link PersistentAVLTree#batch}.
+     */
+    public static final class Transient<T extends Comparable<T>> {
+        private PNode<T> root;
+        private Object owner = new Object();
+
+        private Transient(PNode<T> root) {
+            this.root = root;
+        }
+
+        public void insert(T key) {
+            root = PersistentAVLTree.insert(root, key, checkOwner());
+        }
+
+        public void delete(T key) {
+            root = PersistentAVLTree.delete(root, key, checkOwner());
+        }
+
+        public boolean contains(T key) {
+            checkOwner();
+            return PersistentAVLTree.contains(root, key);
+        }
+
+        private Object checkOwner() {
+            if (owner == null) {
+                throw new IllegalStateException("Transient used after its batch ended");
+            }
+            return owner;
+        }
+    }
+
+    private static <T extends Comparable<T>> boolean contains(PNode<T> node, T key) {
+        while (node != null) {
+            int cmp = key.compareTo(node.key);
+            if (cmp == 0) {
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
+        }
+        return false;
+    }
+
+    private static <T extends Comparable<T>> PNode<T> insert(PNode<T> node, T key, Object owner) {
+        if (node == null) {
+            return new PNode<>(key, null, null, owner);
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            PNode<T> left = insert(node.left, key, owner);
+            return left == node.left ? node : balance(with(node, left, node.right, owner), owner);
+        }
+        if (cmp > 0) {
+            PNode<T> right = insert(node.right, key, owner);
+            return right == node.right ? node : balance(with(node, node.left, right, owner), owner);
+        }
+        return node; // Duplicate data not allowed
+    }
+
+    private static <T extends Comparable<T>> PNode<T> delete(PNode<T> node, T key, Object owner) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = key.compareTo(node.key);
+        if (cmp < 0) {
+            PNode<T> left = delete(node.left, key, owner);
+            return left == node.left ? node : balance(with(node, left, node.right, owner), owner);
+        }
+        if (cmp > 0) {
+            PNode<T> right = delete(node.right, key, owner);
+            return right == node.right ? node : balance(with(node, node.left, right, owner), owner);
+        }
+        if (node.left == null) {
+            return node.right;
+        }
+        if (node.right == null) {
+            return node.left;
+        }
+        // Keys are final, so the successor's key moves up in a new node
+        PNode<T> successor = node.right;
+        while (successor.left != null) {
+            successor = successor.left;
+        }
+        PNode<T> right = deleteMin(node.right, owner);
+        return balance(new PNode<>(successor.key, node.left, right, owner), owner);
+    }
+
+    private static <T> PNode<T> deleteMin(PNode<T> node, Object owner) {
+        if (node.left == null) {
+            return node.right;
+        }
+        return balance(with(node, deleteMin(node.left, owner), node.right, owner), owner);
+    }
+
+    /**
+     * Returns {@code node} with the given children: the node itself if {@code owner} created it,
+     * otherwise a copy.
+     */
+    private static <T> PNode<T> with(PNode<T> node, PNode<T> left, PNode<T> right, Object owner) {
+        if (node.owner != owner) {
+            return new PNode<>(node.key, left, right, owner);
+        }
+        node.left = left;
+        node.right = right;
+        node.height = 1 + Math.max(height(left), height(right));
+        return node;
+    }
+
+    private static <T> PNode<T> balance(PNode<T> node, Object owner) {
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            PNode<T> left = node.left;
+            if (height(left.left) < height(left.right)) {
+                node = with(node, rotateLeft(left, owner), node.right, owner);
+            }
+            return rotateRight(node, owner);
+        }
+        if (balance < -1) {
+            PNode<T> right = node.right;
+            if (height(right.right) < height(right.left)) {
+                node = with(node, node.left, rotateRight(right, owner), owner);
+            }
+            return rotateLeft(node, owner);
+        }
+        return node;
+    }
+
+    private static <T> PNode<T> rotateRight(PNode<T> node, Object owner) {
+        PNode<T> left = node.left;
+        PNode<T> lowered = with(node, left.right, node.right, owner);
+        return with(left, left.left, lowered, owner);
+    }
+
+    private static <T> PNode<T> rotateLeft(PNode<T> node, Object owner) {
+        PNode<T> right = node.right;
+        PNode<T> lowered = with(node, node.left, right.left, owner);
+        return with(right, lowered, right.right, owner);
+    }
+
+    @SuppressWarnings("unchecked")
+    private PNode<T> build(Object[] keys, int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        return new PNode<>((T) keys[mid], build(keys, from, mid), build(keys, mid + 1, to), null);
+    }
+
+    private static int height(PNode<?> node) {
+        return node == null ? 0 : node.height;
+    }
+}
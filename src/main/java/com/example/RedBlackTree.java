@@ -1,11 +1,24 @@
 package com.example;
 
-public class RedBlackTree<T extends Comparable<T>> extends BalancedBinaryTree<T> {
+import com.example.TreeRecorder.Operation;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Red-black tree with parent pointers. Each node also keeps the size and height of its subtree, which
+ * give O(1) {@link #size()} and {@link #height()} and O(log n) {@link #rank}, {@link #select} and
+ * {@link #countInRange}. Rotations recompute both for the nodes they move, and every insert or
+ * delete then walks from the lowest changed node back up to the root.
+ */
+public class RedBlackTree<T extends Comparable<T>> extends OrderedTree<T> {
     private static final boolean RED = true;
     private static final boolean BLACK = false;
 
-    private static class RBNode<T> extends Node<T> {
+    static class RBNode<T> extends Node<T> {
         boolean color;
+        byte height = 1;
         RBNode<T> parent;
 
         RBNode(T data) {
@@ -14,46 +27,108 @@ public class RedBlackTree<T extends Comparable<T>> extends BalancedBinaryTree<T>
         }
     }
 
+    // Nodes from the root down to the last inserted key, when finger search is on
+    @SuppressWarnings("unchecked")
+    private final RBNode<T>[] finger = (RBNode<T>[]) new RBNode[MAX_FINGER_DEPTH];
+    // Ancestors of the changed position that the last fixInsert or fixDelete examined
+    private int fixupLevels;
+
     @Override
     public void insert(T data) {
-        RBNode<T> node = new RBNode<>(data);
-        root = insert((RBNode<T>) root, node);
-        fixInsert(node);
+        insertNode(data);
     }
 
-    private RBNode<T> insert(RBNode<T> root, RBNode<T> node) {
-        if (root == null) {
-            return node;
-        }
+    RBNode<T> newNode(T data) {
+        return new RBNode<>(data);
+    }
 
-        if (node.data.compareTo(root.data) < 0) {
-            root.left = insert((RBNode<T>) root.left, node);
-            ((RBNode<T>) root.left).parent = root;
-        } else if (node.data.compareTo(root.data) > 0) {
-            root.right = insert((RBNode<T>) root.right, node);
-            ((RBNode<T>) root.right).parent = root;
+    @Override
+    RBNode<T> insertNode(T data) {
+        // With a finger, finger[0..start) is still the path to the last inserted key.
+        int start = fingerSearch ? fingerLevel(data) : 0;
+        RBNode<T> parent = null;
+        Node<T> current = start == 0 ? root : finger[start];
+        int depth = start;
+        int cmp = 0;
+        while (current != null) {
+            cmp = data.compareTo(current.data);
+            if (fingerSearch) {
+                finger[depth] = (RBNode<T>) current;
+            }
+            depth++;
+            if (cmp == 0) {
+                if (fingerSearch) {
+                    setFingerBounds(finger, start + 1, depth);
+                }
+                recorder.operation(Operation.INSERT, depth - start, depth - start, 0, 0);
+                return (RBNode<T>) current; // Duplicate data not allowed
+            }
+            parent = (RBNode<T>) current;
+            current = cmp < 0 ? current.left : current.right;
         }
+        int visited = depth - start;
 
-        return root;
+        RBNode<T> node = newNode(data);
+        node.parent = parent;
+        if (parent == null) {
+            root = node;
+        } else if (cmp < 0) {
+            parent.left = node;
+        } else {
+            parent.right = node;
+        }
+        RBNode<T> rotated = fixInsert(node);
+        int updated = updateToRoot(node.parent);
+        if (fingerSearch) {
+            // Above the rotation, if any, the path is unchanged, and the node that took the rotated
+            // node's place holds the same range of keys.
+            finger[depth] = node;
+            int levels = depth + 1;
+            if (rotated != null) {
+                levels = depth;
+                while (finger[levels] != rotated) {
+                    levels--;
+                }
+                finger[levels++] = rotated.parent;
+            }
+            setFingerBounds(finger, start + 1, levels);
+        }
+        recorder.operation(Operation.INSERT, visited, visited, fixupLevels, updated);
+        return node;
     }
 
-    private void fixInsert(RBNode<T> node) {
+    /**
+     * Restores the red-black properties above the new red {@code node} and returns the node that the
+     * last rotation moved down from the top of its subtree, or null if nothing was rotated. Sets
+     * {@link #fixupLevels}: two for each step, which looks at the parent and the grandparent, and one
+     * more for a black parent that stops it.
+     */
+    private RBNode<T> fixInsert(RBNode<T> node) {
+        int recolors = 0;
+        int levels = 0;
+        RBNode<T> rotated = null;
         while (node != root && node.parent != null && node.parent.color == RED) {
+            levels += 2;
             if (node.parent == node.parent.parent.left) {
                 RBNode<T> uncle = (RBNode<T>) node.parent.parent.right;
                 if (uncle != null && uncle.color == RED) {
                     node.parent.color = BLACK;
                     uncle.color = BLACK;
                     node.parent.parent.color = RED;
+                    recolors += 3;
                     node = node.parent.parent;
                 } else {
-                    if (node == node.parent.right) {
+                    boolean inner = node == node.parent.right;
+                    if (inner) {
                         node = node.parent;
                         rotateLeft(node);
                     }
                     node.parent.color = BLACK;
                     node.parent.parent.color = RED;
-                    rotateRight(node.parent.parent);
+                    recolors += 2;
+                    rotated = node.parent.parent;
+                    rotateRight(rotated);
+                    recorder.rotation(inner);
                 }
             } else {
                 RBNode<T> uncle = (RBNode<T>) node.parent.parent.left;
@@ -61,19 +136,32 @@ public class RedBlackTree<T extends Comparable<T>> extends BalancedBinaryTree<T>
                     node.parent.color = BLACK;
                     uncle.color = BLACK;
                     node.parent.parent.color = RED;
+                    recolors += 3;
                     node = node.parent.parent;
                 } else {
-                    if (node == node.parent.left) {
+                    boolean inner = node == node.parent.left;
+                    if (inner) {
                         node = node.parent;
                         rotateRight(node);
                     }
                     node.parent.color = BLACK;
                     node.parent.parent.color = RED;
-                    rotateLeft(node.parent.parent);
+                    recolors += 2;
+                    rotated = node.parent.parent;
+                    rotateLeft(rotated);
+                    recorder.rotation(inner);
                 }
             }
         }
-        ((RBNode<T>) root).color = BLACK;
+        if (((RBNode<T>) root).color == RED) {
+            ((RBNode<T>) root).color = BLACK;
+            recolors++;
+        }
+        if (recolors > 0) {
+            recorder.recolor(recolors);
+        }
+        fixupLevels = rotated == null && node.parent != null ? levels + 1 : levels;
+        return rotated;
     }
 
     private void rotateLeft(RBNode<T> x) {
@@ -92,6 +180,8 @@ public class RedBlackTree<T extends Comparable<T>> extends BalancedBinaryTree<T>
         }
         y.left = x;
         x.parent = y;
+        update(x);
+        update(y);
     }
 
     private void rotateRight(RBNode<T> y) {
@@ -110,34 +200,86 @@ public class RedBlackTree<T extends Comparable<T>> extends BalancedBinaryTree<T>
         }
         x.right = y;
         y.parent = x;
+        update(y);
+        update(x);
+    }
+
+    /**
+     * Recomputes the size and height of {@code node} from its children.
+     */
+    private static void update(RBNode<?> node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        node.height = (byte) (1 + Math.max(height(node.left), height(node.right)));
+    }
+
+    /**
+     * Recomputes the sizes and heights from {@code node} up to the root and returns the number of
+     * nodes updated. Rotations keep the nodes they move off this path up to date themselves.
+     */
+    private static int updateToRoot(RBNode<?> node) {
+        int levels = 0;
+        for (; node != null; node = node.parent) {
+            update(node);
+            levels++;
+        }
+        return levels;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : ((RBNode<?>) node).height;
     }
 
     @Override
     public void delete(T data) {
-        RBNode<T> node = (RBNode<T>) search(root, data);
-        if (node == null) {
-            return;
+        deleteNode(data);
+    }
+
+    @Override
+    RBNode<T> deleteNode(T data) {
+        fingerDepth = 0; // Fixups may rotate anywhere on the finger
+        Node<T> found = root;
+        int comparisons = 0;
+        while (found != null) {
+            comparisons++;
+            int cmp = data.compareTo(found.data);
+            if (cmp == 0) {
+                break;
+            }
+            found = cmp < 0 ? found.left : found.right;
+        }
+        if (found == null) {
+            recorder.operation(Operation.DELETE, comparisons, comparisons, 0, 0);
+            return null;
         }
+        RBNode<T> node = (RBNode<T>) found;
+        int visited = comparisons;
 
         RBNode<T> y = node;
         RBNode<T> x;
+        RBNode<T> xParent;
         boolean yOriginalColor = y.color;
 
         if (node.left == null) {
             x = (RBNode<T>) node.right;
+            xParent = node.parent;
             transplant(node, (RBNode<T>) node.right);
         } else if (node.right == null) {
             x = (RBNode<T>) node.left;
+            xParent = node.parent;
             transplant(node, (RBNode<T>) node.left);
         } else {
-            y = minValueNode((RBNode<T>) node.right);
+            y = (RBNode<T>) node.right;
+            visited++;
+            while (y.left != null) {
+                y = (RBNode<T>) y.left;
+                visited++;
+            }
             yOriginalColor = y.color;
             x = (RBNode<T>) y.right;
             if (y.parent == node) {
-                if (x != null) {
-                    x.parent = y;
-                }
+                xParent = y;
             } else {
+                xParent = y.parent;
                 transplant(y, (RBNode<T>) y.right);
                 y.right = node.right;
                 ((RBNode<T>) y.right).parent = y;
@@ -148,102 +290,103 @@ public class RedBlackTree<T extends Comparable<T>> extends BalancedBinaryTree<T>
             y.color = node.color;
         }
 
+        fixupLevels = 0;
         if (yOriginalColor == BLACK) {
-            fixDelete(x);
+            fixDelete(x, xParent);
         }
+        int updated = updateToRoot(xParent);
+        recorder.operation(Operation.DELETE, comparisons, visited, fixupLevels, updated);
+        return node;
     }
 
-    private void fixDelete(RBNode<T> x) {
-        while (x != root && (x == null || x.color == BLACK)) {
-            if (x == null || x.parent == null) {
-                break;
-            }
-
-            if (x == x.parent.left) {
-                RBNode<T> w = (RBNode<T>) x.parent.right;
-                if (w == null) {
-                    break;
-                }
-
+    /**
+     * Restores the black height after a black node was removed above {@code x}. {@code x} may be
+     * null, so its parent is passed along explicitly. Sets {@link #fixupLevels} to the number of
+     * parents it worked at.
+     */
+    private void fixDelete(RBNode<T> x, RBNode<T> parent) {
+        int recolors = 0;
+        int levels = 0;
+        while (x != root && colorOf(x) == BLACK) {
+            levels++;
+            if (x == parent.left) {
+                RBNode<T> w = (RBNode<T>) parent.right;
                 if (w.color == RED) {
                     w.color = BLACK;
-                    x.parent.color = RED;
-                    rotateLeft(x.parent);
-                    w = (RBNode<T>) x.parent.right;
+                    parent.color = RED;
+                    recolors += 2;
+                    rotateLeft(parent);
+                    recorder.rotation(false);
+                    w = (RBNode<T>) parent.right;
                 }
-
-                if (w == null || (w.left == null || ((RBNode<T>) w.left).color == BLACK) &&
-                    (w.right == null || ((RBNode<T>) w.right).color == BLACK)) {
-                    if (w != null) {
-                        w.color = RED;
-                    }
-                    x = x.parent;
+                if (colorOf(w.left) == BLACK && colorOf(w.right) == BLACK) {
+                    w.color = RED;
+                    recolors++;
+                    x = parent;
+                    parent = x.parent;
                 } else {
-                    if (w.right == null || ((RBNode<T>) w.right).color == BLACK) {
-                        if (w.left != null) {
-                            ((RBNode<T>) w.left).color = BLACK;
-                        }
-                        if (w != null) {
-                            w.color = RED;
-                        }
+                    boolean inner = colorOf(w.right) == BLACK;
+                    if (inner) {
+                        ((RBNode<T>) w.left).color = BLACK;
+                        w.color = RED;
+                        recolors += 2;
                         rotateRight(w);
-                        w = (RBNode<T>) x.parent.right;
-                    }
-                    if (w != null) {
-                        w.color = x.parent.color;
+                        w = (RBNode<T>) parent.right;
                     }
-                    x.parent.color = BLACK;
-                    if (w != null && w.right != null) {
-                        ((RBNode<T>) w.right).color = BLACK;
-                    }
-                    rotateLeft(x.parent);
+                    w.color = parent.color;
+                    parent.color = BLACK;
+                    ((RBNode<T>) w.right).color = BLACK;
+                    recolors += 3;
+                    rotateLeft(parent);
+                    recorder.rotation(inner);
                     x = (RBNode<T>) root;
                 }
             } else {
-                RBNode<T> w = (RBNode<T>) x.parent.left;
-                if (w == null) {
-                    break;
-                }
-
+                RBNode<T> w = (RBNode<T>) parent.left;
                 if (w.color == RED) {
                     w.color = BLACK;
-                    x.parent.color = RED;
-                    rotateRight(x.parent);
-                    w = (RBNode<T>) x.parent.left;
+                    parent.color = RED;
+                    recolors += 2;
+                    rotateRight(parent);
+                    recorder.rotation(false);
+                    w = (RBNode<T>) parent.left;
                 }
-
-                if (w == null || (w.right == null || ((RBNode<T>) w.right).color == BLACK) &&
-                    (w.left == null || ((RBNode<T>) w.left).color == BLACK)) {
-                    if (w != null) {
-                        w.color = RED;
-                    }
-                    x = x.parent;
+                if (colorOf(w.right) == BLACK && colorOf(w.left) == BLACK) {
+                    w.color = RED;
+                    recolors++;
+                    x = parent;
+                    parent = x.parent;
                 } else {
-                    if (w.left == null || ((RBNode<T>) w.left).color == BLACK) {
-                        if (w.right != null) {
-                            ((RBNode<T>) w.right).color = BLACK;
-                        }
-                        if (w != null) {
-                            w.color = RED;
-                        }
+                    boolean inner = colorOf(w.left) == BLACK;
+                    if (inner) {
+                        ((RBNode<T>) w.right).color = BLACK;
+                        w.color = RED;
+                        recolors += 2;
                         rotateLeft(w);
-                        w = (RBNode<T>) x.parent.left;
-                    }
-                    if (w != null) {
-                        w.color = x.parent.color;
+                        w = (RBNode<T>) parent.left;
                     }
-                    x.parent.color = BLACK;
-                    if (w != null && w.left != null) {
-                        ((RBNode<T>) w.left).color = BLACK;
-                    }
-                    rotateRight(x.parent);
+                    w.color = parent.color;
+                    parent.color = BLACK;
+                    ((RBNode<T>) w.left).color = BLACK;
+                    recolors += 3;
+                    rotateRight(parent);
+                    recorder.rotation(inner);
                     x = (RBNode<T>) root;
                 }
             }
         }
-        if (x != null) {
+        if (x != null && x.color == RED) {
             x.color = BLACK;
+            recolors++;
+        }
+        if (recolors > 0) {
+            recorder.recolor(recolors);
         }
+        fixupLevels = levels;
+    }
+
+    private static boolean colorOf(Node<?> node) {
+        return node == null ? BLACK : ((RBNode<?>) node).color;
     }
 
     private void transplant(RBNode<T> u, RBNode<T> v) {
@@ -259,41 +402,422 @@ public class RedBlackTree<T extends Comparable<T>> extends BalancedBinaryTree<T>
         }
     }
 
-    private RBNode<T> minValueNode(RBNode<T> node) {
-        RBNode<T> current = node;
-        while (current.left != null) {
-            current = (RBNode<T>) current.left;
+    @Override
+    public boolean contains(T data) {
+        Node<T> node = fingerSearch && fingerDepth > 1 ? finger[fingerLevel(data)] : root;
+        int visited = 0;
+        while (node != null) {
+            visited++;
+            int cmp = data.compareTo(node.data);
+            if (cmp == 0) {
+                recorder.operation(Operation.CONTAINS, visited, visited, 0, 0);
+                return true;
+            }
+            node = cmp < 0 ? node.left : node.right;
         }
-        return current;
+        recorder.operation(Operation.CONTAINS, visited, visited, 0, 0);
+        return false;
     }
 
     @Override
-    public boolean contains(T data) {
-        return search(root, data) != null;
+    public int height() {
+        return height(root);
+    }
+
+    /**
+     * Builds a perfectly balanced tree from the sorted keys in linear time, without rotations or
+     * fixups: every node is black except those on the deepest level, which are red.
+     */
+    @Override
+    public void buildFromSorted(List<? extends T> sorted) {
+        Object[] keys = toStrictlyAscendingArray(sorted);
+        root = build(keys, 0, keys.length, 0, balancedHeight(keys.length) - 1, null);
+        fingerDepth = 0;
+        if (root != null) {
+            ((RBNode<T>) root).color = BLACK;
+        }
+    }
+
+    private RBNode<T> build(Object[] keys, int from, int to, int depth, int redDepth, RBNode<T> parent) {
+        if (from >= to) {
+            return null;
+        }
+        int mid = (from + to) >>> 1;
+        @SuppressWarnings("unchecked")
+        RBNode<T> node = newNode((T) keys[mid]);
+        node.parent = parent;
+        node.color = depth == redDepth ? RED : BLACK;
+        node.left = build(keys, from, mid, depth + 1, redDepth, node);
+        node.right = build(keys, mid + 1, to, depth + 1, redDepth, node);
+        update(node);
+        return node;
     }
 
-    private Node<T> search(Node<T> node, T data) {
-        if (node == null || data.compareTo(node.data) == 0) {
-            return node;
+    /**
+     * Moves every key of {@code right} into this tree in O(log n) time. All keys of {@code right} must
+     * be greater than all keys of this tree; {@code right} is left empty.
+     *
+     * @throws IllegalArgumentException if the key ranges overlap
+     */
+    public void join(RedBlackTree<T> right) {
+        if (right.root == null) {
+            return;
+        }
+        if (root != null) {
+            Node<T> max = root;
+            while (max.right != null) {
+                max = max.right;
+            }
+            Node<T> min = right.root;
+            while (min.left != null) {
+                min = min.left;
+            }
+            if (max.data.compareTo(min.data) >= 0) {
+                throw new IllegalArgumentException("Keys of the right tree must be greater than all keys");
+            }
         }
+        setRoot(join2((RBNode<T>) root, blackHeight(), (RBNode<T>) right.root, right.blackHeight()).root);
+        right.clear();
+    }
 
-        if (data.compareTo(node.data) < 0) {
-            return search(node.left, data);
+    @Override
+    void append(OrderedTree<T> right) {
+        if (right instanceof RedBlackTree) {
+            join((RedBlackTree<T>) right);
         } else {
-            return search(node.right, data);
+            super.append(right);
         }
     }
 
+    /**
+     * Splits this tree at {@code key} in O(log n) time: keys smaller than {@code key} stay in this
+     * tree, and the others are moved into the returned tree.
+     */
     @Override
-    public int height() {
-        return height(root);
+    public RedBlackTree<T> split(T key) {
+        Split<T> split = split((RBNode<T>) root, blackHeight(), key);
+        RedBlackTree<T> right = new RedBlackTree<>();
+        setRoot(split.left.root);
+        right.setRoot(split.found == null
+            ? split.right.root
+            : join(null, 0, split.found, split.right.root, split.right.blackHeight).root);
+        return right;
     }
 
-    private int height(Node<T> node) {
+    /**
+     * Adds every key of {@code other} to this tree, running on the common fork/join pool. Takes
+     * O(m log(n/m + 1)) work for trees of sizes m &lt;= n. {@code other} is left empty, as its nodes
+     * are reused.
+     */
+    public void union(RedBlackTree<T> other) {
+        union(other, ForkJoinPool.commonPool());
+    }
+
+    public void union(RedBlackTree<T> other, ForkJoinPool pool) {
+        apply(SetOperation.UNION, other, pool);
+    }
+
+    /**
+     * Keeps only the keys that are also in {@code other}. {@code other} is left empty.
+     */
+    public void intersection(RedBlackTree<T> other) {
+        intersection(other, ForkJoinPool.commonPool());
+    }
+
+    public void intersection(RedBlackTree<T> other, ForkJoinPool pool) {
+        apply(SetOperation.INTERSECTION, other, pool);
+    }
+
+    /**
+     * Removes every key of {@code other} from this tree. {@code other} is left empty.
+     */
+    public void difference(RedBlackTree<T> other) {
+        difference(other, ForkJoinPool.commonPool());
+    }
+
+    public void difference(RedBlackTree<T> other, ForkJoinPool pool) {
+        apply(SetOperation.DIFFERENCE, other, pool);
+    }
+
+    private void apply(SetOperation operation, RedBlackTree<T> other, ForkJoinPool pool) {
+        if (other == this) {
+            if (operation == SetOperation.DIFFERENCE) {
+                clear();
+            }
+            return;
+        }
+        setRoot(pool.invoke(new SetOperationTask<>(operation, (RBNode<T>) root, blackHeight(),
+            (RBNode<T>) other.root, other.blackHeight())).root);
+        other.clear();
+    }
+
+    private void setRoot(RBNode<T> node) {
+        if (node != null) {
+            node.color = BLACK;
+            node.parent = null;
+        }
+        root = node;
+        fingerDepth = 0;
+    }
+
+    /**
+     * Number of black nodes on every path from the root down to a leaf.
+     */
+    private int blackHeight() {
+        int blackHeight = 0;
+        for (Node<T> node = root; node != null; node = node.left) {
+            if (((RBNode<T>) node).color == BLACK) {
+                blackHeight++;
+            }
+        }
+        return blackHeight;
+    }
+
+    // Join-based algorithms after Blelloch, Ferizovic and Sun, "Just Join for Parallel Ordered Sets".
+    // Every subtree is passed around together with its black height. Subtree roots may be red; join
+    // blackens its operands first, and the public methods blacken the final root.
+
+    /** Below this black height both operands are processed on the current thread. */
+    private static final int PARALLEL_BLACK_HEIGHT = 8;
+
+    private enum SetOperation {
+        UNION, INTERSECTION, DIFFERENCE
+    }
+
+    private static final class Subtree<T> {
+        final RBNode<T> root;
+        final int blackHeight;
+
+        Subtree(RBNode<T> root, int blackHeight) {
+            this.root = root;
+            this.blackHeight = blackHeight;
+        }
+    }
+
+    private static final class Split<T> {
+        Subtree<T> left;
+        RBNode<T> found;
+        Subtree<T> right;
+    }
+
+    private static final class SetOperationTask<T extends Comparable<T>> extends RecursiveTask<Subtree<T>> {
+        private final SetOperation operation;
+        private final RBNode<T> a;
+        private final int aBlackHeight;
+        private final RBNode<T> b;
+        private final int bBlackHeight;
+
+        SetOperationTask(SetOperation operation, RBNode<T> a, int aBlackHeight, RBNode<T> b, int bBlackHeight) {
+            this.operation = operation;
+            this.a = a;
+            this.aBlackHeight = aBlackHeight;
+            this.b = b;
+            this.bBlackHeight = bBlackHeight;
+        }
+
+        @Override
+        protected Subtree<T> compute() {
+            return apply(operation, a, aBlackHeight, b, bBlackHeight);
+        }
+    }
+
+    private static <T extends Comparable<T>> Subtree<T> apply(SetOperation operation, RBNode<T> a,
+                                                              int aBlackHeight, RBNode<T> b, int bBlackHeight) {
+        if (a == null) {
+            return operation == SetOperation.UNION ? new Subtree<>(b, bBlackHeight) : new Subtree<>(null, 0);
+        }
+        if (b == null) {
+            return operation == SetOperation.INTERSECTION ? new Subtree<>(null, 0) : new Subtree<>(a, aBlackHeight);
+        }
+
+        RBNode<T> bLeft = (RBNode<T>) b.left;
+        RBNode<T> bRight = (RBNode<T>) b.right;
+        int childBlackHeight = childBlackHeight(b, bBlackHeight);
+        Split<T> split = split(a, aBlackHeight, b.data);
+
+        Subtree<T> left;
+        Subtree<T> right;
+        if (Math.min(aBlackHeight, bBlackHeight) >= PARALLEL_BLACK_HEIGHT) {
+            SetOperationTask<T> leftTask =
+                new SetOperationTask<>(operation, split.left.root, split.left.blackHeight, bLeft, childBlackHeight);
+            leftTask.fork();
+            right = apply(operation, split.right.root, split.right.blackHeight, bRight, childBlackHeight);
+            left = leftTask.join();
+        } else {
+            left = apply(operation, split.left.root, split.left.blackHeight, bLeft, childBlackHeight);
+            right = apply(operation, split.right.root, split.right.blackHeight, bRight, childBlackHeight);
+        }
+
+        if (operation == SetOperation.UNION) {
+            return join(left.root, left.blackHeight, b, right.root, right.blackHeight);
+        }
+        if (operation == SetOperation.INTERSECTION && split.found != null) {
+            return join(left.root, left.blackHeight, split.found, right.root, right.blackHeight);
+        }
+        return join2(left.root, left.blackHeight, right.root, right.blackHeight);
+    }
+
+    private static <T extends Comparable<T>> Split<T> split(RBNode<T> node, int blackHeight, T key) {
         if (node == null) {
-            return 0;
+            Split<T> split = new Split<>();
+            split.left = new Subtree<>(null, 0);
+            split.right = split.left;
+            return split;
+        }
+        RBNode<T> left = (RBNode<T>) node.left;
+        RBNode<T> right = (RBNode<T>) node.right;
+        int childBlackHeight = childBlackHeight(node, blackHeight);
+        int cmp = key.compareTo(node.data);
+        if (cmp == 0) {
+            Split<T> split = new Split<>();
+            split.left = new Subtree<>(left, childBlackHeight);
+            split.found = node;
+            split.right = new Subtree<>(right, childBlackHeight);
+            return split;
+        }
+        if (cmp < 0) {
+            Split<T> split = split(left, childBlackHeight, key);
+            split.right = join(split.right.root, split.right.blackHeight, node, right, childBlackHeight);
+            return split;
+        }
+        Split<T> split = split(right, childBlackHeight, key);
+        split.left = join(left, childBlackHeight, node, split.left.root, split.left.blackHeight);
+        return split;
+    }
+
+    /**
+     * Removes the largest node of a non-empty subtree: {@code left} holds the rest, {@code found} the
+     * removed node.
+     */
+    private static <T> Split<T> splitLast(RBNode<T> node, int blackHeight) {
+        RBNode<T> left = (RBNode<T>) node.left;
+        int childBlackHeight = childBlackHeight(node, blackHeight);
+        if (node.right == null) {
+            Split<T> split = new Split<>();
+            split.left = new Subtree<>(left, childBlackHeight);
+            split.found = node;
+            return split;
+        }
+        Split<T> split = splitLast((RBNode<T>) node.right, childBlackHeight);
+        split.left = join(left, childBlackHeight, node, split.left.root, split.left.blackHeight);
+        return split;
+    }
+
+    /**
+     * Concatenates two subtrees where every key of {@code left} is smaller than every key of
+     * {@code right}.
+     */
+    private static <T> Subtree<T> join2(RBNode<T> left, int leftBlackHeight, RBNode<T> right,
+                                        int rightBlackHeight) {
+        if (left == null) {
+            return new Subtree<>(right, rightBlackHeight);
+        }
+        if (right == null) {
+            return new Subtree<>(left, leftBlackHeight);
+        }
+        Split<T> split = splitLast(left, leftBlackHeight);
+        return join(split.left.root, split.left.blackHeight, split.found, right, rightBlackHeight);
+    }
+
+    /**
+     * Joins {@code left}, the single node {@code middle} and {@code right}, whose keys are in that
+     * order, into one red-black tree in O(|leftBlackHeight - rightBlackHeight|) time. The root of the
+     * result may be red.
+     */
+    private static <T> Subtree<T> join(RBNode<T> left, int leftBlackHeight, RBNode<T> middle, RBNode<T> right,
+                                       int rightBlackHeight) {
+        if (left != null && left.color == RED) {
+            left.color = BLACK;
+            leftBlackHeight++;
+        }
+        if (right != null && right.color == RED) {
+            right.color = BLACK;
+            rightBlackHeight++;
+        }
+        if (leftBlackHeight > rightBlackHeight) {
+            return new Subtree<>(joinRight(left, leftBlackHeight, middle, right, rightBlackHeight), leftBlackHeight);
+        }
+        if (rightBlackHeight > leftBlackHeight) {
+            return new Subtree<>(joinLeft(left, leftBlackHeight, middle, right, rightBlackHeight), rightBlackHeight);
+        }
+        middle.color = RED;
+        link(left, middle, right);
+        return new Subtree<>(middle, leftBlackHeight);
+    }
+
+    /**
+     * Walks down the right spine of {@code node} to the first black node with the black height of
+     * {@code right} and hangs a red {@code middle} there, then repairs a red-red pair on the way back
+     * up with a left rotation, as an insert would.
+     */
+    private static <T> RBNode<T> joinRight(RBNode<T> node, int blackHeight, RBNode<T> middle, RBNode<T> right,
+                                           int rightBlackHeight) {
+        if (blackHeight == rightBlackHeight && (node == null || node.color == BLACK)) {
+            middle.color = RED;
+            link(node, middle, right);
+            return middle;
+        }
+        RBNode<T> joined = joinRight((RBNode<T>) node.right, childBlackHeight(node, blackHeight), middle, right,
+            rightBlackHeight);
+        node.right = joined;
+        joined.parent = node;
+        if (node.color == BLACK && joined.color == RED && colorOf(joined.right) == RED) {
+            ((RBNode<T>) joined.right).color = BLACK;
+            node.right = joined.left;
+            if (joined.left != null) {
+                ((RBNode<T>) joined.left).parent = node;
+            }
+            joined.left = node;
+            node.parent = joined;
+            update(node);
+            update(joined);
+            return joined;
+        }
+        update(node);
+        return node;
+    }
+
+    private static <T> RBNode<T> joinLeft(RBNode<T> left, int leftBlackHeight, RBNode<T> middle, RBNode<T> node,
+                                          int blackHeight) {
+        if (blackHeight == leftBlackHeight && (node == null || node.color == BLACK)) {
+            middle.color = RED;
+            link(left, middle, node);
+            return middle;
+        }
+        RBNode<T> joined = joinLeft(left, leftBlackHeight, middle, (RBNode<T>) node.left,
+            childBlackHeight(node, blackHeight));
+        node.left = joined;
+        joined.parent = node;
+        if (node.color == BLACK && joined.color == RED && colorOf(joined.left) == RED) {
+            ((RBNode<T>) joined.left).color = BLACK;
+            node.left = joined.right;
+            if (joined.right != null) {
+                ((RBNode<T>) joined.right).parent = node;
+            }
+            joined.right = node;
+            node.parent = joined;
+            update(node);
+            update(joined);
+            return joined;
+        }
+        update(node);
+        return node;
+    }
+
+    private static <T> void link(RBNode<T> left, RBNode<T> node, RBNode<T> right) {
+        node.left = left;
+        node.right = right;
+        if (left != null) {
+            left.parent = node;
+        }
+        if (right != null) {
+            right.parent = node;
         }
-        return 1 + Math.max(height(node.left), height(node.right));
+        update(node);
+    }
+
+    private static int childBlackHeight(RBNode<?> node, int blackHeight) {
+        return node.color == BLACK ? blackHeight - 1 : blackHeight;
     }
 
     public void printTree() {
@@ -0,0 +1,69 @@
+package com.example;
+
+import com.example.BalancedBinaryTree.Node;
+
+import java.util.Map;
+
+/**
+ * {@link java.util.NavigableMap} on a {@link RedBlackTree} whose nodes carry the values.
+ */
+public class RedBlackTreeMap<K extends Comparable<K>, V> extends AbstractTreeMap<K, V> {
+    public RedBlackTreeMap() {
+        super(new RedBlackTree<K>() {
+            @Override
+            RBNode<K> newNode(K key) {
+                return new Entry<>(key);
+            }
+        });
+    }
+
+    private static final class Entry<K, V> extends RedBlackTree.RBNode<K> implements Map.Entry<K, V> {
+        V value;
+
+        Entry(K key) {
+            super(key);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        void swapData(Node<K> other) {
+            super.swapData(other);
+            Entry<K, V> entry = (Entry<K, V>) other;
+            V value = this.value;
+            this.value = entry.value;
+            entry.value = value;
+        }
+
+        @Override
+        public K getKey() {
+            return data;
+        }
+
+        @Override
+        public V getValue() {
+            return value;
+        }
+
+        @Override
+        public V setValue(V value) {
+            V old = this.value;
+            this.value = value;
+            return old;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return entryEquals(this, o);
+        }
+
+        @Override
+        public int hashCode() {
+            return entryHashCode(this);
+        }
+
+        @Override
+        public String toString() {
+            return data + "=" + value;
+        }
+    }
+}
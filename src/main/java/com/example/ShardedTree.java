@@ -0,0 +1,314 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Thread-safe tree that partitions the key space into ranges, each held by its own {@link AVLTree}
+ * or {@link RedBlackTree} (a shard) behind its own lock, so writers to different ranges never wait
+ * for each other. Point operations find their shard by binary search over the lower bounds of the
+ * shards in an immutable routing table, lock it, and check that it still covers the key; if a split
+ * has moved the key on in the meantime, they route again.
+ *
+ * <p>A shard splits at its median once it holds more than {@code maxShardSize} keys. It also splits
+ * when it is hot: when its last {@value #HOT_WINDOW} writes were at least twice its fair share of
+ * the writes to all shards over the same time, and it holds at least {@value #MIN_HOT_SPLIT_SIZE}
+ * keys. The upper half is cut off with {@link OrderedTree#split} and joined into a new tree from the
+ * shard factory, both in O(log n), so shards split off later are set up like the initial ones.
+ * Shards never merge again.
+ *
+ * <p>{@link #forEach}, {@link #forEachFrom}, {@link #forEachInRange}, {@link #size()},
+ * {@link #height()} and {@link #clear()} visit the shards in key order, locking one at a time, so
+ * they see each shard consistently but not the tree as a whole while it is being updated.
+ */
+public class ShardedTree<T extends Comparable<T>> extends BalancedBinaryTree<T> {
+    public static final int DEFAULT_MAX_SHARD_SIZE = 1 << 13;
+
+    /** Writes to a shard between two checks of whether it is hot. */
+    static final int HOT_WINDOW = 1 << 14;
+    static final int MIN_HOT_SPLIT_SIZE = 1 << 10;
+
+    private static final class Shard<T extends Comparable<T>> {
+        final OrderedTree<T> tree;
+        final T lower; // Inclusive; null for the first shard. Never changes.
+        T upper; // Exclusive; null for the last shard. Lowered by splits, under the shard's lock.
+        int windowWrites;
+        long windowStart; // Writes to all shards when the current window started
+
+        Shard(OrderedTree<T> tree, T lower, T upper, long windowStart) {
+            this.tree = tree;
+            this.lower = lower;
+            this.upper = upper;
+            this.windowStart = windowStart;
+        }
+
+        boolean covers(T key) {
+            return upper == null || key.compareTo(upper) < 0;
+        }
+    }
+
+    /** The shards in key order; lowerBounds[i] is shards[i].lower. Replaced, never modified. */
+    private static final class Routing<T extends Comparable<T>> {
+        final Object[] lowerBounds;
+        final Shard<T>[] shards;
+
+        Routing(Object[] lowerBounds, Shard<T>[] shards) {
+            this.lowerBounds = lowerBounds;
+            this.shards = shards;
+        }
+    }
+
+    private final Supplier<? extends OrderedTree<T>> shardFactory;
+    private final int maxShardSize;
+    private final LongAdder writes = new LongAdder();
+    private final Object splitLock = new Object();
+    private volatile Routing<T> routing;
+
+    public ShardedTree(Supplier<? extends OrderedTree<T>> shardFactory) {
+        this(shardFactory, List.of(), DEFAULT_MAX_SHARD_SIZE);
+    }
+
+    /**
+     * @param shardFactory makes the tree of each shard, the initial ones and those split off later
+     * @param splitPoints strictly ascending lower bounds of the initial shards after the first
+     * @param maxShardSize number of keys above which a shard splits
+     * @throws IllegalArgumentException if the split points are not strictly ascending or
+     *     {@code maxShardSize} is less than 2
+     */
+    public ShardedTree(Supplier<? extends OrderedTree<T>> shardFactory, List<? extends T> splitPoints, int maxShardSize) {
+        if (maxShardSize < 2) {
+            throw new IllegalArgumentException("Shards must hold at least 2 keys: " + maxShardSize);
+        }
+        this.shardFactory = shardFactory;
+        this.maxShardSize = maxShardSize;
+        Object[] points = toStrictlyAscendingArray(splitPoints);
+        Object[] lowerBounds = new Object[points.length + 1];
+        System.arraycopy(points, 0, lowerBounds, 1, points.length);
+        @SuppressWarnings("unchecked")
+        Shard<T>[] shards = (Shard<T>[]) new Shard[lowerBounds.length];
+        for (int i = 0; i < shards.length; i++) {
+            @SuppressWarnings("unchecked")
+            T lower = (T) lowerBounds[i];
+            @SuppressWarnings("unchecked")
+            T upper = i + 1 < shards.length ? (T) lowerBounds[i + 1] : null;
+            shards[i] = new Shard<>(shardFactory.get(), lower, upper, 0);
+        }
+        routing = new Routing<>(lowerBounds, shards);
+    }
+
+    /**
+     * The shard whose range held {@code key} when the routing table was last replaced.
+     */
+    private Shard<T> route(T key) {
+        Routing<T> routing = this.routing;
+        Object[] bounds = routing.lowerBounds;
+        int low = 1;
+        int high = bounds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            @SuppressWarnings("unchecked")
+            T bound = (T) bounds[mid];
+            if (key.compareTo(bound) < 0) {
+                high = mid - 1;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return routing.shards[high];
+    }
+
+    @Override
+    public void insert(T data) {
+        while (true) {
+            Shard<T> shard = route(data);
+            synchronized (shard) {
+                if (!shard.covers(data)) {
+                    continue; // Split since routing
+                }
+                shard.tree.insert(data);
+                wrote(shard);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void delete(T data) {
+        while (true) {
+            Shard<T> shard = route(data);
+            synchronized (shard) {
+                if (!shard.covers(data)) {
+                    continue;
+                }
+                shard.tree.delete(data);
+                wrote(shard);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean contains(T data) {
+        while (true) {
+            Shard<T> shard = route(data);
+            synchronized (shard) {
+                if (shard.covers(data)) {
+                    return shard.tree.contains(data);
+                }
+            }
+        }
+    }
+
+    /**
+     * Counts a write to {@code shard}, whose lock the caller holds, and splits it if it has grown
+     * too large or too hot.
+     */
+    private void wrote(Shard<T> shard) {
+        writes.increment();
+        if (shard.tree.size() > maxShardSize) {
+            split(shard);
+        } else if (++shard.windowWrites == HOT_WINDOW) {
+            long total = writes.sum();
+            int shards = routing.shards.length;
+            boolean hot = (long) HOT_WINDOW * shards >= 2 * (total - shard.windowStart);
+            if (hot && shard.tree.size() >= MIN_HOT_SPLIT_SIZE) {
+                split(shard);
+            } else {
+                shard.windowWrites = 0;
+                shard.windowStart = total;
+            }
+        }
+    }
+
+    /**
+     * Moves the upper half of {@code shard}, whose lock the caller holds, into a new shard right after
+     * it. Splits are serialized, so each one publishes a routing table with every earlier split.
+     */
+    private void split(Shard<T> shard) {
+        synchronized (splitLock) {
+            T median = shard.tree.select(shard.tree.size() / 2);
+            long total = writes.sum();
+            OrderedTree<T> tree = shardFactory.get();
+            tree.setRecorder(recorder);
+            tree.append(shard.tree.split(median));
+            Shard<T> right = new Shard<>(tree, median, shard.upper, total);
+            Routing<T> old = routing;
+            int index = Arrays.asList(old.shards).indexOf(shard);
+            Object[] lowerBounds = new Object[old.lowerBounds.length + 1];
+            System.arraycopy(old.lowerBounds, 0, lowerBounds, 0, index + 1);
+            lowerBounds[index + 1] = median;
+            System.arraycopy(old.lowerBounds, index + 1, lowerBounds, index + 2, old.lowerBounds.length - index - 1);
+            Shard<T>[] shards = Arrays.copyOf(old.shards, old.shards.length + 1);
+            shards[index + 1] = right;
+            System.arraycopy(old.shards, index + 1, shards, index + 2, old.shards.length - index - 1);
+            routing = new Routing<>(lowerBounds, shards);
+            shard.upper = median; // Still locked, so nobody has seen the old range since routing
+            shard.windowWrites = 0;
+            shard.windowStart = total;
+        }
+    }
+
+    public int shardCount() {
+        return routing.shards.length;
+    }
+
+    public int size() {
+        int[] size = new int[1];
+        walk(null, null, tree -> size[0] += tree.size());
+        return size[0];
+    }
+
+    /**
+     * Height of the tallest shard.
+     */
+    @Override
+    public int height() {
+        int[] height = new int[1];
+        walk(null, null, tree -> height[0] = Math.max(height[0], tree.height()));
+        return height[0];
+    }
+
+    @Override
+    public void forEach(Consumer<? super T> action) {
+        walk(null, null, tree -> tree.forEach(action));
+    }
+
+    /**
+     * Passes the keys from {@code from} to {@code to}, both inclusive, to {@code action} in ascending
+     * order, holding the lock of the shard they come from.
+     */
+    public void forEachInRange(T from, T to, Consumer<? super T> action) {
+        if (from.compareTo(to) > 0) {
+            return;
+        }
+        walk(from, to, tree -> {
+            for (Iterator<T> keys = tree.range(from, to); keys.hasNext(); ) {
+                action.accept(keys.next());
+            }
+        });
+    }
+
+    @Override
+    public int forEachFrom(T from, int limit, Consumer<? super T> action) {
+        int[] passed = new int[1];
+        walkWhile(from, null, tree -> (passed[0] += tree.forEachFrom(from, limit - passed[0], action)) < limit);
+        return passed[0];
+    }
+
+    /**
+     * Empties every shard but keeps the shard boundaries.
+     */
+    @Override
+    public void clear() {
+        walk(null, null, OrderedTree::clear);
+    }
+
+    @Override
+    public void setRecorder(TreeRecorder recorder) {
+        super.setRecorder(recorder);
+        walk(null, null, tree -> tree.setRecorder(recorder));
+    }
+
+    /**
+     * Passes the tree of each shard from the one holding {@code from} (or the first, if null) to the
+     * one holding {@code to} (or the last) to {@code visitor}, under the shard's lock. Each step goes
+     * on from where the shard just visited ends, so shards split in the meantime are not skipped.
+     */
+    private void walk(T from, T to, Consumer<OrderedTree<T>> visitor) {
+        walkWhile(from, to, tree -> {
+            visitor.accept(tree);
+            return true;
+        });
+    }
+
+    /**
+     * As {@link #walk}, but stops after the first shard for which {@code visitor} returns false.
+     */
+    private void walkWhile(T from, T to, Predicate<OrderedTree<T>> visitor) {
+        T next = from;
+        Shard<T> shard = next == null ? routing.shards[0] : route(next);
+        while (true) {
+            T upper;
+            synchronized (shard) {
+                if (next != null && !shard.covers(next)) {
+                    shard = route(next);
+                    continue;
+                }
+                if (!visitor.test(shard.tree)) {
+                    return;
+                }
+                upper = shard.upper;
+            }
+            if (upper == null || (to != null && upper.compareTo(to) > 0)) {
+                return;
+            }
+            next = upper;
+            shard = route(next);
+        }
+    }
+}
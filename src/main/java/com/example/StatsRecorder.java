@@ -0,0 +1,70 @@
+package com.example;
+
+/**
+ * Adds up what a tree reports, for {@link BalancedBinaryTree#getStats()}. Like the trees, it is not
+ * thread-safe.
+ */
+public class StatsRecorder implements TreeRecorder {
+    private long lookups;
+    private long inserts;
+    private long deletes;
+    private long comparisons;
+    private long nodesVisited;
+    private long retraceLevels;
+    private long updateLevels;
+    private long singleRotations;
+    private long doubleRotations;
+    private long recolors;
+
+    @Override
+    public void operation(Operation operation, int comparisons, int nodesVisited, int retraceDepth,
+                          int updateDepth) {
+        switch (operation) {
+            case CONTAINS:
+                lookups++;
+                break;
+            case INSERT:
+                inserts++;
+                break;
+            default:
+                deletes++;
+                break;
+        }
+        this.comparisons += comparisons;
+        this.nodesVisited += nodesVisited;
+        this.retraceLevels += retraceDepth;
+        this.updateLevels += updateDepth;
+    }
+
+    @Override
+    public void rotation(boolean doubleRotation) {
+        if (doubleRotation) {
+            doubleRotations++;
+        } else {
+            singleRotations++;
+        }
+    }
+
+    @Override
+    public void recolor(int nodes) {
+        recolors += nodes;
+    }
+
+    public TreeStats snapshot() {
+        return new TreeStats(lookups, inserts, deletes, comparisons, nodesVisited, retraceLevels,
+            updateLevels, singleRotations, doubleRotations, recolors);
+    }
+
+    public void reset() {
+        lookups = 0;
+        inserts = 0;
+        deletes = 0;
+        comparisons = 0;
+        nodesVisited = 0;
+        retraceLevels = 0;
+        updateLevels = 0;
+        singleRotations = 0;
+        doubleRotations = 0;
+        recolors = 0;
+    }
+}
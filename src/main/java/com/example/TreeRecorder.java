@@ -0,0 +1,54 @@
+package com.example;
+
+/**
+ * Receives the structural work a tree does: how far each operation descends, how far it walks back up
+ * and the rotations and recolors on the way. {@link AVLTree} and {@link RedBlackTree} report to the
+ * recorder set with {@link BalancedBinaryTree#setRecorder}; the other trees ignore it.
+ *
+ * <p>Every method does nothing by default, and trees start out with {@link #NONE}. While that is the
+ * only recorder a call site sees, the JIT inlines the empty call, so instrumentation costs one type
+ * check per operation when it is off.
+ */
+public interface TreeRecorder {
+    /** Records nothing. */
+    TreeRecorder NONE = new TreeRecorder() {
+    };
+
+    enum Operation {
+        CONTAINS, INSERT, DELETE
+    }
+
+    /**
+     * Called when an operation finishes, after the rotations and recolors it caused.
+     *
+     * <p>The two depths split the work on the way back up. {@code retraceDepth} is rebalancing
+     * only, and is where the trees differ. {@code updateDepth} is the bookkeeping for subtree
+     * sizes, which both trees do on every path they change. An insert or delete that changes nothing
+     * reports 0 for both, as does a lookup.
+     *
+     * @param comparisons keys compared with the one searched for
+     * @param nodesVisited nodes read on the way down, including any walk to the successor of a
+     *                     deleted node
+     * @param retraceDepth ancestors of the changed position that rebalancing examined:
+     *                     {@link AVLTree} counts the levels whose balance factor it checked, up to
+     *                     and including the one where it stopped, and {@link RedBlackTree} counts
+     *                     the levels its insert or delete fixup climbed through
+     * @param updateDepth ancestors whose augmented fields were recomputed after the change, not
+     *                    counting nodes that a rotation moved and recomputed itself: the
+     *                    {@link AVLTree} size pass over the search path, and the
+     *                    {@link RedBlackTree} size and height pass up to the root
+     */
+    default void operation(Operation operation, int comparisons, int nodesVisited, int retraceDepth,
+                           int updateDepth) {
+    }
+
+    /**
+     * A single rotation, or a double rotation (two in opposite directions, counted once).
+     */
+    default void rotation(boolean doubleRotation) {
+    }
+
+    /** {@code nodes} nodes changed color. */
+    default void recolor(int nodes) {
+    }
+}
@@ -0,0 +1,78 @@
+package com.example;
+
+/**
+ * Totals of what a {@link StatsRecorder} has recorded, as returned by
+ * {@link BalancedBinaryTree#getStats()}.
+ */
+public final class TreeStats {
+    /** Nothing recorded, e.g. because the tree has no {@link StatsRecorder}. */
+    public static final TreeStats EMPTY = new TreeStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    public final long lookups;
+    public final long inserts;
+    public final long deletes;
+    public final long comparisons;
+    public final long nodesVisited;
+    /** Levels examined to rebalance; see {@link TreeRecorder#operation}. */
+    public final long retraceLevels;
+    /** Levels whose subtree sizes were recomputed; see {@link TreeRecorder#operation}. */
+    public final long updateLevels;
+    public final long singleRotations;
+    public final long doubleRotations;
+    public final long recolors;
+
+    public TreeStats(long lookups, long inserts, long deletes, long comparisons, long nodesVisited,
+                     long retraceLevels, long updateLevels, long singleRotations, long doubleRotations,
+                     long recolors) {
+        this.lookups = lookups;
+        this.inserts = inserts;
+        this.deletes = deletes;
+        this.comparisons = comparisons;
+        this.nodesVisited = nodesVisited;
+        this.retraceLevels = retraceLevels;
+        this.updateLevels = updateLevels;
+        this.singleRotations = singleRotations;
+        this.doubleRotations = doubleRotations;
+        this.recolors = recolors;
+    }
+
+    public long operations() {
+        return lookups + inserts + deletes;
+    }
+
+    public double comparisonsPerOperation() {
+        return perOperation(comparisons);
+    }
+
+    public double nodesVisitedPerOperation() {
+        return perOperation(nodesVisited);
+    }
+
+    public double retraceLevelsPerOperation() {
+        return perOperation(retraceLevels);
+    }
+
+    public double updateLevelsPerOperation() {
+        return perOperation(updateLevels);
+    }
+
+    /** Single and double rotations per insert or delete. */
+    public double rotationsPerUpdate() {
+        long updates = inserts + deletes;
+        return updates == 0 ? 0 : (double) (singleRotations + doubleRotations) / updates;
+    }
+
+    private double perOperation(long total) {
+        long operations = operations();
+        return operations == 0 ? 0 : (double) total / operations;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d lookups, %d inserts, %d deletes; per operation %.2f comparisons, "
+                + "%.2f nodes visited, %.2f levels retraced, %.2f levels updated; %d single and %d double rotations, "
+                + "%d recolors",
+            lookups, inserts, deletes, comparisonsPerOperation(), nodesVisitedPerOperation(),
+            retraceLevelsPerOperation(), updateLevelsPerOperation(), singleRotations, doubleRotations, recolors);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.benchmark;
+
+/**
+ * Common face of the generic and the primitive trees for the benchmarks. Callers pass every key in
+ * both forms, so the generic trees are not charged for boxing and the primitive ones not for
+ * unboxing inside the timed region.
+ */
+interface BenchTree {
+    void insert(int key, Integer boxed);
+    void delete(int key, Integer boxed);
+    boolean contains(int key, Integer boxed);
+    int height();
+
+    /**
+     * Replaces the contents with {@code sorted}, which is strictly ascending.
+     */
+    void buildFromSorted(int[] sorted, Integer[] boxed);
+
+    /**
+     * The tree's own estimate of heap bytes per key, or NaN if it has none.
+     */
+    default double bytesPerEntry() {
+        return Double.NaN;
+    }
+}
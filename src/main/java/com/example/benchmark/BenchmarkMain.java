@@ -0,0 +1,103 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entry point of the benchmarks jar. Accepts the usual JMH command line, writes the raw JMH results
+ * to {@code jmh-result.json} (unless {@code -rff} says otherwise) and a flat
+ * {@code benchmark_results.csv} with ns/op and ops/s per benchmark and parameter set, which is the
+ * file to diff between builds.
+ */
+public class BenchmarkMain {
+    private static final String SUMMARY_FILE = "benchmark_results.csv";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListProfilers()
+                || commandLine.shouldListResultFormats() || commandLine.shouldListWithParams()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        OptionsBuilder builder = new OptionsBuilder();
+        builder.parent(commandLine);
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("jmh-result.json");
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        Options options = builder.build();
+
+        Collection<RunResult> results = new Runner(options).run();
+        writeSummary(results, SUMMARY_FILE);
+        System.out.println("Benchmark summary saved to " + SUMMARY_FILE);
+    }
+
+    static void writeSummary(Collection<RunResult> results, String filename) throws IOException {
+        try (FileWriter writer = new FileWriter(filename)) {
+            writer.write("Benchmark,Params,Mode,Score,Error,Unit,NsPerOp,OpsPerSecond\n");
+            for (RunResult runResult : results) {
+                Result<?> primary = runResult.getPrimaryResult();
+                StringBuilder params = new StringBuilder();
+                for (String key : runResult.getParams().getParamsKeys()) {
+                    if (params.length() > 0) {
+                        params.append(' ');
+                    }
+                    params.append(key).append('=').append(runResult.getParams().getParam(key));
+                }
+                double nsPerOp = nanosPerOp(primary.getScore(), primary.getScoreUnit());
+                writer.write(String.format("%s,%s,%s,%.3f,%.3f,%s,%.3f,%.1f\n",
+                    runResult.getParams().getBenchmark(),
+                    params,
+                    runResult.getParams().getMode().shortLabel(),
+                    primary.getScore(),
+                    primary.getScoreError(),
+                    primary.getScoreUnit(),
+                    nsPerOp,
+                    1e9 / nsPerOp));
+            }
+        }
+    }
+
+    /**
+     * Converts a JMH score in either "time/op" or "ops/time" units to nanoseconds per operation.
+     */
+    static double nanosPerOp(double score, String unit) {
+        if (unit.endsWith("/op")) {
+            return score * nanosIn(unit.substring(0, unit.length() - 3));
+        }
+        if (unit.startsWith("ops/")) {
+            return nanosIn(unit.substring(4)) / score;
+        }
+        return Double.NaN;
+    }
+
+    private static double nanosIn(String unit) {
+        switch (unit) {
+            case "ns":
+                return 1;
+            case "us":
+                return TimeUnit.MICROSECONDS.toNanos(1);
+            case "ms":
+                return TimeUnit.MILLISECONDS.toNanos(1);
+            case "s":
+                return TimeUnit.SECONDS.toNanos(1);
+            case "min":
+                return TimeUnit.MINUTES.toNanos(1);
+            default:
+                return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to fill an empty tree with every distinct key of the sorted dataset: one insert per key
+ * against the linear-time {@code buildFromSorted}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BulkLoadBenchmark {
+    @Param({"AVLTree", "RedBlackTree", "IntAVLTree", "IntRedBlackTree", "LongAVLTree", "LongRedBlackTree",
+        "ArrayAVLTree", "ArrayRedBlackTree"})
+    public String treeType;
+
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    int[] sorted;
+    Integer[] boxedSorted;
+
+    @Setup
+    public void setUp() {
+        sorted = Datasets.distinct(Datasets.load("sorted", size));
+        Arrays.sort(sorted);
+        boxedSorted = TreeBenchmark.box(sorted);
+    }
+
+    @Benchmark
+    public BenchTree insertAll() {
+        BenchTree tree = Trees.create(treeType);
+        for (int i = 0; i < sorted.length; i++) {
+            tree.insert(sorted[i], boxedSorted[i]);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public BenchTree buildFromSorted() {
+        BenchTree tree = Trees.create(treeType);
+        tree.buildFromSorted(sorted, boxedSorted);
+        return tree;
+    }
+}
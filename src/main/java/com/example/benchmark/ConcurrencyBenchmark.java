@@ -0,0 +1,104 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput of one tree shared by all benchmark threads (set the thread count with {@code -t}, or
+ * run {@link ConcurrencyScaling} for 1..N). Each operation is a lookup with probability
+ * {@code readPercent}, otherwise an insert or a delete of a random key in twice the initial key
+ * range, so the tree stays at about {@code size} keys.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ConcurrencyBenchmark {
+    private static final int OPS_PER_THREAD = 1 << 16;
+
+    @State(Scope.Benchmark)
+    public static class SharedTree {
+        @Param({"ConcurrentAVLTree", "LockedAVLTree", "LockedRedBlackTree", "ShardedAVLTree", "ShardedRedBlackTree",
+            "ConcurrentSkipListSet"})
+        public String treeType;
+
+        @Param({"100000"})
+        public int size;
+
+        @Param({"100", "90", "50", "0"})
+        public int readPercent;
+
+        BenchTree tree;
+        final AtomicInteger nextSeed = new AtomicInteger();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            tree = Trees.create(treeType);
+            Random random = new Random(42);
+            for (int i = 0; i < size; i++) {
+                int key = random.nextInt(2 * size);
+                tree.insert(key, key);
+            }
+        }
+    }
+
+    /**
+     * The operations of one thread, drawn up front so the timed loop only walks the arrays.
+     */
+    @State(Scope.Thread)
+    public static class ThreadOps {
+        int[] keys;
+        Integer[] boxedKeys;
+        byte[] ops;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(SharedTree shared) {
+            Random random = new Random(shared.nextSeed.incrementAndGet());
+            keys = random.ints(OPS_PER_THREAD, 0, 2 * shared.size).toArray();
+            boxedKeys = TreeBenchmark.box(keys);
+            ops = new byte[OPS_PER_THREAD];
+            for (int i = 0; i < OPS_PER_THREAD; i++) {
+                if (random.nextInt(100) >= shared.readPercent) {
+                    ops[i] = (byte) (random.nextBoolean() ? 1 : 2);
+                }
+            }
+        }
+
+        int next() {
+            int index = cursor;
+            cursor = (cursor + 1) & (OPS_PER_THREAD - 1);
+            return index;
+        }
+    }
+
+    @Benchmark
+    public boolean operation(SharedTree shared, ThreadOps thread) {
+        int i = thread.next();
+        switch (thread.ops[i]) {
+            case 1:
+                shared.tree.insert(thread.keys[i], thread.boxedKeys[i]);
+                return true;
+            case 2:
+                shared.tree.delete(thread.keys[i], thread.boxedKeys[i]);
+                return false;
+            default:
+                return shared.tree.contains(thread.keys[i], thread.boxedKeys[i]);
+        }
+    }
+}
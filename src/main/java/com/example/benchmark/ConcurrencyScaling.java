@@ -0,0 +1,57 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Runs {@link ConcurrencyBenchmark} with 1, 2, 4, ... threads up to the number of processors (or
+ * the {@code -Dthreads=N} maximum) and writes ops/us per tree, read mix and thread count to
+ * {@code concurrency_results.csv}. Other JMH options (e.g. {@code -f 1 -p readPercent=90}) are
+ * passed through.
+ */
+public class ConcurrencyScaling {
+    private static final String OUTPUT_FILE = "concurrency_results.csv";
+
+    public static void main(String[] args) throws Exception {
+        int maxThreads = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        try (FileWriter writer = new FileWriter(OUTPUT_FILE)) {
+            writer.write("TreeType,ReadPercent,Threads,OpsPerMicrosecond,Error\n");
+            for (int threads = 1; threads <= maxThreads; threads = nextThreadCount(threads, maxThreads)) {
+                OptionsBuilder builder = new OptionsBuilder();
+                builder.parent(commandLine);
+                builder.include(ConcurrencyBenchmark.class.getSimpleName());
+                builder.threads(threads);
+                for (RunResult result : new Runner(builder.build()).run()) {
+                    write(writer, result, threads);
+                }
+                writer.flush();
+            }
+        }
+        System.out.println("Concurrency results saved to " + OUTPUT_FILE);
+    }
+
+    /**
+     * Doubles, but always ends with the maximum itself.
+     */
+    private static int nextThreadCount(int threads, int maxThreads) {
+        return threads == maxThreads ? maxThreads + 1 : Math.min(2 * threads, maxThreads);
+    }
+
+    private static void write(FileWriter writer, RunResult result, int threads) throws IOException {
+        Result<?> primary = result.getPrimaryResult();
+        writer.write(String.format("%s,%s,%d,%.3f,%.3f\n",
+            result.getParams().getParam("treeType"),
+            result.getParams().getParam("readPercent"),
+            threads,
+            primary.getScore(),
+            primary.getScoreError()));
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.benchmark;
+
+import com.example.DatasetFile;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Loads the benchmark datasets from test_data.csv, or from a {@link DatasetFile} binary dataset. The
+ * file is looked up at the path given by the {@code benchmark.data} system property (default
+ * {@code test_data.csv}); rows that are missing are generated the same way test_data_generator.py
+ * does, so the benchmarks also run from a bare jar.
+ */
+public final class Datasets {
+    public static final String DATA_FILE = System.getProperty("benchmark.data", "test_data.csv");
+
+    private static final long SEED = 42;
+
+    private Datasets() {
+    }
+
+    /**
+     * Returns the raw values of the row with the given data type and size, in file order.
+     */
+    public static int[] load(String dataType, int size) {
+        try {
+            int[] data = DatasetFile.read(Paths.get(DATA_FILE), dataType, size);
+            if (data != null) {
+                return data;
+            }
+        } catch (IOException e) {
+            // Fall through to generated data
+        }
+        return generate(dataType, size);
+    }
+
+    /**
+     * Generates a row like test_data_generator.py: uniform values in [0, size * 10], sorted for the
+     * "sorted" data type.
+     */
+    public static int[] generate(String dataType, int size) {
+        Random random = new Random(SEED + size);
+        int[] data = new int[size];
+        for (int i = 0; i < size; i++) {
+            data[i] = random.nextInt(size * 10 + 1);
+        }
+        if (dataType.equals("sorted")) {
+            Arrays.sort(data);
+        } else if (!dataType.equals("random")) {
+            throw new IllegalArgumentException("Unknown data type: " + dataType);
+        }
+        return data;
+    }
+
+    /**
+     * Drops duplicate values, keeping the first occurrence, so that every key is actually stored.
+     */
+    public static int[] distinct(int[] data) {
+        Set<Integer> seen = new HashSet<>();
+        int[] result = new int[data.length];
+        int count = 0;
+        for (int value : data) {
+            if (seen.add(value)) {
+                result[count++] = value;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Returns a shuffled copy of the given keys.
+     */
+    public static int[] shuffled(int[] keys) {
+        int[] result = keys.clone();
+        Random random = new Random(SEED);
+        for (int i = result.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = result[i];
+            result[i] = result[j];
+            result[j] = tmp;
+        }
+        return result;
+    }
+
+    /**
+     * Returns {@code count} values from the same range as the dataset that are not among the keys.
+     */
+    public static int[] misses(int[] keys, int count) {
+        Set<Integer> present = new HashSet<>();
+        int max = 0;
+        for (int key : keys) {
+            present.add(key);
+            max = Math.max(max, key);
+        }
+        Random random = new Random(SEED);
+        int[] result = new int[count];
+        for (int i = 0; i < count; ) {
+            int candidate = random.nextInt(max + 2);
+            if (!present.contains(candidate)) {
+                result[i++] = candidate;
+            }
+        }
+        return result;
+    }
+}
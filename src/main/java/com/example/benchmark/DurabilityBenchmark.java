@@ -0,0 +1,92 @@
+package com.example.benchmark;
+
+import com.example.AVLTree;
+import com.example.DurableTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cost of making updates durable with {@link DurableTree} at different commit batch sizes: a batch
+ * size of 1 forces the log to disk on every update, larger ones spread one {@code force} over the
+ * batch. Throughput mode gives updates per second; sample mode gives the latency distribution,
+ * including p0.99, where the updates that pay for a commit show up.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class DurabilityBenchmark {
+    @State(Scope.Thread)
+    public static class TreeState {
+        @Param({"1", "16", "256"})
+        public int batchSize;
+
+        @Param({"100000"})
+        public int size;
+
+        Path directory;
+        DurableTree<Integer> tree;
+        Integer[] keys;
+        int cursor;
+        boolean deleting = true;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            keys = TreeBenchmark.box(Datasets.shuffled(Datasets.distinct(Datasets.generate("random", size))));
+            directory = Files.createTempDirectory("durability");
+            // No timer and no automatic checkpoints: commits happen exactly when a batch fills up
+            tree = new DurableTree<>(new AVLTree<>(), directory, DurableTree.INTEGER_KEYS, batchSize, 0, 0);
+            for (Integer key : keys) {
+                tree.insert(key);
+            }
+            tree.checkpoint();
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            tree.close();
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Deletes the keys one by one and then inserts them again, so the tree stays close to full.
+     */
+    @Benchmark
+    public DurableTree<Integer> update(TreeState state) {
+        Integer key = state.keys[state.cursor];
+        if (state.deleting) {
+            state.tree.delete(key);
+        } else {
+            state.tree.insert(key);
+        }
+        if (++state.cursor == state.keys.length) {
+            state.cursor = 0;
+            state.deleting = !state.deleting;
+        }
+        return state.tree;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.benchmark;
+
+import com.example.BalancedBinaryTree;
+import com.example.FilteredTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-lookup cost of {@code contains} with and without a {@link FilteredTree} in front, as the
+ * share of lookups for absent keys grows. The tree holds the even numbers below twice its size;
+ * misses probe the odd ones. The measured false positive rate is printed at the end of each
+ * trial next to the configured one.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FilterBenchmark {
+    static final int PROBES = 1024;
+    static final int BATCHES = 256;
+
+    @Param({"AVLTree", "RedBlackTree"})
+    public String treeType;
+
+    @Param({"false", "true"})
+    public boolean filtered;
+
+    /** False positive rate the filter is sized for. */
+    @Param({"0.01"})
+    public double falsePositiveRate;
+
+    @Param({"0", "10", "50", "90"})
+    public int missPercent;
+
+    @Param({"1000000"})
+    public int size;
+
+    BalancedBinaryTree<Integer> tree;
+    Integer[][] probes;
+    int batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = Trees.generic(treeType);
+        if (filtered) {
+            tree = new FilteredTree<>(tree, falsePositiveRate);
+        }
+        List<Integer> keys = new ArrayList<>(size);
+        for (int key = 0; key < size; key++) {
+            keys.add(2 * key);
+        }
+        tree.buildFromSorted(keys);
+        Random random = new Random(42);
+        probes = new Integer[BATCHES][PROBES];
+        for (Integer[] batch : probes) {
+            for (int i = 0; i < PROBES; i++) {
+                int key = 2 * random.nextInt(size);
+                batch[i] = random.nextInt(100) < missPercent ? key + 1 : key;
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (filtered) {
+            FilteredTree<Integer> filter = (FilteredTree<Integer>) tree;
+            System.out.printf("%nFalse positive rate: target %.4f, measured %.4f, filter %,d bytes%n",
+                filter.getFalsePositiveRate(), filter.getMeasuredFalsePositiveRate(), filter.filterBytes());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int contains() {
+        batch = (batch + 1) % BATCHES;
+        int hits = 0;
+        for (Integer probe : probes[batch]) {
+            hits += tree.contains(probe) ? 1 : 0;
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,64 @@
+package com.example.benchmark;
+
+import com.example.OrderedTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+
+/**
+ * Time to ingest a stream of keys into an empty tree, one insert per key, with finger search
+ * against the plain descent from the root. Sequential and nearly sorted streams are where the
+ * finger pays off; the uniform stream shows what it costs when there is no locality.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class FingerSearchBenchmark {
+    @Param({"AVLTree", "RedBlackTree"})
+    public String treeType;
+
+    @Param({"sequential", "nearly-sorted:0.05", "uniform"})
+    public String distribution;
+
+    @Param({"false", "true"})
+    public boolean finger;
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    Integer[] stream;
+
+    @Setup
+    public void setUp() {
+        IntSupplier keys = KeyDistribution.parse(distribution).generator(size, 0, 1, 42);
+        stream = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            stream[i] = keys.getAsInt();
+        }
+    }
+
+    @Benchmark
+    public OrderedTree<Integer> ingest() {
+        OrderedTree<Integer> tree = (OrderedTree<Integer>) Trees.generic(treeType);
+        tree.setFingerSearch(finger);
+        for (Integer key : stream) {
+            tree.insert(key);
+        }
+        return tree;
+    }
+}
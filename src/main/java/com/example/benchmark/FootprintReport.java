@@ -0,0 +1,142 @@
+package com.example.benchmark;
+
+import com.example.ObjectLayout;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.RuntimeMXBean;
+import java.lang.ref.Reference;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Builds each tree type from the same random keys and reports what it costs to hold them: retained
+ * heap per entry, measured and as the tree's own {@code bytesPerEntry()} estimate, and the garbage
+ * collections that ran while the tree was being filled. Results go to
+ * {@code footprint_results.csv}. The 10M-key rows need a large heap, e.g.
+ * {@code java -Xmx4g -cp target/benchmarks.jar com.example.benchmark.FootprintReport}; pass sizes as
+ * arguments to measure others.
+ */
+public class FootprintReport {
+    private static final String OUTPUT_FILE = "footprint_results.csv";
+    private static final String[] TREE_TYPES = {
+        "AVLTree", "RedBlackTree", "IntAVLTree", "IntRedBlackTree", "LongAVLTree", "LongRedBlackTree",
+        "ArrayAVLTree", "ArrayRedBlackTree", "CompactAVLTree", "CompactRedBlackTree", "BTree", "IntBTree"
+    };
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final RuntimeMXBean RUNTIME = ManagementFactory.getRuntimeMXBean();
+
+    /** {start, duration} in ms since JVM start of every collection not caused by System.gc(). */
+    private static final Queue<long[]> PAUSES = new ConcurrentLinkedQueue<>();
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int[] sizes = {1_000_000, 10_000_000};
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        listenForPauses();
+
+        try (FileWriter writer = new FileWriter(OUTPUT_FILE)) {
+            writer.write("TreeType,Size,BuildTime(ms),RetainedBytes,BytesPerEntry,EstimatedBytesPerEntry,GcPauses,GcPauseTotal(ms),GcPauseMax(ms)\n");
+            for (int size : sizes) {
+                int[] keys = Datasets.distinct(Datasets.generate("random", size));
+                Integer[] boxed = TreeBenchmark.box(keys);
+                for (String treeType : TREE_TYPES) {
+                    String row = measure(treeType, keys, boxed);
+                    System.out.println(row);
+                    writer.write(row + "\n");
+                }
+            }
+        }
+        System.out.println("Footprint report saved to " + OUTPUT_FILE);
+    }
+
+    private static String measure(String treeType, int[] keys, Integer[] boxed) throws InterruptedException {
+        long before = usedHeap();
+        long windowStart = RUNTIME.getUptime();
+        long start = System.nanoTime();
+        BenchTree tree = Trees.create(treeType);
+        for (int i = 0; i < keys.length; i++) {
+            tree.insert(keys[i], boxed[i]);
+        }
+        long buildNanos = System.nanoTime() - start;
+        long windowEnd = RUNTIME.getUptime();
+        long retained = usedHeap() - before;
+        double estimated = tree.bytesPerEntry();
+        Reference.reachabilityFence(tree);
+
+        // Notifications arrive asynchronously; give the last ones a moment before reading them.
+        Thread.sleep(200);
+        long pauseCount = 0;
+        long pauseTotalMillis = 0;
+        long pauseMaxMillis = 0;
+        for (long[] pause; (pause = PAUSES.poll()) != null; ) {
+            if (pause[0] >= windowStart && pause[0] <= windowEnd) {
+                pauseCount++;
+                pauseTotalMillis += pause[1];
+                pauseMaxMillis = Math.max(pauseMaxMillis, pause[1]);
+            }
+        }
+
+        // The boxed keys are shared by every run, so count them towards the generic trees explicitly.
+        if (treeType.equals("AVLTree") || treeType.equals("RedBlackTree") || treeType.equals("BTree")) {
+            retained += keys.length * ObjectLayout.shallowSize(Integer.class);
+        }
+        return String.format("%s,%d,%d,%d,%.1f,%.1f,%d,%d,%d",
+            treeType,
+            keys.length,
+            buildNanos / 1_000_000,
+            retained,
+            (double) retained / keys.length,
+            estimated,
+            pauseCount,
+            pauseTotalMillis,
+            pauseMaxMillis);
+    }
+
+    /**
+     * Heap in use after full collections, repeated until they stop freeing anything. The collectors
+     * account heap usage in regions, so deltas of a few MB (trees of ~100k keys) are mostly noise.
+     */
+    private static long usedHeap() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(20);
+            long now = MEMORY.getHeapMemoryUsage().getUsed();
+            if (now >= used) {
+                break;
+            }
+            used = now;
+        }
+        return used;
+    }
+
+    private static void listenForPauses() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (!(gc instanceof NotificationEmitter)) {
+                continue;
+            }
+            ((NotificationEmitter) gc).addNotificationListener((notification, handback) -> {
+                if (notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                    GarbageCollectionNotificationInfo info =
+                        GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    if (!info.getGcCause().equals("System.gc()")) {
+                        PAUSES.add(new long[] {info.getGcInfo().getStartTime(), info.getGcInfo().getDuration()});
+                    }
+                }
+            }, null, null);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.benchmark;
+
+import com.example.FrozenIntIndex;
+import com.example.IntAVLTree;
+import com.example.IntBalancedTree;
+import com.example.OrderedTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-lookup cost of {@code contains} on a tree loaded once, against a {@link FrozenIntIndex}
+ * frozen from it, one probe at a time and in batches with {@code containsAll}. Keys are spread over
+ * twice their count, so about half the probes hit. Lookups are random, so at the larger sizes
+ * nearly every level below the top few misses the cache.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Thread)
+public class FrozenIndexBenchmark {
+    static final int PROBES = 1024;
+    /** Probe batches to cycle through, so repeated probes do not keep their paths in cache. */
+    static final int BATCHES = 1024;
+
+    @Param({"AVLTree", "RedBlackTree", "IntAVLTree", "FrozenIntIndex"})
+    public String treeType;
+
+    @Param({"100000", "1000000", "10000000"})
+    public int size;
+
+    OrderedTree<Integer> tree;
+    IntBalancedTree intTree;
+    FrozenIntIndex index;
+    int[][] probes;
+    Integer[][] boxedProbes;
+    boolean[] found;
+    int batch;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        int[] keys = new Random(42).ints(size, 0, 2 * size).sorted().distinct().toArray();
+        switch (treeType) {
+            case "IntAVLTree":
+                intTree = new IntAVLTree();
+                intTree.buildFromSorted(keys);
+                break;
+            case "FrozenIntIndex":
+                IntAVLTree source = new IntAVLTree();
+                source.buildFromSorted(keys);
+                index = source.freeze();
+                break;
+            default:
+                tree = (OrderedTree<Integer>) Trees.generic(treeType);
+                tree.buildFromSorted(Arrays.asList(TreeBenchmark.box(keys)));
+        }
+        Random random = new Random(7);
+        probes = new int[BATCHES][];
+        boxedProbes = new Integer[BATCHES][];
+        for (int i = 0; i < BATCHES; i++) {
+            probes[i] = random.ints(PROBES, 0, 2 * size).toArray();
+            boxedProbes[i] = TreeBenchmark.box(probes[i]);
+        }
+        found = new boolean[PROBES];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int contains() {
+        batch = (batch + 1) & (BATCHES - 1);
+        int hits = 0;
+        if (index != null) {
+            for (int probe : probes[batch]) {
+                hits += index.contains(probe) ? 1 : 0;
+            }
+        } else if (intTree != null) {
+            for (int probe : probes[batch]) {
+                hits += intTree.contains(probe) ? 1 : 0;
+            }
+        } else {
+            for (Integer probe : boxedProbes[batch]) {
+                hits += tree.contains(probe) ? 1 : 0;
+            }
+        }
+        return hits;
+    }
+
+    /**
+     * The same probes through {@link FrozenIntIndex#containsAll(int[], boolean[])}; the trees have
+     * no batched lookup, so for them this is {@link #contains()} again.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int containsAll() {
+        if (index == null) {
+            return contains();
+        }
+        batch = (batch + 1) & (BATCHES - 1);
+        index.containsAll(probes[batch], found);
+        int hits = 0;
+        for (boolean hit : found) {
+            hits += hit ? 1 : 0;
+        }
+        return hits;
+    }
+}
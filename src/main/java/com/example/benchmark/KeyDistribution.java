@@ -0,0 +1,187 @@
+package com.example.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.function.IntSupplier;
+
+/**
+ * How a workload picks the keys it reads and writes. Each thread draws from its own generator, so
+ * generators need no synchronization; the sequential ones interleave their threads so that together
+ * they still walk the key space in order.
+ */
+public abstract class KeyDistribution {
+    private final String name;
+
+    private KeyDistribution(String name) {
+        this.name = name;
+    }
+
+    /**
+     * A generator of keys in [0, range) for thread {@code thread} of {@code threads}.
+     */
+    public abstract IntSupplier generator(int range, int thread, int threads, long seed);
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    /** Every key equally likely. */
+    public static KeyDistribution uniform() {
+        return new KeyDistribution("uniform") {
+            @Override
+            public IntSupplier generator(int range, int thread, int threads, long seed) {
+                SplittableRandom random = new SplittableRandom(seed + thread);
+                return () -> random.nextInt(range);
+            }
+        };
+    }
+
+    /**
+     * Key of rank r drawn with probability proportional to 1 / r^skew, as in YCSB. The ranks are
+     * hashed onto the key space, so the hot keys are spread over the tree rather than neighbours.
+     *
+     * @param skew between 0 (uniform) and 1, exclusive; YCSB uses 0.99
+     */
+    public static KeyDistribution zipfian(double skew) {
+        if (!(skew > 0 && skew < 1)) {
+            throw new IllegalArgumentException("Skew must be between 0 and 1: " + skew);
+        }
+        return new KeyDistribution("zipfian:" + skew) {
+            @Override
+            public IntSupplier generator(int range, int thread, int threads, long seed) {
+                ZipfianGenerator ranks = new ZipfianGenerator(range, skew, new SplittableRandom(seed + thread));
+                return () -> (int) Long.remainderUnsigned(scramble(ranks.nextRank()), range);
+            }
+        };
+    }
+
+    /** 0, 1, 2, ... wrapping around at the end of the key space. */
+    public static KeyDistribution sequential() {
+        return new KeyDistribution("sequential") {
+            @Override
+            public IntSupplier generator(int range, int thread, int threads, long seed) {
+                return new Counter(range, thread, threads)::next;
+            }
+        };
+    }
+
+    /** range - 1, range - 2, ... wrapping around at 0. */
+    public static KeyDistribution reverse() {
+        return new KeyDistribution("reverse") {
+            @Override
+            public IntSupplier generator(int range, int thread, int threads, long seed) {
+                Counter counter = new Counter(range, thread, threads);
+                return () -> range - 1 - counter.next();
+            }
+        };
+    }
+
+    /**
+     * Sequential, except that a fraction {@code disorder} of the keys is replaced by uniformly random
+     * ones.
+     */
+    public static KeyDistribution nearlySorted(double disorder) {
+        if (!(disorder >= 0 && disorder <= 1)) {
+            throw new IllegalArgumentException("Disorder must be between 0 and 1: " + disorder);
+        }
+        return new KeyDistribution("nearly-sorted:" + disorder) {
+            @Override
+            public IntSupplier generator(int range, int thread, int threads, long seed) {
+                Counter counter = new Counter(range, thread, threads);
+                SplittableRandom random = new SplittableRandom(seed + thread);
+                return () -> random.nextDouble() < disorder ? random.nextInt(range) : counter.next();
+            }
+        };
+    }
+
+    /**
+     * Parses {@code uniform}, {@code zipfian[:skew]}, {@code sequential}, {@code reverse} or
+     * {@code nearly-sorted[:disorder]}.
+     */
+    public static KeyDistribution parse(String spec) {
+        int colon = spec.indexOf(':');
+        String name = colon < 0 ? spec : spec.substring(0, colon);
+        String parameter = colon < 0 ? null : spec.substring(colon + 1);
+        switch (name) {
+            case "uniform":
+                return uniform();
+            case "zipfian":
+                return zipfian(parameter == null ? 0.99 : Double.parseDouble(parameter));
+            case "sequential":
+                return sequential();
+            case "reverse":
+                return reverse();
+            case "nearly-sorted":
+                return nearlySorted(parameter == null ? 0.05 : Double.parseDouble(parameter));
+            default:
+                throw new IllegalArgumentException("Unknown key distribution: " + spec);
+        }
+    }
+
+    /** Stafford's variant 13 of the SplitMix64 finalizer. */
+    private static long scramble(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    /**
+     * Thread {@code thread} of {@code threads} takes every {@code threads}-th key.
+     */
+    private static final class Counter {
+        private final int range;
+        private final int step;
+        private long next;
+
+        Counter(int range, int thread, int threads) {
+            this.range = range;
+            this.step = threads;
+            this.next = thread;
+        }
+
+        int next() {
+            int key = (int) (next % range);
+            next += step;
+            return key;
+        }
+    }
+
+    /**
+     * Gray et al., "Quickly Generating Billion-Record Synthetic Databases" (SIGMOD 1994): ranks in
+     * [0, n) with rank 0 the most frequent, in constant time per draw after an O(n) setup.
+     */
+    static final class ZipfianGenerator {
+        private final int n;
+        private final double skew;
+        private final double zetaN;
+        private final double alpha;
+        private final double eta;
+        private final SplittableRandom random;
+
+        ZipfianGenerator(int n, double skew, SplittableRandom random) {
+            this.n = n;
+            this.skew = skew;
+            this.random = random;
+            double zeta = 0;
+            for (int i = 1; i <= n; i++) {
+                zeta += 1 / Math.pow(i, skew);
+            }
+            zetaN = zeta;
+            double zeta2 = 1 + 1 / Math.pow(2, skew);
+            alpha = 1 / (1 - skew);
+            eta = (1 - Math.pow(2.0 / n, 1 - skew)) / (1 - zeta2 / zetaN);
+        }
+
+        long nextRank() {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            if (uz < 1) {
+                return 0;
+            }
+            if (uz < 1 + Math.pow(0.5, skew)) {
+                return 1;
+            }
+            return Math.min(n - 1, (long) (n * Math.pow(eta * u - eta + 1, alpha)));
+        }
+    }
+}
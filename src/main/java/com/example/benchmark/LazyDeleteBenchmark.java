@@ -0,0 +1,132 @@
+package com.example.benchmark;
+
+import com.example.BalancedBinaryTree;
+import com.example.LazyDeleteTree;
+import com.example.OrderedTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Eager deletion against {@link LazyDeleteTree}, compacting on the calling thread or in the
+ * background: the cost per key of deleting a burst of random keys from a full tree, compactions
+ * included, and the cost of a lookup afterwards, while the tombstones of the burst are still there.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class LazyDeleteBenchmark {
+    static final int PROBES = 1024;
+
+    @State(Scope.Thread)
+    public static class TreeState {
+        @Param({"AVLTree", "RedBlackTree"})
+        public String treeType;
+
+        @Param({"eager", "lazy", "lazy-background"})
+        public String deletion;
+
+        @Param({"1000000"})
+        public int size;
+
+        /** Keys each burst deletes, as a percentage of the tree. */
+        @Param({"10", "50"})
+        public int burstPercent;
+
+        BalancedBinaryTree<Integer> tree;
+        List<Integer> keys;
+        Integer[] burst;
+        Integer[] probes;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            switch (deletion) {
+                case "eager":
+                    tree = Trees.generic(treeType);
+                    break;
+                case "lazy":
+                    tree = new LazyDeleteTree<>(() -> (OrderedTree<Integer>) Trees.generic(treeType));
+                    break;
+                default:
+                    tree = new LazyDeleteTree<>(() -> (OrderedTree<Integer>) Trees.generic(treeType),
+                        LazyDeleteTree.DEFAULT_MAX_TOMBSTONE_FRACTION, true);
+            }
+            keys = new ArrayList<>(size);
+            for (int key = 0; key < size; key++) {
+                keys.add(key);
+            }
+            Random random = new Random(42);
+            burst = TreeBenchmark.box(random.ints(size * burstPercent / 100, 0, size).toArray());
+            probes = TreeBenchmark.box(random.ints(PROBES, 0, size).toArray());
+
+            tree.buildFromSorted(keys);
+            deleteBurst();
+        }
+
+        void deleteBurst() {
+            for (Integer key : burst) {
+                tree.delete(key);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            if (tree instanceof LazyDeleteTree) {
+                ((LazyDeleteTree<Integer>) tree).close();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Refill {
+        @Setup(Level.Invocation)
+        public void setUp(TreeState state) {
+            state.tree.buildFromSorted(state.keys);
+        }
+    }
+
+    /**
+     * One burst per invocation, on a tree refilled before it.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 3)
+    @Measurement(iterations = 10)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public BalancedBinaryTree<Integer> deleteBurst(TreeState state, Refill refill) {
+        state.deleteBurst();
+        return state.tree;
+    }
+
+    /**
+     * Lookups after one burst, deleted when the trial started.
+     */
+    @Benchmark
+    @OperationsPerInvocation(PROBES)
+    public int lookup(TreeState state) {
+        int hits = 0;
+        for (Integer probe : state.probes) {
+            hits += state.tree.contains(probe) ? 1 : 0;
+        }
+        return hits;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.benchmark;
+
+import com.example.AVLTree;
+import com.example.AVLTreeMap;
+import com.example.RedBlackTreeMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key-value operations of {@link AVLTreeMap} and {@link RedBlackTreeMap} against
+ * {@link java.util.TreeMap} and against an {@link AVLTree} of keys with the values in a
+ * {@link HashMap} next to it ({@code AVLTree+HashMap}), which pays for two lookups per update.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class MapBenchmark {
+    @State(Scope.Thread)
+    public static class MapState {
+        @Param({"AVLTreeMap", "RedBlackTreeMap", "TreeMap", "AVLTree+HashMap"})
+        public String mapType;
+
+        @Param({"100000"})
+        public int size;
+
+        Map<Integer, Integer> map;
+        Integer[] keys;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            keys = TreeBenchmark.box(Datasets.shuffled(Datasets.distinct(Datasets.generate("random", size))));
+            map = create(mapType);
+            for (Integer key : keys) {
+                map.put(key, key);
+            }
+        }
+
+        /** Start of the next {@link TreeBenchmark#BATCH} keys, all present in the map. */
+        int nextBatch() {
+            if (cursor + TreeBenchmark.BATCH > keys.length) {
+                cursor = 0;
+            }
+            cursor += TreeBenchmark.BATCH;
+            return cursor - TreeBenchmark.BATCH;
+        }
+    }
+
+    static Map<Integer, Integer> create(String mapType) {
+        switch (mapType) {
+            case "AVLTreeMap":
+                return new AVLTreeMap<>();
+            case "RedBlackTreeMap":
+                return new RedBlackTreeMap<>();
+            case "TreeMap":
+                return new TreeMap<>();
+            case "AVLTree+HashMap":
+                return new IndexedHashMap<>();
+            default:
+                throw new IllegalArgumentException("Unknown map type: " + mapType);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TreeBenchmark.BATCH)
+    public long get(MapState state) {
+        int from = state.nextBatch();
+        long sum = 0;
+        for (int i = from; i < from + TreeBenchmark.BATCH; i++) {
+            sum += state.map.get(state.keys[i]);
+        }
+        return sum;
+    }
+
+    /**
+     * Removes a batch of keys and puts them back.
+     */
+    @Benchmark
+    @OperationsPerInvocation(2 * TreeBenchmark.BATCH)
+    public Map<Integer, Integer> removePut(MapState state) {
+        int from = state.nextBatch();
+        for (int i = from; i < from + TreeBenchmark.BATCH; i++) {
+            state.map.remove(state.keys[i]);
+        }
+        for (int i = from; i < from + TreeBenchmark.BATCH; i++) {
+            state.map.put(state.keys[i], state.keys[i]);
+        }
+        return state.map;
+    }
+
+    /**
+     * Removes a batch of keys and adds them back with {@code computeIfAbsent}, then calls it again
+     * on the present keys.
+     */
+    @Benchmark
+    @OperationsPerInvocation(3 * TreeBenchmark.BATCH)
+    public Map<Integer, Integer> computeIfAbsent(MapState state) {
+        int from = state.nextBatch();
+        for (int i = from; i < from + TreeBenchmark.BATCH; i++) {
+            state.map.remove(state.keys[i]);
+        }
+        for (int i = from; i < from + TreeBenchmark.BATCH; i++) {
+            state.map.computeIfAbsent(state.keys[i], k -> k);
+        }
+        for (int i = from; i < from + TreeBenchmark.BATCH; i++) {
+            state.map.computeIfAbsent(state.keys[i], k -> k);
+        }
+        return state.map;
+    }
+
+    /**
+     * Ordered keys in an {@link AVLTree} and the values in a {@link HashMap}: every update touches
+     * both.
+     */
+    private static final class IndexedHashMap<K extends Comparable<K>, V> extends AbstractMap<K, V> {
+        private final AVLTree<K> keys = new AVLTree<>();
+        private final HashMap<K, V> values = new HashMap<>();
+
+        @Override
+        public V get(Object key) {
+            return values.get(key);
+        }
+
+        @Override
+        public V put(K key, V value) {
+            keys.insert(key);
+            return values.put(key, value);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V remove(Object key) {
+            keys.delete((K) key);
+            return values.remove(key);
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return values.entrySet();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.benchmark;
+
+import com.example.AVLTree;
+import com.example.BalancedBinaryTree;
+import com.example.RedBlackTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Merging a batch of keys into (or removing it from) a large tree: one insert or delete per key on a
+ * single thread against the join-based union and difference on a fork/join pool of
+ * {@code parallelism} threads. The set operations are charged for building the batch tree from the
+ * sorted batch, the point operations get the batch as is.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+// Every invocation starts from a freshly built tree of a million keys
+@Fork(value = 2, jvmArgsAppend = "-Xmx3g")
+public class MergeBenchmark {
+    @State(Scope.Thread)
+    public static class Batch {
+        @Param({"AVLTree", "RedBlackTree"})
+        public String treeType;
+
+        @Param({"1000000"})
+        public int size;
+
+        @Param({"1000", "100000"})
+        public int batchSize;
+
+        List<Integer> sortedKeys;
+        Integer[] batch;
+        List<Integer> sortedBatch;
+        BalancedBinaryTree<Integer> tree;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            Random random = new Random(42);
+            int range = size * 10;
+            sortedKeys = sortedDistinct(random.ints(size, 0, range).toArray());
+            // Half of the batch hits keys already in the tree, so difference has work to do too
+            int[] values = new int[batchSize];
+            for (int i = 0; i < batchSize; i++) {
+                values[i] = i % 2 == 0 ? sortedKeys.get(random.nextInt(sortedKeys.size())) : random.nextInt(range);
+            }
+            sortedBatch = sortedDistinct(values);
+            batch = TreeBenchmark.box(Datasets.shuffled(values));
+        }
+
+        @Setup(Level.Invocation)
+        public void fillTree() {
+            tree = newTree(treeType);
+            tree.buildFromSorted(sortedKeys);
+        }
+
+        private static List<Integer> sortedDistinct(int[] values) {
+            int[] distinct = Arrays.stream(values).sorted().distinct().toArray();
+            List<Integer> list = new ArrayList<>(distinct.length);
+            for (int value : distinct) {
+                list.add(value);
+            }
+            return list;
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Pool {
+        @Param({"1", "2", "4", "8"})
+        public int parallelism;
+
+        ForkJoinPool pool;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            pool = new ForkJoinPool(parallelism);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            pool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public BalancedBinaryTree<Integer> insertEach(Batch batch) {
+        for (Integer key : batch.batch) {
+            batch.tree.insert(key);
+        }
+        return batch.tree;
+    }
+
+    @Benchmark
+    public BalancedBinaryTree<Integer> union(Batch batch, Pool pool) {
+        BalancedBinaryTree<Integer> other = newTree(batch.treeType);
+        other.buildFromSorted(batch.sortedBatch);
+        if (batch.tree instanceof AVLTree) {
+            ((AVLTree<Integer>) batch.tree).union((AVLTree<Integer>) other, pool.pool);
+        } else {
+            ((RedBlackTree<Integer>) batch.tree).union((RedBlackTree<Integer>) other, pool.pool);
+        }
+        return batch.tree;
+    }
+
+    @Benchmark
+    public BalancedBinaryTree<Integer> deleteEach(Batch batch) {
+        for (Integer key : batch.batch) {
+            batch.tree.delete(key);
+        }
+        return batch.tree;
+    }
+
+    @Benchmark
+    public BalancedBinaryTree<Integer> difference(Batch batch, Pool pool) {
+        BalancedBinaryTree<Integer> other = newTree(batch.treeType);
+        other.buildFromSorted(batch.sortedBatch);
+        if (batch.tree instanceof AVLTree) {
+            ((AVLTree<Integer>) batch.tree).difference((AVLTree<Integer>) other, pool.pool);
+        } else {
+            ((RedBlackTree<Integer>) batch.tree).difference((RedBlackTree<Integer>) other, pool.pool);
+        }
+        return batch.tree;
+    }
+
+    static BalancedBinaryTree<Integer> newTree(String treeType) {
+        switch (treeType) {
+            case "AVLTree":
+                return new AVLTree<>();
+            case "RedBlackTree":
+                return new RedBlackTree<>();
+            default:
+                throw new IllegalArgumentException("Unknown tree type: " + treeType);
+        }
+    }
+}
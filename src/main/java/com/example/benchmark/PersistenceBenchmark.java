@@ -0,0 +1,100 @@
+package com.example.benchmark;
+
+import com.example.AVLTree;
+import com.example.BalancedBinaryTree;
+import com.example.PersistentAVLTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of updates and of taking a consistent copy for a reader: the mutable {@link AVLTree}, which
+ * has to be copied whole, against {@link PersistentAVLTree} with one path copy per update
+ * ({@code PersistentAVLTree}) or with the updates of an invocation in one batch
+ * ({@code PersistentAVLTreeBatch}). Run with {@code -prof gc} for bytes allocated per operation
+ * ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class PersistenceBenchmark {
+    @State(Scope.Thread)
+    public static class TreeState {
+        @Param({"AVLTree", "PersistentAVLTree", "PersistentAVLTreeBatch"})
+        public String treeType;
+
+        @Param({"100000"})
+        public int size;
+
+        List<Integer> sortedKeys;
+        Integer[] batch;
+        BalancedBinaryTree<Integer> tree;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            int[] keys = Datasets.distinct(Datasets.generate("random", size));
+            Integer[] boxed = TreeBenchmark.box(keys);
+            Arrays.sort(boxed);
+            sortedKeys = Arrays.asList(boxed);
+            batch = Arrays.copyOf(TreeBenchmark.box(Datasets.shuffled(keys)), TreeBenchmark.BATCH);
+            tree = treeType.equals("AVLTree") ? new AVLTree<>() : new PersistentAVLTree<>();
+            tree.buildFromSorted(sortedKeys);
+        }
+    }
+
+    /**
+     * Deletes a batch of keys and inserts them again, so the tree keeps its contents.
+     */
+    @Benchmark
+    @OperationsPerInvocation(2 * TreeBenchmark.BATCH)
+    public BalancedBinaryTree<Integer> update(TreeState state) {
+        if (state.treeType.equals("PersistentAVLTreeBatch")) {
+            ((PersistentAVLTree<Integer>) state.tree).batch(edit -> {
+                for (Integer key : state.batch) {
+                    edit.delete(key);
+                }
+                for (Integer key : state.batch) {
+                    edit.insert(key);
+                }
+            });
+        } else {
+            for (Integer key : state.batch) {
+                state.tree.delete(key);
+            }
+            for (Integer key : state.batch) {
+                state.tree.insert(key);
+            }
+        }
+        return state.tree;
+    }
+
+    /**
+     * A view that later updates do not affect. The mutable tree is rebuilt from its sorted keys,
+     * which is the cheapest full copy it allows.
+     */
+    @Benchmark
+    public Object snapshot(TreeState state) {
+        if (state.tree instanceof PersistentAVLTree) {
+            return ((PersistentAVLTree<Integer>) state.tree).snapshot();
+        }
+        AVLTree<Integer> copy = new AVLTree<>();
+        copy.buildFromSorted(state.sortedKeys);
+        return copy;
+    }
+}
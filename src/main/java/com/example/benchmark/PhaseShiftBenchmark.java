@@ -0,0 +1,109 @@
+package com.example.benchmark;
+
+import com.example.AdaptiveBalancedTree;
+import com.example.BalancedBinaryTree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One cycle of a workload that alternates between a search-heavy phase (95% lookups) and a
+ * write-heavy phase (all inserts and deletes), on a tree that lives for the whole trial, so
+ * {@code AdaptiveBalancedTree} carries what it has learned from one cycle to the next.
+ * {@code AdaptiveFromRedBlack} is the adaptive tree starting out as a red-black tree. At the end of
+ * each trial the adaptive trees print the representation they ended up in and how often they
+ * migrated, which shows whether they settled on the faster of the two fixed trees.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PhaseShiftBenchmark {
+    static final int SEARCH_PHASE_READ_PERCENT = 95;
+
+    @Param({"AVLTree", "RedBlackTree", "AdaptiveBalancedTree", "AdaptiveFromRedBlack"})
+    public String treeType;
+
+    @Param({"100000"})
+    public int size;
+
+    /** Operations in each phase. */
+    @Param({"65536", "1048576"})
+    public int phaseLength;
+
+    BalancedBinaryTree<Integer> tree;
+    Integer[] searchKeys;
+    boolean[] searchIsRead;
+    Integer[] writeKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        tree = treeType.equals("AdaptiveFromRedBlack")
+            ? new AdaptiveBalancedTree<>(AdaptiveBalancedTree.Representation.RED_BLACK)
+            : Trees.generic(treeType);
+        List<Integer> keys = new ArrayList<>();
+        for (int key = 0; key < 2 * size; key += 2) {
+            keys.add(key);
+        }
+        tree.buildFromSorted(keys);
+        Random random = new Random(42);
+        searchKeys = TreeBenchmark.box(random.ints(phaseLength, 0, 2 * size).toArray());
+        searchIsRead = new boolean[phaseLength];
+        for (int i = 0; i < phaseLength; i++) {
+            searchIsRead[i] = random.nextInt(100) < SEARCH_PHASE_READ_PERCENT;
+        }
+        writeKeys = TreeBenchmark.box(random.ints(phaseLength, 0, 2 * size).toArray());
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        if (tree instanceof AdaptiveBalancedTree) {
+            AdaptiveBalancedTree<Integer> adaptive = (AdaptiveBalancedTree<Integer>) tree;
+            System.out.printf("%n%s ended as %s after %d migrations%n", treeType, adaptive.getRepresentation(),
+                adaptive.getMigrations());
+        }
+    }
+
+    /**
+     * Writes alternate between inserting and deleting, so the tree stays near its initial size.
+     */
+    @Benchmark
+    public int cycle() {
+        int hits = 0;
+        for (int i = 0; i < phaseLength; i++) {
+            if (searchIsRead[i]) {
+                hits += tree.contains(searchKeys[i]) ? 1 : 0;
+            } else if ((i & 1) == 0) {
+                tree.insert(searchKeys[i]);
+            } else {
+                tree.delete(searchKeys[i]);
+            }
+        }
+        for (int i = 0; i < phaseLength; i++) {
+            if ((i & 1) == 0) {
+                tree.insert(writeKeys[i]);
+            } else {
+                tree.delete(writeKeys[i]);
+            }
+        }
+        return hits;
+    }
+}
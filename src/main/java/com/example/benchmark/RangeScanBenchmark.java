@@ -0,0 +1,107 @@
+package com.example.benchmark;
+
+import com.example.AVLTree;
+import com.example.OrderedTree;
+import com.example.RedBlackTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Summing the keys in a range of {@code span} consecutive values: a range cursor against probing
+ * every candidate value with {@code contains}, which is all the point operations allow. Keys are
+ * spread over ten times their count, so about one candidate in ten is in the tree. The stream
+ * benchmarks sum the whole tree, sequentially and in parallel.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class RangeScanBenchmark {
+    @State(Scope.Benchmark)
+    public static class TreeState {
+        @Param({"AVLTree", "RedBlackTree"})
+        public String treeType;
+
+        @Param({"1000000"})
+        public int size;
+
+        OrderedTree<Integer> tree;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            tree = treeType.equals("AVLTree") ? new AVLTree<>() : new RedBlackTree<>();
+            int[] keys = new Random(42).ints(size, 0, 10 * size).sorted().distinct().toArray();
+            tree.buildFromSorted(Arrays.asList(TreeBenchmark.box(keys)));
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Ranges {
+        @Param({"100", "10000"})
+        public int span;
+
+        int[] starts;
+        int cursor;
+
+        @Setup(Level.Trial)
+        public void setUp(TreeState state) {
+            starts = new Random(7).ints(1024, 0, 10 * state.size - span).toArray();
+        }
+
+        int nextStart() {
+            int start = starts[cursor];
+            cursor = (cursor + 1) & (starts.length - 1);
+            return start;
+        }
+    }
+
+    @Benchmark
+    public long rangeCursor(TreeState state, Ranges ranges) {
+        int from = ranges.nextStart();
+        long sum = 0;
+        for (Iterator<Integer> it = state.tree.range(from, from + ranges.span - 1); it.hasNext(); ) {
+            sum += it.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long containsProbe(TreeState state, Ranges ranges) {
+        int from = ranges.nextStart();
+        long sum = 0;
+        for (int key = from; key < from + ranges.span; key++) {
+            if (state.tree.contains(key)) {
+                sum += key;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long streamSum(TreeState state) {
+        return state.tree.stream().mapToLong(Integer::longValue).sum();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long parallelStreamSum(TreeState state) {
+        return state.tree.stream().parallel().mapToLong(Integer::longValue).sum();
+    }
+}
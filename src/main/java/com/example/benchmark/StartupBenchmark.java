@@ -0,0 +1,146 @@
+package com.example.benchmark;
+
+import com.example.DatasetFile;
+import com.example.IntAVLTree;
+import com.example.IntBTree;
+import com.example.IntBalancedTree;
+import com.example.IntRedBlackTree;
+import com.example.IntSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from an empty process state to the answer of the first {@code contains}: parsing a CSV row
+ * like test_data.csv (or its binary {@link DatasetFile} form) and inserting every value, loading a binary {@link IntSnapshot} into a tree with
+ * the linear-time build, and querying the mapped snapshot without building anything. Both files are
+ * in the page cache after the first iteration, so this measures the CPU side of startup, not disk.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(2)
+public class StartupBenchmark {
+    @State(Scope.Benchmark)
+    public static class DataFiles {
+        @Param({"100000", "1000000"})
+        public int size;
+
+        Path csv;
+        Path dataset;
+        Path snapshot;
+        int probe;
+
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            int[] data = Datasets.generate("random", size);
+            probe = data[data.length / 2];
+            csv = Files.createTempFile("startup", ".csv");
+            try (Writer writer = Files.newBufferedWriter(csv)) {
+                writer.write("data_type,size,data\nrandom," + size + ",");
+                for (int i = 0; i < data.length; i++) {
+                    writer.write(i == 0 ? "" : " ");
+                    writer.write(Integer.toString(data[i]));
+                }
+                writer.write("\n");
+            }
+            dataset = Files.createTempFile("startup", ".bin");
+            DatasetFile.writeBinary(dataset, Collections.singletonList(new DatasetFile.Row("random", size, data)));
+            IntBalancedTree tree = new IntAVLTree();
+            tree.bulkLoad(data);
+            snapshot = Files.createTempFile("startup", ".snapshot");
+            tree.save(snapshot);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(dataset);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class TreeType {
+        @Param({"IntAVLTree", "IntRedBlackTree", "IntBTree"})
+        public String treeType;
+
+        IntBalancedTree create() {
+            switch (treeType) {
+                case "IntAVLTree":
+                    return new IntAVLTree();
+                case "IntRedBlackTree":
+                    return new IntRedBlackTree();
+                case "IntBTree":
+                    return new IntBTree();
+                default:
+                    throw new IllegalArgumentException("Unknown tree type: " + treeType);
+            }
+        }
+    }
+
+    /**
+     * What App and Datasets did before {@link DatasetFile}: read the row as a string, split it and
+     * parse every value into its own string before inserting it.
+     */
+    @Benchmark
+    public boolean csvInsert(DataFiles files, TreeType type) throws IOException {
+        IntBalancedTree tree = type.create();
+        try (BufferedReader reader = Files.newBufferedReader(files.csv)) {
+            reader.readLine(); // Skip header
+            String[] parts = reader.readLine().split(",");
+            for (String value : parts[2].split(" ")) {
+                tree.insert(Integer.parseInt(value));
+            }
+        }
+        return tree.contains(files.probe);
+    }
+
+    /**
+     * Parses the same row straight out of the file buffer into the tree.
+     */
+    @Benchmark
+    public boolean csvStream(DataFiles files, TreeType type) throws IOException {
+        IntBalancedTree tree = type.create();
+        DatasetFile.stream(files.csv, (dataType, size) -> tree::insert);
+        return tree.contains(files.probe);
+    }
+
+    @Benchmark
+    public boolean binaryStream(DataFiles files, TreeType type) throws IOException {
+        IntBalancedTree tree = type.create();
+        DatasetFile.stream(files.dataset, (dataType, size) -> tree::insert);
+        return tree.contains(files.probe);
+    }
+
+    @Benchmark
+    public boolean snapshotLoad(DataFiles files, TreeType type) throws IOException {
+        IntBalancedTree tree = type.create();
+        tree.load(files.snapshot);
+        return tree.contains(files.probe);
+    }
+
+    @Benchmark
+    public boolean snapshotMapped(DataFiles files) throws IOException {
+        return IntSnapshot.open(files.snapshot).contains(files.probe);
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-operation cost of the point operations on a tree holding every distinct key of a dataset.
+ *
+ * <p>Unlike {@code App}, every benchmark works against a tree that is full when the measured
+ * operation starts: insert and delete take a batch of keys out (or put it back) outside the timed
+ * region, so the tree size stays between n - {@link #BATCH} and n throughout.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class TreeBenchmark {
+    static final int BATCH = 128;
+
+    @State(Scope.Thread)
+    public static class TreeState {
+        @Param({"AVLTree", "RedBlackTree", "IntAVLTree", "IntRedBlackTree", "LongAVLTree", "LongRedBlackTree",
+            "ArrayAVLTree", "ArrayRedBlackTree", "CompactAVLTree", "CompactRedBlackTree", "BTree", "IntBTree"})
+        public String treeType;
+
+        @Param({"random", "sorted"})
+        public String dataType;
+
+        @Param({"1000", "10000", "100000"})
+        public int size;
+
+        BenchTree tree;
+        int[] keys;
+        Integer[] boxedKeys;
+        int[] hits;
+        Integer[] boxedHits;
+        int[] misses;
+        Integer[] boxedMisses;
+        int batchStart;
+        int hitCursor;
+        int missCursor;
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            keys = Datasets.distinct(Datasets.load(dataType, size));
+            hits = Datasets.shuffled(keys);
+            misses = Datasets.misses(keys, keys.length);
+            boxedKeys = box(keys);
+            boxedHits = box(hits);
+            boxedMisses = box(misses);
+            tree = Trees.create(treeType);
+            for (int i = 0; i < keys.length; i++) {
+                tree.insert(keys[i], boxedKeys[i]);
+            }
+        }
+
+        void insertBatch() {
+            for (int i = 0; i < BATCH; i++) {
+                int index = (batchStart + i) % keys.length;
+                tree.insert(keys[index], boxedKeys[index]);
+            }
+        }
+
+        void deleteBatch() {
+            for (int i = 0; i < BATCH; i++) {
+                int index = (batchStart + i) % keys.length;
+                tree.delete(keys[index], boxedKeys[index]);
+            }
+        }
+
+        void nextBatch() {
+            batchStart += BATCH;
+            if (batchStart >= keys.length) {
+                batchStart = 0;
+            }
+        }
+
+        int nextHit() {
+            int index = hitCursor;
+            if (++hitCursor == hits.length) {
+                hitCursor = 0;
+            }
+            return index;
+        }
+
+        int nextMiss() {
+            int index = missCursor;
+            if (++missCursor == misses.length) {
+                missCursor = 0;
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Takes the next window of keys (in dataset order) out of the tree before each insert batch.
+     */
+    @State(Scope.Thread)
+    public static class InsertBatch {
+        @Setup(Level.Invocation)
+        public void removeBatch(TreeState state) {
+            state.deleteBatch();
+        }
+
+        @TearDown(Level.Invocation)
+        public void advance(TreeState state) {
+            state.nextBatch();
+        }
+    }
+
+    /**
+     * Puts the window of keys removed by a delete batch back into the tree afterwards.
+     */
+    @State(Scope.Thread)
+    public static class DeleteBatch {
+        @TearDown(Level.Invocation)
+        public void restoreBatch(TreeState state) {
+            state.insertBatch();
+            state.nextBatch();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void insert(TreeState state, InsertBatch batch) {
+        state.insertBatch();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void delete(TreeState state, DeleteBatch batch) {
+        state.deleteBatch();
+    }
+
+    @Benchmark
+    public boolean containsHit(TreeState state) {
+        int i = state.nextHit();
+        return state.tree.contains(state.hits[i], state.boxedHits[i]);
+    }
+
+    @Benchmark
+    public boolean containsMiss(TreeState state) {
+        int i = state.nextMiss();
+        return state.tree.contains(state.misses[i], state.boxedMisses[i]);
+    }
+
+    /**
+     * 50/50 read/write mix: a delete, a hit, the re-insert of the deleted key and a miss, so the tree
+     * keeps its contents from one invocation to the next.
+     */
+    @Benchmark
+    @OperationsPerInvocation(4)
+    public void mixed(TreeState state, Blackhole bh) {
+        int k = state.nextHit();
+        int h = state.hits.length - 1 - k;
+        int m = state.nextMiss();
+        state.tree.delete(state.hits[k], state.boxedHits[k]);
+        bh.consume(state.tree.contains(state.hits[h], state.boxedHits[h]));
+        state.tree.insert(state.hits[k], state.boxedHits[k]);
+        bh.consume(state.tree.contains(state.misses[m], state.boxedMisses[m]));
+    }
+
+    static Integer[] box(int[] values) {
+        Integer[] boxed = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+}
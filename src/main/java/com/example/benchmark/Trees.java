@@ -0,0 +1,268 @@
+package com.example.benchmark;
+
+import com.example.AVLTree;
+import com.example.AdaptiveBalancedTree;
+import com.example.ArrayAVLTree;
+import com.example.ArrayRedBlackTree;
+import com.example.BTree;
+import com.example.BalancedBinaryTree;
+import com.example.CompactAVLTree;
+import com.example.CompactRedBlackTree;
+import com.example.ConcurrentAVLTree;
+import com.example.IntAVLTree;
+import com.example.IntBTree;
+import com.example.IntBalancedTree;
+import com.example.IntRedBlackTree;
+import com.example.LongAVLTree;
+import com.example.LongBalancedTree;
+import com.example.LongRedBlackTree;
+import com.example.OrderedTree;
+import com.example.PersistentAVLTree;
+import com.example.RedBlackTree;
+import com.example.ShardedTree;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Maps the {@code treeType} benchmark parameter to a tree implementation.
+ */
+final class Trees {
+    private Trees() {
+    }
+
+    static BenchTree create(String treeType) {
+        switch (treeType) {
+            case "AVLTree":
+            case "RedBlackTree":
+            case "BTree":
+            case "PersistentAVLTree":
+            case "ConcurrentAVLTree":
+            case "ShardedAVLTree":
+            case "ShardedRedBlackTree":
+            case "AdaptiveBalancedTree":
+                return of(generic(treeType));
+            case "IntAVLTree":
+                return of(new IntAVLTree());
+            case "IntRedBlackTree":
+                return of(new IntRedBlackTree());
+            case "IntBTree":
+                return of(new IntBTree());
+            case "LongAVLTree":
+                return of(new LongAVLTree());
+            case "LongRedBlackTree":
+                return of(new LongRedBlackTree());
+            case "ArrayAVLTree":
+                return of(new ArrayAVLTree());
+            case "ArrayRedBlackTree":
+                return of(new ArrayRedBlackTree());
+            case "CompactAVLTree":
+                return of(new CompactAVLTree());
+            case "CompactRedBlackTree":
+                return of(new CompactRedBlackTree());
+            case "LockedAVLTree":
+                return locked(of(new AVLTree<>()));
+            case "LockedRedBlackTree":
+                return locked(of(new RedBlackTree<>()));
+            case "ConcurrentSkipListSet":
+                return of(new ConcurrentSkipListSet<>());
+            default:
+                throw new IllegalArgumentException("Unknown tree type: " + treeType);
+        }
+    }
+
+    /**
+     * The tree types that hold {@code Integer} keys, as the trees themselves.
+     */
+    static BalancedBinaryTree<Integer> generic(String treeType) {
+        switch (treeType) {
+            case "AVLTree":
+                return new AVLTree<>();
+            case "RedBlackTree":
+                return new RedBlackTree<>();
+            case "BTree":
+                return new BTree<>();
+            case "PersistentAVLTree":
+                return new PersistentAVLTree<>();
+            case "ConcurrentAVLTree":
+                return new ConcurrentAVLTree<>();
+            case "ShardedAVLTree":
+                return new ShardedTree<>(AVLTree::new);
+            case "ShardedRedBlackTree":
+                return new ShardedTree<>(RedBlackTree::new);
+            case "AdaptiveBalancedTree":
+                return new AdaptiveBalancedTree<>();
+            default:
+                throw new IllegalArgumentException("Unknown tree type: " + treeType);
+        }
+    }
+
+    static BenchTree of(BalancedBinaryTree<Integer> tree) {
+        return new BenchTree() {
+            @Override
+            public void insert(int key, Integer boxed) {
+                tree.insert(boxed);
+            }
+
+            @Override
+            public void delete(int key, Integer boxed) {
+                tree.delete(boxed);
+            }
+
+            @Override
+            public boolean contains(int key, Integer boxed) {
+                return tree.contains(boxed);
+            }
+
+            @Override
+            public int height() {
+                return tree.height();
+            }
+
+            @Override
+            public void buildFromSorted(int[] sorted, Integer[] boxed) {
+                tree.buildFromSorted(Arrays.asList(boxed));
+            }
+
+            @Override
+            public double bytesPerEntry() {
+                return tree instanceof OrderedTree ? ((OrderedTree<Integer>) tree).bytesPerEntry() : Double.NaN;
+            }
+        };
+    }
+
+    static BenchTree of(IntBalancedTree tree) {
+        return new BenchTree() {
+            @Override
+            public void insert(int key, Integer boxed) {
+                tree.insert(key);
+            }
+
+            @Override
+            public void delete(int key, Integer boxed) {
+                tree.delete(key);
+            }
+
+            @Override
+            public boolean contains(int key, Integer boxed) {
+                return tree.contains(key);
+            }
+
+            @Override
+            public int height() {
+                return tree.height();
+            }
+
+            @Override
+            public void buildFromSorted(int[] sorted, Integer[] boxed) {
+                tree.buildFromSorted(sorted);
+            }
+
+            @Override
+            public double bytesPerEntry() {
+                return tree.bytesPerEntry();
+            }
+        };
+    }
+
+    static BenchTree of(LongBalancedTree tree) {
+        return new BenchTree() {
+            @Override
+            public void insert(int key, Integer boxed) {
+                tree.insert(key);
+            }
+
+            @Override
+            public void delete(int key, Integer boxed) {
+                tree.delete(key);
+            }
+
+            @Override
+            public boolean contains(int key, Integer boxed) {
+                return tree.contains(key);
+            }
+
+            @Override
+            public int height() {
+                return tree.height();
+            }
+
+            @Override
+            public void buildFromSorted(int[] sorted, Integer[] boxed) {
+                tree.buildFromSorted(Arrays.stream(sorted).asLongStream().toArray());
+            }
+
+            @Override
+            public double bytesPerEntry() {
+                return tree.bytesPerEntry();
+            }
+        };
+    }
+
+    /**
+     * One lock around the whole tree, which is how the single-threaded trees are shared today.
+     */
+    static BenchTree locked(BenchTree tree) {
+        return new BenchTree() {
+            @Override
+            public synchronized void insert(int key, Integer boxed) {
+                tree.insert(key, boxed);
+            }
+
+            @Override
+            public synchronized void delete(int key, Integer boxed) {
+                tree.delete(key, boxed);
+            }
+
+            @Override
+            public synchronized boolean contains(int key, Integer boxed) {
+                return tree.contains(key, boxed);
+            }
+
+            @Override
+            public synchronized int height() {
+                return tree.height();
+            }
+
+            @Override
+            public synchronized void buildFromSorted(int[] sorted, Integer[] boxed) {
+                tree.buildFromSorted(sorted, boxed);
+            }
+
+            @Override
+            public synchronized double bytesPerEntry() {
+                return tree.bytesPerEntry();
+            }
+        };
+    }
+
+    static BenchTree of(ConcurrentSkipListSet<Integer> set) {
+        return new BenchTree() {
+            @Override
+            public void insert(int key, Integer boxed) {
+                set.add(boxed);
+            }
+
+            @Override
+            public void delete(int key, Integer boxed) {
+                set.remove(boxed);
+            }
+
+            @Override
+            public boolean contains(int key, Integer boxed) {
+                return set.contains(boxed);
+            }
+
+            @Override
+            public int height() {
+                return -1; // Not a tree
+            }
+
+            @Override
+            public void buildFromSorted(int[] sorted, Integer[] boxed) {
+                set.clear();
+                set.addAll(Arrays.asList(boxed));
+            }
+        };
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.benchmark;
+
+/**
+ * A YCSB-style workload: the fraction of operations that are lookups, inserts, deletes and range
+ * scans, and the distribution their keys come from. Keys range over twice the number of records
+ * loaded up front, so about half the lookups hit and the writes keep the tree near its initial size.
+ */
+public final class Workload {
+    /** Keys a scan visits. */
+    public static final int DEFAULT_SCAN_LENGTH = 100;
+
+    final String name;
+    final double readFraction;
+    final double insertFraction;
+    final double deleteFraction;
+    final double scanFraction;
+    final int scanLength;
+    final int records;
+    final KeyDistribution keys;
+
+    /**
+     * @throws IllegalArgumentException if a fraction is negative or they do not add up to 1
+     */
+    public Workload(String name, double readFraction, double insertFraction, double deleteFraction,
+                    double scanFraction, int scanLength, int records, KeyDistribution keys) {
+        if (readFraction < 0 || insertFraction < 0 || deleteFraction < 0 || scanFraction < 0
+                || Math.abs(readFraction + insertFraction + deleteFraction + scanFraction - 1) > 1e-9) {
+            throw new IllegalArgumentException("Operation fractions must be non-negative and add up to 1");
+        }
+        if (records < 1 || scanLength < 1) {
+            throw new IllegalArgumentException("Records and scan length must be positive");
+        }
+        this.name = name;
+        this.readFraction = readFraction;
+        this.insertFraction = insertFraction;
+        this.deleteFraction = deleteFraction;
+        this.scanFraction = scanFraction;
+        this.scanLength = scanLength;
+        this.records = records;
+        this.keys = keys;
+    }
+
+    /** 95% lookups, 5% writes (YCSB workload B). */
+    public static Workload readMostly(int records, KeyDistribution keys) {
+        return new Workload("read-mostly", 0.95, 0.025, 0.025, 0, DEFAULT_SCAN_LENGTH, records, keys);
+    }
+
+    /** 50% lookups, 50% writes (YCSB workload A). */
+    public static Workload balanced(int records, KeyDistribution keys) {
+        return new Workload("balanced", 0.5, 0.25, 0.25, 0, DEFAULT_SCAN_LENGTH, records, keys);
+    }
+
+    /** 95% range scans, 5% inserts (YCSB workload E). */
+    public static Workload scanHeavy(int records, KeyDistribution keys) {
+        return new Workload("scan-heavy", 0, 0.05, 0, 0.95, DEFAULT_SCAN_LENGTH, records, keys);
+    }
+
+    /**
+     * Parses {@code read-mostly}, {@code balanced}, {@code scan-heavy}, or percentages of
+     * {@code reads/writes} or {@code reads/inserts/deletes/scans}, e.g. {@code 80/20} or
+     * {@code 70/10/10/10}. Writes are split evenly between inserts and deletes.
+     */
+    public static Workload parse(String spec, int records, KeyDistribution keys) {
+        switch (spec) {
+            case "read-mostly":
+                return readMostly(records, keys);
+            case "balanced":
+                return balanced(records, keys);
+            case "scan-heavy":
+                return scanHeavy(records, keys);
+            default:
+                String[] parts = spec.split("/");
+                double[] fractions = new double[parts.length];
+                for (int i = 0; i < parts.length; i++) {
+                    fractions[i] = Double.parseDouble(parts[i]) / 100;
+                }
+                if (parts.length == 2) {
+                    return new Workload(spec, fractions[0], fractions[1] / 2, fractions[1] / 2, 0,
+                        DEFAULT_SCAN_LENGTH, records, keys);
+                }
+                if (parts.length == 4) {
+                    return new Workload(spec, fractions[0], fractions[1], fractions[2], fractions[3],
+                        DEFAULT_SCAN_LENGTH, records, keys);
+                }
+                throw new IllegalArgumentException("Unknown workload: " + spec);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name + " (" + keys + ")";
+    }
+}
@@ -0,0 +1,237 @@
+package com.example.benchmark;
+
+import com.example.BalancedBinaryTree;
+import com.example.ConcurrentAVLTree;
+import com.example.ShardedTree;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Drives a {@link BalancedBinaryTree} with a {@link Workload} from several threads for a fixed time
+ * and samples the throughput once per interval, so warm-up, GC pauses and rebalancing storms show up
+ * as dips rather than vanishing into one average.
+ *
+ * <p>Run it from the benchmarks jar; the arguments are the tree types to compare (see
+ * {@link Trees}), and system properties select the rest:
+ * <pre>
+ * java -Dworkload=read-mostly -Dkeys=zipfian:0.99 -Dthreads=4 -Dseconds=10 \
+ *     -cp target/benchmarks.jar com.example.benchmark.WorkloadRunner AVLTree ConcurrentAVLTree
+ * </pre>
+ * Trees other than {@link ConcurrentAVLTree} and {@link ShardedTree}, which lock internally, are
+ * shared behind one lock. Results go to {@code workload_results.csv}, one row per tree and interval.
+ */
+public class WorkloadRunner {
+    private static final String OUTPUT_FILE = "workload_results.csv";
+    private static final String[] TREE_TYPES = {"AVLTree", "RedBlackTree", "BTree", "ConcurrentAVLTree", "ShardedAVLTree"};
+    private static final long SEED = 42;
+
+    private final BalancedBinaryTree<Integer> tree;
+    private final Workload workload;
+    private final boolean locked;
+
+    /**
+     * @param locked whether to run every operation while holding the tree's monitor, for trees that
+     *               are not thread-safe
+     */
+    public WorkloadRunner(BalancedBinaryTree<Integer> tree, Workload workload, boolean locked) {
+        this.tree = tree;
+        this.workload = workload;
+        this.locked = locked;
+    }
+
+    /**
+     * Throughput of one run.
+     */
+    public static final class Result {
+        /** Operations completed by all threads. */
+        public final long operations;
+        /** Seconds from the start to the end of each interval. */
+        public final double[] times;
+        /** Operations per second in each interval. */
+        public final double[] throughput;
+
+        Result(long operations, double[] times, double[] throughput) {
+            this.operations = operations;
+            this.times = times;
+            this.throughput = throughput;
+        }
+
+        public double averageThroughput() {
+            return times.length == 0 ? 0 : operations / times[times.length - 1];
+        }
+    }
+
+    /**
+     * Replaces the contents of the tree with {@code records} distinct keys drawn uniformly from the
+     * key space.
+     */
+    public void load() {
+        int range = keySpace();
+        BitSet chosen = new BitSet(range);
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int count = 0; count < workload.records; ) {
+            int key = random.nextInt(range);
+            if (!chosen.get(key)) {
+                chosen.set(key);
+                count++;
+            }
+        }
+        List<Integer> sorted = new ArrayList<>(workload.records);
+        for (int key = chosen.nextSetBit(0); key >= 0; key = chosen.nextSetBit(key + 1)) {
+            sorted.add(key);
+        }
+        tree.buildFromSorted(sorted);
+    }
+
+    /**
+     * Runs the workload on {@code threads} threads for {@code durationMillis}, sampling every
+     * {@code intervalMillis}.
+     *
+     * @throws IllegalStateException if an operation fails on one of the threads
+     */
+    public Result run(int threads, long durationMillis, long intervalMillis) throws InterruptedException {
+        LongAdder completed = new LongAdder();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        Thread[] workers = new Thread[threads];
+        Worker[] tasks = new Worker[threads];
+        for (int i = 0; i < threads; i++) {
+            tasks[i] = new Worker(workload.keys.generator(keySpace(), i, threads, SEED), new SplittableRandom(SEED + i),
+                completed, failure);
+            workers[i] = new Thread(tasks[i], "workload-" + i);
+        }
+
+        int intervals = (int) Math.max(1, durationMillis / intervalMillis);
+        double[] times = new double[intervals];
+        double[] throughput = new double[intervals];
+        long start = System.nanoTime();
+        for (Thread worker : workers) {
+            worker.start();
+        }
+        long previousOperations = 0;
+        long previousTime = start;
+        try {
+            for (int i = 0; i < intervals && failure.get() == null; i++) {
+                long deadline = start + TimeUnit.MILLISECONDS.toNanos((i + 1) * intervalMillis);
+                for (long wait = deadline - System.nanoTime(); wait > 0; wait = deadline - System.nanoTime()) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                long now = System.nanoTime();
+                long operations = completed.sum();
+                times[i] = (now - start) / 1e9;
+                throughput[i] = (operations - previousOperations) * 1e9 / (now - previousTime);
+                previousOperations = operations;
+                previousTime = now;
+            }
+        } finally {
+            for (Worker task : tasks) {
+                task.stop = true;
+            }
+            for (Thread worker : workers) {
+                worker.join();
+            }
+        }
+        if (failure.get() != null) {
+            throw new IllegalStateException("Workload failed", failure.get());
+        }
+        return new Result(previousOperations, times, throughput);
+    }
+
+    private int keySpace() {
+        return (int) Math.min(Integer.MAX_VALUE, 2L * workload.records);
+    }
+
+    private final class Worker implements Runnable {
+        private final IntSupplier keys;
+        private final SplittableRandom random;
+        private final LongAdder completed;
+        private final AtomicReference<Throwable> failure;
+        volatile boolean stop;
+        long visited; // Keeps scans from being optimized away
+
+        Worker(IntSupplier keys, SplittableRandom random, LongAdder completed, AtomicReference<Throwable> failure) {
+            this.keys = keys;
+            this.random = random;
+            this.completed = completed;
+            this.failure = failure;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!stop && failure.get() == null) {
+                    double operation = random.nextDouble();
+                    Integer key = keys.getAsInt();
+                    if (locked) {
+                        synchronized (tree) {
+                            execute(operation, key);
+                        }
+                    } else {
+                        execute(operation, key);
+                    }
+                    completed.increment();
+                }
+            } catch (Throwable t) {
+                failure.compareAndSet(null, t);
+            }
+        }
+
+        private void execute(double operation, Integer key) {
+            if (operation < workload.readFraction) {
+                tree.contains(key);
+            } else if ((operation -= workload.readFraction) < workload.insertFraction) {
+                tree.insert(key);
+            } else if ((operation -= workload.insertFraction) < workload.deleteFraction) {
+                tree.delete(key);
+            } else {
+                visited += scan(key);
+            }
+        }
+
+        /**
+         * Visits the first {@code scanLength} keys from {@code from} on, or as many as there are, which
+         * every tree type finds with a seek and an in-order walk.
+         */
+        private int scan(int from) {
+            return tree.forEachFrom(from, workload.scanLength, key -> {});
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String[] treeTypes = args.length > 0 ? args : TREE_TYPES;
+        int records = Integer.getInteger("records", 100_000);
+        KeyDistribution keys = KeyDistribution.parse(System.getProperty("keys", "zipfian:0.99"));
+        Workload workload = Workload.parse(System.getProperty("workload", "read-mostly"), records, keys);
+        int threads = Integer.getInteger("threads", Runtime.getRuntime().availableProcessors());
+        long durationMillis = Integer.getInteger("seconds", 10) * 1000L;
+        long intervalMillis = Integer.getInteger("interval", 1000);
+
+        try (FileWriter writer = new FileWriter(OUTPUT_FILE)) {
+            writer.write("TreeType,Workload,Keys,Threads,Time(s),OpsPerSecond\n");
+            for (String treeType : treeTypes) {
+                BalancedBinaryTree<Integer> tree = Trees.generic(treeType);
+                boolean threadSafe = tree instanceof ConcurrentAVLTree || tree instanceof ShardedTree;
+                WorkloadRunner runner = new WorkloadRunner(tree, workload, !threadSafe);
+                runner.load();
+                System.out.println(treeType + ", " + workload + ", " + threads + " threads:");
+                Result result = runner.run(threads, durationMillis, intervalMillis);
+                for (int i = 0; i < result.times.length; i++) {
+                    System.out.printf("  %6.1f s  %,12.0f ops/s%n", result.times[i], result.throughput[i]);
+                    writer.write(String.format("%s,%s,%s,%d,%.3f,%.0f\n",
+                        treeType, workload.name, keys, threads, result.times[i], result.throughput[i]));
+                }
+                System.out.printf("  average  %,12.0f ops/s%n", result.averageThroughput());
+                writer.flush();
+            }
+        }
+        System.out.println("Workload results saved to " + OUTPUT_FILE);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for AVLTree.
+ */
+public class AVLTreeTest
+    extends TestCase
+{
+    public AVLTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( AVLTreeTest.class );
+    }
+
+    public void testRandomOperationsMatchTreeSet()
+    {
+        Random random = new Random( 42 );
+        AVLTree<Integer> tree = new AVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for ( int i = 0; i < 50000; i++ )
+        {
+            int key = random.nextInt( 2000 );
+            if ( random.nextBoolean() )
+            {
+                tree.insert( key );
+                expected.add( key );
+            }
+            else
+            {
+                tree.delete( key );
+                expected.remove( key );
+            }
+        }
+        for ( int key = 0; key < 2000; key++ )
+        {
+            assertEquals( "key " + key, expected.contains( key ), tree.contains( key ) );
+        }
+        assertHeightWithinAvlBound( tree.height(), expected.size() );
+    }
+
+    public void testSortedInsertStaysBalanced()
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            tree.insert( i );
+        }
+        assertEquals( 17, tree.height() );
+        for ( int i = 0; i < 100000; i += 2 )
+        {
+            tree.delete( i );
+        }
+        assertHeightWithinAvlBound( tree.height(), 50000 );
+        assertTrue( tree.contains( 99999 ) );
+        assertFalse( tree.contains( 99998 ) );
+    }
+
+    public void testDeleteUntilEmpty()
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            tree.insert( i );
+        }
+        for ( int i = 99; i >= 0; i-- )
+        {
+            tree.delete( i );
+        }
+        assertEquals( 0, tree.height() );
+        assertFalse( tree.contains( 0 ) );
+    }
+
+    private static void assertHeightWithinAvlBound( int height, int size )
+    {
+        double bound = 1.4405 * Math.log( size + 2 ) / Math.log( 2 ) - 0.3277;
+        assertTrue( "height " + height + " for " + size + " keys", height <= bound );
+    }
+}
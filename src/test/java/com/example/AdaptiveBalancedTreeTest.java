@@ -0,0 +1,175 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.function.LongSupplier;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for AdaptiveBalancedTree, timed with a clock that charges each operation what the test
+ * says it costs in the current representation.
+ */
+public class AdaptiveBalancedTreeTest
+    extends TestCase
+{
+    private static final int SMALL = 20000;
+    /** Large enough that one window of the cheaper writes saves less than migrating costs. */
+    private static final int LARGE = 60000;
+
+    /** Nanoseconds per read and per write: AVL wins reads, red-black wins writes. */
+    private static final long[][] SPLIT_COSTS = {{100, 300}, {150, 150}};
+    /** Red-black is 5% dearer at everything, which is within the hysteresis. */
+    private static final long[][] CLOSE_COSTS = {{100, 100}, {105, 105}};
+
+    private final Random random = new Random( 3 );
+    private final TreeSet<Integer> expected = new TreeSet<>();
+    private final FakeClock clock = new FakeClock();
+
+    /** Advances by {@code step} on every call, so a timed operation takes exactly {@code step}. */
+    private static final class FakeClock implements LongSupplier
+    {
+        long now;
+        long step;
+
+        @Override
+        public long getAsLong()
+        {
+            return now += step;
+        }
+    }
+
+    public AdaptiveBalancedTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( AdaptiveBalancedTreeTest.class );
+    }
+
+    private AdaptiveBalancedTree<Integer> loaded( AdaptiveBalancedTree.Representation initial, int range )
+    {
+        AdaptiveBalancedTree<Integer> tree = new AdaptiveBalancedTree<>( initial, clock );
+        List<Integer> keys = new ArrayList<>();
+        for ( int key = 0; key < range; key += 2 )
+        {
+            keys.add( key );
+            expected.add( key );
+        }
+        tree.buildFromSorted( keys );
+        return tree;
+    }
+
+    /**
+     * Runs {@code windows} windows of operations on keys below {@code range}, of which
+     * {@code readPercent} are lookups, each costing what {@code costs} says for the current
+     * representation, and checks every one against a TreeSet.
+     */
+    private void run( AdaptiveBalancedTree<Integer> tree, long[][] costs, int range, int windows, int readPercent )
+    {
+        for ( int i = 0; i < windows * AdaptiveBalancedTree.WINDOW; i++ )
+        {
+            int key = random.nextInt( range );
+            int dice = random.nextInt( 100 );
+            long[] cost = costs[tree.getRepresentation().ordinal()];
+            if ( dice < readPercent )
+            {
+                clock.step = cost[0];
+                assertEquals( expected.contains( key ), tree.contains( key ) );
+            }
+            else if ( dice % 2 == 0 )
+            {
+                clock.step = cost[1];
+                tree.insert( key );
+                expected.add( key );
+            }
+            else
+            {
+                clock.step = cost[1];
+                tree.delete( key );
+                expected.remove( key );
+            }
+        }
+    }
+
+    private void assertContents( AdaptiveBalancedTree<Integer> tree )
+    {
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach( keys::add );
+        assertEquals( new ArrayList<>( expected ), keys );
+        assertEquals( expected.size(), tree.size() );
+    }
+
+    public void testEachRepresentationWinsItsPhase()
+    {
+        AdaptiveBalancedTree<Integer> tree = loaded( AdaptiveBalancedTree.Representation.AVL, SMALL );
+        StatsRecorder stats = new StatsRecorder();
+        tree.setRecorder( stats );
+
+        // Red-black has never been measured, so a long write phase tries it, and it stays
+        run( tree, SPLIT_COSTS, SMALL, 10, 0 );
+        assertEquals( AdaptiveBalancedTree.Representation.RED_BLACK, tree.getRepresentation() );
+        assertEquals( 1, tree.getMigrations() );
+        assertContents( tree );
+
+        run( tree, SPLIT_COSTS, SMALL, 10, 95 );
+        assertEquals( AdaptiveBalancedTree.Representation.AVL, tree.getRepresentation() );
+        assertEquals( 2, tree.getMigrations() );
+        assertContents( tree );
+
+        // Both have been measured now: one migration per change of phase
+        for ( int phase = 0; phase < 2; phase++ )
+        {
+            run( tree, SPLIT_COSTS, SMALL, 10, 0 );
+            assertEquals( AdaptiveBalancedTree.Representation.RED_BLACK, tree.getRepresentation() );
+            run( tree, SPLIT_COSTS, SMALL, 10, 95 );
+            assertEquals( AdaptiveBalancedTree.Representation.AVL, tree.getRepresentation() );
+        }
+        assertEquals( 6, tree.getMigrations() );
+        assertContents( tree );
+        assertEquals( 60L * AdaptiveBalancedTree.WINDOW, stats.snapshot().operations() );
+        assertSame( stats, tree.getRecorder() );
+    }
+
+    public void testShortPhaseDoesNotPayForAMigration()
+    {
+        AdaptiveBalancedTree<Integer> tree = loaded( AdaptiveBalancedTree.Representation.RED_BLACK, LARGE );
+        run( tree, SPLIT_COSTS, LARGE, 15, 95 );
+        run( tree, SPLIT_COSTS, LARGE, 15, 0 );
+        assertEquals( AdaptiveBalancedTree.Representation.RED_BLACK, tree.getRepresentation() );
+        assertEquals( 2, tree.getMigrations() );
+        run( tree, SPLIT_COSTS, LARGE, 15, 95 );
+        assertEquals( AdaptiveBalancedTree.Representation.AVL, tree.getRepresentation() );
+        assertEquals( 3, tree.getMigrations() );
+
+        // A window of writes saves less than migrating 30000 keys costs, and the reads start over
+        for ( int phase = 0; phase < 5; phase++ )
+        {
+            run( tree, SPLIT_COSTS, LARGE, 1, 0 );
+            run( tree, SPLIT_COSTS, LARGE, 2, 95 );
+        }
+        assertEquals( AdaptiveBalancedTree.Representation.AVL, tree.getRepresentation() );
+        assertEquals( 3, tree.getMigrations() );
+        assertContents( tree );
+    }
+
+    public void testCloseCostsDoNotTradePlaces()
+    {
+        AdaptiveBalancedTree<Integer> tree = loaded( AdaptiveBalancedTree.Representation.AVL, SMALL );
+        run( tree, CLOSE_COSTS, SMALL, 10, 50 );
+        assertEquals( AdaptiveBalancedTree.Representation.RED_BLACK, tree.getRepresentation() );
+        assertEquals( 1, tree.getMigrations() );
+
+        // AVL is measured to be cheaper now, but by less than the hysteresis
+        run( tree, CLOSE_COSTS, SMALL, 30, 50 );
+        assertEquals( AdaptiveBalancedTree.Representation.RED_BLACK, tree.getRepresentation() );
+        assertEquals( 1, tree.getMigrations() );
+        assertContents( tree );
+    }
+}
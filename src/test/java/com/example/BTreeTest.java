@@ -0,0 +1,154 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for BTree and IntBTree.
+ */
+public class BTreeTest
+    extends TestCase
+{
+    private static final int RANGE = 5000;
+
+    private final Random random = new Random( 42 );
+
+    public BTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( BTreeTest.class );
+    }
+
+    public void testRandomOperations()
+    {
+        for ( int fanout : new int[] { 4, 5, 16, BTree.DEFAULT_FANOUT } )
+        {
+            BTree<Integer> tree = new BTree<>( fanout );
+            IntBTree intTree = new IntBTree( fanout );
+            TreeSet<Integer> expected = new TreeSet<>();
+            for ( int i = 0; i < 30000; i++ )
+            {
+                int key = random.nextInt( RANGE );
+                if ( random.nextInt( 3 ) > 0 )
+                {
+                    tree.insert( key );
+                    intTree.insert( key );
+                    expected.add( key );
+                }
+                else
+                {
+                    tree.delete( key );
+                    intTree.delete( key );
+                    expected.remove( key );
+                }
+            }
+            for ( int key = -1; key <= RANGE; key++ )
+            {
+                assertEquals( expected.contains( key ), tree.contains( key ) );
+                assertEquals( expected.contains( key ), intTree.contains( key ) );
+            }
+            for ( int from = -1; from <= RANGE; from += 97 )
+            {
+                int limit = random.nextInt( 200 );
+                List<Integer> passed = new ArrayList<>();
+                assertEquals( Math.min( limit, expected.tailSet( from ).size() ), tree.forEachFrom( from, limit, passed::add ) );
+                assertEquals( new ArrayList<>( expected.tailSet( from ) ).subList( 0, passed.size() ), passed );
+            }
+            assertEquals( tree.height(), intTree.height() );
+            assertTrue( tree.height() <= maxHeight( expected.size(), fanout / 2 ) );
+
+            for ( int key : expected )
+            {
+                tree.delete( key );
+                intTree.delete( key );
+            }
+            assertEquals( 0, tree.height() );
+            assertEquals( 0, intTree.height() );
+            assertFalse( tree.contains( expected.first() ) );
+        }
+    }
+
+    public void testBuildFromSorted()
+    {
+        for ( int n : new int[] { 0, 1, 31, 32, 1000, 1023, 1024, 100000 } )
+        {
+            List<Integer> sorted = new ArrayList<>();
+            int[] keys = new int[n];
+            for ( int i = 0; i < n; i++ )
+            {
+                sorted.add( i * 2 );
+                keys[i] = i * 2;
+            }
+            BTree<Integer> tree = new BTree<>();
+            tree.insert( -1 );
+            tree.buildFromSorted( sorted );
+            IntBTree intTree = new IntBTree();
+            intTree.buildFromSorted( keys );
+
+            assertFalse( tree.contains( -1 ) );
+            assertEquals( minHeight( n, BTree.DEFAULT_FANOUT ), tree.height() );
+            assertEquals( tree.height(), intTree.height() );
+            for ( int i = -1; i <= 2 * n; i++ )
+            {
+                assertEquals( i >= 0 && i < 2 * n && i % 2 == 0, tree.contains( i ) );
+                assertEquals( i >= 0 && i < 2 * n && i % 2 == 0, intTree.contains( i ) );
+            }
+            for ( int i = 0; i < n; i += 2 )
+            {
+                tree.delete( i * 2 );
+                intTree.delete( i * 2 );
+                tree.insert( i * 2 + 1 );
+                intTree.insert( i * 2 + 1 );
+            }
+            for ( int i = 0; i < n; i++ )
+            {
+                assertEquals( i % 2 == 1, tree.contains( i * 2 ) );
+                assertEquals( i % 2 == 0, intTree.contains( i * 2 + 1 ) );
+            }
+        }
+    }
+
+    public void testRejectsSmallFanout()
+    {
+        try
+        {
+            new BTree<Integer>( 3 );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+    }
+
+    /** Fewest levels that hold {@code n} keys. */
+    private static int minHeight( int n, int fanout )
+    {
+        int height = 0;
+        for ( long capacity = 0; capacity < n; capacity = ( capacity + 1 ) * fanout - 1 )
+        {
+            height++;
+        }
+        return height;
+    }
+
+    /** Most levels a B-tree of minimum degree {@code t} with {@code n} keys can have. */
+    private static int maxHeight( int n, int t )
+    {
+        int height = 1;
+        for ( long minimum = 1; minimum * t <= ( n + 1 ) / 2; minimum *= t )
+        {
+            height++;
+        }
+        return height;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for buildFromSorted and bulkLoad.
+ */
+public class BulkLoadTest
+    extends TestCase
+{
+    public BulkLoadTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( BulkLoadTest.class );
+    }
+
+    public void testGenericTreesStayValidAfterBuild()
+    {
+        for ( int n : new int[] { 0, 1, 2, 3, 7, 8, 1000, 1023, 1024 } )
+        {
+            List<Integer> sorted = new ArrayList<>();
+            for ( int i = 0; i < n; i++ )
+            {
+                sorted.add( i * 2 );
+            }
+            List<BalancedBinaryTree<Integer>> trees = Arrays.asList( new AVLTree<Integer>(), new RedBlackTree<Integer>() );
+            for ( BalancedBinaryTree<Integer> tree : trees )
+            {
+                tree.insert( -1 );
+                tree.buildFromSorted( sorted );
+                assertFalse( tree.contains( -1 ) );
+                assertEquals( 32 - Integer.numberOfLeadingZeros( n ), tree.height() );
+                TreeSet<Integer> expected = new TreeSet<>( sorted );
+                Random random = new Random( n );
+                for ( int i = 0; i < 5000; i++ )
+                {
+                    int key = random.nextInt( 2 * n + 2 );
+                    if ( random.nextBoolean() )
+                    {
+                        tree.insert( key );
+                        expected.add( key );
+                    }
+                    else
+                    {
+                        tree.delete( key );
+                        expected.remove( key );
+                    }
+                }
+                for ( int key = 0; key < 2 * n + 2; key++ )
+                {
+                    assertEquals( expected.contains( key ), tree.contains( key ) );
+                }
+            }
+        }
+    }
+
+    public void testIntTreesStayValidAfterBulkLoad()
+    {
+        Random random = new Random( 42 );
+        int[] values = new int[20000];
+        for ( int i = 0; i < values.length; i++ )
+        {
+            values[i] = random.nextInt( 10000 );
+        }
+        List<IntBalancedTree> trees = Arrays.asList( new IntAVLTree(), new IntRedBlackTree(), new ArrayAVLTree(),
+            new ArrayRedBlackTree() );
+        for ( IntBalancedTree tree : trees )
+        {
+            tree.bulkLoad( values );
+            TreeSet<Integer> expected = new TreeSet<>();
+            for ( int value : values )
+            {
+                expected.add( value );
+            }
+            for ( int i = 0; i < 50000; i++ )
+            {
+                int key = random.nextInt( 12000 );
+                if ( random.nextBoolean() )
+                {
+                    tree.insert( key );
+                    expected.add( key );
+                }
+                else
+                {
+                    tree.delete( key );
+                    expected.remove( key );
+                }
+            }
+            for ( int key = 0; key < 12000; key++ )
+            {
+                assertEquals( expected.contains( key ), tree.contains( key ) );
+            }
+            assertTrue( tree.height() <= 2 * Math.log( expected.size() + 1 ) / Math.log( 2 ) );
+        }
+    }
+
+    public void testBuildRejectsUnsortedKeys()
+    {
+        try
+        {
+            new AVLTree<Integer>().buildFromSorted( Arrays.asList( 1, 3, 3 ) );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+        try
+        {
+            new ArrayRedBlackTree().buildFromSorted( new int[] { 2, 1 } );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+    }
+}
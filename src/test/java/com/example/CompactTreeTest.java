@@ -0,0 +1,188 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for CompactAVLTree, CompactRedBlackTree and the bytesPerEntry estimates.
+ */
+public class CompactTreeTest
+    extends TestCase
+{
+    public CompactTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( CompactTreeTest.class );
+    }
+
+    private static List<Integer> keys( IntBalancedTree tree )
+    {
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach( keys::add );
+        return keys;
+    }
+
+    private static void assertBalanced( IntBalancedTree tree, int size )
+    {
+        double log = Math.log( size + 2 ) / Math.log( 2 );
+        double bound = tree instanceof CompactAVLTree ? 1.45 * log : 2 * log;
+        assertTrue( "height " + tree.height() + " for " + size + " keys", tree.height() <= bound );
+    }
+
+    public void testRandomOperationsMatchTreeSet()
+    {
+        for ( IntBalancedTree tree : new IntBalancedTree[] { new CompactAVLTree(), new CompactRedBlackTree() } )
+        {
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random( 42 );
+            for ( int i = 0; i < 200000; i++ )
+            {
+                int key = random.nextInt( 5000 );
+                int op = random.nextInt( 3 );
+                if ( op == 0 )
+                {
+                    tree.insert( key );
+                    expected.add( key );
+                }
+                else if ( op == 1 )
+                {
+                    tree.delete( key );
+                    expected.remove( key );
+                }
+                else
+                {
+                    assertEquals( expected.contains( key ), tree.contains( key ) );
+                }
+                if ( i % 10000 == 0 )
+                {
+                    assertBalanced( tree, expected.size() );
+                }
+            }
+            assertEquals( new ArrayList<>( expected ), keys( tree ) );
+            assertBalanced( tree, expected.size() );
+
+            for ( int key : new ArrayList<>( expected ) )
+            {
+                tree.delete( key );
+            }
+            assertEquals( 0, tree.height() );
+            assertFalse( tree.contains( expected.first() ) );
+        }
+    }
+
+    public void testSequentialInsertsStayBalanced()
+    {
+        for ( IntBalancedTree tree : new IntBalancedTree[] { new CompactAVLTree(), new CompactRedBlackTree() } )
+        {
+            for ( int i = 0; i < 100000; i++ )
+            {
+                tree.insert( i );
+            }
+            assertBalanced( tree, 100000 );
+            for ( int i = 0; i < 100000; i += 2 )
+            {
+                tree.delete( i );
+            }
+            assertBalanced( tree, 50000 );
+            assertTrue( tree.contains( 99999 ) );
+            assertFalse( tree.contains( 99998 ) );
+        }
+    }
+
+    public void testBuildFromSortedThenModify()
+    {
+        for ( int n : new int[] { 0, 1, 2, 3, 7, 8, 1000, 1023, 1024 } )
+        {
+            int[] sorted = new int[n];
+            for ( int i = 0; i < n; i++ )
+            {
+                sorted[i] = i * 2;
+            }
+            for ( IntBalancedTree tree : new IntBalancedTree[] { new CompactAVLTree(), new CompactRedBlackTree() } )
+            {
+                tree.insert( -1 );
+                tree.buildFromSorted( sorted );
+                assertFalse( tree.contains( -1 ) );
+                assertEquals( 32 - Integer.numberOfLeadingZeros( n ), tree.height() );
+                TreeSet<Integer> expected = new TreeSet<>();
+                for ( int key : sorted )
+                {
+                    expected.add( key );
+                }
+                Random random = new Random( n );
+                for ( int i = 0; i < 5000; i++ )
+                {
+                    int key = random.nextInt( 2 * n + 2 );
+                    if ( random.nextBoolean() )
+                    {
+                        tree.insert( key );
+                        expected.add( key );
+                    }
+                    else
+                    {
+                        tree.delete( key );
+                        expected.remove( key );
+                    }
+                }
+                assertEquals( new ArrayList<>( expected ), keys( tree ) );
+                assertBalanced( tree, expected.size() );
+            }
+        }
+    }
+
+    public void testCompactLayoutsHalveBytesPerEntry()
+    {
+        int[] sorted = new int[100000];
+        for ( int i = 0; i < sorted.length; i++ )
+        {
+            sorted[i] = i;
+        }
+        AVLTree<Integer> generic = new AVLTree<>();
+        IntAVLTree intTree = new IntAVLTree();
+        CompactAVLTree avl = new CompactAVLTree();
+        CompactRedBlackTree redBlack = new CompactRedBlackTree();
+        Random random = new Random( 7 );
+        for ( int i = 0; i < sorted.length; i++ )
+        {
+            int key = random.nextInt();
+            generic.insert( key );
+            intTree.insert( key );
+        }
+        avl.buildFromSorted( sorted );
+        redBlack.buildFromSorted( sorted );
+
+        assertEquals( 12.0, avl.bytesPerEntry(), 0.01 );
+        assertEquals( 12.0, redBlack.bytesPerEntry(), 0.01 );
+        assertTrue( generic.bytesPerEntry() >= 2 * avl.bytesPerEntry() );
+        assertTrue( intTree.bytesPerEntry() >= 2 * avl.bytesPerEntry() );
+
+        // Grown one insert at a time, spare capacity is at most half of the array
+        CompactRedBlackTree grown = new CompactRedBlackTree();
+        for ( int i = 0; i < sorted.length; i++ )
+        {
+            grown.insert( random.nextInt() );
+        }
+        assertTrue( grown.bytesPerEntry() < 18.1 );
+    }
+
+    public void testObjectLayoutMatchesHotSpotRules()
+    {
+        long header = ObjectLayout.arraySize( int.class, 0 );
+        assertEquals( 0, header % 8 );
+        assertEquals( header + 16, ObjectLayout.arraySize( int.class, 4 ) );
+        assertTrue( ObjectLayout.shallowSize( Integer.class ) >= 16 );
+        assertEquals( 0, ObjectLayout.shallowSize( Long.class ) % 8 );
+        assertEquals( 0.0, new CompactAVLTree().bytesPerEntry() );
+        assertEquals( 0.0, new IntBTree().bytesPerEntry() );
+    }
+}
@@ -0,0 +1,150 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for ConcurrentAVLTree.
+ */
+public class ConcurrentAVLTreeTest
+    extends TestCase
+{
+    private static final int WRITERS = 4;
+    private static final int RANGE = 20000;
+    private static final int STABLE_KEYS = 1000;
+
+    public ConcurrentAVLTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ConcurrentAVLTreeTest.class );
+    }
+
+    public void testMatchesTreeSet()
+    {
+        Random random = new Random( 42 );
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            int key = random.nextInt( 2000 );
+            if ( random.nextBoolean() )
+            {
+                tree.insert( key );
+                expected.add( key );
+            }
+            else
+            {
+                tree.delete( key );
+                expected.remove( key );
+            }
+        }
+        for ( int key = 0; key < 2000; key++ )
+        {
+            assertEquals( expected.contains( key ), tree.contains( key ) );
+        }
+        for ( int from = -1; from <= 2000; from += 37 )
+        {
+            int limit = random.nextInt( 200 );
+            List<Integer> passed = new ArrayList<>();
+            assertEquals( Math.min( limit, expected.tailSet( from ).size() ), tree.forEachFrom( from, limit, passed::add ) );
+            assertEquals( new ArrayList<>( expected.tailSet( from ) ).subList( 0, passed.size() ), passed );
+        }
+        // Routing nodes count towards the height, so allow some slack over the AVL bound
+        assertTrue( tree.height() <= 2 * Math.log( 2000 ) / Math.log( 2 ) );
+        assertEquals( 0, tree.strandedRoutingNodes() );
+    }
+
+    /**
+     * Writers update disjoint key sets while readers look up keys nobody touches, which must never
+     * go missing while the tree is rotated around them.
+     */
+    public void testConcurrentUpdates() throws InterruptedException
+    {
+        final ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        for ( int i = 1; i <= STABLE_KEYS; i++ )
+        {
+            tree.insert( -i );
+        }
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicBoolean done = new AtomicBoolean();
+        final List<TreeSet<Integer>> written = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for ( int w = 0; w < WRITERS; w++ )
+        {
+            final int id = w;
+            final TreeSet<Integer> keys = new TreeSet<>();
+            written.add( keys );
+            threads.add( new Thread( () -> {
+                Random random = new Random( id );
+                for ( int i = 0; i < 100000; i++ )
+                {
+                    int key = random.nextInt( RANGE / WRITERS ) * WRITERS + id;
+                    if ( random.nextBoolean() )
+                    {
+                        tree.insert( key );
+                        keys.add( key );
+                    }
+                    else
+                    {
+                        tree.delete( key );
+                        keys.remove( key );
+                    }
+                    if ( tree.contains( key ) != keys.contains( key ) )
+                    {
+                        failed.set( true );
+                    }
+                }
+            } ) );
+        }
+        for ( int r = 0; r < 2; r++ )
+        {
+            final int id = r;
+            threads.add( new Thread( () -> {
+                Random random = new Random( -id );
+                while ( !done.get() )
+                {
+                    if ( !tree.contains( -1 - random.nextInt( STABLE_KEYS ) ) )
+                    {
+                        failed.set( true );
+                    }
+                }
+            } ) );
+        }
+        for ( Thread thread : threads )
+        {
+            thread.start();
+        }
+        for ( Thread thread : threads.subList( 0, WRITERS ) )
+        {
+            thread.join();
+        }
+        done.set( true );
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        assertFalse( failed.get() );
+
+        TreeSet<Integer> expected = new TreeSet<>();
+        for ( TreeSet<Integer> keys : written )
+        {
+            expected.addAll( keys );
+        }
+        for ( int key = -STABLE_KEYS; key < RANGE; key++ )
+        {
+            assertEquals( key < 0 || expected.contains( key ), tree.contains( key ) );
+        }
+        assertEquals( 0, tree.strandedRoutingNodes() );
+    }
+}
@@ -0,0 +1,140 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for reading and writing dataset files.
+ */
+public class DatasetFileTest
+    extends TestCase
+{
+    private Path csv;
+    private Path bin;
+
+    public DatasetFileTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( DatasetFileTest.class );
+    }
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        csv = Files.createTempFile( "dataset", ".csv" );
+        bin = Files.createTempFile( "dataset", ".bin" );
+    }
+
+    @Override
+    protected void tearDown() throws IOException
+    {
+        Files.deleteIfExists( csv );
+        Files.deleteIfExists( bin );
+    }
+
+    public void testReadsCsvAsWrittenByTheGenerator() throws IOException
+    {
+        // Python's csv module ends lines with \r\n
+        write( csv, "data_type,size,data\r\nrandom,5,1 2 3 -4 2147483647\r\nsorted,3,0 1 2\r\n" );
+        List<DatasetFile.Row> rows = DatasetFile.readAll( csv );
+        assertEquals( 2, rows.size() );
+        assertEquals( "random", rows.get( 0 ).dataType );
+        assertEquals( 5, rows.get( 0 ).size );
+        assertTrue( Arrays.equals( new int[] { 1, 2, 3, -4, Integer.MAX_VALUE }, rows.get( 0 ).values ) );
+        assertEquals( "sorted", rows.get( 1 ).dataType );
+        assertTrue( Arrays.equals( new int[] { 0, 1, 2 }, rows.get( 1 ).values ) );
+    }
+
+    public void testLargeRowWithoutTrailingNewline() throws IOException
+    {
+        StringBuilder text = new StringBuilder( "data_type,size,data\nrandom,200000," );
+        for ( int i = 0; i < 200000; i++ )
+        {
+            text.append( i == 0 ? "" : " " ).append( i * 7 - 100000 );
+        }
+        write( csv, text.toString() );
+        int[] values = DatasetFile.read( csv, "random", 200000 );
+        assertEquals( 200000, values.length );
+        for ( int i = 0; i < values.length; i++ )
+        {
+            assertEquals( i * 7 - 100000, values[i] );
+        }
+        assertNull( DatasetFile.read( csv, "sorted", 200000 ) );
+    }
+
+    public void testBinaryRoundTrip() throws IOException
+    {
+        write( csv, "data_type,size,data\nrandom,4,5 -1 7 5\nsorted,100000," );
+        StringBuilder sorted = new StringBuilder();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            sorted.append( i == 0 ? "" : " " ).append( i );
+        }
+        Files.write( csv, sorted.toString().getBytes( StandardCharsets.US_ASCII ),
+                     StandardOpenOption.APPEND );
+        List<DatasetFile.Row> rows = DatasetFile.readAll( csv );
+        DatasetFile.writeBinary( bin, rows );
+        assertEquals( 4 + 2 * ( 2 + 6 + 8 ) + 4 * ( 4 + 100000 ), Files.size( bin ) );
+
+        List<DatasetFile.Row> read = DatasetFile.readAll( bin );
+        assertEquals( rows.size(), read.size() );
+        for ( int i = 0; i < rows.size(); i++ )
+        {
+            assertEquals( rows.get( i ).dataType, read.get( i ).dataType );
+            assertEquals( rows.get( i ).size, read.get( i ).size );
+            assertTrue( Arrays.equals( rows.get( i ).values, read.get( i ).values ) );
+        }
+    }
+
+    public void testStreamsStraightIntoATree() throws IOException
+    {
+        write( csv, "data_type,size,data\nrandom,4,5 1 7 5\nsorted,3,2 4 6\n" );
+        IntBTree tree = new IntBTree();
+        DatasetFile.stream( csv, ( dataType, size ) -> dataType.equals( "random" ) ? tree::insert : null );
+        assertTrue( tree.contains( 5 ) );
+        assertTrue( tree.contains( 7 ) );
+        assertFalse( tree.contains( 4 ) );
+    }
+
+    public void testRejectsMalformedFiles() throws IOException
+    {
+        write( csv, "data_type,size,data\nrandom,3,1 x 3\n" );
+        assertUnreadable( csv );
+        write( csv, "data_type,size,data\nrandom,3\n" );
+        assertUnreadable( csv );
+        write( bin, "TDB1\u0006\u0000random" );
+        assertUnreadable( bin );
+        write( bin, "1 2 3\n" );
+        assertUnreadable( bin );
+    }
+
+    private static void assertUnreadable( Path path )
+    {
+        try
+        {
+            DatasetFile.readAll( path );
+            fail();
+        }
+        catch ( IOException expected )
+        {
+        }
+    }
+
+    private static void write( Path path, String text ) throws IOException
+    {
+        Files.write( path, text.getBytes( StandardCharsets.ISO_8859_1 ) );
+    }
+}
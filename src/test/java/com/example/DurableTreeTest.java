@@ -0,0 +1,235 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the write-ahead log, checkpoints and recovery of DurableTree.
+ */
+public class DurableTreeTest
+    extends TestCase
+{
+    private Path directory;
+
+    public DurableTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( DurableTreeTest.class );
+    }
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "durable" );
+    }
+
+    @Override
+    protected void tearDown() throws IOException
+    {
+        try ( Stream<Path> files = Files.walk( directory ) )
+        {
+            for ( Path file : (Iterable<Path>) files.sorted( Comparator.reverseOrder() )::iterator )
+            {
+                Files.delete( file );
+            }
+        }
+    }
+
+    public void testRecoversAfterClose() throws IOException
+    {
+        TreeSet<Integer> expected = new TreeSet<>();
+        DurableTree<Integer> tree = open( new AVLTree<Integer>(), 16, 0 );
+        applyRandomOperations( tree, expected, 5000 );
+        tree.close();
+
+        for ( BalancedBinaryTree<Integer> recovered : Arrays.<BalancedBinaryTree<Integer>>asList(
+            new RedBlackTree<Integer>(), new BTree<Integer>() ) )
+        {
+            DurableTree<Integer> reopened = open( recovered, 16, 0 );
+            assertEquals( new ArrayList<>( expected ), keys( reopened ) );
+            reopened.close();
+        }
+    }
+
+    public void testCrashLosesOnlyTheOpenBatch() throws IOException
+    {
+        DurableTree<Integer> tree = open( new AVLTree<Integer>(), 10, 0 );
+        for ( int i = 0; i < 25; i++ )
+        {
+            tree.insert( i );
+        }
+        // No close: the last five inserts never reach the log
+        DurableTree<Integer> recovered = open( new AVLTree<Integer>(), 10, 0 );
+        List<Integer> keys = keys( recovered );
+        assertEquals( 20, keys.size() );
+        assertEquals( Integer.valueOf( 19 ), keys.get( 19 ) );
+        recovered.close();
+    }
+
+    public void testTornTailIsIgnoredAndTruncated() throws IOException
+    {
+        DurableTree<Integer> tree = open( new AVLTree<Integer>(), 4, 0 );
+        for ( int i = 0; i < 8; i++ )
+        {
+            tree.insert( i );
+        }
+        tree.close();
+        Path log = directory.resolve( DurableTree.LOG_FILE );
+        long committed = Files.size( log );
+        // A frame header promising four records, followed by half of one
+        Files.write( log, new byte[] { 4, 0, 0, 0, 1, 2, 3, 4, 1, 9 }, StandardOpenOption.APPEND );
+
+        tree = open( new AVLTree<Integer>(), 4, 0 );
+        assertEquals( 8, keys( tree ).size() );
+        assertEquals( committed, Files.size( log ) );
+        tree.insert( 100 );
+        tree.close();
+        tree = open( new AVLTree<Integer>(), 4, 0 );
+        assertTrue( tree.contains( 100 ) );
+        tree.close();
+    }
+
+    public void testCheckpointsBoundTheLog() throws IOException
+    {
+        TreeSet<Integer> expected = new TreeSet<>();
+        DurableTree<Integer> tree = new DurableTree<>( new AVLTree<Integer>(), directory, DurableTree.INTEGER_KEYS, 8,
+                                                       0, 100 );
+        applyRandomOperations( tree, expected, 2000 );
+        tree.close();
+        assertTrue( Files.size( directory.resolve( DurableTree.LOG_FILE ) ) < 200 * 5 );
+        assertTrue( Files.exists( directory.resolve( DurableTree.CHECKPOINT_FILE ) ) );
+
+        tree = open( new AVLTree<Integer>(), 8, 0 );
+        assertEquals( new ArrayList<>( expected ), keys( tree ) );
+        tree.clear();
+        tree.close();
+        tree = open( new AVLTree<Integer>(), 8, 0 );
+        assertEquals( 0, tree.height() );
+        tree.close();
+    }
+
+    public void testFsyncIntervalCommitsPartialBatches() throws Exception
+    {
+        DurableTree<Integer> tree = new DurableTree<>( new AVLTree<Integer>(), directory, DurableTree.INTEGER_KEYS,
+                                                       1000, 5, 0 );
+        for ( int i = 0; i < 5; i++ )
+        {
+            tree.insert( i );
+        }
+        long deadline = System.currentTimeMillis() + 5000;
+        while ( Files.size( directory.resolve( DurableTree.LOG_FILE ) ) == 0 && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 5 );
+        }
+        DurableTree<Integer> recovered = open( new AVLTree<Integer>(), 1000, 0 );
+        assertEquals( 5, keys( recovered ).size() );
+        recovered.close();
+        tree.close();
+        try
+        {
+            tree.insert( 6 );
+            fail();
+        }
+        catch ( IllegalStateException expected )
+        {
+        }
+    }
+
+    public void testKeyThatFailsToEncodeLeavesTheBatchIntact() throws IOException
+    {
+        DurableTree.KeyCodec<Integer> nonNegative = new DurableTree.KeyCodec<Integer>()
+        {
+            @Override
+            public int bytes()
+            {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write( Integer key, ByteBuffer buffer )
+            {
+                buffer.put( (byte) 0 );
+                if ( key < 0 )
+                {
+                    throw new IllegalArgumentException( "Negative key " + key );
+                }
+                buffer.put( (byte) ( key >>> 16 ) ).putShort( (short) (int) key );
+            }
+
+            @Override
+            public Integer read( ByteBuffer buffer )
+            {
+                buffer.get();
+                return ( ( buffer.get() & 0xFF ) << 16 ) | ( buffer.getShort() & 0xFFFF );
+            }
+        };
+        DurableTree<Integer> tree = new DurableTree<>( new AVLTree<Integer>(), directory, nonNegative, 4, 0, 0 );
+        tree.insert( 1 );
+        try
+        {
+            tree.insert( -1 );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+        for ( int i = 2; i <= 4; i++ )
+        {
+            tree.insert( i );
+        }
+        // The fourth insert committed a full batch; recovery must see exactly these four keys
+        DurableTree<Integer> recovered = new DurableTree<>( new AVLTree<Integer>(), directory, nonNegative, 4, 0, 0 );
+        assertEquals( Arrays.asList( 1, 2, 3, 4 ), keys( recovered ) );
+        recovered.close();
+    }
+
+    private DurableTree<Integer> open( BalancedBinaryTree<Integer> tree, int batchSize, long fsyncIntervalMillis )
+        throws IOException
+    {
+        return new DurableTree<>( tree, directory, DurableTree.INTEGER_KEYS, batchSize, fsyncIntervalMillis, 0 );
+    }
+
+    private static void applyRandomOperations( BalancedBinaryTree<Integer> tree, TreeSet<Integer> expected, int count )
+    {
+        Random random = new Random( 42 );
+        for ( int i = 0; i < count; i++ )
+        {
+            int key = random.nextInt( 1000 );
+            if ( random.nextInt( 3 ) > 0 )
+            {
+                tree.insert( key );
+                expected.add( key );
+            }
+            else
+            {
+                tree.delete( key );
+                expected.remove( key );
+            }
+        }
+    }
+
+    private static List<Integer> keys( BalancedBinaryTree<Integer> tree )
+    {
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach( keys::add );
+        return keys;
+    }
+}
@@ -0,0 +1,102 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for FilteredTree.
+ */
+public class FilteredTreeTest
+    extends TestCase
+{
+    public FilteredTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( FilteredTreeTest.class );
+    }
+
+    public void testMatchesTreeSetThroughRebuilds()
+    {
+        List<BalancedBinaryTree<Integer>> delegates = Arrays.asList(
+            new AVLTree<Integer>(), new RedBlackTree<Integer>(), new BTree<Integer>() );
+        for ( BalancedBinaryTree<Integer> delegate : delegates )
+        {
+            FilteredTree<Integer> tree = new FilteredTree<>( delegate );
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random( 9 );
+            for ( int i = 0; i < 200000; i++ )
+            {
+                int key = random.nextInt( 20000 );
+                int dice = random.nextInt( 4 );
+                if ( dice == 0 )
+                {
+                    tree.insert( key );
+                    expected.add( key );
+                }
+                else if ( dice == 1 )
+                {
+                    tree.delete( key );
+                    expected.remove( key );
+                }
+                else
+                {
+                    assertEquals( expected.contains( key ), tree.contains( key ) );
+                }
+            }
+            List<Integer> keys = new ArrayList<>();
+            tree.forEach( keys::add );
+            assertEquals( new ArrayList<>( expected ), keys );
+
+            tree.clear();
+            assertFalse( tree.contains( expected.first() ) );
+        }
+    }
+
+    public void testMeasuredFalsePositiveRateIsNearTheTarget()
+    {
+        for ( double target : new double[] { 0.1, 0.01, 0.001 } )
+        {
+            List<Integer> keys = new ArrayList<>();
+            for ( int key = 0; key < 100000; key++ )
+            {
+                keys.add( 2 * key );
+            }
+            FilteredTree<Integer> tree = new FilteredTree<>( new AVLTree<Integer>(), target );
+            tree.buildFromSorted( keys );
+            assertTrue( Double.isNaN( tree.getMeasuredFalsePositiveRate() ) );
+            for ( int key = 0; key < 1000000; key++ )
+            {
+                assertFalse( tree.contains( 2 * key + 1 ) );
+            }
+            // The filter has room for a quarter more keys, so it does a little better than the target
+            assertTrue( tree.getMeasuredFalsePositiveRate() < target );
+            assertTrue( tree.getMeasuredFalsePositiveRate() > 0 );
+        }
+    }
+
+    public void testRejectsFalsePositiveRatesOutsideTheUnitInterval()
+    {
+        for ( double rate : new double[] { 0, 1, Double.NaN } )
+        {
+            try
+            {
+                new FilteredTree<>( new AVLTree<Integer>(), rate );
+                fail();
+            }
+            catch ( IllegalArgumentException expected )
+            {
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for finger search in AVLTree and RedBlackTree.
+ */
+public class FingerSearchTest
+    extends TestCase
+{
+    public FingerSearchTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( FingerSearchTest.class );
+    }
+
+    private static List<OrderedTree<Integer>> fingerTrees()
+    {
+        List<OrderedTree<Integer>> trees = Arrays.asList( new AVLTree<Integer>(), new RedBlackTree<Integer>() );
+        for ( OrderedTree<Integer> tree : trees )
+        {
+            tree.setFingerSearch( true );
+        }
+        return trees;
+    }
+
+    private static void assertMatches( TreeSet<Integer> expected, OrderedTree<Integer> tree )
+    {
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach( keys::add );
+        assertEquals( new ArrayList<>( expected ), keys );
+        assertEquals( expected.size(), tree.size() );
+    }
+
+    public void testNearlySortedOperationsMatchTreeSet()
+    {
+        for ( OrderedTree<Integer> tree : fingerTrees() )
+        {
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random( 3 );
+            for ( int i = 0; i < 50000; i++ )
+            {
+                int key = i + random.nextInt( 64 ) - 32;
+                int op = random.nextInt( 10 );
+                if ( op < 6 )
+                {
+                    tree.insert( key );
+                    expected.add( key );
+                }
+                else if ( op < 7 )
+                {
+                    tree.delete( key );
+                    expected.remove( key );
+                }
+                else
+                {
+                    assertEquals( expected.contains( key ), tree.contains( key ) );
+                }
+            }
+            assertMatches( expected, tree );
+            for ( int key = -40; key < 50040; key++ )
+            {
+                assertEquals( expected.contains( key ), tree.contains( key ) );
+            }
+        }
+    }
+
+    public void testRandomOperationsMatchTreeSet()
+    {
+        for ( OrderedTree<Integer> tree : fingerTrees() )
+        {
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random( 4 );
+            for ( int i = 0; i < 50000; i++ )
+            {
+                int key = random.nextInt( 2000 );
+                if ( random.nextInt( 3 ) > 0 )
+                {
+                    tree.insert( key );
+                    expected.add( key );
+                }
+                else
+                {
+                    tree.delete( key );
+                    expected.remove( key );
+                }
+                assertEquals( expected.contains( i % 2000 ), tree.contains( i % 2000 ) );
+            }
+            assertMatches( expected, tree );
+        }
+    }
+
+    public void testAppendsCompareOnlyNearTheFinger()
+    {
+        for ( OrderedTree<Integer> tree : fingerTrees() )
+        {
+            StatsRecorder recorder = new StatsRecorder();
+            tree.setRecorder( recorder );
+            for ( int i = 0; i < 100000; i++ )
+            {
+                tree.insert( i );
+            }
+            TreeStats stats = recorder.snapshot();
+            // The finger's own comparisons are not reported, at most two per insert here
+            assertTrue( stats.toString(), stats.comparisonsPerOperation() < 4 );
+            assertTrue( tree.contains( 99990 ) );
+            assertFalse( tree.contains( 100000 ) );
+            assertEquals( 100000, tree.size() );
+        }
+    }
+
+    public void testStructuralChangesDropTheFinger()
+    {
+        for ( OrderedTree<Integer> tree : fingerTrees() )
+        {
+            for ( int i = 0; i < 100; i++ )
+            {
+                tree.insert( i );
+            }
+            List<Integer> sorted = new ArrayList<>();
+            for ( int i = 1000; i < 1100; i++ )
+            {
+                sorted.add( i );
+            }
+            tree.buildFromSorted( sorted );
+            assertFalse( tree.contains( 99 ) );
+            tree.insert( 1100 );
+            tree.clear();
+            assertFalse( tree.contains( 1100 ) );
+            tree.insert( 5 );
+            assertTrue( tree.contains( 5 ) );
+            assertEquals( 1, tree.size() );
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example;
+
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for FrozenIntIndex.
+ */
+public class FrozenIntIndexTest
+    extends TestCase
+{
+    public FrozenIntIndexTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( FrozenIntIndexTest.class );
+    }
+
+    private static void assertMatches( TreeSet<Integer> expected, FrozenIntIndex index, int[] probes )
+    {
+        assertEquals( expected.size(), index.size() );
+        boolean[] found = index.containsAll( probes );
+        for ( int i = 0; i < probes.length; i++ )
+        {
+            assertEquals( expected.contains( probes[i] ), index.contains( probes[i] ) );
+            assertEquals( expected.contains( probes[i] ), found[i] );
+        }
+    }
+
+    public void testMatchesTreeSetAtEverySmallSize()
+    {
+        for ( int size = 0; size <= 70; size++ )
+        {
+            TreeSet<Integer> expected = new TreeSet<>();
+            AVLTree<Integer> tree = new AVLTree<>();
+            for ( int i = 0; i < size; i++ )
+            {
+                expected.add( 2 * i );
+                tree.insert( 2 * i );
+            }
+            int[] probes = new int[2 * size + 3];
+            for ( int i = 0; i < probes.length; i++ )
+            {
+                probes[i] = i - 1;
+            }
+            assertMatches( expected, FrozenIntIndex.freeze( tree ), probes );
+        }
+    }
+
+    public void testFreezeIntTreesWithExtremeKeys()
+    {
+        Random random = new Random( 11 );
+        TreeSet<Integer> expected = new TreeSet<>();
+        IntBalancedTree tree = new IntRedBlackTree();
+        RedBlackTree<Integer> generic = new RedBlackTree<>();
+        for ( int key : new int[] { Integer.MIN_VALUE, Integer.MAX_VALUE, 0, -1 } )
+        {
+            expected.add( key );
+            tree.insert( key );
+            generic.insert( key );
+        }
+        for ( int i = 0; i < 100000; i++ )
+        {
+            int key = random.nextInt();
+            expected.add( key );
+            tree.insert( key );
+            generic.insert( key );
+        }
+        int[] probes = new int[50005];
+        for ( int i = 0; i < probes.length; i++ )
+        {
+            probes[i] = i % 2 == 0 ? random.nextInt() : expected.higher( random.nextInt( Integer.MAX_VALUE ) );
+        }
+        probes[0] = Integer.MIN_VALUE;
+        probes[1] = Integer.MAX_VALUE;
+        probes[2] = Integer.MIN_VALUE + 1;
+        probes[3] = Integer.MAX_VALUE - 1;
+        assertMatches( expected, tree.freeze(), probes );
+        assertMatches( expected, FrozenIntIndex.freeze( generic ), probes );
+    }
+
+    public void testRejectsUnsortedKeys()
+    {
+        try
+        {
+            FrozenIntIndex.of( new int[] { 1, 3, 3 }, 0, 3 );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+        assertEquals( 2, FrozenIntIndex.of( new int[] { 1, 3, 3 }, 0, 2 ).size() );
+    }
+}
@@ -0,0 +1,122 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the navigation methods, iterators and spliterators of OrderedTree.
+ */
+public class IterationTest
+    extends TestCase
+{
+    private static final int RANGE = 10000;
+
+    private final Random random = new Random( 42 );
+
+    public IterationTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( IterationTest.class );
+    }
+
+    public void testAvlTree()
+    {
+        assertMatchesTreeSet( new AVLTree<Integer>() );
+    }
+
+    public void testRedBlackTree()
+    {
+        assertMatchesTreeSet( new RedBlackTree<Integer>() );
+    }
+
+    public void testEmptyTree()
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        assertFalse( tree.iterator().hasNext() );
+        assertFalse( tree.range( 0, 10 ).hasNext() );
+        assertEquals( 0, tree.forEachFrom( 0, 10, key -> fail() ) );
+        assertNull( tree.floor( 5 ) );
+        assertEquals( 0, tree.stream().count() );
+        try
+        {
+            tree.iterator().next();
+            fail();
+        }
+        catch ( NoSuchElementException expected )
+        {
+        }
+    }
+
+    private void assertMatchesTreeSet( OrderedTree<Integer> tree )
+    {
+        TreeSet<Integer> expected = new TreeSet<>();
+        for ( int i = 0; i < 20000; i++ )
+        {
+            int key = random.nextInt( RANGE );
+            if ( random.nextInt( 3 ) > 0 )
+            {
+                tree.insert( key );
+                expected.add( key );
+            }
+            else
+            {
+                tree.delete( key );
+                expected.remove( key );
+            }
+        }
+
+        assertEquals( new ArrayList<>( expected ), toList( tree.iterator() ) );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            int key = random.nextInt( RANGE + 2 ) - 1;
+            assertEquals( expected.floor( key ), tree.floor( key ) );
+            assertEquals( expected.lower( key ), tree.lower( key ) );
+            assertEquals( expected.ceiling( key ), tree.ceiling( key ) );
+            assertEquals( expected.higher( key ), tree.higher( key ) );
+
+            int to = key + random.nextInt( 200 ) - 20;
+            List<Integer> range = key > to
+                ? new ArrayList<Integer>()
+                : new ArrayList<>( expected.subSet( key, true, to, true ) );
+            assertEquals( range, toList( tree.range( key, to ) ) );
+
+            int limit = Math.max( 0, to - key );
+            List<Integer> first = expected.tailSet( key ).stream().limit( limit ).collect( Collectors.toList() );
+            List<Integer> passed = new ArrayList<>();
+            assertEquals( first.size(), tree.forEachFrom( key, limit, passed::add ) );
+            assertEquals( first, passed );
+        }
+
+        assertEquals( new ArrayList<>( expected ), tree.stream().collect( Collectors.toList() ) );
+        assertEquals( new ArrayList<>( expected ), tree.stream().parallel().collect( Collectors.toList() ) );
+        long sum = 0;
+        for ( int key : expected )
+        {
+            sum += key;
+        }
+        assertEquals( sum, tree.stream().parallel().mapToLong( Integer::longValue ).sum() );
+    }
+
+    private static List<Integer> toList( Iterator<Integer> iterator )
+    {
+        List<Integer> list = new ArrayList<>();
+        while ( iterator.hasNext() )
+        {
+            list.add( iterator.next() );
+        }
+        return list;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for LatencyHistogram.
+ */
+public class LatencyHistogramTest
+    extends TestCase
+{
+    public LatencyHistogramTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( LatencyHistogramTest.class );
+    }
+
+    public void testSmallValuesAreExact()
+    {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int value = 1; value <= 100; value++ )
+        {
+            histogram.record( value );
+        }
+        assertEquals( 100, histogram.count() );
+        assertEquals( 50, histogram.percentile( 50 ) );
+        assertEquals( 99, histogram.percentile( 99 ) );
+        assertEquals( 100, histogram.percentile( 100 ) );
+        assertEquals( 1, histogram.min() );
+        assertEquals( 100, histogram.max() );
+        assertEquals( 50.5, histogram.mean(), 1e-9 );
+    }
+
+    public void testPercentilesWithinPrecision()
+    {
+        Random random = new Random( 42 );
+        long[] values = new long[100000];
+        LatencyHistogram histogram = new LatencyHistogram();
+        for ( int i = 0; i < values.length; i++ )
+        {
+            // Log-normal-ish: mostly hundreds of ns with a long tail
+            values[i] = (long) Math.exp( 6 + 2 * Math.abs( random.nextGaussian() ) );
+            histogram.record( values[i] );
+        }
+        Arrays.sort( values );
+        for ( double percentile : new double[] { 50, 90, 99, 99.9 } )
+        {
+            long exact = values[(int) Math.ceil( percentile / 100 * values.length ) - 1];
+            long estimate = histogram.percentile( percentile );
+            assertTrue( estimate >= exact );
+            assertTrue( estimate <= exact * 1.02 );
+        }
+        assertEquals( values[values.length - 1], histogram.percentile( 100 ) );
+    }
+
+    public void testBucketsCoverEveryValue()
+    {
+        long previousHighest = -1;
+        for ( int index = 0; index <= LatencyHistogram.index( Long.MAX_VALUE ); index++ )
+        {
+            long highest = LatencyHistogram.highestInBucket( index );
+            assertEquals( index, LatencyHistogram.index( previousHighest + 1 ) );
+            assertEquals( index, LatencyHistogram.index( highest ) );
+            previousHighest = highest;
+        }
+        assertEquals( Long.MAX_VALUE, previousHighest );
+    }
+
+    public void testAddAndReset()
+    {
+        LatencyHistogram first = new LatencyHistogram();
+        LatencyHistogram second = new LatencyHistogram();
+        first.record( 10 );
+        second.record( 1000000 );
+        first.add( second );
+        assertEquals( 2, first.count() );
+        assertEquals( 1000010, first.total() );
+        assertEquals( 10, first.percentile( 50 ) );
+        assertEquals( 1000000, first.max() );
+        first.reset();
+        assertEquals( 0, first.count() );
+        assertEquals( 0, first.percentile( 99 ) );
+        try
+        {
+            first.record( -1 );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+    }
+}
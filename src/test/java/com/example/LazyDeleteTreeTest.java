@@ -0,0 +1,128 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for LazyDeleteTree.
+ */
+public class LazyDeleteTreeTest
+    extends TestCase
+{
+    private static final int RANGE = 20000;
+
+    public LazyDeleteTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( LazyDeleteTreeTest.class );
+    }
+
+    private static void assertContents( TreeSet<Integer> expected, LazyDeleteTree<Integer> tree )
+    {
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach( keys::add );
+        assertEquals( new ArrayList<>( expected ), keys );
+        assertEquals( expected.size(), tree.size() );
+    }
+
+    /**
+     * Empties the tree, then mixes inserts, deletes and lookups, with deletes in bursts, checking against a TreeSet.
+     */
+    private static void exercise( LazyDeleteTree<Integer> tree )
+    {
+        tree.clear();
+        TreeSet<Integer> expected = new TreeSet<>();
+        Random random = new Random( 17 );
+        for ( int round = 0; round < 20; round++ )
+        {
+            for ( int i = 0; i < 5000; i++ )
+            {
+                int key = random.nextInt( RANGE );
+                tree.insert( key );
+                expected.add( key );
+                assertTrue( tree.contains( key ) );
+            }
+            for ( int i = 0; i < 3000; i++ )
+            {
+                int key = random.nextInt( RANGE );
+                tree.delete( key );
+                expected.remove( key );
+                assertFalse( tree.contains( key ) );
+                int probe = random.nextInt( RANGE );
+                assertEquals( expected.contains( probe ), tree.contains( probe ) );
+            }
+            assertContents( expected, tree );
+        }
+        tree.compact();
+        assertEquals( 0, tree.tombstoneCount() );
+        assertContents( expected, tree );
+    }
+
+    public void testMatchesTreeSet()
+    {
+        exercise( new LazyDeleteTree<Integer>( AVLTree::new ) );
+        exercise( new LazyDeleteTree<Integer>( RedBlackTree::new, 0.5, false ) );
+    }
+
+    public void testMatchesTreeSetWithBackgroundCompaction()
+    {
+        LazyDeleteTree<Integer> avl = new LazyDeleteTree<>( AVLTree::new, 0.1, true );
+        LazyDeleteTree<Integer> redBlack = new LazyDeleteTree<>( RedBlackTree::new, 0.1, true );
+        exercise( avl );
+        exercise( redBlack );
+        avl.close();
+        redBlack.close();
+        exercise( avl );
+    }
+
+    public void testDeleteLeavesTombstonesUntilCompaction()
+    {
+        LazyDeleteTree<Integer> tree = new LazyDeleteTree<>( AVLTree::new, 0.5, false );
+        for ( int key = 0; key < 1000; key++ )
+        {
+            tree.insert( key );
+        }
+        int height = tree.height();
+        for ( int key = 0; key < 500; key++ )
+        {
+            tree.delete( key );
+        }
+        assertEquals( 500, tree.tombstoneCount() );
+        assertEquals( 500, tree.size() );
+        assertEquals( height, tree.height() );
+
+        tree.insert( 10 );
+        assertEquals( 499, tree.tombstoneCount() );
+        assertTrue( tree.contains( 10 ) );
+
+        tree.delete( 10 );
+        tree.delete( 11 );
+        assertEquals( 500, tree.tombstoneCount() );
+        tree.delete( 600 );
+        assertEquals( 0, tree.tombstoneCount() );
+        assertEquals( 499, tree.size() );
+        assertFalse( tree.contains( 10 ) );
+    }
+
+    public void testRejectsTombstoneFractionsOutsideTheUnitInterval()
+    {
+        try
+        {
+            new LazyDeleteTree<Integer>( AVLTree::new, 1, false );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+    }
+}
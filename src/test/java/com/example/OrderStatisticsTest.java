@@ -0,0 +1,163 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for size, rank, select and countInRange of AVLTree and RedBlackTree.
+ */
+public class OrderStatisticsTest
+    extends TestCase
+{
+    private static final int RANGE = 5000;
+
+    private final Random random = new Random( 42 );
+
+    public OrderStatisticsTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( OrderStatisticsTest.class );
+    }
+
+    public void testAfterRandomOperations()
+    {
+        AVLTree<Integer> avl = new AVLTree<>();
+        RedBlackTree<Integer> rb = new RedBlackTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for ( int i = 0; i < 20000; i++ )
+        {
+            int key = random.nextInt( RANGE );
+            if ( random.nextBoolean() )
+            {
+                avl.insert( key );
+                rb.insert( key );
+                expected.add( key );
+            }
+            else
+            {
+                avl.delete( key );
+                rb.delete( key );
+                expected.remove( key );
+            }
+        }
+        assertAvl( expected, avl );
+        assertRedBlack( expected, rb );
+    }
+
+    public void testAfterSetOperations()
+    {
+        AVLTree<Integer> avl = new AVLTree<>();
+        RedBlackTree<Integer> rb = new RedBlackTree<>();
+        AVLTree<Integer> otherAvl = new AVLTree<>();
+        RedBlackTree<Integer> otherRb = new RedBlackTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        for ( int i = 0; i < 3000; i++ )
+        {
+            int key = random.nextInt( RANGE );
+            avl.insert( key );
+            rb.insert( key );
+            expected.add( key );
+            key = random.nextInt( RANGE );
+            otherAvl.insert( key );
+            otherRb.insert( key );
+        }
+        TreeSet<Integer> other = new TreeSet<>();
+        for ( int i = 0; i < otherAvl.size(); i++ )
+        {
+            other.add( otherAvl.select( i ) );
+        }
+        avl.union( otherAvl );
+        rb.union( otherRb );
+        expected.addAll( other );
+        assertAvl( expected, avl );
+        assertRedBlack( expected, rb );
+
+        AVLTree<Integer> avlRight = avl.split( RANGE / 3 );
+        RedBlackTree<Integer> rbRight = rb.split( RANGE / 3 );
+        assertAvl( new TreeSet<>( expected.tailSet( RANGE / 3 ) ), avlRight );
+        assertRedBlack( new TreeSet<>( expected.tailSet( RANGE / 3 ) ), rbRight );
+        assertAvl( new TreeSet<>( expected.headSet( RANGE / 3 ) ), avl );
+        assertRedBlack( new TreeSet<>( expected.headSet( RANGE / 3 ) ), rb );
+    }
+
+    public void testRedBlackHeightIsTracked()
+    {
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        for ( int i = 0; i < 100000; i++ )
+        {
+            tree.insert( i );
+        }
+        // Ascending inserts give a left spine of black nodes and a longer right one
+        assertTrue( tree.height() > 17 );
+        assertTrue( tree.height() <= 2 * 17 );
+        for ( int i = 0; i < 100000; i++ )
+        {
+            tree.delete( i );
+        }
+        assertEquals( 0, tree.height() );
+        assertEquals( 0, tree.size() );
+    }
+
+    public void testSelectOutOfBounds()
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        tree.insert( 1 );
+        try
+        {
+            tree.select( 1 );
+            fail();
+        }
+        catch ( IndexOutOfBoundsException expected )
+        {
+        }
+    }
+
+    private void assertAvl( TreeSet<Integer> expected, AVLTree<Integer> tree )
+    {
+        assertEquals( expected.size(), tree.size() );
+        List<Integer> sorted = new ArrayList<>( expected );
+        for ( int i = 0; i < sorted.size(); i++ )
+        {
+            assertEquals( sorted.get( i ), tree.select( i ) );
+        }
+        for ( int i = 0; i < 1000; i++ )
+        {
+            int from = random.nextInt( RANGE + 2 ) - 1;
+            int to = random.nextInt( RANGE + 2 ) - 1;
+            assertEquals( expected.headSet( from ).size(), tree.rank( from ) );
+            assertEquals( countInRange( expected, from, to ), tree.countInRange( from, to ) );
+        }
+    }
+
+    private void assertRedBlack( TreeSet<Integer> expected, RedBlackTree<Integer> tree )
+    {
+        assertEquals( expected.size(), tree.size() );
+        List<Integer> sorted = new ArrayList<>( expected );
+        for ( int i = 0; i < sorted.size(); i++ )
+        {
+            assertEquals( sorted.get( i ), tree.select( i ) );
+        }
+        for ( int i = 0; i < 1000; i++ )
+        {
+            int from = random.nextInt( RANGE + 2 ) - 1;
+            int to = random.nextInt( RANGE + 2 ) - 1;
+            assertEquals( expected.headSet( from ).size(), tree.rank( from ) );
+            assertEquals( countInRange( expected, from, to ), tree.countInRange( from, to ) );
+        }
+    }
+
+    private static int countInRange( TreeSet<Integer> expected, int from, int to )
+    {
+        return from > to ? 0 : expected.subSet( from, true, to, true ).size();
+    }
+}
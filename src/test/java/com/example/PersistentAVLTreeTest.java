@@ -0,0 +1,137 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for PersistentAVLTree.
+ */
+public class PersistentAVLTreeTest
+    extends TestCase
+{
+    public PersistentAVLTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( PersistentAVLTreeTest.class );
+    }
+
+    public void testSnapshotsKeepTheirContents()
+    {
+        Random random = new Random( 42 );
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        TreeSet<Integer> expected = new TreeSet<>();
+        List<PersistentAVLTree.Snapshot<Integer>> snapshots = new ArrayList<>();
+        List<TreeSet<Integer>> snapshotContents = new ArrayList<>();
+        for ( int i = 0; i < 50000; i++ )
+        {
+            int key = random.nextInt( 2000 );
+            if ( random.nextBoolean() )
+            {
+                tree.insert( key );
+                expected.add( key );
+            }
+            else
+            {
+                tree.delete( key );
+                expected.remove( key );
+            }
+            if ( i % 5000 == 0 )
+            {
+                snapshots.add( tree.snapshot() );
+                snapshotContents.add( new TreeSet<>( expected ) );
+            }
+        }
+        for ( int key = 0; key < 2000; key++ )
+        {
+            assertEquals( expected.contains( key ), tree.contains( key ) );
+        }
+        for ( int from = -1; from <= 2000; from += 37 )
+        {
+            int limit = random.nextInt( 200 );
+            List<Integer> passed = new ArrayList<>();
+            assertEquals( Math.min( limit, expected.tailSet( from ).size() ), tree.forEachFrom( from, limit, passed::add ) );
+            assertEquals( new ArrayList<>( expected.tailSet( from ) ).subList( 0, passed.size() ), passed );
+        }
+        assertTrue( tree.height() <= 1.44 * Math.log( expected.size() + 2 ) / Math.log( 2 ) );
+        for ( int i = 0; i < snapshots.size(); i++ )
+        {
+            assertEquals( snapshotContents.get( i ), keys( snapshots.get( i ) ) );
+        }
+    }
+
+    public void testBatchIsPublishedAtOnce()
+    {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        for ( int i = 0; i < 1000; i++ )
+        {
+            tree.insert( i );
+        }
+        PersistentAVLTree.Snapshot<Integer> before = tree.snapshot();
+        final List<PersistentAVLTree.Transient<Integer>> leaked = new ArrayList<>();
+        tree.batch( edit -> {
+            for ( int i = 0; i < 1000; i += 2 )
+            {
+                edit.delete( i );
+                edit.insert( -i - 1 );
+            }
+            assertTrue( tree.contains( 0 ) );
+            assertFalse( edit.contains( 0 ) );
+            leaked.add( edit );
+        } );
+        for ( int i = 0; i < 1000; i++ )
+        {
+            assertEquals( i % 2 == 1, tree.contains( i ) );
+            assertEquals( i % 2 == 0, tree.contains( -i - 1 ) );
+            assertTrue( before.contains( i ) );
+        }
+        assertEquals( 1000, keys( before ).size() );
+        try
+        {
+            leaked.get( 0 ).insert( 5000 );
+            fail();
+        }
+        catch ( IllegalStateException expected )
+        {
+        }
+    }
+
+    public void testFailedBatchPublishesNothing()
+    {
+        PersistentAVLTree<Integer> tree = new PersistentAVLTree<>();
+        tree.insert( 1 );
+        try
+        {
+            tree.batch( edit -> {
+                edit.insert( 2 );
+                throw new IllegalArgumentException();
+            } );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+        assertTrue( tree.contains( 1 ) );
+        assertFalse( tree.contains( 2 ) );
+    }
+
+    private static TreeSet<Integer> keys( PersistentAVLTree.Snapshot<Integer> snapshot )
+    {
+        List<Integer> keys = new ArrayList<>();
+        snapshot.forEach( keys::add );
+        for ( int i = 1; i < keys.size(); i++ )
+        {
+            assertTrue( keys.get( i - 1 ) < keys.get( i ) );
+        }
+        return new TreeSet<>( keys );
+    }
+}
@@ -0,0 +1,263 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Randomized tests of the int and long trees, and of the array-backed trees, against TreeSet,
+ * checking the balance invariants as they go.
+ */
+public class PrimitiveTreeTest
+    extends TestCase
+{
+    private static final int OPERATIONS = 200000;
+    private static final int CHECK_EVERY = 1000;
+    /** Small enough that deletes often hit, so the trees shrink and grow again. */
+    private static final int RANGE = 2000;
+
+    public PrimitiveTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( PrimitiveTreeTest.class );
+    }
+
+    public void testIntAVLTreeMatchesTreeSet()
+    {
+        IntAVLTree tree = new IntAVLTree();
+        exercise( tree, () -> checkHeight( tree.checkBalance(), tree.height(), 1.45 ) );
+    }
+
+    public void testIntRedBlackTreeMatchesTreeSet()
+    {
+        IntRedBlackTree tree = new IntRedBlackTree();
+        exercise( tree, () -> checkHeight( tree.checkColors(), tree.height(), 2 ) );
+    }
+
+    public void testLongAVLTreeMatchesTreeSet()
+    {
+        LongAVLTree tree = new LongAVLTree();
+        exercise( tree, () -> checkHeight( tree.checkBalance(), tree.height(), 1.45 ) );
+    }
+
+    public void testLongRedBlackTreeMatchesTreeSet()
+    {
+        LongRedBlackTree tree = new LongRedBlackTree();
+        exercise( tree, () -> checkHeight( tree.checkColors(), tree.height(), 2 ) );
+    }
+
+    public void testArrayAVLTreeMatchesTreeSet()
+    {
+        ArrayAVLTree tree = new ArrayAVLTree( 1 );
+        exercise( tree, () -> checkHeight( tree.checkBalance(), tree.height(), 1.45 ) );
+    }
+
+    public void testArrayRedBlackTreeMatchesTreeSet()
+    {
+        ArrayRedBlackTree tree = new ArrayRedBlackTree( 1 );
+        exercise( tree, () -> checkHeight( tree.checkColors(), tree.height(), 2 ) );
+    }
+
+    public void testArrayAVLTreeReusesFreedSlots()
+    {
+        ArrayAVLTree tree = new ArrayAVLTree();
+        churn( tree, ArrayAVLTree.BYTES_PER_SLOT, tree::checkBalance );
+        tree.buildFromSorted( new int[] {1, 3, 5} );
+        churn( tree, ArrayAVLTree.BYTES_PER_SLOT, tree::checkBalance );
+    }
+
+    public void testArrayRedBlackTreeReusesFreedSlots()
+    {
+        ArrayRedBlackTree tree = new ArrayRedBlackTree();
+        churn( tree, ArrayRedBlackTree.BYTES_PER_SLOT, tree::checkColors );
+        tree.buildFromSorted( new int[] {1, 3, 5} );
+        churn( tree, ArrayRedBlackTree.BYTES_PER_SLOT, tree::checkColors );
+    }
+
+    public void testLongSnapshotRoundTrip() throws IOException
+    {
+        Path file = Files.createTempFile( "tree", ".snapshot" );
+        try
+        {
+            Random random = new Random( 42 );
+            TreeSet<Long> expected = new TreeSet<>();
+            LongBalancedTree source = new LongRedBlackTree();
+            for ( int i = 0; i < 50000; i++ )
+            {
+                long key = random.nextLong();
+                source.insert( key );
+                expected.add( key );
+            }
+            source.save( file );
+            assertEquals( LongSnapshot.HEADER_BYTES + 8L * expected.size(), Files.size( file ) );
+
+            LongAVLTree loaded = new LongAVLTree();
+            loaded.load( file );
+            assertEquals( new ArrayList<>( expected ), keys( loaded ) );
+            loaded.checkBalance();
+
+            LongSnapshot snapshot = LongSnapshot.open( file );
+            assertEquals( expected.size(), snapshot.size() );
+            for ( int i = 0; i < 1000; i++ )
+            {
+                long key = random.nextLong();
+                assertEquals( expected.contains( key ), snapshot.contains( key ) );
+            }
+            for ( long key : expected )
+            {
+                assertTrue( snapshot.contains( key ) );
+            }
+        }
+        finally
+        {
+            Files.deleteIfExists( file );
+        }
+    }
+
+    public void testBytesPerEntry()
+    {
+        assertEquals( 0.0, new LongAVLTree().bytesPerEntry() );
+        LongBalancedTree tree = new LongRedBlackTree();
+        tree.insert( Long.MAX_VALUE );
+        assertTrue( tree.bytesPerEntry() > 0 );
+    }
+
+    /**
+     * Random inserts and deletes, comparing membership after each one and the keys in order, with
+     * {@code check}, every {@value #CHECK_EVERY} operations.
+     */
+    private static void exercise( IntBalancedTree tree, Runnable check )
+    {
+        Random random = new Random( 42 );
+        TreeSet<Long> expected = new TreeSet<>();
+        for ( int i = 1; i <= OPERATIONS; i++ )
+        {
+            int key = random.nextInt( RANGE ) - RANGE / 2;
+            boolean growing = ( i / 20000 ) % 2 == 0; // Alternate phases of mostly inserts and mostly deletes
+            if ( ( random.nextInt( 3 ) < 2 ) == growing )
+            {
+                tree.insert( key );
+                expected.add( (long) key );
+            }
+            else
+            {
+                tree.delete( key );
+                expected.remove( (long) key );
+            }
+            assertEquals( expected.contains( (long) key ), tree.contains( key ) );
+            if ( i % CHECK_EVERY == 0 )
+            {
+                assertEquals( new ArrayList<>( expected ), keys( tree ) );
+                check.run();
+            }
+        }
+    }
+
+    /**
+     * As above, with keys spread beyond the {@code int} range so truncation to 32 bits would show.
+     */
+    private static void exercise( LongBalancedTree tree, Runnable check )
+    {
+        Random random = new Random( 42 );
+        TreeSet<Long> expected = new TreeSet<>();
+        for ( int i = 1; i <= OPERATIONS; i++ )
+        {
+            long key = ( random.nextInt( RANGE ) - RANGE / 2 ) * ( 1L << 33 ) + 1;
+            boolean growing = ( i / 20000 ) % 2 == 0; // Alternate phases of mostly inserts and mostly deletes
+            if ( ( random.nextInt( 3 ) < 2 ) == growing )
+            {
+                tree.insert( key );
+                expected.add( key );
+            }
+            else
+            {
+                tree.delete( key );
+                expected.remove( key );
+            }
+            assertEquals( expected.contains( key ), tree.contains( key ) );
+            if ( i % CHECK_EVERY == 0 )
+            {
+                assertEquals( new ArrayList<>( expected ), keys( tree ) );
+                check.run();
+            }
+        }
+    }
+
+    /**
+     * Grows the tree to {@value #RANGE} / 2 keys, then deletes a random key and inserts a new one
+     * over and over, which must reuse the freed slots rather than grow the arrays.
+     */
+    private static void churn( IntBalancedTree tree, int bytesPerSlot, Runnable check )
+    {
+        Random random = new Random( 42 );
+        TreeSet<Long> expected = new TreeSet<>();
+        tree.forEach( key -> expected.add( (long) key ) );
+        while ( expected.size() < RANGE / 2 )
+        {
+            int key = random.nextInt( RANGE );
+            tree.insert( key );
+            expected.add( (long) key );
+        }
+        check.run();
+        long capacity = Math.round( tree.bytesPerEntry() * expected.size() / bytesPerSlot );
+        for ( int i = 1; i <= OPERATIONS / 10; i++ )
+        {
+            Long deleted = expected.ceiling( (long) random.nextInt( RANGE ) );
+            deleted = deleted == null ? expected.first() : deleted;
+            tree.delete( deleted.intValue() );
+            expected.remove( deleted );
+            assertFalse( tree.contains( deleted.intValue() ) );
+            int inserted;
+            do
+            {
+                inserted = random.nextInt( RANGE );
+            }
+            while ( expected.contains( (long) inserted ) );
+            tree.insert( inserted );
+            expected.add( (long) inserted );
+            assertTrue( tree.contains( inserted ) );
+            if ( i % CHECK_EVERY == 0 )
+            {
+                assertEquals( new ArrayList<>( expected ), keys( tree ) );
+                check.run();
+            }
+        }
+        assertEquals( capacity, Math.round( tree.bytesPerEntry() * expected.size() / bytesPerSlot ) );
+    }
+
+    /**
+     * The checker's result must agree with the height, which must be within {@code factor} of log2
+     * of the size.
+     */
+    private static void checkHeight( int checked, int height, double factor )
+    {
+        assertTrue( checked <= height );
+        assertTrue( height <= factor * Math.log( RANGE + 2 ) / Math.log( 2 ) + 1 );
+    }
+
+    private static List<Long> keys( IntBalancedTree tree )
+    {
+        List<Long> keys = new ArrayList<>();
+        tree.forEach( key -> keys.add( (long) key ) );
+        return keys;
+    }
+
+    private static List<Long> keys( LongBalancedTree tree )
+    {
+        List<Long> keys = new ArrayList<>();
+        tree.forEach( keys::add );
+        return keys;
+    }
+}
@@ -0,0 +1,209 @@
+package com.example;
+
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the join-based split, join and set operations.
+ */
+public class SetOperationsTest
+    extends TestCase
+{
+    private static final int RANGE = 100000;
+
+    private final Random random = new Random( 42 );
+    private ForkJoinPool pool;
+
+    public SetOperationsTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( SetOperationsTest.class );
+    }
+
+    protected void setUp()
+    {
+        pool = new ForkJoinPool( 4 );
+    }
+
+    protected void tearDown()
+    {
+        pool.shutdown();
+    }
+
+    public void testAvlSetOperationsMatchTreeSet()
+    {
+        for ( int size : new int[] { 0, 10, 1000, 50000 } )
+        {
+            TreeSet<Integer> a = randomSet( 20000 );
+            TreeSet<Integer> b = randomSet( size );
+
+            AVLTree<Integer> union = avlTree( a );
+            union.union( avlTree( b ), pool );
+            TreeSet<Integer> expected = new TreeSet<>( a );
+            expected.addAll( b );
+            assertContents( expected, union );
+
+            AVLTree<Integer> intersection = avlTree( a );
+            intersection.intersection( avlTree( b ), pool );
+            expected = new TreeSet<>( a );
+            expected.retainAll( b );
+            assertContents( expected, intersection );
+
+            AVLTree<Integer> difference = avlTree( a );
+            AVLTree<Integer> other = avlTree( b );
+            difference.difference( other, pool );
+            expected = new TreeSet<>( a );
+            expected.removeAll( b );
+            assertContents( expected, difference );
+            assertEquals( 0, other.height() );
+        }
+    }
+
+    public void testRedBlackSetOperationsMatchTreeSet()
+    {
+        for ( int size : new int[] { 0, 10, 1000, 50000 } )
+        {
+            TreeSet<Integer> a = randomSet( 20000 );
+            TreeSet<Integer> b = randomSet( size );
+
+            RedBlackTree<Integer> union = redBlackTree( a );
+            union.union( redBlackTree( b ), pool );
+            TreeSet<Integer> expected = new TreeSet<>( a );
+            expected.addAll( b );
+            assertContents( expected, union );
+
+            RedBlackTree<Integer> intersection = redBlackTree( a );
+            intersection.intersection( redBlackTree( b ), pool );
+            expected = new TreeSet<>( a );
+            expected.retainAll( b );
+            assertContents( expected, intersection );
+
+            RedBlackTree<Integer> difference = redBlackTree( a );
+            RedBlackTree<Integer> other = redBlackTree( b );
+            difference.difference( other, pool );
+            expected = new TreeSet<>( a );
+            expected.removeAll( b );
+            assertContents( expected, difference );
+            assertEquals( 0, other.height() );
+        }
+    }
+
+    public void testSplitAndJoin()
+    {
+        TreeSet<Integer> keys = randomSet( 30000 );
+        for ( int pivot : new int[] { -1, 0, keys.first(), RANGE / 2, keys.last(), RANGE } )
+        {
+            AVLTree<Integer> avl = avlTree( keys );
+            AVLTree<Integer> avlRight = avl.split( pivot );
+            assertKeys( new TreeSet<>( keys.headSet( pivot ) ), avl );
+            assertKeys( new TreeSet<>( keys.tailSet( pivot ) ), avlRight );
+            avl.join( avlRight );
+            assertContents( keys, avl );
+
+            RedBlackTree<Integer> rb = redBlackTree( keys );
+            RedBlackTree<Integer> rbRight = rb.split( pivot );
+            assertKeys( new TreeSet<>( keys.headSet( pivot ) ), rb );
+            assertKeys( new TreeSet<>( keys.tailSet( pivot ) ), rbRight );
+            rb.join( rbRight );
+            assertContents( keys, rb );
+        }
+    }
+
+    public void testJoinRejectsOverlappingTrees()
+    {
+        AVLTree<Integer> left = avlTree( randomSet( 100 ) );
+        try
+        {
+            left.join( avlTree( randomSet( 100 ) ) );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+    }
+
+    private TreeSet<Integer> randomSet( int size )
+    {
+        TreeSet<Integer> keys = new TreeSet<>();
+        for ( int i = 0; i < size; i++ )
+        {
+            keys.add( random.nextInt( RANGE ) );
+        }
+        return keys;
+    }
+
+    private AVLTree<Integer> avlTree( TreeSet<Integer> keys )
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        fill( tree, keys );
+        return tree;
+    }
+
+    private RedBlackTree<Integer> redBlackTree( TreeSet<Integer> keys )
+    {
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        fill( tree, keys );
+        return tree;
+    }
+
+    /**
+     * Fills the tree with inserts and deletes, so the set operations start from irregular shapes.
+     */
+    private void fill( BalancedBinaryTree<Integer> tree, TreeSet<Integer> keys )
+    {
+        for ( int key : keys )
+        {
+            tree.insert( key );
+            tree.insert( -key - 1 );
+        }
+        for ( int key : keys )
+        {
+            tree.delete( -key - 1 );
+        }
+    }
+
+    private void assertKeys( TreeSet<Integer> expected, BalancedBinaryTree<Integer> tree )
+    {
+        for ( int key = -1; key <= RANGE; key++ )
+        {
+            assertEquals( expected.contains( key ), tree.contains( key ) );
+        }
+        assertTrue( tree.height() <= 2 * Math.log( expected.size() + 1 ) / Math.log( 2 ) );
+    }
+
+    /**
+     * Checks the keys, then runs point operations on the result to catch broken balance information.
+     */
+    private void assertContents( TreeSet<Integer> expected, BalancedBinaryTree<Integer> tree )
+    {
+        assertKeys( expected, tree );
+        TreeSet<Integer> copy = new TreeSet<>( expected );
+        for ( int i = 0; i < 2000; i++ )
+        {
+            int key = random.nextInt( RANGE );
+            if ( random.nextBoolean() )
+            {
+                tree.insert( key );
+                copy.add( key );
+            }
+            else
+            {
+                tree.delete( key );
+                copy.remove( key );
+            }
+        }
+        for ( int key : copy )
+        {
+            assertTrue( tree.contains( key ) );
+        }
+    }
+}
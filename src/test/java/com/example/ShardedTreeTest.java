@@ -0,0 +1,180 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for ShardedTree.
+ */
+public class ShardedTreeTest
+    extends TestCase
+{
+    private static final int WRITERS = 4;
+    private static final int RANGE = 1 << 16;
+
+    public ShardedTreeTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( ShardedTreeTest.class );
+    }
+
+    private static List<Integer> keys( BalancedBinaryTree<Integer> tree )
+    {
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach( keys::add );
+        return keys;
+    }
+
+    public void testMatchesTreeSetWhileSplitting()
+    {
+        List<ShardedTree<Integer>> trees = Arrays.asList(
+            new ShardedTree<Integer>( AVLTree::new, Arrays.asList( 1000, 2000 ), 64 ),
+            new ShardedTree<Integer>( RedBlackTree::new, Arrays.asList( 1000, 2000 ), 64 ) );
+        for ( ShardedTree<Integer> tree : trees )
+        {
+            assertEquals( 3, tree.shardCount() );
+            TreeSet<Integer> expected = new TreeSet<>();
+            Random random = new Random( 5 );
+            for ( int i = 0; i < 50000; i++ )
+            {
+                int key = random.nextInt( 5000 ) - 1000;
+                if ( random.nextInt( 3 ) > 0 )
+                {
+                    tree.insert( key );
+                    expected.add( key );
+                }
+                else
+                {
+                    tree.delete( key );
+                    expected.remove( key );
+                }
+                assertEquals( expected.contains( key ), tree.contains( key ) );
+            }
+            assertTrue( tree.shardCount() >= expected.size() / 64 );
+            assertEquals( new ArrayList<>( expected ), keys( tree ) );
+            assertEquals( expected.size(), tree.size() );
+
+            List<Integer> range = new ArrayList<>();
+            tree.forEachInRange( 500, 2500, range::add );
+            assertEquals( new ArrayList<>( expected.subSet( 500, true, 2500, true ) ), range );
+            range.clear();
+            tree.forEachInRange( 10, 9, range::add );
+            assertTrue( range.isEmpty() );
+
+            // Spans several shards, and runs out at the end of the last one
+            assertEquals( 300, tree.forEachFrom( 500, 300, range::add ) );
+            assertEquals( new ArrayList<>( expected.tailSet( 500 ) ).subList( 0, 300 ), range );
+            range.clear();
+            int tail = expected.tailSet( 3900 ).size();
+            assertEquals( tail, tree.forEachFrom( 3900, 1000, range::add ) );
+            assertEquals( new ArrayList<>( expected.tailSet( 3900 ) ), range );
+
+            tree.clear();
+            assertEquals( 0, tree.size() );
+            assertFalse( tree.contains( expected.first() ) );
+        }
+    }
+
+    public void testHotShardSplitsBeforeItIsFull()
+    {
+        ShardedTree<Integer> tree = new ShardedTree<>( AVLTree::new, Arrays.asList( 1 << 20 ), 1 << 20 );
+        for ( int i = 0; i < 4 * ShardedTree.HOT_WINDOW; i++ )
+        {
+            tree.insert( i % 4096 );
+        }
+        assertTrue( tree.shardCount() > 2 );
+        assertEquals( 4096, tree.size() );
+    }
+
+    public void testSplitOffShardsComeFromTheFactory()
+    {
+        // Alternate the kinds so some splits join and others have to rebuild
+        final List<OrderedTree<Integer>> made = new ArrayList<>();
+        ShardedTree<Integer> tree = new ShardedTree<Integer>( () -> {
+            OrderedTree<Integer> shard = made.size() % 3 == 2 ? new RedBlackTree<>() : new AVLTree<>();
+            shard.setFingerSearch( true );
+            made.add( shard );
+            return shard;
+        }, new ArrayList<Integer>(), 64 );
+        StatsRecorder stats = new StatsRecorder();
+        tree.setRecorder( stats );
+        List<Integer> expected = new ArrayList<>();
+        for ( int key = 0; key < 5000; key++ )
+        {
+            tree.insert( key );
+            expected.add( key );
+        }
+        assertEquals( made.size(), tree.shardCount() );
+        assertTrue( tree.shardCount() >= 5000 / 64 );
+        for ( OrderedTree<Integer> shard : made )
+        {
+            assertTrue( shard.isFingerSearch() );
+            assertSame( stats, shard.getRecorder() );
+        }
+        assertEquals( expected, keys( tree ) );
+        assertEquals( 5000, stats.snapshot().operations() );
+    }
+
+    public void testConcurrentWritersOnDisjointKeys() throws InterruptedException
+    {
+        final ShardedTree<Integer> tree = new ShardedTree<>( RedBlackTree::new, new ArrayList<Integer>(), 256 );
+        final AtomicBoolean failed = new AtomicBoolean();
+        final List<TreeSet<Integer>> written = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for ( int w = 0; w < WRITERS; w++ )
+        {
+            final int id = w;
+            final TreeSet<Integer> keys = new TreeSet<>();
+            written.add( keys );
+            threads.add( new Thread( () -> {
+                Random random = new Random( id );
+                for ( int i = 0; i < 100000; i++ )
+                {
+                    int key = random.nextInt( RANGE / WRITERS ) * WRITERS + id;
+                    if ( random.nextInt( 3 ) > 0 )
+                    {
+                        tree.insert( key );
+                        keys.add( key );
+                    }
+                    else
+                    {
+                        tree.delete( key );
+                        keys.remove( key );
+                    }
+                    if ( tree.contains( key ) != keys.contains( key ) )
+                    {
+                        failed.set( true );
+                    }
+                }
+            } ) );
+        }
+        for ( Thread thread : threads )
+        {
+            thread.start();
+        }
+        for ( Thread thread : threads )
+        {
+            thread.join();
+        }
+        assertFalse( failed.get() );
+        TreeSet<Integer> expected = new TreeSet<>();
+        for ( TreeSet<Integer> keys : written )
+        {
+            expected.addAll( keys );
+        }
+        assertEquals( new ArrayList<>( expected ), keys( tree ) );
+        assertTrue( tree.shardCount() > 1 );
+    }
+}
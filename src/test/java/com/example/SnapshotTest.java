@@ -0,0 +1,129 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for saving and loading IntBalancedTree snapshots.
+ */
+public class SnapshotTest
+    extends TestCase
+{
+    private static final int RANGE = 200000;
+
+    private Path file;
+
+    public SnapshotTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( SnapshotTest.class );
+    }
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        file = Files.createTempFile( "tree", ".snapshot" );
+    }
+
+    @Override
+    protected void tearDown() throws IOException
+    {
+        Files.deleteIfExists( file );
+    }
+
+    public void testRoundTripBetweenTreeTypes() throws IOException
+    {
+        Random random = new Random( 42 );
+        TreeSet<Integer> expected = new TreeSet<>();
+        IntBalancedTree source = new IntRedBlackTree();
+        for ( int i = 0; i < 50000; i++ )
+        {
+            int key = random.nextInt( RANGE ) - RANGE / 2;
+            source.insert( key );
+            expected.add( key );
+        }
+        source.save( file );
+        assertEquals( IntSnapshot.HEADER_BYTES + 4L * expected.size(), Files.size( file ) );
+
+        for ( IntBalancedTree tree : trees() )
+        {
+            tree.insert( RANGE );
+            tree.load( file );
+            assertEquals( new ArrayList<>( expected ), keys( tree ) );
+            assertFalse( tree.contains( RANGE ) );
+        }
+
+        IntSnapshot snapshot = IntSnapshot.open( file );
+        assertEquals( expected.size(), snapshot.size() );
+        for ( int key = -RANGE / 2 - 1; key <= RANGE / 2; key++ )
+        {
+            assertEquals( expected.contains( key ), snapshot.contains( key ) );
+        }
+    }
+
+    public void testEmptyTree() throws IOException
+    {
+        new IntBTree().save( file );
+        IntAVLTree tree = new IntAVLTree();
+        tree.insert( 1 );
+        tree.load( file );
+        assertEquals( 0, tree.height() );
+        assertEquals( 0, IntSnapshot.open( file ).size() );
+        assertFalse( IntSnapshot.open( file ).contains( 0 ) );
+    }
+
+    public void testRejectsOtherFiles() throws IOException
+    {
+        Files.write( file, "value\n1\n2\n3\n".getBytes() );
+        try
+        {
+            IntSnapshot.open( file );
+            fail();
+        }
+        catch ( IOException expected )
+        {
+        }
+
+        IntBalancedTree tree = new IntAVLTree();
+        tree.insert( 1 );
+        tree.insert( 2 );
+        tree.save( file );
+        byte[] truncated = Arrays.copyOf( Files.readAllBytes( file ), IntSnapshot.HEADER_BYTES + 4 );
+        Files.write( file, truncated );
+        try
+        {
+            tree.load( file );
+            fail();
+        }
+        catch ( IOException expected )
+        {
+        }
+    }
+
+    private static List<IntBalancedTree> trees()
+    {
+        return Arrays.asList( new IntAVLTree(), new IntRedBlackTree(), new ArrayAVLTree(), new ArrayRedBlackTree(),
+                              new IntBTree() );
+    }
+
+    private static List<Integer> keys( IntBalancedTree tree )
+    {
+        List<Integer> keys = new ArrayList<>();
+        tree.forEach( keys::add );
+        return keys;
+    }
+}
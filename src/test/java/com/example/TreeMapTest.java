@@ -0,0 +1,254 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeMap;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for AVLTreeMap and RedBlackTreeMap against java.util.TreeMap.
+ */
+public class TreeMapTest
+    extends TestCase
+{
+    private static final int RANGE = 2000;
+
+    private final Random random = new Random( 42 );
+
+    public TreeMapTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( TreeMapTest.class );
+    }
+
+    public void testAvlTreeMap()
+    {
+        assertMatchesTreeMap( new AVLTreeMap<Integer, String>() );
+    }
+
+    public void testRedBlackTreeMap()
+    {
+        assertMatchesTreeMap( new RedBlackTreeMap<Integer, String>() );
+    }
+
+    public void testValuesFollowKeysWhenDeletingInnerNodes()
+    {
+        AVLTreeMap<Integer, String> map = new AVLTreeMap<>();
+        for ( int i = 0; i < 100; i++ )
+        {
+            map.put( i, "v" + i );
+        }
+        for ( int i = 0; i < 100; i += 3 )
+        {
+            assertEquals( "v" + i, map.remove( i ) );
+        }
+        for ( int i = 0; i < 100; i++ )
+        {
+            assertEquals( i % 3 == 0 ? null : "v" + i, map.get( i ) );
+        }
+    }
+
+    public void testComputeIfAbsent()
+    {
+        RedBlackTreeMap<Integer, String> map = new RedBlackTreeMap<>();
+        assertEquals( "a", map.computeIfAbsent( 1, k -> "a" ) );
+        assertEquals( "a", map.computeIfAbsent( 1, k -> "b" ) );
+        assertNull( map.computeIfAbsent( 2, k -> null ) );
+        assertFalse( map.containsKey( 2 ) );
+        assertEquals( 1, map.size() );
+        try
+        {
+            map.computeIfAbsent( 3, k -> map.put( 4, "x" ) );
+            fail();
+        }
+        catch ( ConcurrentModificationException expected )
+        {
+        }
+    }
+
+    public void testComputeIfAbsentLeavesKeyAbsentWhileAndAfterFunctionRuns()
+    {
+        AVLTreeMap<Integer, String> map = new AVLTreeMap<>();
+        map.put( 1, "a" );
+        try
+        {
+            map.computeIfAbsent( 2, k -> {
+                assertFalse( map.containsKey( 2 ) );
+                assertNull( map.get( 2 ) );
+                throw new IllegalStateException();
+            } );
+            fail();
+        }
+        catch ( IllegalStateException expected )
+        {
+        }
+        assertFalse( map.containsKey( 2 ) );
+        assertEquals( 1, map.size() );
+        assertEquals( "b", map.computeIfAbsent( 2, k -> "b" ) );
+        assertEquals( 2, map.size() );
+    }
+
+    public void testIteratorRemoveAndFailFast()
+    {
+        AVLTreeMap<Integer, String> map = new AVLTreeMap<>();
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for ( int i = 0; i < 500; i++ )
+        {
+            map.put( i, "v" + i );
+            expected.put( i, "v" + i );
+        }
+        for ( Iterator<Map.Entry<Integer, String>> it = map.descendingMap().entrySet().iterator(); it.hasNext(); )
+        {
+            Map.Entry<Integer, String> entry = it.next();
+            if ( entry.getKey() % 2 == 0 )
+            {
+                it.remove();
+                expected.remove( entry.getKey() );
+            }
+            else
+            {
+                entry.setValue( "w" + entry.getKey() );
+                expected.put( entry.getKey(), "w" + entry.getKey() );
+            }
+        }
+        assertEquals( expected, map );
+
+        Iterator<Integer> keys = map.keySet().iterator();
+        keys.next();
+        map.put( -1, "x" );
+        try
+        {
+            keys.next();
+            fail();
+        }
+        catch ( ConcurrentModificationException expected2 )
+        {
+        }
+    }
+
+    public void testEmptyMap()
+    {
+        AVLTreeMap<Integer, String> map = new AVLTreeMap<>();
+        assertNull( map.firstEntry() );
+        assertNull( map.pollLastEntry() );
+        assertFalse( map.entrySet().iterator().hasNext() );
+        try
+        {
+            map.firstKey();
+            fail();
+        }
+        catch ( NoSuchElementException expected )
+        {
+        }
+    }
+
+    public void testViewRejectsKeysOutOfRange()
+    {
+        AVLTreeMap<Integer, String> map = new AVLTreeMap<>();
+        NavigableMap<Integer, String> head = map.headMap( 10, false );
+        head.put( 5, "a" );
+        try
+        {
+            head.put( 10, "b" );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+        try
+        {
+            head.tailMap( 11, true );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+        assertEquals( "a", map.get( 5 ) );
+    }
+
+    private void assertMatchesTreeMap( NavigableMap<Integer, String> map )
+    {
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for ( int i = 0; i < 20000; i++ )
+        {
+            int key = random.nextInt( RANGE );
+            switch ( random.nextInt( 4 ) )
+            {
+                case 0:
+                    assertEquals( expected.remove( key ), map.remove( key ) );
+                    break;
+                case 1:
+                    assertEquals( expected.computeIfAbsent( key, k -> "c" + k ),
+                                  map.computeIfAbsent( key, k -> "c" + k ) );
+                    break;
+                default:
+                    assertEquals( expected.put( key, "p" + i ), map.put( key, "p" + i ) );
+            }
+            assertEquals( expected.get( key ), map.get( key ) );
+        }
+        assertEquals( expected.size(), map.size() );
+        assertEquals( expected, map );
+        assertEquals( map, expected );
+        assertEquals( expected.hashCode(), map.hashCode() );
+        assertEquals( expected.toString(), map.toString() );
+
+        assertNavigation( expected, map );
+        assertNavigation( expected.descendingMap(), map.descendingMap() );
+        for ( int i = 0; i < 50; i++ )
+        {
+            int from = random.nextInt( RANGE + 2 ) - 1;
+            int to = from + random.nextInt( RANGE / 4 );
+            boolean fromInclusive = random.nextBoolean();
+            boolean toInclusive = random.nextBoolean();
+            NavigableMap<Integer, String> sub = map.subMap( from, fromInclusive, to, toInclusive );
+            NavigableMap<Integer, String> expectedSub = expected.subMap( from, fromInclusive, to, toInclusive );
+            assertNavigation( expectedSub, sub );
+            assertNavigation( expectedSub.descendingMap(), sub.descendingMap() );
+            assertNavigation( expected.headMap( to, toInclusive ), map.headMap( to, toInclusive ) );
+            assertNavigation( expected.tailMap( from, fromInclusive ).descendingMap(),
+                              map.tailMap( from, fromInclusive ).descendingMap() );
+        }
+
+        NavigableMap<Integer, String> sub = map.subMap( RANGE / 4, true, RANGE / 2, false );
+        NavigableMap<Integer, String> expectedSub = expected.subMap( RANGE / 4, true, RANGE / 2, false );
+        sub.pollFirstEntry();
+        expectedSub.pollFirstEntry();
+        sub.keySet().removeIf( k -> k % 5 == 0 );
+        expectedSub.keySet().removeIf( k -> k % 5 == 0 );
+        assertEquals( expected, map );
+        sub.clear();
+        expectedSub.clear();
+        assertEquals( expected, map );
+        assertTrue( sub.isEmpty() );
+    }
+
+    private void assertNavigation( NavigableMap<Integer, String> expected, NavigableMap<Integer, String> map )
+    {
+        assertEquals( expected.size(), map.size() );
+        assertEquals( new ArrayList<>( expected.entrySet() ), new ArrayList<>( map.entrySet() ) );
+        assertEquals( new ArrayList<>( expected.descendingKeySet() ), new ArrayList<>( map.descendingKeySet() ) );
+        assertEquals( expected.firstEntry(), map.firstEntry() );
+        assertEquals( expected.lastEntry(), map.lastEntry() );
+        for ( int i = 0; i < 200; i++ )
+        {
+            int key = random.nextInt( RANGE + 2 ) - 1;
+            assertEquals( expected.get( key ), map.get( key ) );
+            assertEquals( expected.floorEntry( key ), map.floorEntry( key ) );
+            assertEquals( expected.lowerEntry( key ), map.lowerEntry( key ) );
+            assertEquals( expected.ceilingEntry( key ), map.ceilingEntry( key ) );
+            assertEquals( expected.higherEntry( key ), map.higherEntry( key ) );
+        }
+    }
+}
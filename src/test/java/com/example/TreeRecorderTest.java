@@ -0,0 +1,227 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the structural instrumentation of AVLTree and RedBlackTree.
+ */
+public class TreeRecorderTest
+    extends TestCase
+{
+    public TreeRecorderTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( TreeRecorderTest.class );
+    }
+
+    public void testOffByDefault()
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        tree.insert( 1 );
+        assertSame( TreeRecorder.NONE, tree.getRecorder() );
+        assertSame( TreeStats.EMPTY, tree.getStats() );
+    }
+
+    public void testAVLRotations()
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        tree.setRecorder( new StatsRecorder() );
+        for ( int i = 1; i <= 7; i++ )
+        {
+            tree.insert( i );
+        }
+        // Ascending keys rotate left at 3, 5, 6 and 7 and end up a perfect tree with 4 at the root
+        TreeStats stats = tree.getStats();
+        assertEquals( 7, stats.inserts );
+        assertEquals( 4, stats.singleRotations );
+        assertEquals( 0, stats.doubleRotations );
+
+        tree.setRecorder( new StatsRecorder() );
+        assertTrue( tree.contains( 4 ) );
+        assertFalse( tree.contains( 8 ) );
+        stats = tree.getStats();
+        assertEquals( 2, stats.lookups );
+        assertEquals( 1 + 3, stats.comparisons );
+        assertEquals( 0, stats.retraceLevels );
+
+        AVLTree<Integer> zigZag = new AVLTree<>();
+        zigZag.setRecorder( new StatsRecorder() );
+        zigZag.insert( 3 );
+        zigZag.insert( 1 );
+        zigZag.insert( 2 );
+        assertEquals( 0, zigZag.getStats().singleRotations );
+        assertEquals( 1, zigZag.getStats().doubleRotations );
+        // The third insert compares with 3 and 1, then retraces both levels up to the rotation
+        assertEquals( 0 + 1 + 2, zigZag.getStats().comparisons );
+        assertEquals( 0 + 1 + 2, zigZag.getStats().retraceLevels );
+        // Each insert also updates the size of every node it passed
+        assertEquals( 0 + 1 + 2, zigZag.getStats().updateLevels );
+    }
+
+    public void testRedBlackRotationsAndRecolors()
+    {
+        RedBlackTree<Integer> tree = new RedBlackTree<>();
+        tree.setRecorder( new StatsRecorder() );
+        tree.insert( 3 );
+        tree.insert( 1 );
+        tree.insert( 2 );
+        TreeStats stats = tree.getStats();
+        assertEquals( 1, stats.doubleRotations );
+        assertEquals( 0, stats.singleRotations );
+        assertEquals( 1 + 2, stats.recolors ); // The first root, then parent and grandparent
+        // The second insert stops at its black parent; the third looks at parent and grandparent
+        assertEquals( 0 + 1 + 2, stats.retraceLevels );
+        // The rotation moves the third key to the root, so only the second updates an ancestor
+        assertEquals( 0 + 1 + 0, stats.updateLevels );
+
+        tree.setRecorder( new StatsRecorder() );
+        tree.delete( 2 ); // The root: found at once, then one step to its successor 3
+        tree.delete( 42 ); // Compared with the new root 3 only
+        stats = tree.getStats();
+        assertEquals( 2, stats.deletes );
+        assertEquals( 1 + 1, stats.comparisons );
+        assertEquals( 2 + 1, stats.nodesVisited );
+    }
+
+    public void testCountsMatchAcrossManyOperations()
+    {
+        AVLTree<Integer> avl = new AVLTree<>();
+        RedBlackTree<Integer> redBlack = new RedBlackTree<>();
+        avl.setRecorder( new StatsRecorder() );
+        redBlack.setRecorder( new StatsRecorder() );
+        java.util.Random random = new java.util.Random( 42 );
+        for ( int i = 0; i < 10000; i++ )
+        {
+            int key = random.nextInt( 1000 );
+            switch ( i % 3 )
+            {
+                case 0:
+                    avl.insert( key );
+                    redBlack.insert( key );
+                    break;
+                case 1:
+                    avl.contains( key );
+                    redBlack.contains( key );
+                    break;
+                default:
+                    avl.delete( key );
+                    redBlack.delete( key );
+                    break;
+            }
+        }
+        for ( TreeStats stats : new TreeStats[] { avl.getStats(), redBlack.getStats() } )
+        {
+            assertEquals( 10000, stats.operations() );
+            assertTrue( stats.nodesVisited >= stats.comparisons );
+            assertTrue( stats.comparisonsPerOperation() < 2 * Math.log( 1000 ) / Math.log( 2 ) );
+            assertTrue( stats.singleRotations + stats.doubleRotations > 0 );
+        }
+        assertEquals( 0, avl.getStats().recolors );
+        assertTrue( redBlack.getStats().recolors > 0 );
+    }
+
+    /**
+     * Both trees refresh subtree sizes along the whole path they change, and report it the same way,
+     * while rebalancing stops after a few levels in either.
+     */
+    public void testBothTreesReportTheSameBookkeeping()
+    {
+        AVLTree<Integer> avl = new AVLTree<>();
+        RedBlackTree<Integer> redBlack = new RedBlackTree<>();
+        avl.setRecorder( new StatsRecorder() );
+        redBlack.setRecorder( new StatsRecorder() );
+        java.util.Random random = new java.util.Random( 42 );
+        for ( int i = 0; i < 100000; i++ )
+        {
+            int key = random.nextInt( 20000 );
+            if ( random.nextBoolean() )
+            {
+                avl.insert( key );
+                redBlack.insert( key );
+            }
+            else
+            {
+                avl.delete( key );
+                redBlack.delete( key );
+            }
+        }
+        double avlUpdates = avl.getStats().updateLevelsPerOperation();
+        double redBlackUpdates = redBlack.getStats().updateLevelsPerOperation();
+        assertTrue( avlUpdates > 4 && redBlackUpdates > 4 );
+        assertTrue( Math.abs( avlUpdates - redBlackUpdates ) < 0.25 * avlUpdates );
+        for ( TreeStats stats : new TreeStats[] { avl.getStats(), redBlack.getStats() } )
+        {
+            assertTrue( stats.retraceLevelsPerOperation() < 3 );
+        }
+    }
+
+    public void testForwardingTreeForwardsRecorder()
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        ForwardingTree<Integer> forwarding = new ForwardingTree<Integer>( tree )
+        {
+        };
+        forwarding.setRecorder( new StatsRecorder() );
+        forwarding.insert( 1 );
+        assertEquals( 1, forwarding.getStats().inserts );
+        assertSame( tree.getRecorder(), forwarding.getRecorder() );
+    }
+
+    public void testPublishesJfrEvents() throws IOException
+    {
+        Path file = Files.createTempFile( "trees", ".jfr" );
+        try ( Recording recording = new Recording(); JfrTreeRecorder recorder = new JfrTreeRecorder( "test" ) )
+        {
+            recording.enable( "com.example.TreeOperation" );
+            recording.start();
+            RedBlackTree<Integer> tree = new RedBlackTree<>();
+            tree.setRecorder( recorder );
+            for ( int i = 0; i < 100; i++ )
+            {
+                tree.insert( i );
+            }
+            tree.contains( 50 );
+            recording.stop();
+            recording.dump( file );
+
+            List<RecordedEvent> events = RecordingFile.readAllEvents( file );
+            int inserts = 0;
+            long rotations = 0;
+            for ( RecordedEvent event : events )
+            {
+                if ( event.getEventType().getName().equals( "com.example.TreeOperation" ) )
+                {
+                    assertEquals( "test", event.getString( "tree" ) );
+                    if ( event.getString( "operation" ).equals( "INSERT" ) )
+                    {
+                        inserts++;
+                        rotations += event.getInt( "rotations" );
+                    }
+                }
+            }
+            assertEquals( 100, inserts );
+            TreeStats stats = tree.getStats();
+            assertEquals( stats.singleRotations + stats.doubleRotations, rotations );
+            assertEquals( 1, stats.lookups );
+        }
+        finally
+        {
+            Files.deleteIfExists( file );
+        }
+    }
+}
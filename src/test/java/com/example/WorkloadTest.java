@@ -0,0 +1,167 @@
+package com.example;
+
+import java.util.function.IntSupplier;
+
+import com.example.benchmark.KeyDistribution;
+import com.example.benchmark.Workload;
+import com.example.benchmark.WorkloadRunner;
+
+import junit.framework.Test;
+import junit.framework.TestCase;
+import junit.framework.TestSuite;
+
+/**
+ * Unit tests for the workload generator.
+ */
+public class WorkloadTest
+    extends TestCase
+{
+    private static final int RANGE = 1000;
+    private static final int DRAWS = 100000;
+
+    public WorkloadTest( String testName )
+    {
+        super( testName );
+    }
+
+    public static Test suite()
+    {
+        return new TestSuite( WorkloadTest.class );
+    }
+
+    public void testZipfianIsSkewed()
+    {
+        int[] zipfian = histogram( KeyDistribution.zipfian( 0.99 ).generator( RANGE, 0, 1, 42 ) );
+        int[] uniform = histogram( KeyDistribution.uniform().generator( RANGE, 0, 1, 42 ) );
+        // The hottest of 1000 keys gets about 1 / zeta(1000) = 13% of the draws at skew 0.99
+        assertTrue( max( zipfian ) > DRAWS / 10 );
+        assertTrue( max( uniform ) < DRAWS / 50 );
+        int[] mild = histogram( KeyDistribution.zipfian( 0.5 ).generator( RANGE, 0, 1, 42 ) );
+        assertTrue( max( mild ) < max( zipfian ) );
+    }
+
+    public void testSequentialThreadsInterleave()
+    {
+        IntSupplier first = KeyDistribution.sequential().generator( 5, 0, 2, 42 );
+        IntSupplier second = KeyDistribution.sequential().generator( 5, 1, 2, 42 );
+        assertEquals( 0, first.getAsInt() );
+        assertEquals( 1, second.getAsInt() );
+        assertEquals( 2, first.getAsInt() );
+        assertEquals( 3, second.getAsInt() );
+        assertEquals( 4, first.getAsInt() );
+        assertEquals( 0, second.getAsInt() );
+
+        IntSupplier reverse = KeyDistribution.reverse().generator( 3, 0, 1, 42 );
+        assertEquals( 2, reverse.getAsInt() );
+        assertEquals( 1, reverse.getAsInt() );
+        assertEquals( 0, reverse.getAsInt() );
+        assertEquals( 2, reverse.getAsInt() );
+    }
+
+    public void testNearlySortedIsMostlyAscending()
+    {
+        IntSupplier keys = KeyDistribution.parse( "nearly-sorted:0.1" ).generator( DRAWS, 0, 1, 42 );
+        int ascending = 0;
+        int previous = -1;
+        for ( int i = 0; i < DRAWS; i++ )
+        {
+            int key = keys.getAsInt();
+            assertTrue( key >= 0 && key < DRAWS );
+            if ( key > previous )
+            {
+                ascending++;
+            }
+            previous = key;
+        }
+        assertTrue( ascending > DRAWS * 0.8 && ascending < DRAWS * 0.98 );
+    }
+
+    public void testParse()
+    {
+        assertEquals( "zipfian:0.99", KeyDistribution.parse( "zipfian" ).toString() );
+        assertEquals( "balanced (uniform)", Workload.parse( "balanced", 10, KeyDistribution.uniform() ).toString() );
+        Workload.parse( "70/10/10/10", 10, KeyDistribution.uniform() );
+        Workload.parse( "80/20", 10, KeyDistribution.uniform() );
+        try
+        {
+            Workload.parse( "70/10/10", 10, KeyDistribution.uniform() );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+        try
+        {
+            Workload.parse( "90/20", 10, KeyDistribution.uniform() );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+        try
+        {
+            KeyDistribution.zipfian( 1 );
+            fail();
+        }
+        catch ( IllegalArgumentException expected )
+        {
+        }
+    }
+
+    public void testRunsLockedTree() throws InterruptedException
+    {
+        AVLTree<Integer> tree = new AVLTree<>();
+        WorkloadRunner runner = new WorkloadRunner( tree,
+            Workload.balanced( RANGE, KeyDistribution.zipfian( 0.99 ) ), true );
+        runner.load();
+        assertEquals( RANGE, tree.size() );
+        WorkloadRunner.Result result = runner.run( 2, 300, 100 );
+        assertEquals( 3, result.throughput.length );
+        assertTrue( result.operations > 0 );
+        assertTrue( result.averageThroughput() > 0 );
+        assertTrue( tree.height() <= 1.45 * Math.log( 2 * RANGE ) / Math.log( 2 ) + 1 );
+    }
+
+    public void testRunsScansOnConcurrentTree() throws InterruptedException
+    {
+        ConcurrentAVLTree<Integer> tree = new ConcurrentAVLTree<>();
+        WorkloadRunner runner = new WorkloadRunner( tree,
+            Workload.scanHeavy( RANGE, KeyDistribution.sequential() ), false );
+        runner.load();
+        WorkloadRunner.Result result = runner.run( 2, 200, 100 );
+        assertTrue( result.operations > 0 );
+        assertEquals( 2, result.times.length );
+        assertTrue( result.times[1] >= 0.2 );
+    }
+
+    public void testRunsScansOnShardedTree() throws InterruptedException
+    {
+        ShardedTree<Integer> tree = new ShardedTree<>( AVLTree::new );
+        WorkloadRunner runner = new WorkloadRunner( tree,
+            Workload.scanHeavy( RANGE, KeyDistribution.sequential() ), false );
+        runner.load();
+        WorkloadRunner.Result result = runner.run( 2, 200, 100 );
+        assertTrue( result.operations > 0 );
+        assertEquals( 2, result.times.length );
+    }
+
+    private static int[] histogram( IntSupplier keys )
+    {
+        int[] counts = new int[RANGE];
+        for ( int i = 0; i < DRAWS; i++ )
+        {
+            counts[keys.getAsInt()]++;
+        }
+        return counts;
+    }
+
+    private static int max( int[] counts )
+    {
+        int max = 0;
+        for ( int count : counts )
+        {
+            max = Math.max( max, count );
+        }
+        return max;
+    }
+}
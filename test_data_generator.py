@@ -1,6 +1,8 @@
+import array
 import csv
 import random
-import numpy as np
+import struct
+import sys
 
 def generate_random_data(size):
     return [random.randint(0, size * 10) for _ in range(size)]
@@ -22,12 +24,28 @@ def save_to_csv(test_data, filename):
         for data_type, size, data in test_data:
             writer.writerow([data_type, size, ' '.join(map(str, data))])
 
+def save_to_bin(test_data, filename):
+    # Format read by DatasetFile: magic "TDB1", then per row the data type (16-bit length and UTF-8
+    # bytes), the size, the number of values and the values, all little-endian
+    with open(filename, 'wb') as binfile:
+        binfile.write(b'TDB1')
+        for data_type, size, data in test_data:
+            name = data_type.encode('utf-8')
+            binfile.write(struct.pack('<H', len(name)))
+            binfile.write(name)
+            binfile.write(struct.pack('<ii', size, len(data)))
+            values = array.array('i', data)
+            if sys.byteorder == 'big':
+                values.byteswap()
+            values.tofile(binfile)
+
 def main():
     sizes = [1000, 10000, 100000]
     # , 1000000, 10000000]  # Different data sizes
     test_data = generate_test_data(sizes)
     save_to_csv(test_data, 'test_data.csv')
-    print("Test data generated and saved to test_data.csv")
+    save_to_bin(test_data, 'test_data.bin')
+    print("Test data generated and saved to test_data.csv and test_data.bin")
 
 if __name__ == "__main__":
     main() 
\ No newline at end of file
@@ -56,6 +56,29 @@ def plot_all_operations(df):
     plt.savefig('all_operations.png')
     plt.close()
 
+def plot_tail_latency(df):
+    # Latency at each percentile, per operation, for every data type and size: the means above hide
+    # the rebalancing spikes that only show up in the tail
+    percentiles = ['P50', 'P90', 'P99', 'P99.9', 'Max']
+    operations = ['Insert', 'Search', 'Delete']
+
+    for (data_type, size), subset in df.groupby(['DataType', 'Size']):
+        plt.figure(figsize=(15, 5))
+        for i, operation in enumerate(operations, 1):
+            plt.subplot(1, 3, i)
+            for tree_type, rows in subset.groupby('TreeType'):
+                row = rows.iloc[0]
+                plt.plot(percentiles, [row[f'{operation}{p}(ns)'] for p in percentiles],
+                         marker='o', label=tree_type)
+            plt.title(f'{operation} latency - {data_type}, {size}')
+            plt.ylabel('Latency (ns)')
+            plt.xlabel('Percentile')
+            plt.yscale('log')
+            plt.legend(title='Tree Type')
+        plt.tight_layout()
+        plt.savefig(f'{data_type}_{size}_tail_latency.png')
+        plt.close()
+
 def main():
     # Load data
     df = load_data('performance_results.csv')
@@ -74,5 +97,8 @@ def main():
     # Plot all operations
     plot_all_operations(df)
 
+    # Plot latency percentiles
+    plot_tail_latency(df)
+
 if __name__ == "__main__":
     main() 
\ No newline at end of file